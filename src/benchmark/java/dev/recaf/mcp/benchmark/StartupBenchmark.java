@@ -0,0 +1,94 @@
+package dev.recaf.mcp.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the MCP Server takes from process start to its {@code initialize} response, the delay
+ * an MCP client sees at the start of every session, with and without the AppCDS archive.
+ * <p>
+ * Usage: {@code StartupBenchmark <java> <server jar> <archive> [runs]}, run by {@code gradlew mcpStartupBenchmark}.
+ * Both variants run alternately, after one discarded run each, so that neither profits from a warmer disk cache.
+ */
+public class StartupBenchmark {
+	private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+			+ "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"startup-benchmark\",\"version\":\"1\"}}}\n";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: StartupBenchmark <java> <server jar> <archive> [runs]");
+			System.exit(1);
+		}
+		String java = args[0];
+		String jar = args[1];
+		String archive = args[2];
+		int runs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+		List<String> plain = List.of(java, "-jar", jar);
+		// Same flags as the launch scripts, minus AutoCreateSharedArchive so no run rewrites the archive
+		List<String> withArchive = List.of(java, "-XX:SharedArchiveFile=" + archive, "-Xshare:auto",
+				"-Xlog:disable", "-Xlog:all=warning:stderr", "-jar", jar);
+
+		measure(plain);
+		measure(withArchive);
+		long[] plainNanos = new long[runs];
+		long[] archiveNanos = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			plainNanos[i] = measure(plain);
+			archiveNanos[i] = measure(withArchive);
+		}
+		report("without archive", plainNanos);
+		report("with archive", archiveNanos);
+	}
+
+	/**
+	 * @return Nanoseconds from starting the process to reading the {@code initialize} response.
+	 */
+	private static long measure(List<String> command) throws IOException, InterruptedException {
+		ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD);
+		// Nothing is waiting for a bridge during the handshake, but keep it that way
+		builder.environment().put("RECAF_MCP_READY_TIMEOUT_MS", "0");
+		long start = System.nanoTime();
+		Process process = builder.start();
+		try {
+			OutputStream in = process.getOutputStream();
+			in.write(INITIALIZE.getBytes(StandardCharsets.UTF_8));
+			in.flush();
+			BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+			String line;
+			while ((line = out.readLine()) != null) {
+				if (line.contains("\"id\":1")) break;
+			}
+			long elapsed = System.nanoTime() - start;
+			if (line == null) throw new IllegalStateException("Server exited without answering: " + command);
+			// End of input makes the server exit
+			in.close();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+			return elapsed;
+		} finally {
+			process.destroy();
+		}
+	}
+
+	private static void report(String label, long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		List<String> stats = new ArrayList<>();
+		stats.add("min " + millis(sorted[0]));
+		stats.add("median " + millis(sorted[sorted.length / 2]));
+		stats.add("p90 " + millis(sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.9) - 1)]));
+		stats.add("max " + millis(sorted[sorted.length - 1]));
+		System.out.printf("%-16s %d runs: %s%n", label, nanos.length, String.join(", ", stats));
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.1fms", nanos / 1_000_000.0);
+	}
+}
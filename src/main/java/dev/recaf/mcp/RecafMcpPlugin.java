@@ -23,6 +23,8 @@
 import software.coley.recaf.services.workspace.patch.PatchApplier;
 import software.coley.recaf.services.workspace.patch.PatchProvider;
 
+import java.util.Locale;
+
 /**
  * Recaf MCP Plugin - Exposes Recaf services via an HTTP bridge server
  * so that an external MCP Server process can relay AI tool calls to Recaf.
@@ -60,8 +62,8 @@ public RecafMcpPlugin(WorkspaceManager workspaceManager,
 
 	@Override
 	public void onEnable() {
-		// Ensure Recaf's logging UI captures INFO level messages from our plugin
-		Logging.setInterceptLevel(Level.INFO);
+		// Ensure Recaf's logging UI captures our messages, at INFO unless configured otherwise
+		Logging.setInterceptLevel(uiLogLevel());
 
 		try {
 			bridgeServer.start();
@@ -74,6 +76,20 @@ public void onEnable() {
 		}
 	}
 
+	/**
+	 * @return Level from the {@code recaf.mcp.log.uiLevel} system property, defaulting to {@code INFO}.
+	 */
+	private static Level uiLogLevel() {
+		String name = System.getProperty("recaf.mcp.log.uiLevel");
+		if (name == null || name.isBlank()) return Level.INFO;
+		try {
+			return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			logger.warn("Ignoring invalid recaf.mcp.log.uiLevel value: {}", name);
+			return Level.INFO;
+		}
+	}
+
 	@Override
 	public void onDisable() {
 		bridgeServer.stop();
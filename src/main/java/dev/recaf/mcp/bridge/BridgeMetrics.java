@@ -0,0 +1,236 @@
+package dev.recaf.mcp.bridge;
+
+import com.google.gson.stream.JsonWriter;
+import dev.recaf.mcp.util.ErrorMapper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process request metrics for the bridge, exported by {@code /metrics} as Prometheus text or JSON.
+ * <p>
+ * Per endpoint it keeps request counts by HTTP status and histograms of latency and response size.
+ * Gauges for running and queued requests are read from the {@link ConcurrencyLimiter}s on export,
+ * and error counts from {@link ErrorMapper#errorCounts()}.
+ */
+public class BridgeMetrics {
+	/** Prometheus bucket bounds for request latency, in seconds. */
+	private static final double[] LATENCY_BOUNDS = {
+			0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+	};
+	/** Prometheus bucket bounds for response size, in bytes. */
+	private static final long[] SIZE_BOUNDS = {
+			256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304, 16777216, 67108864
+	};
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+	private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+	private final long startNanos = System.nanoTime();
+	private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder coalesced = new LongAdder();
+	private final Collection<ConcurrencyLimiter> limiters;
+
+	/**
+	 * @param limiters Limiters to report running and queued requests of.
+	 */
+	public BridgeMetrics(Collection<ConcurrencyLimiter> limiters) {
+		this.limiters = limiters;
+	}
+
+	/**
+	 * Note that a request has been received.
+	 */
+	public void requestStarted() {
+		inFlight.incrementAndGet();
+	}
+
+	/**
+	 * Note that a request was answered with the response of an identical one.
+	 */
+	public void requestCoalesced() {
+		coalesced.increment();
+	}
+
+	/**
+	 * Record a finished request.
+	 *
+	 * @param path          Registered path of the endpoint.
+	 * @param status        HTTP status sent to the client.
+	 * @param elapsedNanos  Time from receiving the request to finishing the response, including queueing.
+	 * @param responseBytes Size of the response body.
+	 */
+	public void requestFinished(String path, int status, long elapsedNanos, long responseBytes) {
+		inFlight.decrementAndGet();
+		EndpointMetrics metrics = endpoints.computeIfAbsent(path, p -> new EndpointMetrics());
+		metrics.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+		metrics.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+		metrics.responseBytes.record(responseBytes);
+	}
+
+	/**
+	 * Write all metrics in the Prometheus text exposition format.
+	 */
+	public void writePrometheus(StringBuilder out) {
+		Map<String, EndpointMetrics> sorted = new TreeMap<>(endpoints);
+
+		header(out, "recaf_mcp_uptime_seconds", "gauge", "Time since the bridge started.");
+		out.append("recaf_mcp_uptime_seconds ").append(seconds(System.nanoTime() - startNanos)).append('\n');
+
+		header(out, "recaf_mcp_in_flight_requests", "gauge", "Requests received and not yet answered.");
+		out.append("recaf_mcp_in_flight_requests ").append(inFlight.get()).append('\n');
+
+		header(out, "recaf_mcp_coalesced_requests_total", "counter", "Requests answered with the response of an identical concurrent request.");
+		out.append("recaf_mcp_coalesced_requests_total ").append(coalesced.sum()).append('\n');
+
+		header(out, "recaf_mcp_group_limit", "gauge", "Concurrency cap of an endpoint group, 0 for unlimited.");
+		for (ConcurrencyLimiter limiter : limiters) {
+			sample(out, "recaf_mcp_group_limit", "group", limiter.getGroup().key(), limiter.getLimit());
+		}
+		header(out, "recaf_mcp_group_active", "gauge", "Requests of an endpoint group currently running.");
+		for (ConcurrencyLimiter limiter : limiters) {
+			sample(out, "recaf_mcp_group_active", "group", limiter.getGroup().key(), limiter.getActive());
+		}
+		header(out, "recaf_mcp_group_queued", "gauge", "Requests of an endpoint group waiting for a permit.");
+		for (ConcurrencyLimiter limiter : limiters) {
+			sample(out, "recaf_mcp_group_queued", "group", limiter.getGroup().key(), limiter.getWaiting());
+		}
+
+		header(out, "recaf_mcp_group_rejected_total", "counter", "Requests of an endpoint group turned away by a full queue.");
+		for (ConcurrencyLimiter limiter : limiters) {
+			sample(out, "recaf_mcp_group_rejected_total", "group", limiter.getGroup().key(), limiter.getRejected());
+		}
+
+		header(out, "recaf_mcp_requests_total", "counter", "Requests by endpoint and HTTP status.");
+		sorted.forEach((path, metrics) -> new TreeMap<>(metrics.statuses).forEach((status, count) ->
+				out.append("recaf_mcp_requests_total{path=\"").append(escape(path))
+						.append("\",status=\"").append(status).append("\"} ").append(count.sum()).append('\n')));
+
+		header(out, "recaf_mcp_request_duration_seconds", "histogram", "Request latency, including time queued.");
+		sorted.forEach((path, metrics) -> {
+			Histogram histogram = metrics.latencyMicros;
+			String label = "path=\"" + escape(path) + "\"";
+			for (double bound : LATENCY_BOUNDS) {
+				long count = histogram.countAtOrBelow((long) (bound * 1_000_000));
+				bucket(out, "recaf_mcp_request_duration_seconds", label, String.valueOf(bound), count);
+			}
+			bucket(out, "recaf_mcp_request_duration_seconds", label, "+Inf", histogram.getCount());
+			out.append("recaf_mcp_request_duration_seconds_sum{").append(label).append("} ")
+					.append(histogram.getSum() / 1_000_000.0).append('\n');
+			out.append("recaf_mcp_request_duration_seconds_count{").append(label).append("} ")
+					.append(histogram.getCount()).append('\n');
+		});
+
+		header(out, "recaf_mcp_response_size_bytes", "histogram", "Response body size.");
+		sorted.forEach((path, metrics) -> {
+			Histogram histogram = metrics.responseBytes;
+			String label = "path=\"" + escape(path) + "\"";
+			for (long bound : SIZE_BOUNDS) {
+				bucket(out, "recaf_mcp_response_size_bytes", label, String.valueOf(bound), histogram.countAtOrBelow(bound));
+			}
+			bucket(out, "recaf_mcp_response_size_bytes", label, "+Inf", histogram.getCount());
+			out.append("recaf_mcp_response_size_bytes_sum{").append(label).append("} ")
+					.append(histogram.getSum()).append('\n');
+			out.append("recaf_mcp_response_size_bytes_count{").append(label).append("} ")
+					.append(histogram.getCount()).append('\n');
+		});
+
+		header(out, "recaf_mcp_errors_total", "counter", "Error responses by error code.");
+		ErrorMapper.errorCounts().forEach((code, count) -> sample(out, "recaf_mcp_errors_total", "code", code, count));
+	}
+
+	/**
+	 * Write all metrics as the fields of a JSON object, with latency quantiles in milliseconds.
+	 */
+	public void writeJson(JsonWriter out) throws IOException {
+		out.name("uptimeMs").value(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+		out.name("inFlight").value(inFlight.get());
+		out.name("coalesced").value(coalesced.sum());
+
+		out.name("groups").beginArray();
+		for (ConcurrencyLimiter limiter : limiters) {
+			out.beginObject();
+			out.name("group").value(limiter.getGroup().key());
+			out.name("limit").value(limiter.getLimit());
+			out.name("active").value(limiter.getActive());
+			out.name("queued").value(limiter.getWaiting());
+			out.name("queueLimit").value(limiter.getQueueLimit());
+			out.name("rejected").value(limiter.getRejected());
+			out.endObject();
+		}
+		out.endArray();
+
+		out.name("endpoints").beginArray();
+		for (Map.Entry<String, EndpointMetrics> entry : new TreeMap<>(endpoints).entrySet()) {
+			EndpointMetrics metrics = entry.getValue();
+			out.beginObject();
+			out.name("path").value(entry.getKey());
+			out.name("requests").value(metrics.latencyMicros.getCount());
+			out.name("statuses").beginObject();
+			for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(metrics.statuses).entrySet()) {
+				out.name(String.valueOf(status.getKey())).value(status.getValue().sum());
+			}
+			out.endObject();
+
+			Histogram latency = metrics.latencyMicros;
+			out.name("latencyMs").beginObject();
+			out.name("mean").value(latency.getCount() == 0 ? 0 : latency.getSum() / 1000.0 / latency.getCount());
+			for (int i = 0; i < QUANTILES.length; i++) {
+				out.name(QUANTILE_NAMES[i]).value(latency.valueAtQuantile(QUANTILES[i]) / 1000.0);
+			}
+			out.name("max").value(latency.getMax() / 1000.0);
+			out.endObject();
+
+			Histogram size = metrics.responseBytes;
+			out.name("responseBytes").beginObject();
+			out.name("total").value(size.getSum());
+			out.name("p50").value(size.valueAtQuantile(0.5));
+			out.name("p99").value(size.valueAtQuantile(0.99));
+			out.name("max").value(size.getMax());
+			out.endObject();
+			out.endObject();
+		}
+		out.endArray();
+
+		out.name("errors").beginObject();
+		for (Map.Entry<String, Long> error : ErrorMapper.errorCounts().entrySet()) {
+			out.name(error.getKey()).value(error.getValue());
+		}
+		out.endObject();
+	}
+
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, String label, String value, long count) {
+		out.append(name).append('{').append(label).append("=\"").append(escape(value)).append("\"} ")
+				.append(count).append('\n');
+	}
+
+	private static void bucket(StringBuilder out, String name, String labels, String bound, long count) {
+		out.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ")
+				.append(count).append('\n');
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static double seconds(long nanos) {
+		return nanos / 1_000_000_000.0;
+	}
+
+	private static final class EndpointMetrics {
+		private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+		private final Histogram latencyMicros = new Histogram();
+		private final Histogram responseBytes = new Histogram();
+	}
+}
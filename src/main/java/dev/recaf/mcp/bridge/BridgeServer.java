@@ -1,9 +1,14 @@
 package dev.recaf.mcp.bridge;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import dev.recaf.mcp.bridge.ConcurrencyLimiter.Admission;
 import dev.recaf.mcp.bridge.handlers.*;
+import dev.recaf.mcp.util.AccessLog;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -22,23 +27,69 @@
 import software.coley.recaf.services.workspace.io.ResourceImporter;
 import software.coley.recaf.services.workspace.patch.PatchApplier;
 import software.coley.recaf.services.workspace.patch.PatchProvider;
+import software.coley.recaf.workspace.model.Workspace;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.BindException;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * HTTP Bridge Server that exposes Recaf services over localhost HTTP.
  * The MCP Server (separate process) communicates with this bridge via HTTP.
+ * <p>
+ * Each exchange runs on its own virtual thread. Heavy endpoint families are capped by
+ * {@link ConcurrencyLimiter}s so they cannot starve cheap metadata calls.
+ * <p>
+ * When the {@code recaf.mcp.socket} system property is set, the same endpoints are also served over a
+ * Unix domain socket at that path by {@link UnixSocketServer}.
  */
 public class BridgeServer {
 	private static final Logger logger = Logging.get(BridgeServer.class);
 	private static final int DEFAULT_PORT = 9847;
+	/** Exchange attribute holding the exception of a handler that failed after its response was committed. */
+	public static final String FAILURE_ATTRIBUTE = "recaf.mcp.failure";
+	/**
+	 * Exchange attribute marking an entry of an already admitted batch. Such entries wait for their slot
+	 * instead of being rejected when the queue is full, the batch size limit bounds them instead.
+	 */
+	public static final String BATCH_ENTRY_ATTRIBUTE = "recaf.mcp.batchEntry";
+	/** Exchange attribute holding a short note about how the request was handled, for the access log. */
+	public static final String NOTE_ATTRIBUTE = "recaf.mcp.note";
+	/** Response header carrying the workspace generation the request was handled at. */
+	public static final String GENERATION_HEADER = "X-Workspace-Generation";
+	/**
+	 * Routes whose body is not searched for a {@code workspaceId}: those never operating on a workspace, and those
+	 * whose bodies are large. They only take it as a query parameter or {@link RequestContext#WORKSPACE_ID_HEADER}.
+	 */
+	private static final Set<String> NO_BODY_WORKSPACE_ROUTES = Set.of(
+			"/health", "/workspace/open", "/workspace/list-workspaces", "/workspace/generation",
+			"/compile", "/assemble", "/batch", "/cancel", "/progress", "/metrics", "/ready");
 
 	private HttpServer server;
+	private UnixSocketServer unixSocketServer;
+	private ExecutorService executor;
+	private AccessLog accessLog;
 	private final int port;
+	private final Map<EndpointGroup, ConcurrencyLimiter> limiters = new EnumMap<>(EndpointGroup.class);
+	private final Map<String, Route> routes = new LinkedHashMap<>();
+	private final Map<String, HttpHandler> contexts = new LinkedHashMap<>();
+	private final RequestTracker requestTracker = new RequestTracker();
+	private final BridgeMetrics metrics = new BridgeMetrics(limiters.values());
+	private final SingleFlight singleFlight = new SingleFlight(metrics, this::coalescingScope);
 
 	// Recaf services
 	private final WorkspaceManager workspaceManager;
@@ -57,7 +108,12 @@ public class BridgeServer {
 	private final PatchApplier patchApplier;
 
 	// Multi-workspace registry
-	private final WorkspaceRegistry workspaceRegistry = new WorkspaceRegistry();
+	private final WorkspaceRegistry workspaceRegistry = new WorkspaceRegistry(this::currentWorkspace);
+	private final Snapshots snapshots = new Snapshots(workspaceRegistry);
+	private final ClassIndexStore classIndexStore = ClassIndexStore.fromSystemProperties();
+	private final ClassNodeCache classNodeCache = new ClassNodeCache();
+	private final ChangeJournal changeJournal = new ChangeJournal(workspaceRegistry);
+	private final WorkspaceLoader workspaceLoader;
 
 	public BridgeServer(WorkspaceManager workspaceManager,
 						ResourceImporter resourceImporter,
@@ -110,118 +166,395 @@ public BridgeServer(int port,
 		this.javacCompiler = javacCompiler;
 		this.patchProvider = patchProvider;
 		this.patchApplier = patchApplier;
+		this.workspaceLoader = new WorkspaceLoader(workspaceManager, resourceImporter, workspaceRegistry, classIndexStore);
 	}
 
 	public void start() throws IOException {
-		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
-		server.setExecutor(Executors.newFixedThreadPool(4));
+		for (EndpointGroup group : EndpointGroup.values()) {
+			limiters.put(group, new ConcurrencyLimiter(group));
+		}
+
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		accessLog = new AccessLog("bridge", BridgeServer::writeAccessLog,
+				AccessLog.Level.parse(System.getProperty("recaf.mcp.log.level"), AccessLog.Level.INFO),
+				Integer.getInteger("recaf.mcp.log.sample", 1),
+				Long.getLong("recaf.mcp.log.slowMs", 1000),
+				Integer.getInteger("recaf.mcp.log.bufferSize", 8192));
 
 		// Health check
-		server.createContext("/health", wrapHandler(exchange -> {
+		route("/health", EndpointGroup.DEFAULT, exchange -> {
 			sendJson(exchange, 200, "{\"status\":\"ok\"}");
-		}));
+		});
 
 		// Workspace endpoints (with multi-workspace registry)
-		WorkspaceHandler wsHandler = new WorkspaceHandler(workspaceManager, resourceImporter, workspaceRegistry);
-		server.createContext("/workspace/open", wrapHandler(wsHandler::handleOpen));
-		server.createContext("/workspace/close", wrapHandler(wsHandler::handleClose));
-		server.createContext("/workspace/info", wrapHandler(wsHandler::handleInfo));
-		server.createContext("/workspace/classes", wrapHandler(wsHandler::handleListClasses));
-		server.createContext("/workspace/class-info", wrapHandler(wsHandler::handleClassInfo));
-		server.createContext("/workspace/switch", wrapHandler(wsHandler::handleSwitch));
-		server.createContext("/workspace/list-workspaces", wrapHandler(wsHandler::handleListWorkspaces));
+		WorkspaceHandler wsHandler = new WorkspaceHandler(workspaceManager, workspaceRegistry, snapshots,
+				classIndexStore, classNodeCache, changeJournal, workspaceLoader);
+		mutatingRoute("/workspace/open", EndpointGroup.DEFAULT, wsHandler::handleOpen);
+		mutatingRoute("/workspace/close", EndpointGroup.DEFAULT, wsHandler::handleClose);
+		route("/workspace/info", EndpointGroup.DEFAULT, wsHandler::handleInfo);
+		route("/workspace/classes", EndpointGroup.DEFAULT, wsHandler::handleListClasses);
+		route("/workspace/class-info", EndpointGroup.DEFAULT, wsHandler::handleClassInfo);
+		mutatingRoute("/workspace/switch", EndpointGroup.DEFAULT, wsHandler::handleSwitch);
+		route("/workspace/pin", EndpointGroup.DEFAULT, wsHandler::handlePin);
+		route("/workspace/list-workspaces", EndpointGroup.DEFAULT, wsHandler::handleListWorkspaces);
+		route("/workspace/generation", EndpointGroup.DEFAULT, wsHandler::handleGeneration);
+		route("/workspace/changes", EndpointGroup.DEFAULT, wsHandler::handleChanges);
+		route("/workspace/open-status", EndpointGroup.DEFAULT, wsHandler::handleOpenStatus);
 
 		// Decompile endpoints
-		DecompileHandler decompHandler = new DecompileHandler(workspaceManager, decompilerManager);
-		server.createContext("/decompile", wrapHandler(decompHandler::handle));
+		DecompileHandler decompHandler = new DecompileHandler(decompilerManager);
+		route("/decompile", EndpointGroup.DECOMPILE, decompHandler::handle);
 
 		// Search endpoints
-		SearchHandler searchHandler = new SearchHandler(workspaceManager, searchService, stringPredicateProvider);
-		server.createContext("/search", wrapHandler(searchHandler::handle));
+		SearchHandler searchHandler = new SearchHandler(searchService, stringPredicateProvider, snapshots,
+				classIndexStore);
+		route("/search", EndpointGroup.SEARCH, searchHandler::handle);
 
 		// Analysis endpoints
 		AnalysisHandler analysisHandler = new AnalysisHandler(workspaceManager, callGraphService, inheritanceGraphService);
-		server.createContext("/analysis/call-graph", wrapHandler(analysisHandler::handleCallGraph));
-		server.createContext("/analysis/inheritance", wrapHandler(analysisHandler::handleInheritance));
+		route("/analysis/call-graph", EndpointGroup.ANALYSIS, analysisHandler::handleCallGraph);
+		route("/analysis/inheritance", EndpointGroup.ANALYSIS, analysisHandler::handleInheritance);
 
 		// Mapping endpoints
 		MappingHandler mappingHandler = new MappingHandler(workspaceManager, mappingApplierService,
 				mappingFormatManager, aggregateMappingManager);
-		server.createContext("/mapping/rename", wrapHandler(mappingHandler::handleRename));
-		server.createContext("/mapping/export", wrapHandler(mappingHandler::handleExport));
+		mutatingRoute("/mapping/rename", EndpointGroup.DEFAULT, mappingHandler::handleRename);
+		route("/mapping/export", EndpointGroup.DEFAULT, mappingHandler::handleExport);
 
 		// Bytecode editing endpoints
-		BytecodeHandler bytecodeHandler = new BytecodeHandler(workspaceManager);
-		server.createContext("/bytecode/edit-method", wrapHandler(bytecodeHandler::handleEditMethod));
-		server.createContext("/bytecode/edit-field", wrapHandler(bytecodeHandler::handleEditField));
-		server.createContext("/bytecode/remove-member", wrapHandler(bytecodeHandler::handleRemoveMember));
-		server.createContext("/bytecode/add-field", wrapHandler(bytecodeHandler::handleAddField));
-		server.createContext("/bytecode/add-method", wrapHandler(bytecodeHandler::handleAddMethod));
+		BytecodeHandler bytecodeHandler = new BytecodeHandler(classNodeCache);
+		mutatingRoute("/bytecode/edit-method", EndpointGroup.BYTECODE, bytecodeHandler::handleEditMethod);
+		mutatingRoute("/bytecode/edit-field", EndpointGroup.BYTECODE, bytecodeHandler::handleEditField);
+		mutatingRoute("/bytecode/remove-member", EndpointGroup.BYTECODE, bytecodeHandler::handleRemoveMember);
+		mutatingRoute("/bytecode/add-field", EndpointGroup.BYTECODE, bytecodeHandler::handleAddField);
+		mutatingRoute("/bytecode/add-method", EndpointGroup.BYTECODE, bytecodeHandler::handleAddMethod);
 
 		// Diff endpoint
-		DiffHandler diffHandler = new DiffHandler(workspaceManager, decompilerManager);
-		server.createContext("/diff", wrapHandler(diffHandler::handle));
+		DiffHandler diffHandler = new DiffHandler(decompilerManager);
+		route("/diff", EndpointGroup.DECOMPILE, diffHandler::handle);
 
 		// Export endpoints
-		ExportHandler exportHandler = new ExportHandler(workspaceManager, decompilerManager);
-		server.createContext("/export/jar", wrapHandler(exportHandler::handleExportJar));
-		server.createContext("/export/source", wrapHandler(exportHandler::handleExportSource));
+		ExportHandler exportHandler = new ExportHandler(decompilerManager);
+		route("/export/jar", EndpointGroup.EXPORT, exportHandler::handleExportJar);
+		route("/export/source", EndpointGroup.EXPORT, exportHandler::handleExportSource);
 
 		// Assembler endpoints
-		AssemblerHandler assemblerHandler = new AssemblerHandler(workspaceManager, assemblerPipelineManager);
-		server.createContext("/disassemble", wrapHandler(assemblerHandler::handleDisassemble));
-		server.createContext("/disassemble/method", wrapHandler(assemblerHandler::handleMethodDisassemble));
-		server.createContext("/assemble", wrapHandler(assemblerHandler::handleAssemble));
+		AssemblerHandler assemblerHandler = new AssemblerHandler(assemblerPipelineManager);
+		route("/disassemble", EndpointGroup.BYTECODE, assemblerHandler::handleDisassemble);
+		route("/disassemble/method", EndpointGroup.BYTECODE, assemblerHandler::handleMethodDisassemble);
+		mutatingRoute("/assemble", EndpointGroup.BYTECODE, assemblerHandler::handleAssemble);
 
 		// Compile endpoint
-		CompileHandler compileHandler = new CompileHandler(workspaceManager, javacCompiler);
-		server.createContext("/compile", wrapHandler(compileHandler::handle));
+		CompileHandler compileHandler = new CompileHandler(javacCompiler);
+		mutatingRoute("/compile", EndpointGroup.BYTECODE, compileHandler::handle);
 
 		// Patch endpoint
-		PatchHandler patchHandler = new PatchHandler(workspaceManager, patchProvider, patchApplier);
-		server.createContext("/patch", wrapHandler(patchHandler::handle));
+		PatchHandler patchHandler = new PatchHandler(patchProvider, patchApplier);
+		mutatingRoute("/patch", EndpointGroup.DEFAULT, patchHandler::handle);
 
 		// Additional workspace endpoints (outline, read-file, delete-class)
-		server.createContext("/workspace/outline", wrapHandler(wsHandler::handleOutline));
-		server.createContext("/workspace/read-file", wrapHandler(wsHandler::handleReadFile));
-		server.createContext("/workspace/delete-class", wrapHandler(wsHandler::handleDeleteClass));
+		route("/workspace/outline", EndpointGroup.DEFAULT, wsHandler::handleOutline);
+		route("/workspace/read-file", EndpointGroup.DEFAULT, wsHandler::handleReadFile);
+		mutatingRoute("/workspace/delete-class", EndpointGroup.DEFAULT, wsHandler::handleDeleteClass);
 
 		// Method bytecode instructions endpoint
-		server.createContext("/bytecode/instructions", wrapHandler(bytecodeHandler::handleMethodBytecode));
+		route("/bytecode/instructions", EndpointGroup.BYTECODE, bytecodeHandler::handleMethodBytecode);
+
+		// Batch endpoint, dispatches to the routes registered above
+		BatchHandler batchHandler = new BatchHandler(Collections.unmodifiableMap(routes));
+		contexts.put("/batch", wrapHandler("/batch", null, batchHandler::handle));
+
+		// Cancellation endpoint, never queued behind the requests it cancels
+		CancelHandler cancelHandler = new CancelHandler(requestTracker);
+		contexts.put("/cancel", wrapHandler("/cancel", null, cancelHandler::handle));
+
+		// Progress endpoint, answers while the request it reports on holds its slot
+		ProgressHandler progressHandler = new ProgressHandler(requestTracker);
+		contexts.put("/progress", wrapHandler("/progress", null, progressHandler::handle));
+
+		// Metrics endpoint, answers even when every endpoint group is saturated
+		MetricsHandler metricsHandler = new MetricsHandler(metrics);
+		contexts.put("/metrics", wrapHandler("/metrics", null, metricsHandler::handle));
+
+		// Readiness endpoint, reports whether the warm-up has finished, unlike /health
+		WarmUp warmUp = new WarmUp(decompilerManager, searchService, stringPredicateProvider, callGraphService,
+				Integer.getInteger("recaf.mcp.warmup.iterations", 3));
+		contexts.put("/ready", wrapHandler("/ready", null, exchange -> sendSuccess(exchange, warmUp.status())));
 
+		// Optional unix domain socket transport
+		String socketPath = System.getProperty("recaf.mcp.socket");
+		if (socketPath != null && !socketPath.isBlank()) {
+			unixSocketServer = new UnixSocketServer(Path.of(socketPath), Collections.unmodifiableMap(contexts), executor);
+			unixSocketServer.start();
+		}
+
+		warmUp.start();
+
+		try {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		} catch (BindException e) {
+			if (unixSocketServer == null) throw e;
+			logger.warn("Port {} is in use, MCP Bridge Server is only reachable over unix socket {}", port, socketPath);
+			return;
+		}
+		server.setExecutor(executor);
+		contexts.forEach(server::createContext);
 		server.start();
 		logger.info("MCP Bridge Server started on port {}", port);
 	}
 
 	public void stop() {
-		if (server != null) {
-			workspaceRegistry.clear();
-			server.stop(1);
+		if (executor != null) {
+			workspaceRegistry.close();
+			if (server != null) server.stop(1);
+			if (unixSocketServer != null) unixSocketServer.stop();
+			workspaceLoader.close();
+			executor.shutdownNow();
+			accessLog.close();
 			logger.info("MCP Bridge Server stopped");
 		}
 	}
 
 	/**
-	 * Wraps a handler with request logging and error handling.
+	 * Register a read-only handler for the given path, limited by its endpoint group's concurrency cap.
+	 */
+	private void route(String path, EndpointGroup group, HttpHandler handler) {
+		register(path, group, false, handler);
+	}
+
+	/**
+	 * Register a handler that modifies workspace state for the given path.
+	 */
+	private void mutatingRoute(String path, EndpointGroup group, HttpHandler handler) {
+		register(path, group, true, handler);
+	}
+
+	private void register(String path, EndpointGroup group, boolean mutating, HttpHandler handler) {
+		HttpHandler wrapped = mutating
+				? wrapHandler(path, limiters.get(group), false, versioned(handler))
+				: wrapHandler(path, limiters.get(group), true, handler);
+		routes.put(path, new Route(path, group, mutating, wrapped));
+		contexts.put(path, wrapped);
+	}
+
+	/**
+	 * Advance the workspace generation before and after a mutating handler, so that no read overlapping
+	 * the change shares a generation with reads made after it. The response reports the odd, in-progress generation.
+	 */
+	private HttpHandler versioned(HttpHandler handler) {
+		return exchange -> {
+			long generation = workspaceRegistry.nextGeneration();
+			exchange.getResponseHeaders().set(GENERATION_HEADER, String.valueOf(generation));
+			try {
+				handler.handle(exchange);
+			} finally {
+				workspaceRegistry.nextGeneration();
+			}
+			// Opens and switches are what grow the registry or leave workspaces idle
+			workspaceRegistry.evictIdle();
+		};
+	}
+
+	private Workspace currentWorkspace() {
+		return workspaceManager.getCurrent();
+	}
+
+	/**
+	 * @return State that identical read-only requests must share to be coalesced, besides the workspace they
+	 * resolve to: the workspace generation, which also changes with the current workspace.
 	 */
-	private HttpHandler wrapHandler(HttpHandler handler) {
+	private String coalescingScope() {
+		return String.valueOf(workspaceRegistry.getGeneration(workspaceManager.getCurrent()));
+	}
+
+	private HttpHandler wrapHandler(String route, ConcurrencyLimiter limiter, HttpHandler handler) {
+		return wrapHandler(route, limiter, false, handler);
+	}
+
+	/**
+	 * Wraps a handler with request tracking, request coalescing, deadline-aware admission control, metrics,
+	 * access logging and error handling. The limiter is {@code null} for endpoints that only dispatch to other,
+	 * already limited, routes.
+	 *
+	 * @param route    Registered path, used as the metrics key.
+	 * @param coalesce Whether identical concurrent requests share one execution, only for read-only handlers.
+	 */
+	private HttpHandler wrapHandler(String route, ConcurrencyLimiter limiter, boolean coalesce, HttpHandler handler) {
+		HttpHandler admitted = exchange -> admit(exchange, limiter, handler);
+		// Coalesce ahead of admission, so requests waiting on an identical one don't take a slot
+		HttpHandler inner = coalesce ? singleFlight.wrap(route, admitted) : admitted;
+		boolean bodyWorkspace = !NO_BODY_WORKSPACE_ROUTES.contains(route);
 		return exchange -> {
 			String path = exchange.getRequestURI().getPath();
-			String method = exchange.getRequestMethod();
-			logger.info("[MCP Bridge] {} {}", method, path);
+			long start = System.nanoTime();
+			metrics.requestStarted();
+			CountingOutputStream responseBody = new CountingOutputStream(exchange.getResponseBody());
+			exchange.setStreams(null, responseBody);
 			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.getResponseHeaders().set(GENERATION_HEADER,
+					String.valueOf(workspaceRegistry.getGeneration(workspaceManager.getCurrent())));
+			RequestContext context = requestTracker.begin(exchange);
+			String note = null;
+			String heldId = null;
 			try {
-				long start = System.currentTimeMillis();
-				handler.handle(exchange);
-				long elapsed = System.currentTimeMillis() - start;
-				logger.info("[MCP Bridge] {} {} completed in {}ms", method, path, elapsed);
+				String workspaceId = workspaceIdOf(exchange, bodyWorkspace);
+				if (workspaceId != null) {
+					// Kept in memory until the request is done, edits to an evicted copy would be lost
+					workspaceRegistry.hold(workspaceId);
+					heldId = workspaceId;
+				}
+				if (resolveWorkspace(exchange, context, workspaceId)) inner.handle(exchange);
 			} catch (Exception e) {
-				logger.error("[MCP Bridge] {} {} failed: {}", method, path, e.getMessage(), e);
-				sendJson(exchange, 500, ErrorMapper.mapException(path, e));
+				if (context.isCancelled()) {
+					note = "cancelled";
+				} else {
+					logger.error("[MCP Bridge] {} {} failed: {}", exchange.getRequestMethod(), path, e.getMessage(), e);
+				}
+				if (exchange.getResponseCode() == -1) {
+					sendJson(exchange, 500, ErrorMapper.mapException(path, e));
+				} else {
+					// Response was already being streamed, the client sees a truncated body
+					exchange.setAttribute(FAILURE_ATTRIBUTE, e);
+					exchange.close();
+					if (note == null) note = "failed mid-response";
+				}
+			} finally {
+				if (heldId != null) workspaceRegistry.release(heldId);
+				long elapsed = System.nanoTime() - start;
+				int status = exchange.getAttribute(FAILURE_ATTRIBUTE) != null ? 500 : exchange.getResponseCode();
+				if (note == null) note = (String) exchange.getAttribute(NOTE_ATTRIBUTE);
+				metrics.requestFinished(route, status, elapsed, responseBody.getCount());
+				accessLog.request(exchange.getRequestMethod(), route, status, elapsed, responseBody.getCount(),
+						context.getRequestId(), note);
+				requestTracker.end(context);
 			}
 		};
 	}
 
+	/**
+	 * Resolve the workspace a request operates on: the one named by its {@code workspaceId}, restored if it was
+	 * evicted, else the current workspace.
+	 *
+	 * @param workspaceId Workspace ID the request names, or {@code null} for none.
+	 * @return {@code false} when the named workspace is not registered, the request was answered with an error.
+	 */
+	private boolean resolveWorkspace(HttpExchange exchange, RequestContext context, String workspaceId)
+			throws IOException {
+		// Closing an evicted workspace only deletes its spill file, it is not restored for that
+		if (workspaceId != null && "/workspace/close".equals(exchange.getRequestURI().getPath())
+				&& workspaceRegistry.getEvicted().containsKey(workspaceId)) {
+			return true;
+		}
+		Workspace workspace = workspaceId == null ? workspaceManager.getCurrent() : workspaceRegistry.get(workspaceId);
+		if (workspace == null && workspaceId != null) {
+			sendJson(exchange, 404, ErrorMapper.workspaceNotFound(workspaceId));
+			return false;
+		}
+		if (workspace != null) {
+			if (workspaceId == null) workspaceRegistry.touch(workspace);
+			// Journal from the first use on, so clients can later ask what changed since their results
+			changeJournal.track(workspace);
+		}
+		context.setWorkspace(workspace, workspaceId != null ? workspaceId : workspaceRegistry.findId(workspace));
+		return true;
+	}
+
+	/**
+	 * Find the workspace ID a request names: as a query parameter, else as a {@link RequestContext#WORKSPACE_ID_HEADER},
+	 * else, for routes that take it there, as a top-level body field. Only the last reads the body ahead of the
+	 * handler, the body is kept for it.
+	 *
+	 * @param searchBody Whether the route takes the ID in its body.
+	 * @return Workspace ID the request names, or {@code null} for none.
+	 */
+	static String workspaceIdOf(HttpExchange exchange, boolean searchBody) throws IOException {
+		String id = queryParam(exchange, "workspaceId");
+		if (id == null) id = exchange.getRequestHeaders().getFirst(RequestContext.WORKSPACE_ID_HEADER);
+		if (id != null) return id.isBlank() ? null : id.trim();
+		if (!searchBody) return null;
+		byte[] bytes = exchange.getRequestBody().readAllBytes();
+		exchange.setStreams(new ByteArrayInputStream(bytes), null);
+		String body = new String(bytes, StandardCharsets.UTF_8);
+		// Most requests name no workspace, don't parse their body twice
+		if (!body.contains("\"workspaceId\"")) return null;
+		try {
+			id = JsonUtil.getString(JsonUtil.parseObject(body), "workspaceId", null);
+			return id == null || id.isBlank() ? null : id;
+		} catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+			// Malformed or not a string, the handler reports the body itself
+			return null;
+		}
+	}
+
+	/**
+	 * Run a handler once the request is admitted by its endpoint group's limiter, or answer it with
+	 * {@code OVERLOADED} or {@code DEADLINE_EXCEEDED} when it is not.
+	 */
+	static void admit(HttpExchange exchange, ConcurrencyLimiter limiter, HttpHandler handler)
+			throws IOException {
+		RequestContext context = RequestContext.of(exchange);
+		String path = exchange.getRequestURI().getPath();
+		Admission admission;
+		if (context.remainingNanos() <= 0) {
+			admission = Admission.EXPIRED;
+		} else if (limiter == null) {
+			admission = Admission.ADMITTED;
+		} else {
+			boolean exempt = exchange.getAttribute(BATCH_ENTRY_ATTRIBUTE) != null;
+			try {
+				admission = limiter.acquire(context.remainingNanos(), exempt);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a slot");
+			}
+		}
+		if (admission == Admission.REJECTED) {
+			// Shed load early, while the client still has time to retry
+			long retryAfterMs = limiter.retryAfterMillis();
+			exchange.setAttribute(NOTE_ATTRIBUTE, "rejected, queue full");
+			exchange.getResponseHeaders().set("Retry-After", String.valueOf((retryAfterMs + 999) / 1000));
+			sendJson(exchange, 503, ErrorMapper.overloaded(path, retryAfterMs));
+			return;
+		} else if (admission == Admission.EXPIRED) {
+			// The client has given up by now, don't spend any work on it
+			exchange.setAttribute(NOTE_ATTRIBUTE, "expired before it could start");
+			sendJson(exchange, 504, ErrorMapper.deadlineExceeded(path));
+			return;
+		}
+		long admitted = System.nanoTime();
+		try {
+			handler.handle(exchange);
+		} finally {
+			if (limiter != null) limiter.release(System.nanoTime() - admitted);
+		}
+	}
+
+	/**
+	 * Access log sink, runs on the access log's flusher thread.
+	 */
+	private static void writeAccessLog(AccessLog.Level level, String line) {
+		switch (level) {
+			case DEBUG -> logger.debug(line);
+			case INFO -> logger.info(line);
+			case WARN -> logger.warn(line);
+			case ERROR -> logger.error(line);
+		}
+	}
+
+	/**
+	 * @return Decoded value of a query parameter, or {@code null} when the request has none by that name.
+	 */
+	public static String queryParam(HttpExchange exchange, String name) {
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null) return null;
+		for (String param : query.split("&")) {
+			if (param.startsWith(name + "=")) {
+				return URLDecoder.decode(param.substring(name.length() + 1), StandardCharsets.UTF_8);
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Read the request body as a string.
 	 */
@@ -239,4 +572,40 @@ public static void sendJson(HttpExchange exchange, int statusCode, String json)
 			os.write(bytes);
 		}
 	}
+
+	/**
+	 * Send a success response, serializing the data straight into the response body.
+	 */
+	public static void sendSuccess(HttpExchange exchange, Object data) throws IOException {
+		streamSuccess(exchange, null, data);
+	}
+
+	/**
+	 * Send a success response whose {@code data} object fields are emitted incrementally by the given writer.
+	 * The body uses chunked transfer encoding, so large payloads are never materialized as a whole.
+	 */
+	public static void streamSuccess(HttpExchange exchange, JsonBodyWriter body) throws IOException {
+		streamSuccess(exchange, body, null);
+	}
+
+	private static void streamSuccess(HttpExchange exchange, JsonBodyWriter body, Object data) throws IOException {
+		exchange.sendResponseHeaders(200, 0);
+		try (JsonWriter out = new JsonWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+			out.beginObject();
+			out.name("status").value("ok");
+			out.name("data");
+			if (body != null) {
+				out.beginObject();
+				body.write(out);
+				out.endObject();
+			} else if (data instanceof JsonElement element) {
+				JsonUtil.gson().toJson(element, out);
+			} else if (data != null) {
+				JsonUtil.gson().toJson(data, data.getClass(), out);
+			} else {
+				out.nullValue();
+			}
+			out.endObject();
+		}
+	}
 }
@@ -0,0 +1,146 @@
+package dev.recaf.mcp.bridge;
+
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BundleListener;
+import software.coley.recaf.workspace.model.bundle.FileBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+
+import java.util.*;
+
+/**
+ * Journal of the classes and files added, removed and replaced in the primary resources of workspaces, each change
+ * stamped with the workspace generation it belongs to, so that a client holding results of one generation can ask
+ * what changed since and invalidate only that.
+ * <p>
+ * A workspace is followed from the first request that uses it on. Changes the bridge did not make itself, such as
+ * edits in Recaf's UI, advance the generation as they are journaled. Each journal keeps the most recent
+ * {@code recaf.mcp.journal.maxEntries} changes, a client asking about older ones is told to start over.
+ */
+public class ChangeJournal {
+	private static final int MAX_ENTRIES = Math.max(1, Integer.getInteger("recaf.mcp.journal.maxEntries", 10000));
+
+	private final WorkspaceRegistry registry;
+	private final Map<Workspace, Journal> journals = Collections.synchronizedMap(new WeakHashMap<>());
+
+	public ChangeJournal(WorkspaceRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Start following a workspace, unless it already is.
+	 */
+	public void track(Workspace workspace) {
+		journals.computeIfAbsent(workspace, ws -> new Journal(ws.getPrimaryResource().getJvmClassBundle(),
+				ws.getPrimaryResource().getFileBundle(), registry.getGeneration()));
+	}
+
+	/**
+	 * Stop following a workspace, such as when it is closed.
+	 */
+	public void untrack(Workspace workspace) {
+		Journal journal = journals.remove(workspace);
+		if (journal != null) journal.close();
+	}
+
+	/**
+	 * @param workspace Workspace to get the changes of.
+	 * @param since     Generation the caller has results of.
+	 * @return Changes of later generations, oldest first, or {@code null} when the journal no longer or not yet
+	 * covers all of them.
+	 */
+	public List<Change> since(Workspace workspace, long since) {
+		Journal journal = journals.get(workspace);
+		return journal == null ? null : journal.since(since);
+	}
+
+	/**
+	 * @return Oldest generation changes of the workspace can be asked about, or {@code -1} when it is not followed.
+	 */
+	public long coveredSince(Workspace workspace) {
+		Journal journal = journals.get(workspace);
+		return journal == null ? -1 : journal.coveredSince();
+	}
+
+	/**
+	 * @param generation Generation the change belongs to.
+	 * @param kind       {@code class} or {@code file}.
+	 * @param action     {@code added}, {@code removed} or {@code replaced}.
+	 * @param name       Internal class name or file path.
+	 */
+	public record Change(long generation, String kind, String action, String name) {
+	}
+
+	/**
+	 * Changes of one workspace. Must not refer to the workspace, else it would never be collected.
+	 */
+	private final class Journal {
+		private final JvmClassBundle classes;
+		private final FileBundle files;
+		private final ArrayDeque<Change> changes = new ArrayDeque<>();
+		private final BundleListener<JvmClassInfo> classListener = new Listener<>("class");
+		private final BundleListener<FileInfo> fileListener = new Listener<>("file");
+		/** Changes of generations after this one are all journaled. */
+		private long coveredSince;
+
+		private Journal(JvmClassBundle classes, FileBundle files, long trackedAt) {
+			this.classes = classes;
+			this.files = files;
+			// Changes an in-progress modification made before now were missed, cover only what follows it
+			this.coveredSince = trackedAt + (trackedAt & 1);
+			classes.addBundleListener(classListener);
+			files.addBundleListener(fileListener);
+		}
+
+		private void close() {
+			classes.removeBundleListener(classListener);
+			files.removeBundleListener(fileListener);
+		}
+
+		private synchronized void record(String kind, String action, String name) {
+			if (changes.size() == MAX_ENTRIES) coveredSince = changes.removeFirst().generation();
+			changes.addLast(new Change(registry.changeGeneration(), kind, action, name));
+		}
+
+		private synchronized long coveredSince() {
+			return coveredSince;
+		}
+
+		private synchronized List<Change> since(long since) {
+			if (since < coveredSince) return null;
+			List<Change> result = new ArrayList<>();
+			Iterator<Change> newestFirst = changes.descendingIterator();
+			while (newestFirst.hasNext()) {
+				Change change = newestFirst.next();
+				if (change.generation() <= since) break;
+				result.add(change);
+			}
+			Collections.reverse(result);
+			return result;
+		}
+
+		private final class Listener<I> implements BundleListener<I> {
+			private final String kind;
+
+			private Listener(String kind) {
+				this.kind = kind;
+			}
+
+			@Override
+			public void onNewItem(String key, I value) {
+				record(kind, "added", key);
+			}
+
+			@Override
+			public void onUpdateItem(String key, I oldValue, I newValue) {
+				record(kind, "replaced", key);
+			}
+
+			@Override
+			public void onRemoveItem(String key, I value) {
+				record(kind, "removed", key);
+			}
+		}
+	}
+}
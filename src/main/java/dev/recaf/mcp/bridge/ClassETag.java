@@ -0,0 +1,111 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.HttpExchange;
+import software.coley.recaf.info.InnerClassInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.path.ClassPathNode;
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Entity tags for responses that are derived from a single class.
+ * <p>
+ * The tag is a hash of the class bytecode, plus whatever else shapes the response, such as the decompiler.
+ * Handlers compute it before doing any real work and answer {@code If-None-Match} requests for an unchanged
+ * class with {@code 304 Not Modified}, so clients that keep the previous response pay only for the lookup.
+ */
+public final class ClassETag {
+	private static final HexFormat HEX = HexFormat.of();
+	/** Bytes of the digest kept in the tag, enough to make collisions between class versions implausible. */
+	private static final int TAG_BYTES = 16;
+
+	private ClassETag() {
+	}
+
+	/**
+	 * @param classInfo Class the response is derived from.
+	 * @param variant   Other inputs of the response, or {@code null} for none.
+	 * @return Quoted entity tag.
+	 */
+	public static String of(JvmClassInfo classInfo, String variant) {
+		MessageDigest digest = sha256();
+		digest.update(classInfo.getBytecode());
+		return finish(digest, variant);
+	}
+
+	/**
+	 * Like {@link #of(JvmClassInfo, String)}, but also covering the nested classes of the class, for responses
+	 * that inline them such as decompiled source.
+	 *
+	 * @param workspace Workspace to look the nested classes up in.
+	 */
+	public static String withNested(Workspace workspace, JvmClassInfo classInfo, String variant) {
+		MessageDigest digest = sha256();
+		digest.update(classInfo.getBytecode());
+		String prefix = classInfo.getName() + '$';
+		for (InnerClassInfo inner : classInfo.getInnerClasses()) {
+			String innerName = inner.getInnerClassName();
+			if (!innerName.startsWith(prefix)) continue;
+			ClassPathNode innerPath = workspace.findJvmClass(innerName);
+			// Separate entries, so moving bytes between nested classes changes the tag
+			digest.update(innerName.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			if (innerPath != null) digest.update(innerPath.getValue().asJvmClass().getBytecode());
+		}
+		return finish(digest, variant);
+	}
+
+	/**
+	 * Set the {@code ETag} response header, and answer the request with {@code 304 Not Modified}
+	 * when the client's {@code If-None-Match} already holds it.
+	 *
+	 * @param etag Entity tag of the response, from {@link #of(JvmClassInfo, String)}.
+	 * @return {@code true} when the request was answered, the handler must not send anything else.
+	 */
+	public static boolean notModified(HttpExchange exchange, String etag) throws IOException {
+		exchange.getResponseHeaders().set("ETag", etag);
+		if (!matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) return false;
+		exchange.setAttribute(BridgeServer.NOTE_ATTRIBUTE, "not modified");
+		exchange.sendResponseHeaders(304, -1);
+		exchange.getResponseBody().close();
+		return true;
+	}
+
+	/**
+	 * @return {@code true} when the {@code If-None-Match} header lists the tag. Uses weak comparison, as
+	 * RFC 9110 requires for this header.
+	 */
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) return false;
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.equals("*")) return true;
+			if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+			if (candidate.equals(etag)) return true;
+		}
+		return false;
+	}
+
+	private static String finish(MessageDigest digest, String variant) {
+		if (variant != null) {
+			digest.update((byte) 0);
+			digest.update(variant.getBytes(StandardCharsets.UTF_8));
+		}
+		byte[] hash = digest.digest();
+		return '"' + HEX.formatHex(hash, 0, TAG_BYTES) + '"';
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
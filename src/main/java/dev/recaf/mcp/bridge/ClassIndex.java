@@ -0,0 +1,375 @@
+package dev.recaf.mcp.bridge;
+
+import org.objectweb.asm.ClassReader;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.member.ClassMember;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact, memory-mapped index of the classes of an archive: names, super types, interfaces, member signatures
+ * and constant-pool strings, enough to list, outline and search the classes before the archive is imported.
+ * <p>
+ * Layout, all numbers are big-endian ints:
+ * <pre>
+ * header   magic, version, class count, string count, string table position, class table position
+ * classes  per class: name, super name (-1 for none), access, class file version, interfaces (count, strings),
+ *          fields and methods (count, then name, descriptor and access of each), constant-pool strings (count, strings)
+ * strings  per string: byte length, UTF-8 bytes
+ * tables   position of each string by number, then position of each class sorted by class name
+ * </pre>
+ * Strings are stored once and referenced by their number. Nothing is decoded until asked for, so an open index
+ * costs little heap beyond the page cache backing its mapping. Every position and string number is checked when
+ * the index is opened, so a corrupt file is rejected there rather than failing queries later.
+ * Instances are immutable and thread-safe.
+ */
+public final class ClassIndex {
+	private static final int MAGIC = 0x524D4349; // "RMCI"
+	private static final int VERSION = 3;
+	private static final int HEADER_SIZE = 24;
+	private static final int CONSTANT_STRING_TAG = 8;
+
+	/** Only read with absolute gets, which leave the buffer position alone and so are safe to share. */
+	private final ByteBuffer buffer;
+	private final int classCount;
+	private final int stringCount;
+	private final int stringTable;
+	private final int classTable;
+
+	private ClassIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("Not a class index of version " + VERSION);
+		classCount = buffer.getInt(8);
+		stringCount = buffer.getInt(12);
+		stringTable = buffer.getInt(16);
+		classTable = buffer.getInt(20);
+		if (classCount < 0 || stringCount < 0 || stringTable < HEADER_SIZE || classTable < HEADER_SIZE
+				|| stringTable + 4L * stringCount > buffer.capacity() || classTable + 4L * classCount > buffer.capacity())
+			throw new IOException("Truncated class index");
+		validate();
+	}
+
+	/**
+	 * Check that every string and class record lies within the buffer and references only existing strings.
+	 */
+	private void validate() throws IOException {
+		int capacity = buffer.capacity();
+		for (int id = 0; id < stringCount; id++) {
+			int position = buffer.getInt(stringTable + 4 * id);
+			if (position < HEADER_SIZE || position > capacity - 4) throw corrupt("string " + id);
+			int length = buffer.getInt(position);
+			if (length < 0 || length > capacity - 4 - position) throw corrupt("string " + id);
+		}
+		for (int i = 0; i < classCount; i++) {
+			int position = buffer.getInt(classTable + 4 * i);
+			if (position < HEADER_SIZE || position > capacity - 16) throw corrupt("class " + i);
+			checkString(buffer.getInt(position), i);
+			int superName = buffer.getInt(position + 4);
+			if (superName != -1) checkString(superName, i);
+			position = checkList(position + 16, 1, i); // Interfaces
+			position = checkList(position, 3, i); // Fields
+			position = checkList(position, 3, i); // Methods
+			checkList(position, 1, i); // Constant-pool strings
+		}
+	}
+
+	/**
+	 * Check a list of strings (one int per item) or members (name, descriptor and access per item).
+	 *
+	 * @return Position after the list.
+	 */
+	private int checkList(int position, int intsPerItem, int classIndex) throws IOException {
+		if (position > buffer.capacity() - 4) throw corrupt("class " + classIndex);
+		int count = buffer.getInt(position);
+		if (count < 0 || 4L * intsPerItem * count > buffer.capacity() - 4 - position) throw corrupt("class " + classIndex);
+		for (int i = 0; i < count; i++) {
+			int item = position + 4 + 4 * intsPerItem * i;
+			checkString(buffer.getInt(item), classIndex);
+			// The descriptor of a member, its access is not a string
+			if (intsPerItem == 3) checkString(buffer.getInt(item + 4), classIndex);
+		}
+		return position + 4 + 4 * intsPerItem * count;
+	}
+
+	private void checkString(int id, int classIndex) throws IOException {
+		if (id < 0 || id >= stringCount) throw corrupt("class " + classIndex);
+	}
+
+	private static IOException corrupt(String what) {
+		return new IOException("Corrupt class index: " + what + " is out of bounds");
+	}
+
+	/**
+	 * Map an index file.
+	 *
+	 * @param file Index file, written by {@link #write(Path, Iterable)}.
+	 * @return Mapped index.
+	 * @throws IOException When the file cannot be mapped, or is not an index of the current version.
+	 */
+	public static ClassIndex open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("Class index too large to map: " + file);
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return new ClassIndex(mapped);
+		}
+	}
+
+	/**
+	 * Write an index of the given classes.
+	 *
+	 * @param file    File to write, replaced if it exists.
+	 * @param classes Classes to index.
+	 */
+	public static void write(Path file, Iterable<JvmClassInfo> classes) throws IOException {
+		List<JvmClassInfo> sorted = new ArrayList<>();
+		for (JvmClassInfo classInfo : classes) sorted.add(classInfo);
+		sorted.sort(Comparator.comparing(JvmClassInfo::getName));
+
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		int[] classPositions = new int[sorted.size()];
+		int stringTable;
+		int classTable;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			// Header is filled in once the positions are known
+			out.write(new byte[HEADER_SIZE]);
+			for (int i = 0; i < sorted.size(); i++) {
+				JvmClassInfo classInfo = sorted.get(i);
+				classPositions[i] = position(out);
+				out.writeInt(intern(strings, classInfo.getName()));
+				out.writeInt(classInfo.getSuperName() == null ? -1 : intern(strings, classInfo.getSuperName()));
+				out.writeInt(classInfo.getAccess());
+				out.writeInt(classInfo.getVersion());
+				writeStrings(out, strings, classInfo.getInterfaces());
+				writeMembers(out, strings, classInfo.getFields());
+				writeMembers(out, strings, classInfo.getMethods());
+				writeStrings(out, strings, constantStrings(classInfo.getBytecode()));
+			}
+			int[] stringPositions = new int[strings.size()];
+			int n = 0;
+			for (String string : strings.keySet()) {
+				stringPositions[n++] = position(out);
+				byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(utf8.length);
+				out.write(utf8);
+			}
+			stringTable = position(out);
+			for (int stringPosition : stringPositions) out.writeInt(stringPosition);
+			classTable = position(out);
+			for (int classPosition : classPositions) out.writeInt(classPosition);
+			// Must still be mappable
+			position(out);
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+				.putInt(MAGIC).putInt(VERSION).putInt(sorted.size()).putInt(strings.size())
+				.putInt(stringTable).putInt(classTable)
+				.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			while (header.hasRemaining()) channel.write(header, header.position());
+		}
+	}
+
+	/**
+	 * @return Number of classes in the index.
+	 */
+	public int size() {
+		return classCount;
+	}
+
+	/**
+	 * @param i Index of a class, classes are sorted by name.
+	 * @return Name of the class.
+	 */
+	public String className(int i) {
+		return string(buffer.getInt(classPosition(i)));
+	}
+
+	/**
+	 * @return Names of all classes, sorted.
+	 */
+	public List<String> classNames() {
+		List<String> names = new ArrayList<>(classCount);
+		for (int i = 0; i < classCount; i++) names.add(className(i));
+		return names;
+	}
+
+	/**
+	 * @param prefix Required name prefix, such as a package {@code com/example/}, or empty for any.
+	 * @param filter Required substring of the name, or empty for any.
+	 * @return Sorted names of the matching classes.
+	 */
+	public List<String> find(String prefix, String filter) {
+		// First name not before the prefix, the matching ones follow it
+		int low = 0;
+		int high = classCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (className(mid).compareTo(prefix) < 0) low = mid + 1;
+			else high = mid;
+		}
+		List<String> names = new ArrayList<>();
+		for (int i = low; i < classCount; i++) {
+			String name = className(i);
+			if (!name.startsWith(prefix)) break;
+			if (name.contains(filter)) names.add(name);
+		}
+		return names;
+	}
+
+	/**
+	 * @param name Internal name of a class.
+	 * @return Index of the class, or {@code -1} when it is not in the index.
+	 */
+	public int indexOf(String name) {
+		int low = 0;
+		int high = classCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = className(mid).compareTo(name);
+			if (cmp < 0) low = mid + 1;
+			else if (cmp > 0) high = mid - 1;
+			else return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param name Internal name of a class.
+	 * @return Indexed class, or {@code null} when it is not in the index.
+	 */
+	public Entry get(String name) {
+		int i = indexOf(name);
+		return i < 0 ? null : get(i);
+	}
+
+	/**
+	 * @param i Index of a class, classes are sorted by name.
+	 * @return Indexed class.
+	 */
+	public Entry get(int i) {
+		int position = classPosition(i);
+		String name = string(buffer.getInt(position));
+		int superName = buffer.getInt(position + 4);
+		int access = buffer.getInt(position + 8);
+		int version = buffer.getInt(position + 12);
+		int[] cursor = {position + 16};
+		List<String> interfaces = readStrings(cursor);
+		List<Member> fields = readMembers(cursor);
+		List<Member> methods = readMembers(cursor);
+		List<String> constants = readStrings(cursor);
+		return new Entry(name, superName < 0 ? null : string(superName), access, version,
+				interfaces, fields, methods, constants);
+	}
+
+	private int classPosition(int i) {
+		Objects.checkIndex(i, classCount);
+		return buffer.getInt(classTable + 4 * i);
+	}
+
+	private String string(int id) {
+		Objects.checkIndex(id, stringCount);
+		int position = buffer.getInt(stringTable + 4 * id);
+		byte[] utf8 = new byte[buffer.getInt(position)];
+		buffer.get(position + 4, utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+	private List<String> readStrings(int[] cursor) {
+		int count = buffer.getInt(cursor[0]);
+		List<String> values = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) values.add(string(buffer.getInt(cursor[0] + 4 + 4 * i)));
+		cursor[0] += 4 + 4 * count;
+		return values;
+	}
+
+	private List<Member> readMembers(int[] cursor) {
+		int count = buffer.getInt(cursor[0]);
+		List<Member> members = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int position = cursor[0] + 4 + 12 * i;
+			members.add(new Member(string(buffer.getInt(position)), string(buffer.getInt(position + 4)),
+					buffer.getInt(position + 8)));
+		}
+		cursor[0] += 4 + 12 * count;
+		return members;
+	}
+
+	private static void writeStrings(DataOutputStream out, Map<String, Integer> strings, Collection<String> values) throws IOException {
+		out.writeInt(values.size());
+		for (String value : values) out.writeInt(intern(strings, value));
+	}
+
+	private static void writeMembers(DataOutputStream out, Map<String, Integer> strings,
+									 List<? extends ClassMember> members) throws IOException {
+		out.writeInt(members.size());
+		for (ClassMember member : members) {
+			out.writeInt(intern(strings, member.getName()));
+			out.writeInt(intern(strings, member.getDescriptor()));
+			out.writeInt(member.getAccess());
+		}
+	}
+
+	private static int intern(Map<String, Integer> strings, String value) {
+		return strings.computeIfAbsent(value, k -> strings.size());
+	}
+
+	/**
+	 * @return {@code CONSTANT_String} values of the class, in constant-pool order.
+	 */
+	private static Set<String> constantStrings(byte[] bytecode) {
+		Set<String> values = new LinkedHashSet<>();
+		try {
+			ClassReader reader = new ClassReader(bytecode);
+			char[] chars = new char[reader.getMaxStringLength()];
+			for (int i = 1; i < reader.getItemCount(); i++) {
+				int offset = reader.getItem(i);
+				// Zero for the unused slot after a long or double
+				if (offset > 0 && bytecode[offset - 1] == CONSTANT_STRING_TAG) values.add((String) reader.readConst(i, chars));
+			}
+		} catch (RuntimeException e) {
+			// Malformed constant pool, as in some obfuscated classes: index the class without its strings
+		}
+		return values;
+	}
+
+	private static int position(DataOutputStream out) throws IOException {
+		// The count saturates rather than overflowing
+		if (out.size() == Integer.MAX_VALUE) throw new IOException("Class index exceeds 2 GB");
+		return out.size();
+	}
+
+	/**
+	 * @param name       Internal name of the class.
+	 * @param superName  Internal name of the super class, or {@code null} for none.
+	 * @param access     Class access flags.
+	 * @param version    Class file version.
+	 * @param interfaces Internal names of the implemented interfaces.
+	 * @param fields     Declared fields.
+	 * @param methods    Declared methods.
+	 * @param strings    Constant-pool strings.
+	 */
+	public record Entry(String name, String superName, int access, int version, List<String> interfaces,
+						List<Member> fields, List<Member> methods, List<String> strings) {
+	}
+
+	/**
+	 * @param name       Member name.
+	 * @param descriptor Member descriptor.
+	 * @param access     Member access flags.
+	 */
+	public record Member(String name, String descriptor, int access) {
+	}
+}
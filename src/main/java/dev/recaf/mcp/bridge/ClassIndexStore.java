@@ -0,0 +1,263 @@
+package dev.recaf.mcp.bridge;
+
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BundleListener;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ClassIndex Class indexes} of the primary resources of opened workspaces.
+ * <p>
+ * Indexes are stored in {@code recaf.mcp.index.dir} under the SHA-256 of the archive they were built from, so
+ * reopening the same archive maps the existing index instead of building it again. A workspace opened in the
+ * background is {@link #preload(Workspace, Path) preloaded}: an existing index is mapped before anything is
+ * imported, and answers for the workspace until its import is {@link #publish(Workspace, Workspace) published}.
+ * Otherwise building and mapping happen in the background after the import, handlers use the index once it is
+ * there. Any change to the primary class bundle after the import makes the index stale, handlers then go back to
+ * the bundle.
+ */
+public class ClassIndexStore {
+	private static final Logger logger = Logging.get(ClassIndexStore.class);
+	private static final HexFormat HEX = HexFormat.of();
+
+	private final Path directory;
+	private final Map<Workspace, Attachment> attachments = new ConcurrentHashMap<>();
+	/** Indexes of workspaces whose classes are still being imported. */
+	private final Map<Workspace, Preloaded> preloaded = new ConcurrentHashMap<>();
+
+	/**
+	 * @param directory Directory holding the index files, or {@code null} to disable indexing.
+	 */
+	public ClassIndexStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @return Store in {@code recaf.mcp.index.dir}, {@code ~/.recaf-mcp/index} by default, or a disabled store
+	 * when {@code recaf.mcp.index.enabled} is {@code false}.
+	 */
+	public static ClassIndexStore fromSystemProperties() {
+		if (!Boolean.parseBoolean(System.getProperty("recaf.mcp.index.enabled", "true"))) return new ClassIndexStore(null);
+		String dir = System.getProperty("recaf.mcp.index.dir");
+		return new ClassIndexStore(dir != null && !dir.isBlank() ? Paths.get(dir)
+				: Paths.get(System.getProperty("user.home"), ".recaf-mcp", "index"));
+	}
+
+	/**
+	 * Index the primary resource of a newly opened workspace in the background.
+	 *
+	 * @param workspace Opened workspace.
+	 * @param archive   Archive its primary resource was imported from.
+	 */
+	public void attach(Workspace workspace, Path archive) {
+		if (directory == null) return;
+		attach(workspace, archive, null, null);
+	}
+
+	/**
+	 * Map the existing index of an archive for a workspace that is about to import it, so that the index answers
+	 * for the workspace's classes while they are imported. Runs on the caller's thread, hashing the archive.
+	 *
+	 * @param workspace Workspace the archive is imported into.
+	 * @param archive   Archive to import.
+	 * @return {@code true} when an index of the archive was mapped.
+	 */
+	public boolean preload(Workspace workspace, Path archive) {
+		if (directory == null) return false;
+		long start = System.nanoTime();
+		String digest;
+		try {
+			digest = sha256(archive);
+		} catch (IOException e) {
+			logger.warn("[MCP] Could not hash {}, indexing it once imported", archive, e);
+			preloaded.put(workspace, new Preloaded(archive, null, null));
+			return false;
+		}
+		ClassIndex index = open(directory.resolve(digest + ".idx"));
+		preloaded.put(workspace, new Preloaded(archive, digest, index));
+		if (index != null) {
+			logger.info("[MCP] Class index mapped for {} ({} classes) before its import in {}ms",
+					archive.getFileName(), index.size(), (System.nanoTime() - start) / 1_000_000);
+		}
+		return index != null;
+	}
+
+	/**
+	 * Hand the index of a preloaded workspace over to the workspace its import was published as, which may be the
+	 * same one. It follows the workspace's classes from now on, and is built in the background when there was none.
+	 *
+	 * @param importing Workspace that was {@link #preload(Workspace, Path) preloaded}.
+	 * @param workspace Workspace holding the imported classes.
+	 */
+	public void publish(Workspace importing, Workspace workspace) {
+		Preloaded preload = preloaded.remove(importing);
+		if (preload != null) attach(workspace, preload.archive(), preload.digest(), preload.index());
+	}
+
+	/**
+	 * Drop the preloaded index of a workspace whose import was not published, such as when it failed.
+	 *
+	 * @param importing Workspace that was {@link #preload(Workspace, Path) preloaded}.
+	 */
+	public void discard(Workspace importing) {
+		preloaded.remove(importing);
+	}
+
+	/**
+	 * Stop using the index of a workspace, such as when it is closed.
+	 */
+	public void detach(Workspace workspace) {
+		preloaded.remove(workspace);
+		Attachment attachment = attachments.remove(workspace);
+		if (attachment != null) attachment.detach();
+	}
+
+	/**
+	 * @param workspace Workspace to get the index of.
+	 * @return Index of the workspace's primary classes, or {@code null} while there is none or it is stale.
+	 */
+	public ClassIndex get(Workspace workspace) {
+		ClassIndex importing = getImporting(workspace);
+		if (importing != null) return importing;
+		Attachment attachment = attachments.get(workspace);
+		if (attachment == null || attachment.stale) return null;
+		return attachment.index;
+	}
+
+	/**
+	 * @param workspace Workspace to get the index of.
+	 * @return Index standing in for the workspace's primary classes while they are still being imported,
+	 * or {@code null} when they are imported or there is no index of them.
+	 */
+	public ClassIndex getImporting(Workspace workspace) {
+		Preloaded preload = preloaded.get(workspace);
+		return preload == null ? null : preload.index();
+	}
+
+	private void attach(Workspace workspace, Path archive, String digest, ClassIndex index) {
+		JvmClassBundle bundle = workspace.getPrimaryResource().getJvmClassBundle();
+		Attachment attachment = new Attachment(bundle);
+		attachment.index = index;
+		// Listen before indexing, so changes made meanwhile are not missed
+		bundle.addBundleListener(attachment);
+		Attachment previous = attachments.put(workspace, attachment);
+		if (previous != null) previous.detach();
+		if (index == null) {
+			Thread.ofVirtual().name("recaf-mcp-index").start(() -> load(workspace, archive, digest, attachment));
+		}
+	}
+
+	/**
+	 * @param digest SHA-256 of the archive, or {@code null} to compute it.
+	 */
+	private void load(Workspace workspace, Path archive, String digest, Attachment attachment) {
+		long start = System.nanoTime();
+		try {
+			Files.createDirectories(directory);
+			Path file = directory.resolve((digest != null ? digest : sha256(archive)) + ".idx");
+			ClassIndex index = open(file);
+			boolean built = false;
+			if (index == null) {
+				// Written aside and moved into place, so a concurrent open never maps a partial file
+				Path temp = Files.createTempFile(directory, "index", ".tmp");
+				try {
+					ClassIndex.write(temp, attachment.bundle);
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} finally {
+					Files.deleteIfExists(temp);
+				}
+				index = ClassIndex.open(file);
+				built = true;
+			}
+			if (attachments.get(workspace) != attachment) return;
+			attachment.index = index;
+			logger.info("[MCP] Class index {} for {} ({} classes) in {}ms", built ? "built" : "mapped",
+					archive.getFileName(), index.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			logger.warn("[MCP] Could not index {}, using the workspace directly", archive, e);
+		}
+	}
+
+	/**
+	 * @return Mapped index file, or {@code null} when there is none or it cannot be read.
+	 */
+	private static ClassIndex open(Path file) {
+		if (!Files.isRegularFile(file)) return null;
+		try {
+			return ClassIndex.open(file);
+		} catch (IOException e) {
+			logger.warn("[MCP] Rebuilding unreadable class index {}: {}", file, e.getMessage());
+			return null;
+		}
+	}
+
+	private static String sha256(Path archive) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 unavailable", e);
+		}
+		try (InputStream in = new DigestInputStream(Files.newInputStream(archive), digest)) {
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		return HEX.formatHex(digest.digest());
+	}
+
+	/**
+	 * @param archive Archive being imported.
+	 * @param digest  SHA-256 of the archive, or {@code null} when it could not be read.
+	 * @param index   Existing index of the archive, or {@code null} when there is none yet.
+	 */
+	private record Preloaded(Path archive, String digest, ClassIndex index) {
+	}
+
+	/**
+	 * Index of one workspace, stale from the first change to its primary class bundle on.
+	 */
+	private static final class Attachment implements BundleListener<JvmClassInfo> {
+		private final JvmClassBundle bundle;
+		private volatile ClassIndex index;
+		private volatile boolean stale;
+
+		private Attachment(JvmClassBundle bundle) {
+			this.bundle = bundle;
+		}
+
+		private void detach() {
+			bundle.removeBundleListener(this);
+			index = null;
+		}
+
+		@Override
+		public void onNewItem(String key, JvmClassInfo value) {
+			stale = true;
+		}
+
+		@Override
+		public void onUpdateItem(String key, JvmClassInfo oldValue, JvmClassInfo newValue) {
+			stale = true;
+		}
+
+		@Override
+		public void onRemoveItem(String key, JvmClassInfo value) {
+			stale = true;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package dev.recaf.mcp.bridge;
+
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.workspace.model.bundle.BundleListener;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of the class names of a bundle, for filtered class listing without scanning every class.
+ * <p>
+ * Names are kept sorted, so a prefix such as a package is a range, and every three-character substring (trigram)
+ * of a name maps to the names containing it, so a substring query only checks the names holding its rarest
+ * trigram. Built from the bundle on first use, then kept current by listening to the bundle.
+ * Removed names leave tombstones in the trigram lists, which are compacted once they outnumber the live names.
+ */
+public class ClassNameIndex implements BundleListener<JvmClassInfo> {
+	private final JvmClassBundle bundle;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final NavigableSet<String> sorted = new TreeSet<>();
+	/** Names by ID, {@code null} where a name was removed. */
+	private final List<String> names = new ArrayList<>();
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final Map<Long, Postings> trigrams = new HashMap<>();
+	private boolean built;
+	private int removed;
+
+	private ClassNameIndex(JvmClassBundle bundle) {
+		this.bundle = bundle;
+	}
+
+	/**
+	 * @param bundle Bundle to index, the index listens to it from now on.
+	 * @return New index of the bundle.
+	 */
+	public static ClassNameIndex of(JvmClassBundle bundle) {
+		// Registered only once constructed, so the bundle never sees a partially built index
+		ClassNameIndex index = new ClassNameIndex(bundle);
+		bundle.addBundleListener(index);
+		return index;
+	}
+
+	/**
+	 * Stop following the bundle.
+	 */
+	public void close() {
+		bundle.removeBundleListener(this);
+	}
+
+	/**
+	 * @param prefix Required name prefix, such as a package {@code com/example/}, or empty for any.
+	 * @param filter Required substring of the name, or empty for any.
+	 * @return Sorted names of the matching classes.
+	 */
+	public List<String> find(String prefix, String filter) {
+		ensureBuilt();
+		lock.readLock().lock();
+		try {
+			if (filter.length() < 3) {
+				Collection<String> range = prefix.isEmpty() ? sorted
+						: sorted.subSet(prefix, true, prefix + Character.MAX_VALUE, true);
+				List<String> matched = new ArrayList<>(filter.isEmpty() ? range.size() : 16);
+				for (String name : range) {
+					if (name.contains(filter)) matched.add(name);
+				}
+				return matched;
+			}
+			Postings rarest = null;
+			for (int i = 0; i + 3 <= filter.length(); i++) {
+				Postings postings = trigrams.get(trigram(filter, i));
+				if (postings == null) return new ArrayList<>();
+				if (rarest == null || postings.size < rarest.size) rarest = postings;
+			}
+			List<String> matched = new ArrayList<>();
+			for (int i = 0; i < rarest.size; i++) {
+				String name = names.get(rarest.ids[i]);
+				if (name != null && name.startsWith(prefix) && name.contains(filter)) matched.add(name);
+			}
+			Collections.sort(matched);
+			return matched;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return Number of indexed names.
+	 */
+	public int size() {
+		ensureBuilt();
+		lock.readLock().lock();
+		try {
+			return sorted.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void onNewItem(String key, JvmClassInfo value) {
+		lock.writeLock().lock();
+		try {
+			if (built) add(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void onUpdateItem(String key, JvmClassInfo oldValue, JvmClassInfo newValue) {
+		// Same key, same name
+	}
+
+	@Override
+	public void onRemoveItem(String key, JvmClassInfo value) {
+		lock.writeLock().lock();
+		try {
+			if (built) remove(key);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void ensureBuilt() {
+		lock.readLock().lock();
+		try {
+			if (built) return;
+		} finally {
+			lock.readLock().unlock();
+		}
+		lock.writeLock().lock();
+		try {
+			if (built) return;
+			// Changes made meanwhile wait for the lock, and adding or removing twice is harmless
+			for (String key : bundle.keySet()) add(key);
+			built = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void add(String name) {
+		if (ids.containsKey(name)) return;
+		int id = names.size();
+		names.add(name);
+		ids.put(name, id);
+		sorted.add(name);
+		for (int i = 0; i + 3 <= name.length(); i++) {
+			trigrams.computeIfAbsent(trigram(name, i), k -> new Postings()).add(id);
+		}
+	}
+
+	private void remove(String name) {
+		Integer id = ids.remove(name);
+		if (id == null) return;
+		names.set(id, null);
+		sorted.remove(name);
+		if (++removed > sorted.size()) compact();
+	}
+
+	/**
+	 * Rebuild the trigram lists without the removed names.
+	 */
+	private void compact() {
+		List<String> live = new ArrayList<>(sorted);
+		names.clear();
+		ids.clear();
+		sorted.clear();
+		trigrams.clear();
+		removed = 0;
+		for (String name : live) add(name);
+	}
+
+	private static long trigram(String text, int offset) {
+		return (long) text.charAt(offset) << 32 | (long) text.charAt(offset + 1) << 16 | text.charAt(offset + 2);
+	}
+
+	/**
+	 * Growable list of name IDs.
+	 */
+	private static final class Postings {
+		private int[] ids = new int[4];
+		private int size;
+
+		private void add(int id) {
+			// A trigram repeated within one name
+			if (size > 0 && ids[size - 1] == id) return;
+			if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+			ids[size++] = id;
+		}
+	}
+}
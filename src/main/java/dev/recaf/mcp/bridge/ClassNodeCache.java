@@ -0,0 +1,163 @@
+package dev.recaf.mcp.bridge;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BundleListener;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+
+import java.util.*;
+
+/**
+ * Parsed ASM trees of classes, shared by the handlers so that repeated inspection of a class skips parsing it.
+ * <p>
+ * Entries belong to a workspace and are only used for the exact class they were parsed from, a replaced class is
+ * parsed again. Replacing or removing a class in a workspace's primary bundle also drops its entries right away.
+ * The cache holds the most recently used trees up to an estimated {@code recaf.mcp.classNodeCache.maxMb}.
+ * <p>
+ * Trees are shared between requests: callers must only read them, to edit a class replay its tree into a
+ * visitor with {@link #replay(ClassNode, ClassVisitor)}.
+ */
+public class ClassNodeCache {
+	private static final long MAX_BYTES = Math.max(0, Long.getLong("recaf.mcp.classNodeCache.maxMb", 64)) * 1024 * 1024;
+
+	private final Map<Workspace, Scope> scopes = Collections.synchronizedMap(new WeakHashMap<>());
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private long bytes;
+
+	/**
+	 * @param workspace Workspace the class was found in.
+	 * @param classInfo Class to get the tree of.
+	 * @param level     How much of the class to parse.
+	 * @return Tree of the class, not to be modified.
+	 */
+	public ClassNode get(Workspace workspace, JvmClassInfo classInfo, Level level) {
+		Scope scope = scopes.computeIfAbsent(workspace,
+				ws -> new Scope(ws.getPrimaryResource().getJvmClassBundle()));
+		Key key = new Key(scope, classInfo.getName(), level);
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.classInfo() == classInfo) return entry.node();
+		}
+
+		byte[] bytecode = classInfo.getBytecode();
+		ClassNode node = new ClassNode();
+		new ClassReader(bytecode).accept(node, level.parsingOptions);
+		if (level == Level.FULL) {
+			// Build the instruction index caches now, lazily they would be written by concurrent readers
+			for (MethodNode method : node.methods) {
+				if (method.instructions.size() > 0) method.instructions.get(0);
+			}
+		}
+		long size = (long) bytecode.length * level.sizeFactor;
+		if (size > MAX_BYTES) return node;
+		synchronized (entries) {
+			Entry previous = entries.put(key, new Entry(classInfo, node, size));
+			if (previous != null) bytes -= previous.size();
+			bytes += size;
+			Iterator<Entry> eldest = entries.values().iterator();
+			while (bytes > MAX_BYTES && eldest.hasNext()) {
+				bytes -= eldest.next().size();
+				eldest.remove();
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Replay a tree from the cache into a visitor, such as a {@link org.objectweb.asm.ClassWriter} with changes.
+	 * ASM resets and reassigns the labels of a tree while replaying it, so replays of the same tree take turns.
+	 *
+	 * @param node    Tree from {@link #get(Workspace, JvmClassInfo, Level)}.
+	 * @param visitor Visitor to replay the tree into.
+	 */
+	public static void replay(ClassNode node, ClassVisitor visitor) {
+		synchronized (node) {
+			node.accept(visitor);
+		}
+	}
+
+	/**
+	 * Drop the trees of a workspace, such as when it is closed.
+	 */
+	public void evict(Workspace workspace) {
+		Scope scope = scopes.remove(workspace);
+		if (scope == null) return;
+		scope.bundle.removeBundleListener(scope);
+		synchronized (entries) {
+			Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Key, Entry> entry = iterator.next();
+				if (entry.getKey().scope() == scope) {
+					bytes -= entry.getValue().size();
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private void evict(Scope scope, String className) {
+		synchronized (entries) {
+			for (Level level : Level.values()) {
+				Entry removed = entries.remove(new Key(scope, className, level));
+				if (removed != null) bytes -= removed.size();
+			}
+		}
+	}
+
+	/**
+	 * How much of a class is parsed.
+	 */
+	public enum Level {
+		/** Class and member declarations, without code or debug information. */
+		OUTLINE(ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES, 2),
+		/** Everything, as read with no parsing options. */
+		FULL(0, 8);
+
+		private final int parsingOptions;
+		/** Rough heap size of the tree relative to the bytecode size. */
+		private final int sizeFactor;
+
+		Level(int parsingOptions, int sizeFactor) {
+			this.parsingOptions = parsingOptions;
+			this.sizeFactor = sizeFactor;
+		}
+	}
+
+	private record Key(Scope scope, String className, Level level) {
+	}
+
+	private record Entry(JvmClassInfo classInfo, ClassNode node, long size) {
+	}
+
+	/**
+	 * Entries of one workspace, evicted as its primary bundle replaces or removes classes.
+	 * Must not refer to the workspace, else it would never be collected.
+	 */
+	private final class Scope implements BundleListener<JvmClassInfo> {
+		private final JvmClassBundle bundle;
+
+		private Scope(JvmClassBundle bundle) {
+			this.bundle = bundle;
+			bundle.addBundleListener(this);
+		}
+
+		@Override
+		public void onNewItem(String key, JvmClassInfo value) {
+			// Nothing cached yet
+		}
+
+		@Override
+		public void onUpdateItem(String key, JvmClassInfo oldValue, JvmClassInfo newValue) {
+			evict(this, key);
+		}
+
+		@Override
+		public void onRemoveItem(String key, JvmClassInfo value) {
+			evict(this, key);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package dev.recaf.mcp.bridge;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of requests of one {@link EndpointGroup} that may run at the same time.
+ * Requests beyond the cap park their (virtual) thread until a permit is released, as long as the
+ * group's wait queue has room. Requests arriving to a full queue are rejected straight away,
+ * with a hint of when to retry derived from how quickly the group has been completing requests.
+ */
+public class ConcurrencyLimiter {
+	private static final long MIN_RETRY_AFTER_MS = 50;
+	private static final long MAX_RETRY_AFTER_MS = 30_000;
+
+	private final EndpointGroup group;
+	private final int limit;
+	private final int queueLimit;
+	private final Semaphore permits;
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+	/** Moving average of how long a permit is held. */
+	private final AtomicLong meanHoldNanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(100));
+
+	public ConcurrencyLimiter(EndpointGroup group) {
+		this.group = group;
+		this.limit = group.limit();
+		this.queueLimit = group.queueLimit();
+		this.permits = limit > 0 ? new Semaphore(limit, true) : null;
+	}
+
+	/**
+	 * Block until the request may run, or until the timeout elapses.
+	 *
+	 * @param timeoutNanos Maximum time to wait, {@link Long#MAX_VALUE} to wait indefinitely.
+	 * @param exempt       Whether the request may wait even when the queue is full.
+	 * @return {@link Admission#ADMITTED} when a permit was obtained and must be {@link #release(long) released}.
+	 */
+	public Admission acquire(long timeoutNanos, boolean exempt) throws InterruptedException {
+		// A zero timeout respects the fairness of the semaphore, unlike a plain tryAcquire()
+		if (permits != null && !permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+			if (waiting.incrementAndGet() > queueLimit && !exempt) {
+				waiting.decrementAndGet();
+				rejected.incrementAndGet();
+				return Admission.REJECTED;
+			}
+			try {
+				if (timeoutNanos == Long.MAX_VALUE) {
+					permits.acquire();
+				} else if (!permits.tryAcquire(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS)) {
+					return Admission.EXPIRED;
+				}
+			} finally {
+				waiting.decrementAndGet();
+			}
+		}
+		active.incrementAndGet();
+		return Admission.ADMITTED;
+	}
+
+	/**
+	 * Release a permit obtained by {@link #acquire(long, boolean)}.
+	 *
+	 * @param heldNanos How long the permit was held, used to estimate retry hints.
+	 */
+	public void release(long heldNanos) {
+		active.decrementAndGet();
+		if (permits != null) {
+			permits.release();
+			meanHoldNanos.accumulateAndGet(heldNanos, (mean, sample) -> mean + (sample - mean) / 8);
+		}
+	}
+
+	/**
+	 * @return Suggested delay before retrying a rejected request: the time the current queue takes to drain
+	 * at the recent rate of completions.
+	 */
+	public long retryAfterMillis() {
+		long drainNanos = meanHoldNanos.get() * (waiting.get() + 1) / Math.max(1, limit);
+		return Math.min(Math.max(TimeUnit.NANOSECONDS.toMillis(drainNanos), MIN_RETRY_AFTER_MS), MAX_RETRY_AFTER_MS);
+	}
+
+	public EndpointGroup getGroup() {
+		return group;
+	}
+
+	/**
+	 * @return Maximum concurrent requests, or {@code 0} for unlimited.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return Maximum requests waiting for a permit.
+	 */
+	public int getQueueLimit() {
+		return queueLimit;
+	}
+
+	/**
+	 * @return Number of requests currently running.
+	 */
+	public int getActive() {
+		return active.get();
+	}
+
+	/**
+	 * @return Number of requests waiting for a permit.
+	 */
+	public int getWaiting() {
+		return waiting.get();
+	}
+
+	/**
+	 * @return Number of requests turned away because the wait queue was full.
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * Outcome of {@link #acquire(long, boolean)}.
+	 */
+	public enum Admission {
+		/** A permit was obtained. */
+		ADMITTED,
+		/** The wait queue was full. */
+		REJECTED,
+		/** The timeout elapsed while waiting. */
+		EXPIRED
+	}
+}
@@ -0,0 +1,60 @@
+package dev.recaf.mcp.bridge;
+
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.properties.builtin.CachedDecompileProperty;
+import software.coley.recaf.services.decompile.DecompileResult;
+import software.coley.recaf.services.decompile.DecompilerManager;
+import software.coley.recaf.services.decompile.JvmDecompiler;
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs a decompilation on a dedicated thread whose future can actually be cancelled. Every decompilation
+ * of the bridge goes through here, the handlers' and the warm-up's alike.
+ * <p>
+ * Cancelling the future returned by {@link DecompilerManager#decompile(Workspace, JvmClassInfo)} does not stop
+ * the decompiler once it has started on the manager's pool. A task from here does the manager's work itself:
+ * it answers from the result cache the manager keeps on the class, and otherwise runs the manager's target
+ * decompiler, whose filters apply as part of its decompilation, and caches the result for the manager and the UI.
+ * Cancelling the task interrupts the decompiling thread, which decompilers that poll the interrupt flag
+ * (e.g. Vineflower) honor by aborting.
+ */
+public final class DecompileTask {
+	private DecompileTask() {}
+
+	/**
+	 * @return Future of the decompilation, cancel with {@code mayInterruptIfRunning = true} to stop it.
+	 */
+	public static Future<DecompileResult> start(DecompilerManager decompilerManager, Workspace workspace,
+												JvmClassInfo classInfo) {
+		JvmDecompiler decompiler = decompilerManager.getTargetJvmDecompiler();
+		return start(classInfo.getName(), () -> decompile(decompiler, workspace, classInfo));
+	}
+
+	/**
+	 * @param name Name of the class, for the thread name.
+	 * @param work Decompilation to run.
+	 * @return Future of the work, cancel with {@code mayInterruptIfRunning = true} to interrupt it.
+	 */
+	static <T> Future<T> start(String name, Callable<T> work) {
+		FutureTask<T> task = new FutureTask<>(work);
+		Thread.ofVirtual().name("mcp-decompile-" + name).start(task);
+		return task;
+	}
+
+	private static DecompileResult decompile(JvmDecompiler decompiler, Workspace workspace, JvmClassInfo classInfo) {
+		// Same rule as the manager: a cached result only stands while the decompiler's settings are unchanged
+		DecompileResult cached = CachedDecompileProperty.get(classInfo, decompiler);
+		if (cached != null && cached.getConfigHash() == decompiler.getConfig().getHash()) return cached;
+
+		DecompileResult result = decompiler.decompile(workspace, classInfo);
+		// An aborted decompiler may still return what it had so far, which must not be cached
+		if (Thread.currentThread().isInterrupted()) throw new CancellationException("Decompilation cancelled");
+		CachedDecompileProperty.set(classInfo, decompiler, result);
+		return result;
+	}
+}
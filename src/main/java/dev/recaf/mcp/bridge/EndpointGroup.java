@@ -0,0 +1,53 @@
+package dev.recaf.mcp.bridge;
+
+/**
+ * Endpoint families that share a concurrency budget on the bridge.
+ * Each family's limit can be overridden with the system property {@code recaf.mcp.limit.<key>},
+ * where a value of {@code 0} or less means unlimited. The number of requests that may wait for a slot
+ * can be overridden with {@code recaf.mcp.queue.<key>}, further requests are turned away.
+ */
+public enum EndpointGroup {
+	/** Cheap metadata calls: health, workspace listing/outline, mappings, patches. */
+	DEFAULT("default", 0, 0),
+	/** Decompilation and decompiled-source diffs. */
+	DECOMPILE("decompile", 4, 32),
+	/** Workspace searches. */
+	SEARCH("search", 2, 16),
+	/** Call graph and inheritance analysis. */
+	ANALYSIS("analysis", 2, 16),
+	/** Whole-workspace JAR and source exports. */
+	EXPORT("export", 1, 4),
+	/** Bytecode inspection/editing, JASM assembly and Java compilation. */
+	BYTECODE("bytecode", 4, 32);
+
+	private final String key;
+	private final int defaultLimit;
+	private final int defaultQueueLimit;
+
+	EndpointGroup(String key, int defaultLimit, int defaultQueueLimit) {
+		this.key = key;
+		this.defaultLimit = defaultLimit;
+		this.defaultQueueLimit = defaultQueueLimit;
+	}
+
+	/**
+	 * @return Short name used in configuration keys and logs.
+	 */
+	public String key() {
+		return key;
+	}
+
+	/**
+	 * @return Configured maximum number of concurrent requests, or {@code 0} for unlimited.
+	 */
+	public int limit() {
+		return Math.max(0, Integer.getInteger("recaf.mcp.limit." + key, defaultLimit));
+	}
+
+	/**
+	 * @return Configured maximum number of requests waiting for a slot. Only applies when the family is limited.
+	 */
+	public int queueLimit() {
+		return Math.max(0, Integer.getInteger("recaf.mcp.queue." + key, defaultQueueLimit));
+	}
+}
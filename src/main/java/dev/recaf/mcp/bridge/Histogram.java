@@ -0,0 +1,92 @@
+package dev.recaf.mcp.bridge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values with log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Values below 16 are counted exactly. Above that, every power of two is split into 16 equal sub-buckets,
+ * so any reported value is within about 6% of the recorded one. Values past {@code 2^}{@value #MAX_EXPONENT}
+ * are counted in the last bucket. Recording is a handful of atomic increments and never blocks.
+ */
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param value Value to record, negative values are recorded as {@code 0}.
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		counts.incrementAndGet(indexOf(value));
+		count.increment();
+		sum.add(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @param quantile Quantile between {@code 0} and {@code 1}, e.g. {@code 0.99}.
+	 * @return Upper bound of the bucket holding the quantile, or {@code 0} when nothing was recorded.
+	 */
+	public long valueAtQuantile(double quantile) {
+		long total = getCount();
+		if (total == 0) return 0;
+		long target = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= target) return Math.min(highestValueIn(i), getMax());
+		}
+		return getMax();
+	}
+
+	/**
+	 * @return Number of recorded values known to be at most the given bound.
+	 * Values in the bucket that straddles the bound are not included.
+	 */
+	public long countAtOrBelow(long bound) {
+		long seen = 0;
+		for (int i = 0; i < BUCKETS && highestValueIn(i) <= bound; i++) {
+			seen += counts.get(i);
+		}
+		return seen;
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKETS) return (int) value;
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+		if (exponent == MAX_EXPONENT) return BUCKETS - 1;
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long highestValueIn(int index) {
+		if (index < SUB_BUCKETS) return index;
+		if (index == BUCKETS - 1) return Long.MAX_VALUE;
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS;
+		int shift = exponent - SUB_BUCKET_BITS;
+		return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,18 @@
+package dev.recaf.mcp.bridge;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Emits the fields of a success response's {@code data} object directly onto the wire.
+ *
+ * @see BridgeServer#streamSuccess(com.sun.net.httpserver.HttpExchange, JsonBodyWriter)
+ */
+@FunctionalInterface
+public interface JsonBodyWriter {
+	/**
+	 * @param out Writer positioned inside the {@code data} object. Only names and values should be written.
+	 */
+	void write(JsonWriter out) throws IOException;
+}
@@ -0,0 +1,139 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory {@link HttpExchange} used to run bridge handlers without a socket.
+ * The request body is supplied up front and the response is captured into a buffer.
+ */
+public class LocalExchange extends HttpExchange {
+	private static final InetSocketAddress LOCAL = new InetSocketAddress("127.0.0.1", 0);
+
+	private final String method;
+	private final URI uri;
+	private final Headers requestHeaders = new Headers();
+	private final Headers responseHeaders = new Headers();
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+	private final ByteArrayOutputStream responseBuffer = new ByteArrayOutputStream();
+	private InputStream requestBody;
+	private OutputStream responseBody = responseBuffer;
+	private int responseCode = -1;
+
+	public LocalExchange(String method, URI uri, byte[] body) {
+		this.method = method;
+		this.uri = uri;
+		this.requestBody = new ByteArrayInputStream(body);
+	}
+
+	/**
+	 * @return Bytes written to the response body so far.
+	 */
+	public byte[] getResponseBytes() {
+		return responseBuffer.toByteArray();
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return uri;
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return method;
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		// Nothing to release, the response stays readable after the handler closes it
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return requestBody;
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return responseBody;
+	}
+
+	@Override
+	public void sendResponseHeaders(int rCode, long responseLength) {
+		if (responseCode != -1) {
+			throw new IllegalStateException("Response headers already sent");
+		}
+		responseCode = rCode;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return LOCAL;
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return LOCAL;
+	}
+
+	@Override
+	public String getProtocol() {
+		return "HTTP/1.1";
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		if (value == null) {
+			attributes.remove(name);
+		} else {
+			attributes.put(name, value);
+		}
+	}
+
+	@Override
+	public void setStreams(InputStream i, OutputStream o) {
+		if (i != null) requestBody = i;
+		if (o != null) responseBody = o;
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return null;
+	}
+}
@@ -0,0 +1,85 @@
+package dev.recaf.mcp.bridge;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque position in a paged listing, handed to clients as {@code nextCursor}.
+ * <p>
+ * A cursor names the {@link Snapshots snapshot} it was cut from, by workspace generation and listing key,
+ * the index of the next item in it, and the sort key of the last item returned. While the snapshot is cached
+ * the next page continues from the index, so paging is consistent even when the workspace changes in between.
+ * Once it is gone, paging continues after the sort key in a fresh snapshot instead.
+ *
+ * @param generation Workspace generation of the snapshot.
+ * @param listingKey Hash of the listing's key, so a cursor cannot be used with a different query.
+ * @param index      Index of the next item in the snapshot.
+ * @param after      Sort key of the last item returned.
+ */
+public record PageCursor(long generation, int listingKey, int index, String after) {
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/**
+	 * @return Cursor text to hand to the client.
+	 */
+	public String encode() {
+		String text = generation + ":" + listingKey + ":" + index + ":" + after;
+		return ENCODER.encodeToString(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param cursor Cursor text from {@link #encode()}.
+	 * @return Decoded cursor.
+	 * @throws IllegalArgumentException When the text is not a cursor.
+	 */
+	public static PageCursor decode(String cursor) {
+		try {
+			String text = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = text.split(":", 4);
+			if (parts.length != 4) throw new IllegalArgumentException("Malformed cursor");
+			int index = Integer.parseInt(parts[2]);
+			// Never handed out, only a forged cursor has one
+			if (index < 0) throw new IllegalArgumentException("Negative cursor index");
+			return new PageCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), index, parts[3]);
+		} catch (IllegalArgumentException e) {
+			// Also covers NumberFormatException
+			throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+		}
+	}
+
+	/**
+	 * @param cursor     Cursor text from the client, or {@code null} for none.
+	 * @param listingKey Key of the listing the cursor is used with.
+	 * @return Decoded cursor, or {@code null} when none was given.
+	 * @throws IllegalArgumentException When the text is not a cursor, or one of a different listing.
+	 */
+	public static PageCursor parse(String cursor, String listingKey) {
+		if (cursor == null || cursor.isBlank()) return null;
+		PageCursor decoded = decode(cursor);
+		if (decoded.listingKey() != listingKey.hashCode())
+			throw new IllegalArgumentException("Cursor belongs to a different query: " + cursor);
+		return decoded;
+	}
+
+	/**
+	 * @param snapshot     Sorted snapshot the page is cut from.
+	 * @param sortKey      Sort key of a snapshot item.
+	 * @param sameSnapshot Whether the snapshot is the one the cursor was cut from.
+	 * @return Index of the first item of the page.
+	 */
+	public <T> int startIndex(List<T> snapshot, Function<T, String> sortKey, boolean sameSnapshot) {
+		if (sameSnapshot) return Math.min(index, snapshot.size());
+		// Binary search for the first item sorting after the last one returned
+		int low = 0;
+		int high = snapshot.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sortKey.apply(snapshot.get(mid)).compareTo(after) <= 0) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+}
@@ -0,0 +1,239 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.HttpExchange;
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * State of a single bridge request: the client-supplied request ID, the thread running the handler,
+ * and the futures it is currently waiting on, so that the request can be cancelled from another exchange.
+ * Long-running handlers also report their {@linkplain #progress(String, long, long) progress} here,
+ * for {@code /progress}.
+ * <p>
+ * The context also holds the workspace the request operates on, the one named by its {@code workspaceId},
+ * else the current workspace, so that handlers never depend on which workspace is current.
+ *
+ * @see RequestTracker
+ */
+public class RequestContext {
+	/** Exchange attribute holding the request's context. */
+	public static final String ATTRIBUTE = "recaf.mcp.context";
+	/** Request header carrying the client's ID for the request. */
+	public static final String REQUEST_ID_HEADER = "X-Request-Id";
+	/** Request header naming the workspace the request operates on, instead of the current one. */
+	public static final String WORKSPACE_ID_HEADER = "X-Workspace-Id";
+	/** Request header carrying the client's remaining time budget for the request, in milliseconds. */
+	public static final String DEADLINE_HEADER = "X-Deadline-Ms";
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private final String requestId;
+	private final Thread thread;
+	private final long deadlineNanos;
+	private final Set<Future<?>> futures = ConcurrentHashMap.newKeySet();
+	private volatile boolean cancelled;
+	private volatile Progress progress;
+	private volatile Workspace workspace;
+	private volatile String workspaceId;
+	private boolean finished;
+
+	public RequestContext(String requestId, Thread thread) {
+		this(requestId, thread, NO_DEADLINE);
+	}
+
+	/**
+	 * @param deadlineNanos {@link System#nanoTime()} by which the client needs the response,
+	 *                      or {@link Long#MAX_VALUE} for none.
+	 */
+	public RequestContext(String requestId, Thread thread, long deadlineNanos) {
+		this.requestId = requestId;
+		this.thread = thread;
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	/**
+	 * @param budgetHeader Value of the {@link #DEADLINE_HEADER}, may be {@code null}.
+	 * @return Deadline relative to now, or {@link Long#MAX_VALUE} when the header is absent or malformed.
+	 */
+	static long parseDeadline(String budgetHeader) {
+		if (budgetHeader == null) return NO_DEADLINE;
+		try {
+			// Cap the budget at a day, so the addition cannot overflow
+			long budgetMs = Math.min(Long.parseLong(budgetHeader.trim()), TimeUnit.DAYS.toMillis(1));
+			return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, budgetMs));
+		} catch (NumberFormatException e) {
+			return NO_DEADLINE;
+		}
+	}
+
+	/**
+	 * @return Context of the exchange, created on demand for exchanges that were not started by {@link RequestTracker}.
+	 */
+	public static RequestContext of(HttpExchange exchange) {
+		if (exchange.getAttribute(ATTRIBUTE) instanceof RequestContext context) {
+			return context;
+		}
+		RequestContext context = new RequestContext(null, Thread.currentThread());
+		exchange.setAttribute(ATTRIBUTE, context);
+		return context;
+	}
+
+	/**
+	 * Wait for a future on behalf of this request. If the wait times out, is interrupted, or the request is cancelled,
+	 * the future is cancelled too so the work behind it stops rather than running on with nobody to receive it.
+	 * Decompilations are started through {@link DecompileTask} for this reason, since a running one interrupted
+	 * this way aborts.
+	 *
+	 * @param timeout Wait limit used when the client did not send a deadline. Otherwise, the time left until the
+	 *                deadline is used instead, so a generous deadline also lifts the default.
+	 */
+	public <T> T await(Future<T> future, long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		futures.add(future);
+		try {
+			if (cancelled) throw new CancellationException("Request cancelled");
+			long waitNanos = hasDeadline() ? Math.max(0, remainingNanos()) : unit.toNanos(timeout);
+			return future.get(waitNanos, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException | InterruptedException | CancellationException e) {
+			future.cancel(true);
+			throw e;
+		} finally {
+			futures.remove(future);
+		}
+	}
+
+	/**
+	 * For handlers that loop over many items, to stop between items once cancelled.
+	 *
+	 * @throws CancellationException When the request was cancelled.
+	 */
+	public void checkCancelled() {
+		if (cancelled) throw new CancellationException("Request cancelled");
+	}
+
+	/**
+	 * Report how far the request has got. Counts restart with every phase, while the overall progress adds up
+	 * the phases before, so it never decreases.
+	 *
+	 * @param phase What the request is doing, e.g. {@code decompiling}.
+	 * @param done  Units of work of the phase completed.
+	 * @param total Units of work of the phase in total, or {@code -1} when unknown.
+	 */
+	public synchronized void progress(String phase, long done, long total) {
+		Progress last = progress;
+		long base;
+		if (last == null) base = 0;
+		else if (last.phase().equals(phase)) base = last.base();
+		else base = last.base() + last.done() + 1; // Entering a phase counts as progress of its own
+		progress = new Progress(phase, base, done, total);
+	}
+
+	/**
+	 * @return Latest progress reported, or {@code null} when the handler reports none.
+	 */
+	public Progress getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Cancel the request: abort the futures it waits on and interrupt its handler thread.
+	 * Has no effect once the handler has returned.
+	 */
+	public synchronized void cancel() {
+		if (finished) return;
+		cancelled = true;
+		for (Future<?> future : futures) {
+			future.cancel(true);
+		}
+		thread.interrupt();
+	}
+
+	/**
+	 * Mark the handler as returned. Must be called on the handler thread, which may serve further requests,
+	 * so any interrupt left over from a late cancellation is cleared.
+	 */
+	synchronized void finish() {
+		finished = true;
+		if (Thread.currentThread() == thread) {
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * @return {@code true} when the client sent a deadline.
+	 */
+	public boolean hasDeadline() {
+		return deadlineNanos != NO_DEADLINE;
+	}
+
+	/**
+	 * @return Nanoseconds left until the deadline (negative once passed), or {@link Long#MAX_VALUE} without one.
+	 */
+	public long remainingNanos() {
+		return hasDeadline() ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return Client-supplied request ID, or {@code null} when the client did not send one.
+	 */
+	public String getRequestId() {
+		return requestId;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return Workspace the request operates on, or {@code null} when none is open.
+	 */
+	public Workspace getWorkspace() {
+		return workspace;
+	}
+
+	/**
+	 * @return Registry ID of the workspace the request operates on, or {@code null} when it has none.
+	 */
+	public String getWorkspaceId() {
+		return workspaceId;
+	}
+
+	/**
+	 * @param workspace   Workspace the request operates on.
+	 * @param workspaceId Its registry ID, or {@code null} when it is not registered.
+	 */
+	public void setWorkspace(Workspace workspace, String workspaceId) {
+		this.workspace = workspace;
+		this.workspaceId = workspaceId;
+	}
+
+	/**
+	 * Progress of a request.
+	 *
+	 * @param phase Current phase.
+	 * @param base  Overall progress at the start of the phase.
+	 * @param done  Units of work of the phase completed.
+	 * @param total Units of work of the phase in total, or {@code -1} when unknown.
+	 */
+	public record Progress(String phase, long base, long done, long total) {
+		/**
+		 * @return Progress across all phases so far.
+		 */
+		public long overall() {
+			return base + done;
+		}
+
+		/**
+		 * @return Overall progress once the current phase completes, or {@code -1} when unknown.
+		 */
+		public long overallTotal() {
+			return total < 0 ? -1 : base + total;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks running bridge requests by their client-supplied {@link RequestContext#REQUEST_ID_HEADER request ID}
+ * so that they can be cancelled through {@code /cancel} and followed through {@code /progress}.
+ */
+public class RequestTracker {
+	private final Map<String, RequestContext> active = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the context for an exchange and attach it. Must be called on the handler thread.
+	 */
+	public RequestContext begin(HttpExchange exchange) {
+		String requestId = exchange.getRequestHeaders().getFirst(RequestContext.REQUEST_ID_HEADER);
+		long deadline = RequestContext.parseDeadline(exchange.getRequestHeaders().getFirst(RequestContext.DEADLINE_HEADER));
+		RequestContext context = new RequestContext(requestId, Thread.currentThread(), deadline);
+		exchange.setAttribute(RequestContext.ATTRIBUTE, context);
+		if (requestId != null) {
+			active.put(requestId, context);
+		}
+		return context;
+	}
+
+	/**
+	 * Mark a request as complete. Must be called on the handler thread.
+	 */
+	public void end(RequestContext context) {
+		context.finish();
+		if (context.getRequestId() != null) {
+			active.remove(context.getRequestId(), context);
+		}
+	}
+
+	/**
+	 * @return {@code true} when a running request with the ID was found and cancelled.
+	 */
+	public boolean cancel(String requestId) {
+		RequestContext context = active.get(requestId);
+		if (context == null) return false;
+		context.cancel();
+		return true;
+	}
+
+	/**
+	 * @return Context of the running request with the ID, or {@code null} when there is none.
+	 */
+	public RequestContext find(String requestId) {
+		return active.get(requestId);
+	}
+
+	/**
+	 * @return Number of running requests that carry a request ID.
+	 */
+	public int size() {
+		return active.size();
+	}
+}
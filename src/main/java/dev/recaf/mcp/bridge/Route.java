@@ -0,0 +1,14 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * A registered bridge endpoint.
+ *
+ * @param path     Request path, e.g. {@code /decompile}.
+ * @param group    Concurrency family the endpoint belongs to.
+ * @param mutating Whether the endpoint changes workspace state, and so must not run alongside other requests in a batch.
+ * @param handler  Wrapped handler, including concurrency limiting and error handling.
+ */
+public record Route(String path, EndpointGroup group, boolean mutating, HttpHandler handler) {
+}
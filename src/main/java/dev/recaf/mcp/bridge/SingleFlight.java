@@ -0,0 +1,243 @@
+package dev.recaf.mcp.bridge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import dev.recaf.mcp.util.ErrorMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical read-only requests that are in flight at the same time.
+ * <p>
+ * Requests are identical when they target the same route and {@linkplain RequestContext#getWorkspaceId() workspace}
+ * with the same query, {@code If-None-Match} header and JSON body, ignoring key order and whitespace, within the same
+ * {@linkplain #SingleFlight(BridgeMetrics, Supplier) scope} (the workspace generation). The workspace counts however
+ * the request names it, by query, header or body, or by naming none while it is current. The first such request leads: it runs normally, streaming to its
+ * client, while a copy of its response is captured. Requests arriving while it runs wait for it and are answered
+ * with the copy. If the leader fails, is cancelled, is turned away by admission control or its response is too
+ * large to copy, the waiting requests run on their own instead.
+ */
+public class SingleFlight {
+	private static final int MAX_CAPTURE_BYTES = Integer.getInteger("recaf.mcp.coalesce.maxBytes", 16 * 1024 * 1024);
+	/** Headers set by the server itself when the response is sent, which must not be copied to followers. */
+	private static final Set<String> TRANSPORT_HEADERS = Set.of("content-length", "transfer-encoding", "date", "connection");
+
+	private final Map<String, CompletableFuture<CapturedResponse>> flights = new ConcurrentHashMap<>();
+	private final BridgeMetrics metrics;
+	private final Supplier<String> scope;
+
+	/**
+	 * @param metrics Metrics to count coalesced requests in.
+	 * @param scope   Supplies the state identical requests must share, changing it separates new requests
+	 *                from those already running.
+	 */
+	public SingleFlight(BridgeMetrics metrics, Supplier<String> scope) {
+		this.metrics = metrics;
+		this.scope = scope;
+	}
+
+	/**
+	 * @param route   Registered path of the handler.
+	 * @param handler Handler to coalesce requests to.
+	 * @return Handler that shares the responses of identical concurrent requests.
+	 */
+	public HttpHandler wrap(String route, HttpHandler handler) {
+		return exchange -> {
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			exchange.setStreams(new ByteArrayInputStream(body), null);
+			// Conditional requests may be answered with 304, which only suits clients holding the same tag
+			String key = route + '?' + exchange.getRequestURI().getRawQuery() + '\n'
+					+ RequestContext.of(exchange).getWorkspaceId() + '@' + scope.get() + '\n'
+					+ exchange.getRequestHeaders().getFirst("If-None-Match") + '\n' + canonicalBody(body);
+
+			CompletableFuture<CapturedResponse> flight = new CompletableFuture<>();
+			CompletableFuture<CapturedResponse> running = flights.putIfAbsent(key, flight);
+			if (running == null) {
+				lead(exchange, handler, key, flight);
+				return;
+			}
+
+			CapturedResponse response;
+			try {
+				response = follow(exchange, running);
+			} catch (TimeoutException e) {
+				exchange.setAttribute(BridgeServer.NOTE_ATTRIBUTE, "expired waiting for an identical request");
+				BridgeServer.sendJson(exchange, 504, ErrorMapper.deadlineExceeded(route));
+				return;
+			}
+			if (response == null) {
+				// Nothing to share, do the work independently
+				handler.handle(exchange);
+			} else {
+				metrics.requestCoalesced();
+				exchange.setAttribute(BridgeServer.NOTE_ATTRIBUTE, "coalesced");
+				response.replay(exchange);
+			}
+		};
+	}
+
+	private void lead(HttpExchange exchange, HttpHandler handler, String key,
+					  CompletableFuture<CapturedResponse> flight) throws IOException {
+		CaptureOutputStream capture = new CaptureOutputStream(exchange.getResponseBody());
+		exchange.setStreams(null, capture);
+		CapturedResponse response = null;
+		try {
+			handler.handle(exchange);
+			int status = exchange.getResponseCode();
+			// Admission failures are specific to the leader, followers should be admitted on their own
+			boolean shareable = status != -1 && status != 503 && status != 504
+					&& exchange.getAttribute(BridgeServer.FAILURE_ATTRIBUTE) == null && !capture.overflowed;
+			if (shareable) {
+				response = new CapturedResponse(status, copyHeaders(exchange.getResponseHeaders()), capture.toByteArray());
+			}
+		} finally {
+			flights.remove(key, flight);
+			flight.complete(response);
+		}
+	}
+
+	/**
+	 * Wait for the leader of an identical request.
+	 *
+	 * @return Leader's response, or {@code null} when there is none to share.
+	 */
+	private static CapturedResponse follow(HttpExchange exchange, CompletableFuture<CapturedResponse> running)
+			throws IOException, TimeoutException {
+		RequestContext context = RequestContext.of(exchange);
+		try {
+			// Waiting is not cancellable through the shared future, that would cancel it for every waiter
+			if (context == null || !context.hasDeadline()) return running.get();
+			return running.get(context.remainingNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for an identical request");
+		} catch (ExecutionException e) {
+			return null;
+		}
+	}
+
+	private static Map<String, List<String>> copyHeaders(Headers headers) {
+		Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		headers.forEach((name, values) -> {
+			if (!TRANSPORT_HEADERS.contains(name.toLowerCase(Locale.ROOT))) copy.put(name, List.copyOf(values));
+		});
+		return copy;
+	}
+
+	/**
+	 * @return Body as JSON with object keys sorted, or the raw text when it is not JSON.
+	 */
+	private static String canonicalBody(byte[] body) {
+		String text = new String(body, StandardCharsets.UTF_8);
+		if (text.isBlank()) return "";
+		try {
+			StringBuilder canonical = new StringBuilder(text.length());
+			appendCanonical(JsonParser.parseString(text), canonical);
+			return canonical.toString();
+		} catch (RuntimeException e) {
+			return text;
+		}
+	}
+
+	private static void appendCanonical(JsonElement element, StringBuilder out) {
+		if (element instanceof JsonObject object) {
+			out.append('{');
+			boolean first = true;
+			for (String key : new TreeSet<>(object.keySet())) {
+				if (!first) out.append(',');
+				first = false;
+				out.append(new JsonPrimitive(key)).append(':');
+				appendCanonical(object.get(key), out);
+			}
+			out.append('}');
+		} else if (element instanceof JsonArray array) {
+			out.append('[');
+			for (int i = 0; i < array.size(); i++) {
+				if (i > 0) out.append(',');
+				appendCanonical(array.get(i), out);
+			}
+			out.append(']');
+		} else {
+			out.append(element);
+		}
+	}
+
+	/**
+	 * A leader's response, to be sent again to the requests that waited for it.
+	 */
+	private record CapturedResponse(int status, Map<String, List<String>> headers, byte[] body) {
+		private void replay(HttpExchange exchange) throws IOException {
+			headers.forEach((name, values) -> exchange.getResponseHeaders().put(name, new ArrayList<>(values)));
+			exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(body);
+			}
+		}
+	}
+
+	/**
+	 * Passes the response through while keeping a copy, up to {@link #MAX_CAPTURE_BYTES}.
+	 */
+	private static final class CaptureOutputStream extends FilterOutputStream {
+		private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		private boolean overflowed;
+
+		private CaptureOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			if (!overflowed) {
+				copy.write(b);
+				checkSize();
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			if (!overflowed) {
+				copy.write(b, off, len);
+				checkSize();
+			}
+		}
+
+		private void checkSize() {
+			if (copy.size() > MAX_CAPTURE_BYTES) {
+				overflowed = true;
+				copy.reset();
+			}
+		}
+
+		private byte[] toByteArray() {
+			return copy.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package dev.recaf.mcp.bridge;
+
+import software.coley.recaf.workspace.model.Workspace;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Sorted, immutable snapshots of listings, such as class names or search results, cached per workspace generation
+ * so that paging through them costs only the page and never sees the listing shift.
+ * <p>
+ * Holds the few most recently used snapshots, up to {@code recaf.mcp.snapshots.max}. Snapshots are keyed by
+ * the workspace's registry ID, workspaces not opened through the bridge get theirs built for every page.
+ *
+ * @see PageCursor
+ */
+public class Snapshots {
+	private static final int MAX_SNAPSHOTS = Math.max(1, Integer.getInteger("recaf.mcp.snapshots.max", 16));
+
+	private final WorkspaceRegistry registry;
+	private final Map<String, List<?>> snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<?>> eldest) {
+			return size() > MAX_SNAPSHOTS;
+		}
+	};
+
+	public Snapshots(WorkspaceRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Get the snapshot a page should be cut from: the one the cursor was cut from while it is still cached,
+	 * else one of the current workspace state, built on demand.
+	 *
+	 * @param workspace  Workspace of the listing.
+	 * @param listingKey Identifies the listing, including any query that shapes it.
+	 * @param cursor     Cursor of the page, or {@code null} for the first page.
+	 * @param builder    Builds a sorted snapshot of the current state.
+	 * @return Snapshot with the generation it belongs to.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Snapshot<T> get(Workspace workspace, String listingKey, PageCursor cursor, Supplier<List<T>> builder) {
+		if (cursor != null) {
+			List<?> cached = lookup(cursor.generation(), workspace, listingKey);
+			if (cached != null) return new Snapshot<>(cursor.generation(), (List<T>) cached);
+		}
+		// Not necessarily the current workspace, a change of that one was already noted when the request began
+		long generation = registry.getGeneration();
+		List<?> cached = lookup(generation, workspace, listingKey);
+		if (cached != null) return new Snapshot<>(generation, (List<T>) cached);
+
+		List<T> snapshot = List.copyOf(builder.get());
+		String key = key(generation, workspace, listingKey);
+		// Only keep snapshots no modification overlapped, so a generation never names two different listings
+		if (key != null && generation % 2 == 0 && registry.getGeneration() == generation) {
+			synchronized (snapshots) {
+				snapshots.put(key, snapshot);
+			}
+		}
+		return new Snapshot<>(generation, snapshot);
+	}
+
+	/**
+	 * Cut a page from a listing's snapshot, continuing where the cursor left off, else at the offset.
+	 *
+	 * @param workspace  Workspace of the listing.
+	 * @param listingKey Identifies the listing, including any query that shapes it.
+	 * @param cursor     Cursor from {@link PageCursor#parse(String, String)}, or {@code null} for the first page.
+	 * @param offset     Index of the first item when there is no cursor.
+	 * @param limit      Maximum items on the page.
+	 * @param sortKey    Sort key of an item, the snapshot must be sorted by it.
+	 * @param builder    Builds a sorted snapshot of the current state.
+	 * @return Page of the listing.
+	 */
+	public <T> Page<T> page(Workspace workspace, String listingKey, PageCursor cursor, int offset, int limit,
+							Function<T, String> sortKey, Supplier<List<T>> builder) {
+		Snapshot<T> snapshot = get(workspace, listingKey, cursor, builder);
+		List<T> items = snapshot.items();
+		int from = cursor == null ? Math.min(Math.max(offset, 0), items.size())
+				: cursor.startIndex(items, sortKey, snapshot.generation() == cursor.generation());
+		int to = (int) Math.min((long) from + Math.max(limit, 0), items.size());
+		String next = null;
+		if (to < items.size() && to > from) {
+			next = new PageCursor(snapshot.generation(), listingKey.hashCode(), to,
+					sortKey.apply(items.get(to - 1))).encode();
+		}
+		return new Page<>(items.subList(from, to), from, items.size(), next);
+	}
+
+	private List<?> lookup(long generation, Workspace workspace, String listingKey) {
+		String key = key(generation, workspace, listingKey);
+		if (key == null) return null;
+		synchronized (snapshots) {
+			return snapshots.get(key);
+		}
+	}
+
+	/**
+	 * @return Key of a snapshot, or {@code null} when the workspace is not registered.
+	 */
+	private String key(long generation, Workspace workspace, String listingKey) {
+		String workspaceId = registry.findId(workspace);
+		if (workspaceId == null) return null;
+		return generation + "\n" + workspaceId + "\n" + listingKey;
+	}
+
+	/**
+	 * @param generation Workspace generation the items belong to.
+	 * @param items      Sorted items.
+	 */
+	public record Snapshot<T>(long generation, List<T> items) {
+	}
+
+	/**
+	 * @param items      Items on the page.
+	 * @param offset     Index of the first item in the snapshot.
+	 * @param total      Items in the snapshot.
+	 * @param nextCursor Cursor of the next page, or {@code null} when this is the last one.
+	 */
+	public record Page<T>(List<T> items, int offset, int total, String nextCursor) {
+		public boolean hasMore() {
+			return offset + items.size() < total;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpHandler;
+import dev.recaf.mcp.util.ErrorMapper;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves the bridge protocol over a Unix domain socket, skipping TCP loopback entirely.
+ * <p>
+ * Speaks a minimal HTTP/1.1 subset: requests must carry a {@code Content-Length} body, responses are
+ * buffered and sent with a {@code Content-Length}, and connections are kept alive until the client closes them
+ * or sends {@code Connection: close}. Requests are dispatched to the same handlers as the TCP server.
+ */
+public class UnixSocketServer {
+	private static final Logger logger = Logging.get(UnixSocketServer.class);
+	private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+	private final Path socketPath;
+	private final Map<String, HttpHandler> handlers;
+	private final ExecutorService executor;
+	private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+	private ServerSocketChannel serverChannel;
+
+	public UnixSocketServer(Path socketPath, Map<String, HttpHandler> handlers, ExecutorService executor) {
+		this.socketPath = socketPath;
+		this.handlers = handlers;
+		this.executor = executor;
+	}
+
+	/**
+	 * Bind the socket and start accepting connections. A stale socket file from a previous run is replaced.
+	 */
+	public void start() throws IOException {
+		Files.deleteIfExists(socketPath);
+		serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+		executor.execute(this::acceptLoop);
+		logger.info("MCP Bridge listening on unix socket {}", socketPath);
+	}
+
+	public void stop() {
+		try {
+			if (serverChannel != null) serverChannel.close();
+			for (SocketChannel channel : connections) {
+				channel.close();
+			}
+			Files.deleteIfExists(socketPath);
+		} catch (IOException e) {
+			logger.warn("Failed to clean up unix socket {}", socketPath, e);
+		}
+	}
+
+	public Path getSocketPath() {
+		return socketPath;
+	}
+
+	private void acceptLoop() {
+		while (serverChannel.isOpen()) {
+			try {
+				SocketChannel channel = serverChannel.accept();
+				connections.add(channel);
+				executor.execute(() -> serve(channel));
+			} catch (ClosedChannelException e) {
+				return;
+			} catch (IOException e) {
+				logger.warn("Failed to accept unix socket connection", e);
+			}
+		}
+	}
+
+	private void serve(SocketChannel channel) {
+		try (channel;
+			 InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+			 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+			while (true) {
+				String requestLine = readLine(in);
+				if (requestLine == null) return;
+				if (requestLine.isEmpty()) continue;
+				if (!handleRequest(requestLine, in, out)) return;
+			}
+		} catch (ClosedChannelException | EOFException ignored) {
+			// Client went away
+		} catch (IOException e) {
+			logger.debug("Unix socket connection failed", e);
+		} finally {
+			connections.remove(channel);
+		}
+	}
+
+	/**
+	 * @return {@code true} when the connection should stay open for another request.
+	 */
+	private boolean handleRequest(String requestLine, InputStream in, OutputStream out) throws IOException {
+		String[] parts = requestLine.split(" ");
+		if (parts.length != 3) {
+			writeResponse(out, 400, List.of(), ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+					"Malformed request line", null).getBytes(StandardCharsets.UTF_8), false);
+			return false;
+		}
+
+		long contentLength = 0;
+		boolean keepAlive = true;
+		int headerBytes = 0;
+		Headers headers = new Headers();
+		String line;
+		while ((line = readLine(in)) != null && !line.isEmpty()) {
+			headerBytes += line.length();
+			if (headerBytes > MAX_HEADER_BYTES) throw new IOException("Request headers too large");
+			int colon = line.indexOf(':');
+			if (colon <= 0) continue;
+			String name = line.substring(0, colon).trim();
+			String value = line.substring(colon + 1).trim();
+			headers.add(name, value);
+			switch (name.toLowerCase(Locale.ROOT)) {
+				case "content-length" -> {
+					contentLength = parseContentLength(value);
+					if (contentLength < 0) {
+						writeResponse(out, 400, List.of(), ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+								"Invalid Content-Length: " + value, "Send the body length in bytes.")
+								.getBytes(StandardCharsets.UTF_8), false);
+						return false;
+					}
+				}
+				case "connection" -> keepAlive = !"close".equalsIgnoreCase(value);
+				case "transfer-encoding" -> {
+					writeResponse(out, 411, List.of(), ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+							"Chunked request bodies are not supported", "Send a Content-Length header.")
+							.getBytes(StandardCharsets.UTF_8), false);
+					return false;
+				}
+				default -> {
+				}
+			}
+		}
+		if (line == null) return false;
+
+		byte[] body = in.readNBytes((int) contentLength);
+		if (body.length < contentLength) throw new EOFException();
+
+		URI uri;
+		try {
+			uri = URI.create(parts[1]);
+		} catch (IllegalArgumentException e) {
+			// The body was read, so the connection is still in step for the next request
+			writeResponse(out, 400, List.of(), ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+					"Malformed request target: " + parts[1], null).getBytes(StandardCharsets.UTF_8), keepAlive);
+			return keepAlive;
+		}
+		HttpHandler handler = handlers.get(uri.getPath());
+		if (handler == null) {
+			writeResponse(out, 404, List.of(), ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+					"Unknown bridge path: " + uri.getPath(), null).getBytes(StandardCharsets.UTF_8), keepAlive);
+			return keepAlive;
+		}
+
+		LocalExchange exchange = new LocalExchange(parts[0], uri, body);
+		exchange.getRequestHeaders().putAll(headers);
+		handler.handle(exchange);
+
+		if (exchange.getAttribute(BridgeServer.FAILURE_ATTRIBUTE) instanceof Exception e) {
+			// Unlike over TCP nothing was sent yet, the response is buffered: answer with the error instead
+			writeResponse(out, 500, List.of(), ErrorMapper.mapException(uri.getPath(), e)
+					.getBytes(StandardCharsets.UTF_8), keepAlive);
+			return keepAlive;
+		}
+		List<Map.Entry<String, List<String>>> responseHeaders = List.copyOf(exchange.getResponseHeaders().entrySet());
+		writeResponse(out, exchange.getResponseCode(), responseHeaders, exchange.getResponseBytes(), keepAlive);
+		return keepAlive;
+	}
+
+	/**
+	 * @return Body length of a Content-Length header, or {@code -1} when it is not a valid one.
+	 */
+	private static long parseContentLength(String value) {
+		try {
+			long length = Long.parseLong(value);
+			return length <= Integer.MAX_VALUE ? length : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static void writeResponse(OutputStream out, int status, List<Map.Entry<String, List<String>>> headers,
+									  byte[] body, boolean keepAlive) throws IOException {
+		StringBuilder head = new StringBuilder(128);
+		head.append("HTTP/1.1 ").append(status).append(status < 400 ? " OK" : " Error").append("\r\n");
+		boolean hasContentType = false;
+		for (Map.Entry<String, List<String>> header : headers) {
+			String name = header.getKey();
+			if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding")) continue;
+			if (name.equalsIgnoreCase("Content-Type")) hasContentType = true;
+			for (String value : header.getValue()) {
+				head.append(name).append(": ").append(value).append("\r\n");
+			}
+		}
+		if (!hasContentType) head.append("Content-Type: application/json; charset=utf-8\r\n");
+		head.append("Content-Length: ").append(body.length).append("\r\n");
+		if (!keepAlive) head.append("Connection: close\r\n");
+		head.append("\r\n");
+		out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+		out.write(body);
+		out.flush();
+	}
+
+	/**
+	 * Read a CRLF (or LF) terminated line.
+	 *
+	 * @return Line without its terminator, or {@code null} at end of stream before any byte was read.
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int b;
+		while ((b = in.read()) != -1) {
+			if (b == '\n') break;
+			if (b != '\r') line.write(b);
+			if (line.size() > MAX_HEADER_BYTES) throw new IOException("Request line too long");
+		}
+		if (b == -1 && line.size() == 0) return null;
+		return line.toString(StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,240 @@
+package dev.recaf.mcp.bridge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import dev.recaf.mcp.util.JsonUtil;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.services.callgraph.CallGraph;
+import software.coley.recaf.services.callgraph.CallGraphService;
+import software.coley.recaf.services.decompile.DecompileResult;
+import software.coley.recaf.services.decompile.DecompilerManager;
+import software.coley.recaf.services.search.SearchService;
+import software.coley.recaf.services.search.match.StringPredicateProvider;
+import software.coley.recaf.services.search.query.StringQuery;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up the bridge after it starts, so that the first requests are not the ones paying for class loading,
+ * lazy decompiler initialization and interpreted code.
+ * <p>
+ * Runs the decompile, search, call graph, ASM and Gson paths of the most common requests a few times against
+ * a small synthetic class, in a throwaway workspace that never becomes current. Failures are logged and
+ * otherwise ignored, the bridge is ready either way once the warm-up has finished.
+ */
+public class WarmUp {
+	private static final Logger logger = Logging.get(WarmUp.class);
+	private static final String CLASS_NAME = "dev/recaf/mcp/warmup/Sample";
+	private static final String MARKER = "recaf-mcp warm-up";
+	private static final long DECOMPILE_TIMEOUT_SECONDS = 30;
+
+	private final DecompilerManager decompilerManager;
+	private final SearchService searchService;
+	private final StringPredicateProvider stringPredicateProvider;
+	private final CallGraphService callGraphService;
+	private final int iterations;
+	private volatile State state = State.PENDING;
+	private volatile long startNanos;
+	private volatile long elapsedMs = -1;
+
+	/**
+	 * @param iterations Times each path is run, {@code 0} skips the warm-up.
+	 */
+	public WarmUp(DecompilerManager decompilerManager, SearchService searchService,
+				  StringPredicateProvider stringPredicateProvider, CallGraphService callGraphService, int iterations) {
+		this.decompilerManager = decompilerManager;
+		this.searchService = searchService;
+		this.stringPredicateProvider = stringPredicateProvider;
+		this.callGraphService = callGraphService;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Start warming up in the background.
+	 */
+	public void start() {
+		if (iterations <= 0) {
+			state = State.SKIPPED;
+			return;
+		}
+		startNanos = System.nanoTime();
+		state = State.RUNNING;
+		Thread.ofVirtual().name("recaf-mcp-warmup").start(this::run);
+	}
+
+	private void run() {
+		try {
+			byte[] bytecode = sampleClass();
+			JvmClassInfo classInfo = new JvmClassInfoBuilder(bytecode).build();
+			BasicJvmClassBundle bundle = new BasicJvmClassBundle();
+			bundle.initialPut(classInfo);
+			Workspace workspace = new BasicWorkspace(new WorkspaceResourceBuilder().withJvmClassBundle(bundle).build());
+			for (int i = 0; i < iterations; i++) {
+				JsonObject outline = outline(bytecode);
+				JsonUtil.parseObject(JsonUtil.gson().toJson(outline));
+
+				// The handlers' path, so the warm-up loads and initializes what they use
+				Future<DecompileResult> decompilation = DecompileTask.start(decompilerManager, workspace, classInfo);
+				try {
+					JsonUtil.gson().toJson(decompilation.get(DECOMPILE_TIMEOUT_SECONDS, TimeUnit.SECONDS).getText());
+				} finally {
+					decompilation.cancel(true);
+				}
+
+				searchService.search(workspace, new StringQuery(stringPredicateProvider.newContainsPredicate("warm-up")));
+
+				CallGraph graph = callGraphService.newCallGraph(workspace);
+				graph.initialize();
+				graph.getClassMethodsContainer(classInfo);
+			}
+			state = State.DONE;
+		} catch (InterruptedException e) {
+			state = State.FAILED;
+			Thread.currentThread().interrupt();
+		} catch (Exception | LinkageError e) {
+			state = State.FAILED;
+			logger.warn("[MCP Bridge] Warm-up failed, the first requests may be slower", e);
+		} finally {
+			elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+			logger.info("[MCP Bridge] Warm-up {} in {}ms", state.name().toLowerCase(), elapsedMs);
+		}
+	}
+
+	/**
+	 * @return {@code true} once the warm-up has finished, or when it was skipped.
+	 */
+	public boolean isReady() {
+		return state != State.PENDING && state != State.RUNNING;
+	}
+
+	/**
+	 * @return Warm-up state, as reported by {@code /ready}.
+	 */
+	public JsonObject status() {
+		JsonObject data = new JsonObject();
+		data.addProperty("ready", isReady());
+		data.addProperty("warmup", state.name().toLowerCase());
+		long elapsed = state == State.RUNNING
+				? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) : elapsedMs;
+		if (elapsed >= 0) data.addProperty("elapsedMs", elapsed);
+		return data;
+	}
+
+	/**
+	 * Same shape of work as the class outline endpoint: parse the class with ASM and describe its members.
+	 */
+	private static JsonObject outline(byte[] bytecode) {
+		ClassNode node = new ClassNode();
+		new ClassReader(bytecode).accept(node, ClassReader.SKIP_FRAMES);
+		JsonArray methods = new JsonArray();
+		for (MethodNode method : node.methods) {
+			JsonObject item = new JsonObject();
+			item.addProperty("name", method.name);
+			item.addProperty("descriptor", method.desc);
+			int opcodes = 0;
+			for (AbstractInsnNode insn : method.instructions) {
+				if (insn.getOpcode() >= 0) opcodes++;
+			}
+			item.addProperty("instructions", opcodes);
+			methods.add(item);
+		}
+		JsonObject outline = new JsonObject();
+		outline.addProperty("name", node.name);
+		outline.add("methods", methods);
+		return outline;
+	}
+
+	/**
+	 * @return Bytecode of a small class with a field, a loop, a string constant and calls between its methods.
+	 */
+	private static byte[] sampleClass() {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, CLASS_NAME, null, "java/lang/Object", null);
+		cw.visitField(Opcodes.ACC_PRIVATE, "count", "I", null, null).visitEnd();
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// int sum(int n) { int total = 0; for (int i = 0; i < n; i++) total += i; return total; }
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "sum", "(I)I", null, null);
+		mv.visitCode();
+		Label loop = new Label();
+		Label end = new Label();
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 2);
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 3);
+		mv.visitLabel(loop);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitInsn(Opcodes.IADD);
+		mv.visitVarInsn(Opcodes.ISTORE, 2);
+		mv.visitIincInsn(3, 1);
+		mv.visitJumpInsn(Opcodes.GOTO, loop);
+		mv.visitLabel(end);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitInsn(Opcodes.IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// String describe(String name) { return name.concat(MARKER); }
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "describe", "(Ljava/lang/String;)Ljava/lang/String;", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitLdcInsn(MARKER);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "concat",
+				"(Ljava/lang/String;)Ljava/lang/String;", false);
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// void run() { count = sum(count); describe("run"); }
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, "count", "I");
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CLASS_NAME, "sum", "(I)I", false);
+		mv.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, "count", "I");
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitLdcInsn("run");
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CLASS_NAME, "describe",
+				"(Ljava/lang/String;)Ljava/lang/String;", false);
+		mv.visitInsn(Opcodes.POP);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private enum State {
+		PENDING, RUNNING, DONE, FAILED, SKIPPED
+	}
+}
@@ -0,0 +1,496 @@
+package dev.recaf.mcp.bridge;
+
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.services.workspace.WorkspaceManager;
+import software.coley.recaf.services.workspace.io.ResourceImporter;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.FileBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Imports the archives of {@code /workspace/open}: a primary archive and library archives, which are imported in
+ * parallel on a pool of {@code recaf.mcp.open.threads} threads and attached as supporting resources. Libraries
+ * only feed Recaf's own workspace-wide services, which index them on first use; the bridge's class indexes cover
+ * the primary resource alone, so libraries add nothing to the open beyond their import.
+ * <p>
+ * With {@code async}, an empty workspace is registered and made current before anything is imported, so its ID can
+ * be returned at once. Jar, war and zip archives are then imported entry by entry on a background thread, and put
+ * into the workspace in batches of {@code recaf.mcp.open.batchSize} entries, each within one advance of the workspace
+ * generation as a mutating request would, so listing, outline and search see the classes imported so far without
+ * every class invalidating what was computed before it. Libraries are attached once all are imported. Other inputs,
+ * such as APKs, go through Recaf's importer into a workspace that replaces the empty one in a single step.
+ * Meanwhile listing, outline and search are answered from an earlier {@link ClassIndex} of the archive, if any.
+ */
+public class WorkspaceLoader {
+	private static final Logger logger = Logging.get(WorkspaceLoader.class);
+	private static final int IMPORT_THREADS = Math.max(1, Integer.getInteger("recaf.mcp.open.threads",
+			Math.min(4, Runtime.getRuntime().availableProcessors())));
+	private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("recaf.mcp.open.batchSize", 1000));
+	private static final Set<String> PROGRESSIVE_EXTENSIONS = Set.of("jar", "war", "zip");
+	private static final int CLASS_MAGIC = 0xCAFEBABE;
+
+	private final WorkspaceManager workspaceManager;
+	private final ResourceImporter resourceImporter;
+	private final WorkspaceRegistry registry;
+	private final ClassIndexStore classIndexStore;
+	private final int batchSize;
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+	private final ExecutorService importPool = Executors.newFixedThreadPool(IMPORT_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "recaf-mcp-import");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public WorkspaceLoader(WorkspaceManager workspaceManager, ResourceImporter resourceImporter,
+						   WorkspaceRegistry registry, ClassIndexStore classIndexStore) {
+		this(workspaceManager, resourceImporter, registry, classIndexStore, BATCH_SIZE);
+	}
+
+	/**
+	 * @param batchSize Archive entries put into a workspace opened in the background at a time.
+	 */
+	WorkspaceLoader(WorkspaceManager workspaceManager, ResourceImporter resourceImporter,
+					WorkspaceRegistry registry, ClassIndexStore classIndexStore, int batchSize) {
+		this.workspaceManager = workspaceManager;
+		this.resourceImporter = resourceImporter;
+		this.registry = registry;
+		this.classIndexStore = classIndexStore;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Import a primary archive and its libraries, the libraries in parallel with it.
+	 *
+	 * @param primary   Archive to analyze.
+	 * @param libraries Archives it depends on, possibly none.
+	 * @param context   Request to report progress to.
+	 * @return Workspace of the archives, with the libraries that failed to import left out.
+	 * @throws IOException When the primary archive cannot be imported.
+	 */
+	public Opened open(Path primary, List<Path> libraries, RequestContext context) throws IOException, InterruptedException {
+		if (libraries.isEmpty()) {
+			return new Opened(new BasicWorkspace(resourceImporter.importResource(primary)), List.of());
+		}
+		List<Future<WorkspaceResource>> imports = submitImports(libraries);
+		try {
+			context.progress("importing", 0, libraries.size() + 1);
+			WorkspaceResource resource = resourceImporter.importResource(primary);
+			context.progress("importing", 1, libraries.size() + 1);
+			List<Library> results = awaitImports(libraries, imports, context);
+			return new Opened(new BasicWorkspace(resource, attachable(results)), results);
+		} finally {
+			for (Future<WorkspaceResource> future : imports) future.cancel(true);
+		}
+	}
+
+	/**
+	 * Register a workspace for the file, make it current and start importing into it.
+	 *
+	 * @param filePath  Path of the file to open, as given by the client.
+	 * @param libraries Archives it depends on, possibly none.
+	 * @return Job of the import.
+	 */
+	public Job open(String filePath, List<Path> libraries) {
+		Path path = Paths.get(filePath);
+		Workspace placeholder = new BasicWorkspace(new WorkspaceResourceBuilder()
+				.withJvmClassBundle(new BasicJvmClassBundle())
+				.withFileBundle(new BasicFileBundle())
+				.build());
+		String workspaceId = registry.register(filePath, placeholder);
+		// Kept until the import is done, an evicted placeholder could be neither filled nor replaced
+		registry.hold(workspaceId);
+		boolean progressive = PROGRESSIVE_EXTENSIONS.contains(extension(path));
+		Job job = new Job(workspaceId, filePath, libraries.size(), progressive);
+		jobs.put(workspaceId, job);
+		workspaceManager.setCurrent(placeholder);
+		List<Future<WorkspaceResource>> imports = submitImports(libraries);
+		job.loader = Thread.ofVirtual().name("recaf-mcp-open").start(() -> {
+			try {
+				// Lets listing, outline and search answer from an earlier index of the archive meanwhile
+				job.indexed = classIndexStore.preload(placeholder, path);
+				if (progressive) importEntries(job, path, placeholder, libraries, imports);
+				else importArchive(job, path, placeholder, libraries, imports);
+				job.finish(job.cancelled ? Status.CANCELLED : Status.READY, null);
+				logger.info("[MCP] Opened workspace in the background: {} ({} classes, id={}, {}ms)",
+						filePath, job.classes, workspaceId, job.elapsedMs());
+			} catch (Exception e) {
+				if (job.cancelled) {
+					// Interrupted by close()
+					job.finish(Status.CANCELLED, null);
+				} else {
+					logger.error("Failed to open workspace from '{}' in the background", filePath, e);
+					job.finish(Status.FAILED, messageOf(e));
+				}
+			} finally {
+				for (Future<WorkspaceResource> future : imports) future.cancel(true);
+				// Left over when the import failed or was cancelled
+				classIndexStore.discard(placeholder);
+				registry.release(workspaceId);
+				// Make room now that it is fully imported
+				registry.evictIdle();
+			}
+		});
+		return job;
+	}
+
+	/**
+	 * @return Job of the workspace, or {@code null} when it was not opened in the background.
+	 */
+	public Job get(String workspaceId) {
+		return jobs.get(workspaceId);
+	}
+
+	/**
+	 * Stop importing into a workspace, such as when it is closed.
+	 */
+	public void cancel(String workspaceId) {
+		Job job = jobs.remove(workspaceId);
+		if (job != null) job.cancelled = true;
+	}
+
+	/**
+	 * Cancel all background imports and stop the library import pool, such as when the bridge stops.
+	 */
+	public void close() {
+		for (Job job : jobs.values()) {
+			job.cancelled = true;
+			Thread loader = job.loader;
+			if (loader != null) loader.interrupt();
+		}
+		jobs.clear();
+		importPool.shutdownNow();
+	}
+
+	/**
+	 * Import the archive and its libraries, then replace the placeholder registered for them with the result.
+	 */
+	private void importArchive(Job job, Path path, Workspace placeholder, List<Path> libraries,
+							   List<Future<WorkspaceResource>> imports) throws IOException, InterruptedException {
+		WorkspaceResource resource = resourceImporter.importResource(path);
+		List<Library> results = awaitImports(libraries, imports, null);
+		job.libraryFailures = failures(results);
+		if (job.cancelled) return;
+		Workspace workspace = new BasicWorkspace(resource, attachable(results));
+		if (!registry.replace(job.workspaceId, placeholder, workspace)) return;
+		if (workspaceManager.getCurrent() == placeholder) workspaceManager.setCurrent(workspace);
+		job.classes = resource.getJvmClassBundle().size();
+		job.files = resource.getFileBundle().size();
+		classIndexStore.publish(placeholder, workspace);
+	}
+
+	/**
+	 * Import the entries of a zip-based archive into the registered workspace in batches, then attach its libraries.
+	 */
+	private void importEntries(Job job, Path path, Workspace workspace, List<Path> libraries,
+							   List<Future<WorkspaceResource>> imports) throws IOException, InterruptedException {
+		JvmClassBundle classes = workspace.getPrimaryResource().getJvmClassBundle();
+		FileBundle files = workspace.getPrimaryResource().getFileBundle();
+		Map<String, JvmClassInfo> classBatch = new LinkedHashMap<>();
+		Map<String, FileInfo> fileBatch = new LinkedHashMap<>();
+		try (ZipFile zip = new ZipFile(path.toFile())) {
+			job.entriesTotal = zip.size();
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements() && !job.cancelled) {
+				ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory()) {
+					byte[] content;
+					try (InputStream in = zip.getInputStream(entry)) {
+						content = in.readAllBytes();
+					}
+					String name = entry.getName();
+					JvmClassInfo classInfo = parseClass(name, content);
+					// The first of duplicate entries wins, as on a class path
+					if (classInfo != null) {
+						if (!classes.containsKey(classInfo.getName())) classBatch.putIfAbsent(classInfo.getName(), classInfo);
+					} else if (!files.containsKey(name)) {
+						fileBatch.putIfAbsent(name, new FileInfoBuilder<>().withName(name).withRawContent(content).build());
+					}
+				}
+				job.entriesRead++;
+				if (classBatch.size() + fileBatch.size() >= batchSize) putBatch(job, classes, files, classBatch, fileBatch);
+			}
+		}
+		if (job.cancelled) return;
+		putBatch(job, classes, files, classBatch, fileBatch);
+		List<Library> results = awaitImports(libraries, imports, null);
+		job.libraryFailures = failures(results);
+		if (job.cancelled) return;
+		List<WorkspaceResource> attachable = attachable(results);
+		if (!attachable.isEmpty()) {
+			registry.nextGeneration();
+			try {
+				for (WorkspaceResource library : attachable) workspace.addSupportingResource(library);
+			} finally {
+				registry.nextGeneration();
+			}
+		}
+		classIndexStore.publish(workspace, workspace);
+	}
+
+	/**
+	 * Put a batch of imported classes and files into the workspace, advancing the generation before and after
+	 * like a mutating request, so that the whole batch is one change to readers and the change journal.
+	 */
+	private void putBatch(Job job, JvmClassBundle classes, FileBundle files, Map<String, JvmClassInfo> classBatch,
+						  Map<String, FileInfo> fileBatch) {
+		if (classBatch.isEmpty() && fileBatch.isEmpty()) return;
+		registry.nextGeneration();
+		try {
+			for (JvmClassInfo classInfo : classBatch.values()) classes.put(classInfo);
+			for (FileInfo fileInfo : fileBatch.values()) files.put(fileInfo);
+		} finally {
+			registry.nextGeneration();
+		}
+		job.classes += classBatch.size();
+		job.files += fileBatch.size();
+		classBatch.clear();
+		fileBatch.clear();
+	}
+
+	/**
+	 * @return Class of an archive entry, or {@code null} when it is not one to import as a class, such as
+	 * a multi-release variant or a class that does not parse.
+	 */
+	private static JvmClassInfo parseClass(String name, byte[] content) {
+		if (!name.endsWith(".class") || name.startsWith("META-INF/versions/") || content.length < 4
+				|| ByteBuffer.wrap(content).getInt() != CLASS_MAGIC) {
+			return null;
+		}
+		try {
+			return new JvmClassInfoBuilder(content).build();
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static String extension(Path path) {
+		String name = path.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+	}
+
+	private List<Future<WorkspaceResource>> submitImports(List<Path> libraries) {
+		List<Future<WorkspaceResource>> imports = new ArrayList<>(libraries.size());
+		for (Path library : libraries) imports.add(importPool.submit(() -> resourceImporter.importResource(library)));
+		return imports;
+	}
+
+	/**
+	 * Wait for library imports, noting failures rather than throwing them.
+	 *
+	 * @param context Request to report progress to, or {@code null}.
+	 */
+	private static List<Library> awaitImports(List<Path> libraries, List<Future<WorkspaceResource>> imports,
+											  RequestContext context) throws InterruptedException {
+		List<Library> results = new ArrayList<>(imports.size());
+		for (int i = 0; i < imports.size(); i++) {
+			Path path = libraries.get(i);
+			try {
+				results.add(new Library(path, imports.get(i).get(), null));
+			} catch (ExecutionException e) {
+				logger.warn("[MCP] Could not import library {}: {}", path, messageOf(e.getCause()));
+				results.add(new Library(path, null, messageOf(e.getCause())));
+			}
+			if (context != null) context.progress("importing", i + 2, libraries.size() + 1);
+		}
+		return results;
+	}
+
+	private static List<WorkspaceResource> attachable(List<Library> results) {
+		List<WorkspaceResource> resources = new ArrayList<>(results.size());
+		for (Library result : results) {
+			if (result.resource() != null) resources.add(result.resource());
+		}
+		return resources;
+	}
+
+	private static List<Library> failures(List<Library> results) {
+		List<Library> failed = new ArrayList<>();
+		for (Library result : results) {
+			if (result.error() != null) failed.add(result);
+		}
+		return failed;
+	}
+
+	private static String messageOf(Throwable e) {
+		return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+	}
+
+	/**
+	 * @param workspace Workspace of the primary archive, with the imported libraries.
+	 * @param libraries Outcome of each library import, in request order.
+	 */
+	public record Opened(Workspace workspace, List<Library> libraries) {
+	}
+
+	/**
+	 * @param path     Library archive.
+	 * @param resource Imported library, or {@code null} when the import failed.
+	 * @param error    Why the import failed, or {@code null}.
+	 */
+	public record Library(Path path, WorkspaceResource resource, String error) {
+	}
+
+	/**
+	 * State of a background import.
+	 */
+	public enum Status {
+		IMPORTING, READY, FAILED, CANCELLED;
+
+		@Override
+		public String toString() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	/**
+	 * Progress of one background import. Counts are written by the importing thread only.
+	 */
+	public static final class Job {
+		private final String workspaceId;
+		private final String path;
+		private final int libraries;
+		private final boolean progressive;
+		private final long startNanos = System.nanoTime();
+		private volatile Status status = Status.IMPORTING;
+		private volatile int classes;
+		private volatile int files;
+		private volatile int entriesRead;
+		/** Entries in the archive, {@code -1} until known. */
+		private volatile int entriesTotal = -1;
+		private volatile long elapsedMs = -1;
+		private volatile String error;
+		private volatile List<Library> libraryFailures = List.of();
+		private volatile boolean indexed;
+		private volatile boolean cancelled;
+		/** Thread running the import. */
+		private volatile Thread loader;
+
+		private Job(String workspaceId, String path, int libraries, boolean progressive) {
+			this.workspaceId = workspaceId;
+			this.path = path;
+			this.libraries = libraries;
+			this.progressive = progressive;
+		}
+
+		private void finish(Status status, String error) {
+			this.error = error;
+			this.elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+			this.status = status;
+		}
+
+		public String workspaceId() {
+			return workspaceId;
+		}
+
+		public String path() {
+			return path;
+		}
+
+		public Status status() {
+			return status;
+		}
+
+		/**
+		 * @return {@code true} when classes become available in batches as they are imported, else all at once at
+		 * the end.
+		 */
+		public boolean progressive() {
+			return progressive;
+		}
+
+		/**
+		 * @return Classes put into the workspace so far, or all of them once a non-progressive import is published.
+		 */
+		public int classes() {
+			return classes;
+		}
+
+		/**
+		 * @return Files put into the workspace so far, or all of them once a non-progressive import is published.
+		 */
+		public int files() {
+			return files;
+		}
+
+		/**
+		 * @return Archive entries read so far by a progressive import.
+		 */
+		public int entriesRead() {
+			return entriesRead;
+		}
+
+		/**
+		 * @return Entries in the archive of a progressive import, {@code -1} until known.
+		 */
+		public int entriesTotal() {
+			return entriesTotal;
+		}
+
+		/**
+		 * @return {@code true} when an earlier index of the archive answers for its classes while they are imported.
+		 */
+		public boolean indexed() {
+			return indexed;
+		}
+
+		/**
+		 * @return Number of library archives requested with the primary one.
+		 */
+		public int libraries() {
+			return libraries;
+		}
+
+		/**
+		 * @return Libraries that could not be imported, known once the import finished.
+		 */
+		public List<Library> libraryFailures() {
+			return libraryFailures;
+		}
+
+		/**
+		 * @return Time taken so far, or in total once finished.
+		 */
+		public long elapsedMs() {
+			long finished = elapsedMs;
+			return finished >= 0 ? finished : (System.nanoTime() - startNanos) / 1_000_000;
+		}
+
+		/**
+		 * @return Why the import failed, or {@code null}.
+		 */
+		public String error() {
+			return error;
+		}
+	}
+}
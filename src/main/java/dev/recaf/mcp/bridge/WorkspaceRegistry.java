@@ -1,21 +1,112 @@
 package dev.recaf.mcp.bridge;
 
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
 import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BundleListener;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Multi-workspace registry: stores ID → Workspace mappings.
  * Allows multiple JARs to be opened simultaneously and switched between.
+ * <p>
+ * Registered workspaces share a memory budget of {@code recaf.mcp.workspaces.maxMb}, half the maximum heap by
+ * default. A workspace's size is estimated from the bytecode of its classes and the content of its files, measured
+ * once and then kept current by listening to its bundles. Once the budget is exceeded, the least recently used
+ * workspaces are evicted in the background: written to a {@link WorkspaceSpill} file in
+ * {@code recaf.mcp.spill.dir} and dropped from memory, to be restored transparently the next time they are asked for
+ * by ID. The current workspace, pinned workspaces, workspaces held by a running request or import and workspaces
+ * with {@link WorkspaceSpill#unsupportedContent(Workspace) content a spill file cannot keep} are never evicted.
+ * <p>
+ * Also keeps the workspace generation, a number that changes whenever a bridge request modifies workspace state,
+ * a journaled workspace changes otherwise, or a different workspace becomes current, so results computed at one generation are known to be stale at another.
+ * It is odd while a modification is in progress, and starts from a time-based value so that it keeps increasing
+ * across Recaf restarts.
  */
 public class WorkspaceRegistry {
+	private static final Logger logger = Logging.get(WorkspaceRegistry.class);
+	private static final long MAX_BYTES = Math.max(0, Long.getLong("recaf.mcp.workspaces.maxMb",
+			Runtime.getRuntime().maxMemory() / 2 / (1024 * 1024))) * 1024 * 1024;
+	/** Rough heap size of a class relative to its bytecode, which it holds next to its parsed model. */
+	private static final int CLASS_SIZE_FACTOR = 2;
+	/** Stands for no current workspace in {@link #observedWorkspace}. */
+	private static final Object NO_WORKSPACE = new Object();
+
 	private final Map<String, Workspace> workspaces = new ConcurrentHashMap<>();
 	private final Map<String, String> paths = new ConcurrentHashMap<>();
+	private final Map<String, Spilled> spilled = new ConcurrentHashMap<>();
+	private final Set<String> pinned = ConcurrentHashMap.newKeySet();
+	/** Number of holds on each workspace kept in memory while it is used, such as by a request or an import. */
+	private final Map<String, Integer> held = new ConcurrentHashMap<>();
+	/**
+	 * Guards taking a hold, restoring and removing against a concurrent eviction of the same workspace. Held only to
+	 * check and commit state, never while a spill file is written or read.
+	 */
+	private final Object holdLock = new Object();
+	/** Estimated size of each workspace in memory, measured on first need. */
+	private final Map<String, SizeTracker> sizes = new ConcurrentHashMap<>();
+	private final AtomicBoolean evictionPending = new AtomicBoolean();
+	private final ExecutorService evictor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "recaf-mcp-evict");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** Tick of the last use of each workspace, for least recently used eviction. */
+	private final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+	private final AtomicLong clock = new AtomicLong();
+	/** Workspaces kept in memory for content a spill file cannot keep, each logged once. */
+	private final Set<String> unspillable = ConcurrentHashMap.newKeySet();
+	private final List<Consumer<Workspace>> evictionListeners = new CopyOnWriteArrayList<>();
+	private final Supplier<Workspace> currentWorkspace;
+	private final Path spillDirectory;
 	private final AtomicInteger counter = new AtomicInteger(0);
+	private final AtomicLong generation = new AtomicLong(System.currentTimeMillis() * 1000);
+	/** Key of the workspace that was current when the generation was last read, see {@link #workspaceKey(Workspace)}. */
+	private final AtomicReference<Object> observedWorkspace = new AtomicReference<>(NO_WORKSPACE);
+	/** Generation from which on the current workspace is the observed one. */
+	private volatile long currentSince = generation.get();
+
+	/**
+	 * @param currentWorkspace Supplier of the current workspace, which is never evicted.
+	 */
+	public WorkspaceRegistry(Supplier<Workspace> currentWorkspace) {
+		this(currentWorkspace, defaultSpillDirectory());
+	}
+
+	/**
+	 * @param currentWorkspace Supplier of the current workspace, which is never evicted.
+	 * @param spillDirectory   Directory to write the spill files of evicted workspaces to.
+	 */
+	WorkspaceRegistry(Supplier<Workspace> currentWorkspace, Path spillDirectory) {
+		this.currentWorkspace = currentWorkspace;
+		this.spillDirectory = spillDirectory;
+	}
+
+	private static Path defaultSpillDirectory() {
+		String dir = System.getProperty("recaf.mcp.spill.dir");
+		return dir != null && !dir.isBlank() ? Paths.get(dir)
+				: Paths.get(System.getProperty("user.home"), ".recaf-mcp", "spill");
+	}
 
 	/**
 	 * Generate a unique workspace ID based on the file name.
@@ -38,14 +129,20 @@ public String register(String filePath, Workspace workspace) {
 		String id = generateId(filePath);
 		workspaces.put(id, workspace);
 		paths.put(id, filePath);
+		lastUsed.put(id, clock.incrementAndGet());
 		return id;
 	}
 
 	/**
-	 * Get a workspace by ID.
+	 * Get a workspace by ID, restoring it first when it was evicted.
+	 *
+	 * @throws UncheckedIOException When an evicted workspace cannot be restored.
 	 */
 	public Workspace get(String id) {
-		return workspaces.get(id);
+		Workspace workspace = workspaces.get(id);
+		if (workspace == null && spilled.containsKey(id)) workspace = restore(id);
+		if (workspace != null) lastUsed.put(id, clock.incrementAndGet());
+		return workspace;
 	}
 
 	/**
@@ -56,11 +153,38 @@ public String getPath(String id) {
 	}
 
 	/**
-	 * Remove a workspace by ID.
+	 * Replace the workspace registered under an ID, unless it was removed or replaced meanwhile.
+	 * Advances the generation, as results about the ID no longer hold.
+	 *
+	 * @return {@code true} when replaced.
+	 */
+	public boolean replace(String id, Workspace expected, Workspace workspace) {
+		if (!workspaces.replace(id, expected, workspace)) return false;
+		forgetSize(id);
+		generation.addAndGet(2);
+		return true;
+	}
+
+	/**
+	 * Remove a workspace by ID, deleting its spill file when it was evicted.
+	 *
+	 * @return Removed workspace, or {@code null} when it was not registered or evicted.
 	 */
 	public Workspace remove(String id) {
-		paths.remove(id);
-		return workspaces.remove(id);
+		Spilled removed;
+		Workspace workspace;
+		synchronized (holdLock) {
+			paths.remove(id);
+			pinned.remove(id);
+			held.remove(id);
+			unspillable.remove(id);
+			lastUsed.remove(id);
+			removed = spilled.remove(id);
+			workspace = workspaces.remove(id);
+		}
+		forgetSize(id);
+		if (removed != null) deleteQuietly(removed.file());
+		return workspace;
 	}
 
 	/**
@@ -76,24 +200,436 @@ public String findId(Workspace workspace) {
 	}
 
 	/**
-	 * Get all registered workspaces.
+	 * Get all registered workspaces held in memory.
 	 */
 	public Map<String, Workspace> getAll() {
 		return Collections.unmodifiableMap(workspaces);
 	}
 
 	/**
-	 * Clear all registered workspaces.
+	 * @return Registered workspaces evicted to disk, by ID.
+	 */
+	public Map<String, Spilled> getEvicted() {
+		return Collections.unmodifiableMap(spilled);
+	}
+
+	/**
+	 * Record a use of a workspace, such as a request on the current one, so it is evicted after less recent ones.
+	 */
+	public void touch(Workspace workspace) {
+		String id = findId(workspace);
+		if (id != null) lastUsed.put(id, clock.incrementAndGet());
+	}
+
+	/**
+	 * Pin or unpin a registered workspace. Pinned workspaces are never evicted.
+	 *
+	 * @return {@code false} when no workspace is registered under the ID.
+	 */
+	public boolean setPinned(String id, boolean pin) {
+		if (!paths.containsKey(id)) return false;
+		if (pin) pinned.add(id);
+		else pinned.remove(id);
+		return true;
+	}
+
+	public boolean isPinned(String id) {
+		return pinned.contains(id);
+	}
+
+	/**
+	 * Keep a workspace in memory until {@link #release(String) released}, while something uses or fills it.
+	 * Holds nest, the workspace can be evicted again once each has been released. A workspace held before it is
+	 * {@link #get(String) got} is not evicted in between.
+	 */
+	public void hold(String id) {
+		synchronized (holdLock) {
+			held.merge(id, 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Release a {@link #hold(String) hold} on a workspace.
+	 */
+	public void release(String id) {
+		held.computeIfPresent(id, (key, holds) -> holds == 1 ? null : holds - 1);
+	}
+
+	/**
+	 * @param listener Called with each workspace as it is evicted, to drop what is kept about it.
+	 */
+	public void addEvictionListener(Consumer<Workspace> listener) {
+		evictionListeners.add(listener);
+	}
+
+	/**
+	 * @param id        ID of a workspace in memory.
+	 * @param workspace The workspace.
+	 * @return Estimated heap size of the workspace in bytes, measured on the first call and kept current after.
+	 */
+	public long estimateSize(String id, Workspace workspace) {
+		return sizes.compute(id, (key, tracker) -> {
+			if (tracker != null && tracker.measures(workspace)) return tracker;
+			// Replaced, or a library was added since it was measured
+			if (tracker != null) tracker.close();
+			return SizeTracker.of(workspace);
+		}).bytes();
+	}
+
+	private void forgetSize(String id) {
+		SizeTracker tracker = sizes.remove(id);
+		if (tracker != null) tracker.close();
+	}
+
+	/**
+	 * Evict the least recently used workspaces until the ones in memory fit the budget, in the background so that
+	 * writing spill files holds up no request. Evictable are workspaces that are not current, pinned or held, and
+	 * whose content a spill file can keep.
+	 */
+	public void evictIdle() {
+		if (MAX_BYTES <= 0 || !evictionPending.compareAndSet(false, true)) return;
+		try {
+			evictor.execute(() -> {
+				// Cleared first, so that a change made during the pass asks for a pass of its own
+				evictionPending.set(false);
+				try {
+					evict();
+				} catch (RuntimeException e) {
+					logger.warn("[MCP] Workspace eviction failed", e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// Closed
+			evictionPending.set(false);
+		}
+	}
+
+	/**
+	 * Runs on the single eviction thread only, so passes never overlap.
+	 */
+	private void evict() {
+		Workspace current = currentWorkspace.get();
+		Map<String, Long> sizes = new HashMap<>();
+		long total = 0;
+		for (Map.Entry<String, Workspace> entry : workspaces.entrySet()) {
+			long size = estimateSize(entry.getKey(), entry.getValue());
+			sizes.put(entry.getKey(), size);
+			total += size;
+		}
+		if (total <= MAX_BYTES) return;
+		List<String> candidates = new ArrayList<>();
+		for (Map.Entry<String, Workspace> entry : workspaces.entrySet()) {
+			String id = entry.getKey();
+			if (entry.getValue() == current || pinned.contains(id) || held.containsKey(id)) continue;
+			String unsupported = WorkspaceSpill.unsupportedContent(entry.getValue());
+			if (unsupported != null) {
+				if (unspillable.add(id)) {
+					logger.warn("[MCP] Workspace {} holds {}, which eviction would lose, it stays in memory", id, unsupported);
+				}
+				continue;
+			}
+			candidates.add(id);
+		}
+		candidates.sort(Comparator.comparingLong(id -> lastUsed.getOrDefault(id, 0L)));
+		for (String id : candidates) {
+			if (total <= MAX_BYTES) break;
+			if (spill(id, sizes.get(id))) total -= sizes.get(id);
+		}
+		if (total > MAX_BYTES) {
+			logger.warn("[MCP] Workspaces use an estimated {}MB over the {}MB budget, the rest cannot be evicted",
+					(total - MAX_BYTES) / (1024 * 1024), MAX_BYTES / (1024 * 1024));
+		}
+	}
+
+	/**
+	 * Write a workspace to disk and drop it from memory, unless it was used, removed or pinned meanwhile.
+	 * The spill file is written without holding {@link #holdLock}, so that requests, restores and removals
+	 * never wait on it.
+	 *
+	 * @return {@code true} when evicted.
+	 */
+	boolean spill(String id, long size) {
+		Workspace workspace;
+		long stamp;
+		synchronized (holdLock) {
+			workspace = workspaces.get(id);
+			if (workspace == null || !evictable(id, workspace)) return false;
+			stamp = lastUsed.getOrDefault(id, 0L);
+		}
+		long start = System.nanoTime();
+		Path file = null;
+		try {
+			Files.createDirectories(spillDirectory);
+			file = Files.createTempFile(spillDirectory, id + "-", ".spill");
+			WorkspaceSpill.write(workspace, file);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("[MCP] Could not evict workspace {}, keeping it in memory", id, e);
+			if (file != null) deleteQuietly(file);
+			return false;
+		}
+		boolean committed;
+		synchronized (holdLock) {
+			// A request may have picked it up, or it was removed or replaced, while it was written, it then stays
+			committed = evictable(id, workspace) && lastUsed.getOrDefault(id, 0L) == stamp
+					&& workspaces.get(id) == workspace;
+			if (committed) {
+				// Listed as evicted first, so that a lookup outside the lock always finds it one way or the other
+				spilled.put(id, new Spilled(file, size, workspace.getPrimaryResource().getJvmClassBundle().size()));
+				workspaces.remove(id, workspace);
+			}
+		}
+		if (!committed) {
+			deleteQuietly(file);
+			return false;
+		}
+		forgetSize(id);
+		for (Consumer<Workspace> listener : evictionListeners) listener.accept(workspace);
+		logger.info("[MCP] Evicted idle workspace {} (~{}MB) to {} in {}ms", id, size / (1024 * 1024), file,
+				(System.nanoTime() - start) / 1_000_000);
+		return true;
+	}
+
+	/**
+	 * @return {@code true} when the workspace may be evicted, called holding {@link #holdLock}.
+	 */
+	private boolean evictable(String id, Workspace workspace) {
+		return workspace != currentWorkspace.get() && !pinned.contains(id) && !held.containsKey(id);
+	}
+
+	/**
+	 * Read an evicted workspace back into memory. Synchronized so that concurrent requests for it read it once,
+	 * the registry's state is only changed under {@link #holdLock}.
+	 */
+	private synchronized Workspace restore(String id) {
+		Spilled evicted;
+		synchronized (holdLock) {
+			Workspace workspace = workspaces.get(id);
+			if (workspace != null) return workspace;
+			evicted = spilled.get(id);
+			if (evicted == null) return null;
+		}
+		long start = System.nanoTime();
+		Workspace workspace;
+		try {
+			workspace = WorkspaceSpill.read(evicted.file());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not restore evicted workspace " + id, e);
+		}
+		synchronized (holdLock) {
+			// Removed while it was read
+			if (spilled.get(id) != evicted) return workspaces.get(id);
+			workspaces.put(id, workspace);
+			spilled.remove(id);
+			lastUsed.put(id, clock.incrementAndGet());
+		}
+		deleteQuietly(evicted.file());
+		logger.info("[MCP] Restored evicted workspace {} in {}ms", id, (System.nanoTime() - start) / 1_000_000);
+		// Make room for it, the caller holds it or makes it current, so it is not evicted again
+		evictIdle();
+		return workspace;
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			logger.warn("[MCP] Could not delete workspace spill file {}: {}", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * Stop evicting in the background and clear all registered workspaces, such as when the bridge stops.
+	 */
+	public void close() {
+		evictor.shutdownNow();
+		clear();
+	}
+
+	/**
+	 * Clear all registered workspaces, deleting the spill files of evicted ones.
 	 */
 	public void clear() {
-		workspaces.clear();
-		paths.clear();
+		List<Spilled> evicted;
+		synchronized (holdLock) {
+			evicted = new ArrayList<>(spilled.values());
+			spilled.clear();
+			workspaces.clear();
+			paths.clear();
+			pinned.clear();
+			held.clear();
+			unspillable.clear();
+			lastUsed.clear();
+		}
+		for (SizeTracker tracker : sizes.values()) tracker.close();
+		sizes.clear();
+		for (Spilled spill : evicted) deleteQuietly(spill.file());
 	}
 
 	/**
-	 * Get the number of registered workspaces.
+	 * @return Current workspace generation.
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Get the current workspace generation, first advancing it when the current workspace is not the one seen
+	 * by the previous call, such as after the workspace was switched from Recaf's UI.
+	 *
+	 * @param current Current workspace, or {@code null} for none.
+	 * @return Current workspace generation.
+	 */
+	public long getGeneration(Workspace current) {
+		Object key = workspaceKey(current);
+		Object observed = observedWorkspace.get();
+		// Advance by two, keeping an in-progress modification's generation odd
+		if (!key.equals(observed) && observedWorkspace.compareAndSet(observed, key)) {
+			currentSince = generation.addAndGet(2);
+		}
+		return generation.get();
+	}
+
+	/**
+	 * @return Registry ID of the workspace, so that one replaced or restored under the same ID is still the same,
+	 * else the workspace itself, such as for one opened from Recaf's UI.
+	 */
+	private Object workspaceKey(Workspace workspace) {
+		if (workspace == null) return NO_WORKSPACE;
+		String id = findId(workspace);
+		return id != null ? id : workspace;
+	}
+
+	/**
+	 * @return Generation from which on the current workspace, as of the last {@link #getGeneration(Workspace)},
+	 * has been current.
+	 */
+	public long getCurrentSince() {
+		return currentSince;
+	}
+
+	/**
+	 * Get the generation a change to a workspace's contents belongs to. Changes made by a mutating bridge request
+	 * belong to its odd, in-progress generation. Others, such as edits in Recaf's UI, advance the generation by two,
+	 * so that they belong to a generation newer than any seen before them.
+	 *
+	 * @return Generation of the change.
+	 */
+	public long changeGeneration() {
+		long current = generation.get();
+		if (current % 2 != 0) return current;
+		return generation.addAndGet(2) - 1;
+	}
+
+	/**
+	 * Advance the workspace generation.
+	 *
+	 * @return New generation.
+	 */
+	public long nextGeneration() {
+		return generation.incrementAndGet();
+	}
+
+	/**
+	 * Get the number of registered workspaces, in memory or evicted.
 	 */
 	public int size() {
-		return workspaces.size();
+		return workspaces.size() + spilled.size();
+	}
+
+	/**
+	 * Estimated size of a workspace, kept current by listening to the class and file bundles of its resources.
+	 */
+	private static final class SizeTracker {
+		private final Workspace workspace;
+		private final List<WorkspaceResource> resources = new ArrayList<>();
+		private final AtomicLong bytes = new AtomicLong();
+		private final BundleListener<JvmClassInfo> classListener = new BundleListener<>() {
+			@Override
+			public void onNewItem(String key, JvmClassInfo value) {
+				bytes.addAndGet(size(value));
+			}
+
+			@Override
+			public void onUpdateItem(String key, JvmClassInfo oldValue, JvmClassInfo newValue) {
+				bytes.addAndGet(size(newValue) - size(oldValue));
+			}
+
+			@Override
+			public void onRemoveItem(String key, JvmClassInfo value) {
+				bytes.addAndGet(-size(value));
+			}
+		};
+		private final BundleListener<FileInfo> fileListener = new BundleListener<>() {
+			@Override
+			public void onNewItem(String key, FileInfo value) {
+				bytes.addAndGet(size(value));
+			}
+
+			@Override
+			public void onUpdateItem(String key, FileInfo oldValue, FileInfo newValue) {
+				bytes.addAndGet(size(newValue) - size(oldValue));
+			}
+
+			@Override
+			public void onRemoveItem(String key, FileInfo value) {
+				bytes.addAndGet(-size(value));
+			}
+		};
+
+		private SizeTracker(Workspace workspace) {
+			this.workspace = workspace;
+			resources.add(workspace.getPrimaryResource());
+			resources.addAll(workspace.getSupportingResources());
+		}
+
+		static SizeTracker of(Workspace workspace) {
+			SizeTracker tracker = new SizeTracker(workspace);
+			// Listening before measuring may count a class added meanwhile twice, which an estimate can afford
+			for (WorkspaceResource resource : tracker.resources) {
+				resource.getJvmClassBundle().addBundleListener(tracker.classListener);
+				resource.getFileBundle().addBundleListener(tracker.fileListener);
+			}
+			for (WorkspaceResource resource : tracker.resources) {
+				long size = 0;
+				for (JvmClassInfo classInfo : resource.getJvmClassBundle().values()) size += size(classInfo);
+				for (FileInfo fileInfo : resource.getFileBundle().values()) size += size(fileInfo);
+				tracker.bytes.addAndGet(size);
+			}
+			return tracker;
+		}
+
+		/**
+		 * @return {@code true} when this measures the given workspace with all its current resources.
+		 */
+		boolean measures(Workspace workspace) {
+			return this.workspace == workspace && resources.size() == 1 + workspace.getSupportingResources().size();
+		}
+
+		long bytes() {
+			return bytes.get();
+		}
+
+		void close() {
+			for (WorkspaceResource resource : resources) {
+				resource.getJvmClassBundle().removeBundleListener(classListener);
+				resource.getFileBundle().removeBundleListener(fileListener);
+			}
+		}
+
+		private static long size(JvmClassInfo classInfo) {
+			return (long) classInfo.getBytecode().length * CLASS_SIZE_FACTOR;
+		}
+
+		private static long size(FileInfo fileInfo) {
+			return fileInfo.getRawContent().length;
+		}
+	}
+
+	/**
+	 * @param file       Spill file holding the workspace.
+	 * @param size       Estimated heap size of the workspace when it was evicted, in bytes.
+	 * @param classCount Number of primary classes.
+	 */
+	public record Spilled(Path file, long size, int classCount) {
 	}
 }
@@ -0,0 +1,140 @@
+package dev.recaf.mcp.bridge;
+
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.FileBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compact on-disk form of a workspace evicted from memory: the current bytecode of the JVM classes and the content
+ * of the files of its primary and supporting resources, deflated into one zip. Entries are named
+ * {@code <resource>/c/<class name>} and {@code <resource>/f/<file path>}, resource {@code 0} being the primary one.
+ * <p>
+ * Only the contents survive: a restored workspace has plain bundles without edit history, and files are restored
+ * as plain files rather than Recaf's text, image or archive specializations. Android classes, multi-release class
+ * versions and embedded archives are not kept at all, see {@link #unsupportedContent(Workspace)}.
+ */
+public final class WorkspaceSpill {
+	private WorkspaceSpill() {
+	}
+
+	/**
+	 * @param workspace Workspace to check.
+	 * @return Kind of content of the workspace a spill file cannot keep, or {@code null} when it keeps all of it.
+	 */
+	public static String unsupportedContent(Workspace workspace) {
+		for (WorkspaceResource resource : resources(workspace)) {
+			if (!resource.getAndroidClassBundles().isEmpty()) return "Android classes";
+			if (!resource.getVersionedJvmClassBundles().isEmpty()) return "multi-release class versions";
+			if (!resource.getEmbeddedResources().isEmpty()) return "embedded archives";
+		}
+		return null;
+	}
+
+	/**
+	 * @param workspace Workspace to write.
+	 * @param file      File to write it to, replaced if it exists.
+	 * @throws IOException When writing fails, or the workspace holds {@link #unsupportedContent(Workspace) content}
+	 *                     a spill file cannot keep.
+	 */
+	public static void write(Workspace workspace, Path file) throws IOException {
+		String unsupported = unsupportedContent(workspace);
+		if (unsupported != null) throw new IOException("Workspace holds " + unsupported + ", which a spill file cannot keep");
+		List<WorkspaceResource> resources = resources(workspace);
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+			// Restores wait for a running eviction, favour speed over size
+			zip.setLevel(Deflater.BEST_SPEED);
+			for (int i = 0; i < resources.size(); i++) {
+				WorkspaceResource resource = resources.get(i);
+				// Marks the resource even when it holds nothing
+				zip.putNextEntry(new ZipEntry(i + "/"));
+				zip.closeEntry();
+				for (JvmClassInfo classInfo : resource.getJvmClassBundle().values()) {
+					write(zip, i + "/c/" + classInfo.getName(), classInfo.getBytecode());
+				}
+				for (FileInfo fileInfo : resource.getFileBundle().values()) {
+					write(zip, i + "/f/" + fileInfo.getName(), fileInfo.getRawContent());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param file File written by {@link #write(Workspace, Path)}.
+	 * @return New workspace with the written contents.
+	 */
+	public static Workspace read(Path file) throws IOException {
+		List<JvmClassBundle> classBundles = new ArrayList<>();
+		List<FileBundle> fileBundles = new ArrayList<>();
+		try (ZipFile zip = new ZipFile(file.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+				int slash = name.indexOf('/');
+				int resource = Integer.parseInt(name.substring(0, slash));
+				while (classBundles.size() <= resource) {
+					classBundles.add(new BasicJvmClassBundle());
+					fileBundles.add(new BasicFileBundle());
+				}
+				if (entry.isDirectory()) continue;
+				byte[] content;
+				try (InputStream in = zip.getInputStream(entry)) {
+					content = in.readAllBytes();
+				}
+				if (name.startsWith("c/", slash + 1)) {
+					classBundles.get(resource).put(new JvmClassInfoBuilder(content).build());
+				} else {
+					String path = name.substring(slash + 3);
+					fileBundles.get(resource).put(new FileInfoBuilder<>().withName(path).withRawContent(content).build());
+				}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Malformed workspace spill file " + file, e);
+		}
+		if (classBundles.isEmpty()) throw new IOException("Workspace spill file " + file + " holds no resources");
+		List<WorkspaceResource> supporting = new ArrayList<>();
+		for (int i = 1; i < classBundles.size(); i++) supporting.add(resource(classBundles.get(i), fileBundles.get(i)));
+		return new BasicWorkspace(resource(classBundles.get(0), fileBundles.get(0)), supporting);
+	}
+
+	private static List<WorkspaceResource> resources(Workspace workspace) {
+		List<WorkspaceResource> resources = new ArrayList<>();
+		resources.add(workspace.getPrimaryResource());
+		resources.addAll(workspace.getSupportingResources());
+		return resources;
+	}
+
+	private static void write(ZipOutputStream zip, String name, byte[] content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content);
+		zip.closeEntry();
+	}
+
+	private static WorkspaceResource resource(JvmClassBundle classes, FileBundle files) {
+		return new WorkspaceResourceBuilder()
+				.withJvmClassBundle(classes)
+				.withFileBundle(files)
+				.build();
+	}
+}
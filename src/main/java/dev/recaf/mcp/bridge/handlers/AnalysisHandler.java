@@ -3,6 +3,7 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -45,7 +46,7 @@ public AnalysisHandler(WorkspaceManager workspaceManager,
 	 * POST /analysis/call-graph  { "className": "com/example/Foo", "methodName": "main", "depth": 3 }
 	 */
 	public void handleCallGraph(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -70,8 +71,12 @@ public void handleCallGraph(HttpExchange exchange) throws IOException {
 		}
 
 		try {
-			CallGraph graph = callGraphService.getCurrentWorkspaceCallGraph();
+			RequestContext context = RequestContext.of(exchange);
+			// Recaf only keeps the graph of the current workspace, others are built for the request
+			CallGraph graph = workspace == workspaceManager.getCurrent()
+					? callGraphService.getCurrentWorkspaceCallGraph() : null;
 			if (graph == null) {
+				context.progress("building call graph", 0, -1);
 				graph = callGraphService.newCallGraph(workspace);
 				graph.initialize();
 			}
@@ -99,13 +104,16 @@ public void handleCallGraph(HttpExchange exchange) throws IOException {
 					}
 				}
 			} else {
+				int total = container.getVertices().size();
 				for (MethodVertex vertex : container.getVertices()) {
+					context.checkCancelled();
+					context.progress("walking methods", methodGraphs.size(), total);
 					methodGraphs.add(buildMethodGraph(vertex, depth, new HashSet<>()));
 				}
 			}
 
 			data.add("methods", JsonUtil.gson().toJsonTree(methodGraphs));
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 		} catch (Exception e) {
 			logger.error("Call graph analysis failed for '{}'", className, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Call graph analysis", e));
@@ -153,7 +161,7 @@ private JsonObject buildMethodGraph(MethodVertex vertex, int depth, Set<String>
 	 * POST /analysis/inheritance  { "className": "com/example/Foo", "direction": "both|parents|children" }
 	 */
 	public void handleInheritance(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -172,7 +180,8 @@ public void handleInheritance(HttpExchange exchange) throws IOException {
 		String normalizedName = className.replace('.', '/');
 
 		try {
-			InheritanceGraph graph = inheritanceGraphService.getCurrentWorkspaceInheritanceGraph();
+			InheritanceGraph graph = workspace == workspaceManager.getCurrent()
+					? inheritanceGraphService.getCurrentWorkspaceInheritanceGraph() : null;
 			if (graph == null) {
 				graph = inheritanceGraphService.newInheritanceGraph(workspace);
 			}
@@ -214,7 +223,7 @@ public void handleInheritance(HttpExchange exchange) throws IOException {
 			}
 			data.add("directChildren", JsonUtil.gson().toJsonTree(directChildren));
 
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 		} catch (Exception e) {
 			logger.error("Inheritance analysis failed for '{}'", className, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Inheritance analysis", e));
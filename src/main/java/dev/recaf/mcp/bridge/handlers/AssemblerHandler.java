@@ -3,6 +3,8 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.ClassETag;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -14,7 +16,6 @@
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.services.assembler.AssemblerPipelineManager;
 import software.coley.recaf.services.assembler.JvmAssemblerPipeline;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 
@@ -28,21 +29,18 @@
 public class AssemblerHandler {
 	private static final Logger logger = Logging.get(AssemblerHandler.class);
 
-	private final WorkspaceManager workspaceManager;
 	private final AssemblerPipelineManager assemblerPipelineManager;
 
-	public AssemblerHandler(WorkspaceManager workspaceManager,
-							AssemblerPipelineManager assemblerPipelineManager) {
-		this.workspaceManager = workspaceManager;
+	public AssemblerHandler(AssemblerPipelineManager assemblerPipelineManager) {
 		this.assemblerPipelineManager = assemblerPipelineManager;
 	}
 
 	/**
 	 * POST /disassemble  { "className": "com/example/Foo", "maxChars": 120000 }
-	 * Disassemble a class into JASM text.
+	 * Disassemble a class into JASM text. Tagged by the class bytecode, honours If-None-Match.
 	 */
 	public void handleDisassemble(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -65,22 +63,21 @@ public void handleDisassemble(HttpExchange exchange) throws IOException {
 			return;
 		}
 
+		if (ClassETag.notModified(exchange, ClassETag.of(classPath.getValue().asJvmClass(), null))) return;
+
 		try {
 			JvmAssemblerPipeline pipeline = assemblerPipelineManager.newJvmAssemblerPipeline(workspace);
 			String disassembly = pipeline.disassemble(classPath).get();
 
-			boolean truncated = false;
-			if (disassembly.length() > maxChars) {
-				disassembly = disassembly.substring(0, maxChars);
-				truncated = true;
-			}
+			boolean truncated = disassembly.length() > maxChars;
+			String text = truncated ? disassembly.substring(0, maxChars) : disassembly;
 
-			JsonObject data = new JsonObject();
-			data.addProperty("className", normalizedName);
-			data.addProperty("disassembly", disassembly);
-			data.addProperty("truncated", truncated);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Disassembled class: {} ({} chars, truncated={})", normalizedName, disassembly.length(), truncated);
+			BridgeServer.streamSuccess(exchange, out -> {
+				out.name("className").value(normalizedName);
+				out.name("disassembly").value(text);
+				out.name("truncated").value(truncated);
+			});
+			logger.debug("[MCP] Disassembled class: {} ({} chars, truncated={})", normalizedName, text.length(), truncated);
 		} catch (Exception e) {
 			logger.error("Disassemble failed for {}", className, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.errorResponse(
@@ -94,7 +91,7 @@ public void handleDisassemble(HttpExchange exchange) throws IOException {
 	 * Assemble JASM source and apply to workspace.
 	 */
 	public void handleAssemble(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -165,7 +162,7 @@ public void handleAssemble(HttpExchange exchange) throws IOException {
 			data.addProperty("assembled", true);
 			data.addProperty("applied", true);
 			data.addProperty("bytecodeSize", assembled.getBytecode().length);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Assembled and applied class: {} ({} bytes)", normalizedName, assembled.getBytecode().length);
 		} catch (Exception e) {
 			logger.error("Assemble failed for {}", className, e);
@@ -177,10 +174,10 @@ public void handleAssemble(HttpExchange exchange) throws IOException {
 
 	/**
 	 * POST /disassemble/method  { "className": "com/example/Foo", "methodName": "bar", "methodDesc": "(I)V", "maxChars": 120000 }
-	 * Disassemble a single method into JASM text.
+	 * Disassemble a single method into JASM text. Tagged by the class bytecode, honours If-None-Match.
 	 */
 	public void handleMethodDisassemble(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -205,6 +202,8 @@ public void handleMethodDisassemble(HttpExchange exchange) throws IOException {
 			return;
 		}
 
+		if (ClassETag.notModified(exchange, ClassETag.of(classPath.getValue().asJvmClass(), null))) return;
+
 		try {
 			ClassInfo classInfo = classPath.getValue();
 
@@ -228,20 +227,17 @@ public void handleMethodDisassemble(HttpExchange exchange) throws IOException {
 			JvmAssemblerPipeline pipeline = assemblerPipelineManager.newJvmAssemblerPipeline(workspace);
 			String disassembly = pipeline.disassemble(memberPath).get();
 
-			boolean truncated = false;
-			if (disassembly.length() > maxChars) {
-				disassembly = disassembly.substring(0, maxChars);
-				truncated = true;
-			}
-
-			JsonObject data = new JsonObject();
-			data.addProperty("className", normalizedName);
-			data.addProperty("methodName", methodName);
-			data.addProperty("methodDesc", methodDesc);
-			data.addProperty("disassembly", disassembly);
-			data.addProperty("truncated", truncated);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Disassembled method {}.{}{} ({} chars)", normalizedName, methodName, methodDesc, disassembly.length());
+			boolean truncated = disassembly.length() > maxChars;
+			String text = truncated ? disassembly.substring(0, maxChars) : disassembly;
+
+			BridgeServer.streamSuccess(exchange, out -> {
+				out.name("className").value(normalizedName);
+				out.name("methodName").value(methodName);
+				out.name("methodDesc").value(methodDesc);
+				out.name("disassembly").value(text);
+				out.name("truncated").value(truncated);
+			});
+			logger.debug("[MCP] Disassembled method {}.{}{} ({} chars)", normalizedName, methodName, methodDesc, text.length());
 		} catch (Exception e) {
 			logger.error("Method disassemble failed for {}.{}{}", className, methodName, methodDesc, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.errorResponse(
@@ -0,0 +1,217 @@
+package dev.recaf.mcp.bridge.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.LocalExchange;
+import dev.recaf.mcp.bridge.RequestContext;
+import dev.recaf.mcp.bridge.Route;
+import dev.recaf.mcp.util.ErrorMapper;
+import dev.recaf.mcp.util.JsonUtil;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes several bridge requests in one round trip.
+ * <p>
+ * Consecutive read-only sub-requests run in parallel, each on its own virtual thread and still subject to
+ * its endpoint group's concurrency cap. Mutating sub-requests act as barriers: they run alone, after everything
+ * before them has finished and before anything after them starts, so results match sequential execution.
+ */
+public class BatchHandler {
+	private static final Logger logger = Logging.get(BatchHandler.class);
+	private static final int MAX_REQUESTS = Integer.getInteger("recaf.mcp.batch.maxRequests", 256);
+
+	private final Map<String, Route> routes;
+
+	public BatchHandler(Map<String, Route> routes) {
+		this.routes = routes;
+	}
+
+	/**
+	 * POST /batch  { "requests": [{ "id": "a", "path": "/decompile", "workspaceId": "optional-id", "body": { "className": "..." } }], "parallel": true }
+	 */
+	public void handle(HttpExchange exchange) throws IOException {
+		String body = BridgeServer.readBody(exchange);
+		JsonObject req = JsonUtil.parseObject(body);
+		if (!req.has("requests") || !req.get("requests").isJsonArray()) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.missingParam("requests"));
+			return;
+		}
+
+		JsonArray requests = req.getAsJsonArray("requests");
+		if (requests.size() > MAX_REQUESTS) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.errorResponse(
+					ErrorMapper.INVALID_PARAMS,
+					"Batch contains " + requests.size() + " requests, the limit is " + MAX_REQUESTS,
+					"Split the batch into smaller ones."));
+			return;
+		}
+		boolean parallel = !req.has("parallel") || req.get("parallel").getAsBoolean();
+
+		List<SubRequest> subRequests = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			subRequests.add(SubRequest.parse(i, requests.get(i), routes));
+		}
+		logger.debug("[MCP] Executing batch of {} requests", subRequests.size());
+
+		try {
+			execute(RequestContext.of(exchange), subRequests, parallel);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Batch interrupted", e);
+		}
+
+		BridgeServer.streamSuccess(exchange, out -> {
+			out.name("count").value(subRequests.size());
+			out.name("results").beginArray();
+			for (SubRequest sub : subRequests) {
+				out.beginObject();
+				out.name("id").value(sub.id);
+				out.name("path").value(sub.path);
+				out.name("httpStatus").value(sub.status);
+				out.name("response");
+				if (sub.response == null || sub.response.isEmpty()) {
+					out.nullValue();
+				} else {
+					// Sub-responses are already serialized JSON, copy them through without re-parsing
+					out.jsonValue(sub.response);
+				}
+				out.endObject();
+			}
+			out.endArray();
+		});
+	}
+
+	/**
+	 * Run the sub-requests in waves separated by mutating requests.
+	 */
+	private static void execute(RequestContext context, List<SubRequest> subRequests, boolean parallel)
+			throws InterruptedException {
+		List<SubRequest> wave = new ArrayList<>();
+		for (SubRequest sub : subRequests) {
+			if (!parallel || sub.isBarrier()) {
+				runWave(context, wave);
+				wave.clear();
+				// Sub-requests run on this thread clear its interrupt flag when they finish, so check explicitly
+				context.checkCancelled();
+				sub.run(context);
+			} else {
+				wave.add(sub);
+			}
+		}
+		context.checkCancelled();
+		runWave(context, wave);
+	}
+
+	private static void runWave(RequestContext context, List<SubRequest> wave) throws InterruptedException {
+		if (wave.isEmpty()) return;
+		if (wave.size() == 1) {
+			wave.get(0).run(context);
+			return;
+		}
+		// Closing the executor waits for every task in the wave to complete
+		try (ExecutorService wavePool = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (SubRequest sub : wave) {
+				wavePool.execute(() -> sub.run(context));
+			}
+		}
+		if (Thread.interrupted()) throw new InterruptedException();
+	}
+
+	/**
+	 * One entry of a batch, along with its captured result.
+	 */
+	private static final class SubRequest {
+		private final String id;
+		private final String path;
+		private final Route route;
+		private final byte[] body;
+		private final String workspaceId;
+		private int status;
+		private String response;
+
+		private SubRequest(String id, String path, Route route, byte[] body, String workspaceId) {
+			this.id = id;
+			this.path = path;
+			this.route = route;
+			this.body = body;
+			this.workspaceId = workspaceId;
+		}
+
+		private static SubRequest parse(int index, JsonElement element, Map<String, Route> routes) {
+			String defaultId = String.valueOf(index);
+			if (element == null || !element.isJsonObject()) {
+				return invalid(defaultId, null, ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+						"Batch entry " + index + " is not an object",
+						"Each entry needs the form { \"path\": \"/decompile\", \"body\": { ... } }."));
+			}
+			JsonObject obj = element.getAsJsonObject();
+			String id = JsonUtil.getString(obj, "id", defaultId);
+			String path = JsonUtil.getString(obj, "path", null);
+			if (path == null || path.isBlank()) {
+				return invalid(id, null, ErrorMapper.missingParam("path"));
+			}
+			Route route = routes.get(path);
+			if (route == null) {
+				return invalid(id, path, ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+						"Unknown bridge path: " + path,
+						"Use one of the bridge endpoints, e.g. /decompile or /workspace/outline. Batches cannot be nested."));
+			}
+			JsonElement subBody = obj.get("body");
+			String json = subBody == null || subBody.isJsonNull() ? "{}" : subBody.toString();
+			String workspaceId = JsonUtil.getString(obj, "workspaceId", null);
+			return new SubRequest(id, path, route, json.getBytes(StandardCharsets.UTF_8), workspaceId);
+		}
+
+		private static SubRequest invalid(String id, String path, String error) {
+			SubRequest sub = new SubRequest(id, path, null, null, null);
+			sub.status = 400;
+			sub.response = error;
+			return sub;
+		}
+
+		private boolean isBarrier() {
+			return route != null && route.mutating();
+		}
+
+		private void run(RequestContext batchContext) {
+			if (route == null) return;
+			LocalExchange exchange = new LocalExchange("POST", URI.create(path), body);
+			exchange.setAttribute(BridgeServer.BATCH_ENTRY_ATTRIBUTE, Boolean.TRUE);
+			if (workspaceId != null) exchange.getRequestHeaders().set(RequestContext.WORKSPACE_ID_HEADER, workspaceId);
+			if (batchContext.hasDeadline()) {
+				// Entries share the batch's deadline
+				long remainingMs = TimeUnit.NANOSECONDS.toMillis(batchContext.remainingNanos());
+				exchange.getRequestHeaders().set(RequestContext.DEADLINE_HEADER, String.valueOf(remainingMs));
+			}
+			try {
+				route.handler().handle(exchange);
+				if (exchange.getAttribute(BridgeServer.FAILURE_ATTRIBUTE) instanceof Exception e) {
+					// Failed part way through streaming, the captured body is truncated
+					status = 500;
+					response = ErrorMapper.mapException(path, e);
+				} else {
+					status = exchange.getResponseCode();
+					response = new String(exchange.getResponseBytes(), StandardCharsets.UTF_8);
+				}
+			} catch (Throwable t) {
+				logger.error("[MCP] Batch entry {} ({}) failed", id, path, t);
+				status = 500;
+				response = ErrorMapper.mapException(path, t instanceof Exception e ? e : new RuntimeException(t));
+			}
+		}
+	}
+}
@@ -3,6 +3,9 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.ClassETag;
+import dev.recaf.mcp.bridge.ClassNodeCache;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.objectweb.asm.*;
@@ -13,13 +16,10 @@
 import software.coley.recaf.info.JvmClassInfo;
 import software.coley.recaf.info.builder.JvmClassInfoBuilder;
 import software.coley.recaf.path.ClassPathNode;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Handles bytecode editing operations: edit/add/remove methods and fields.
@@ -28,10 +28,10 @@
 public class BytecodeHandler {
 	private static final Logger logger = Logging.get(BytecodeHandler.class);
 
-	private final WorkspaceManager workspaceManager;
+	private final ClassNodeCache classNodeCache;
 
-	public BytecodeHandler(WorkspaceManager workspaceManager) {
-		this.workspaceManager = workspaceManager;
+	public BytecodeHandler(ClassNodeCache classNodeCache) {
+		this.classNodeCache = classNodeCache;
 	}
 
 	/**
@@ -41,7 +41,7 @@ public BytecodeHandler(WorkspaceManager workspaceManager) {
 	 * Replaces a method's access flags. Full body editing requires assembler integration.
 	 */
 	public void handleEditMethod(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -67,15 +67,14 @@ public void handleEditMethod(HttpExchange exchange) throws IOException {
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] original = classInfo.getBytecode();
+			ClassNode source = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.FULL);
 			int newAccess = JsonUtil.getInt(req, "accessFlags", -1);
 
 			// Use ASM to modify the method
-			ClassReader reader = new ClassReader(original);
 			ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 			boolean[] found = {false};
 
-			reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+			ClassNodeCache.replay(source, new ClassVisitor(Opcodes.ASM9, writer) {
 				@Override
 				public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
 					if (name.equals(methodName) && descriptor.equals(methodDesc)) {
@@ -85,7 +84,7 @@ public MethodVisitor visitMethod(int access, String name, String descriptor, Str
 					}
 					return super.visitMethod(access, name, descriptor, signature, exceptions);
 				}
-			}, 0);
+			});
 
 			if (!found[0]) {
 				BridgeServer.sendJson(exchange, 404, ErrorMapper.memberNotFound(className, methodName + methodDesc));
@@ -100,7 +99,7 @@ public MethodVisitor visitMethod(int access, String name, String descriptor, Str
 			data.addProperty("methodName", methodName);
 			data.addProperty("methodDesc", methodDesc);
 			data.addProperty("modified", true);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Edited method {}.{}{}", normalizedName, methodName, methodDesc);
 		} catch (Exception e) {
 			logger.error("Edit method failed for {}.{}{}", className, methodName, methodDesc, e);
@@ -113,7 +112,7 @@ public MethodVisitor visitMethod(int access, String name, String descriptor, Str
 	 * { "className": "com/example/Foo", "fieldName": "x", "descriptor": "I", "accessFlags": 2 }
 	 */
 	public void handleEditField(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -138,15 +137,14 @@ public void handleEditField(HttpExchange exchange) throws IOException {
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] original = classInfo.getBytecode();
+			ClassNode source = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.FULL);
 			int newAccess = JsonUtil.getInt(req, "accessFlags", -1);
 			String newDescriptor = JsonUtil.getString(req, "descriptor", null);
 			boolean[] found = {false};
 
-			ClassReader reader = new ClassReader(original);
 			ClassWriter writer = new ClassWriter(0);
 
-			reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+			ClassNodeCache.replay(source, new ClassVisitor(Opcodes.ASM9, writer) {
 				@Override
 				public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
 					if (name.equals(fieldName)) {
@@ -157,7 +155,7 @@ public FieldVisitor visitField(int access, String name, String descriptor, Strin
 					}
 					return super.visitField(access, name, descriptor, signature, value);
 				}
-			}, 0);
+			});
 
 			if (!found[0]) {
 				BridgeServer.sendJson(exchange, 404, ErrorMapper.memberNotFound(className, fieldName));
@@ -171,7 +169,7 @@ public FieldVisitor visitField(int access, String name, String descriptor, Strin
 			data.addProperty("className", normalizedName);
 			data.addProperty("fieldName", fieldName);
 			data.addProperty("modified", true);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Edited field {}.{}", normalizedName, fieldName);
 		} catch (Exception e) {
 			logger.error("Edit field failed for {}.{}", className, fieldName, e);
@@ -184,7 +182,7 @@ public FieldVisitor visitField(int access, String name, String descriptor, Strin
 	 * { "className": "com/example/Foo", "memberName": "bar", "memberType": "method|field", "descriptor": "(I)V" }
 	 */
 	public void handleRemoveMember(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -211,13 +209,12 @@ public void handleRemoveMember(HttpExchange exchange) throws IOException {
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] original = classInfo.getBytecode();
+			ClassNode source = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.FULL);
 			boolean[] removed = {false};
 
-			ClassReader reader = new ClassReader(original);
 			ClassWriter writer = new ClassWriter(0);
 
-			reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+			ClassNodeCache.replay(source, new ClassVisitor(Opcodes.ASM9, writer) {
 				@Override
 				public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
 					if ("method".equalsIgnoreCase(memberType) && name.equals(memberName)) {
@@ -239,7 +236,7 @@ public FieldVisitor visitField(int access, String name, String desc, String sign
 					}
 					return super.visitField(access, name, desc, signature, value);
 				}
-			}, 0);
+			});
 
 			if (!removed[0]) {
 				BridgeServer.sendJson(exchange, 404, ErrorMapper.memberNotFound(className, memberName));
@@ -254,7 +251,7 @@ public FieldVisitor visitField(int access, String name, String desc, String sign
 			data.addProperty("memberName", memberName);
 			data.addProperty("memberType", memberType);
 			data.addProperty("removed", true);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Removed {} {}.{}", memberType, normalizedName, memberName);
 		} catch (Exception e) {
 			logger.error("Remove member failed for {}.{}", className, memberName, e);
@@ -267,7 +264,7 @@ public FieldVisitor visitField(int access, String name, String desc, String sign
 	 * { "className": "com/example/Foo", "fieldName": "newField", "descriptor": "I", "accessFlags": 1 }
 	 */
 	public void handleAddField(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -294,12 +291,11 @@ public void handleAddField(HttpExchange exchange) throws IOException {
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] original = classInfo.getBytecode();
+			ClassNode source = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.FULL);
 
-			ClassReader reader = new ClassReader(original);
 			ClassWriter writer = new ClassWriter(0);
 
-			reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+			ClassNodeCache.replay(source, new ClassVisitor(Opcodes.ASM9, writer) {
 				@Override
 				public void visitEnd() {
 					// Add the new field before ending the class
@@ -307,7 +303,7 @@ public void visitEnd() {
 					if (fv != null) fv.visitEnd();
 					super.visitEnd();
 				}
-			}, 0);
+			});
 
 			byte[] modified = writer.toByteArray();
 			updateClassInBundle(workspace, classInfo, modified);
@@ -318,7 +314,7 @@ public void visitEnd() {
 			data.addProperty("descriptor", descriptor);
 			data.addProperty("accessFlags", accessFlags);
 			data.addProperty("added", true);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Added field {}.{} {}", normalizedName, fieldName, descriptor);
 		} catch (Exception e) {
 			logger.error("Add field failed for {}.{}", className, fieldName, e);
@@ -332,7 +328,7 @@ public void visitEnd() {
 	 * Creates a method with a minimal body (just RETURN).
 	 */
 	public void handleAddMethod(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -359,12 +355,11 @@ public void handleAddMethod(HttpExchange exchange) throws IOException {
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] original = classInfo.getBytecode();
+			ClassNode source = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.FULL);
 
-			ClassReader reader = new ClassReader(original);
 			ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 
-			reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+			ClassNodeCache.replay(source, new ClassVisitor(Opcodes.ASM9, writer) {
 				@Override
 				public void visitEnd() {
 					// Add a new method with minimal body
@@ -401,7 +396,7 @@ public void visitEnd() {
 					}
 					super.visitEnd();
 				}
-			}, 0);
+			});
 
 			byte[] modified = writer.toByteArray();
 			updateClassInBundle(workspace, classInfo, modified);
@@ -412,7 +407,7 @@ public void visitEnd() {
 			data.addProperty("methodDesc", methodDesc);
 			data.addProperty("accessFlags", accessFlags);
 			data.addProperty("added", true);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Added method {}.{}{}", normalizedName, methodName, methodDesc);
 		} catch (Exception e) {
 			logger.error("Add method failed for {}.{}{}", className, methodName, methodDesc, e);
@@ -424,9 +419,10 @@ public void visitEnd() {
 	 * POST /bytecode/instructions
 	 * { "className": "com/example/Foo", "methodName": "bar", "methodDesc": "(I)V" }
 	 * Returns detailed bytecode instructions for a method using ASM tree API.
+	 * Tagged by the class bytecode, honours If-None-Match.
 	 */
 	public void handleMethodBytecode(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -452,11 +448,8 @@ public void handleMethodBytecode(HttpExchange exchange) throws IOException {
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] bytecode = classInfo.getBytecode();
-
-			ClassReader reader = new ClassReader(bytecode);
-			ClassNode classNode = new ClassNode();
-			reader.accept(classNode, 0);
+			if (ClassETag.notModified(exchange, ClassETag.of(classInfo, null))) return;
+			ClassNode classNode = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.FULL);
 
 			// Find the target method
 			MethodNode targetMethod = null;
@@ -472,55 +465,57 @@ public void handleMethodBytecode(HttpExchange exchange) throws IOException {
 				return;
 			}
 
-			JsonObject data = new JsonObject();
-			data.addProperty("className", normalizedName);
-			data.addProperty("methodName", methodName);
-			data.addProperty("methodDesc", methodDesc);
-			data.addProperty("access", targetMethod.access);
-			data.addProperty("maxStack", targetMethod.maxStack);
-			data.addProperty("maxLocals", targetMethod.maxLocals);
-
-			// Format instructions
-			List<JsonObject> instructions = new ArrayList<>();
-			if (targetMethod.instructions != null) {
-				for (AbstractInsnNode insn : targetMethod.instructions) {
-					JsonObject insnObj = formatInstruction(insn);
-					if (insnObj != null) {
-						instructions.add(insnObj);
+			MethodNode method = targetMethod;
+			int[] instructionCount = {0};
+			BridgeServer.streamSuccess(exchange, out -> {
+				out.name("className").value(normalizedName);
+				out.name("methodName").value(methodName);
+				out.name("methodDesc").value(methodDesc);
+				out.name("access").value(method.access);
+				out.name("maxStack").value(method.maxStack);
+				out.name("maxLocals").value(method.maxLocals);
+
+				// Format instructions
+				out.name("instructions").beginArray();
+				if (method.instructions != null) {
+					for (AbstractInsnNode insn : method.instructions) {
+						JsonObject insnObj = formatInstruction(insn);
+						if (insnObj != null) {
+							JsonUtil.gson().toJson(insnObj, out);
+							instructionCount[0]++;
+						}
 					}
 				}
-			}
-			data.add("instructions", JsonUtil.gson().toJsonTree(instructions));
-
-			// Try-catch blocks
-			List<JsonObject> tryCatchBlocks = new ArrayList<>();
-			if (targetMethod.tryCatchBlocks != null) {
-				for (TryCatchBlockNode tcb : targetMethod.tryCatchBlocks) {
-					JsonObject tcbObj = new JsonObject();
-					tcbObj.addProperty("start", labelIndex(targetMethod, tcb.start));
-					tcbObj.addProperty("end", labelIndex(targetMethod, tcb.end));
-					tcbObj.addProperty("handler", labelIndex(targetMethod, tcb.handler));
-					tcbObj.addProperty("type", tcb.type != null ? tcb.type : "any");
-					tryCatchBlocks.add(tcbObj);
+				out.endArray();
+
+				// Try-catch blocks
+				out.name("tryCatchBlocks").beginArray();
+				if (method.tryCatchBlocks != null) {
+					for (TryCatchBlockNode tcb : method.tryCatchBlocks) {
+						out.beginObject();
+						out.name("start").value(labelIndex(method, tcb.start));
+						out.name("end").value(labelIndex(method, tcb.end));
+						out.name("handler").value(labelIndex(method, tcb.handler));
+						out.name("type").value(tcb.type != null ? tcb.type : "any");
+						out.endObject();
+					}
 				}
-			}
-			data.add("tryCatchBlocks", JsonUtil.gson().toJsonTree(tryCatchBlocks));
-
-			// Local variables
-			List<JsonObject> localVariables = new ArrayList<>();
-			if (targetMethod.localVariables != null) {
-				for (LocalVariableNode lv : targetMethod.localVariables) {
-					JsonObject lvObj = new JsonObject();
-					lvObj.addProperty("name", lv.name);
-					lvObj.addProperty("desc", lv.desc);
-					lvObj.addProperty("index", lv.index);
-					localVariables.add(lvObj);
+				out.endArray();
+
+				// Local variables
+				out.name("localVariables").beginArray();
+				if (method.localVariables != null) {
+					for (LocalVariableNode lv : method.localVariables) {
+						out.beginObject();
+						out.name("name").value(lv.name);
+						out.name("desc").value(lv.desc);
+						out.name("index").value(lv.index);
+						out.endObject();
+					}
 				}
-			}
-			data.add("localVariables", JsonUtil.gson().toJsonTree(localVariables));
-
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Method bytecode {}.{}{}: {} instructions", normalizedName, methodName, methodDesc, instructions.size());
+				out.endArray();
+			});
+			logger.debug("[MCP] Method bytecode {}.{}{}: {} instructions", normalizedName, methodName, methodDesc, instructionCount[0]);
 		} catch (Exception e) {
 			logger.error("Method bytecode failed for {}.{}{}", className, methodName, methodDesc, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Method bytecode", e));
@@ -0,0 +1,48 @@
+package dev.recaf.mcp.bridge.handlers;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.RequestTracker;
+import dev.recaf.mcp.util.ErrorMapper;
+import dev.recaf.mcp.util.JsonUtil;
+import org.slf4j.Logger;
+import software.coley.recaf.analytics.logging.Logging;
+
+import java.io.IOException;
+
+/**
+ * Handles cancellation of running bridge requests.
+ */
+public class CancelHandler {
+	private static final Logger logger = Logging.get(CancelHandler.class);
+
+	private final RequestTracker requestTracker;
+
+	public CancelHandler(RequestTracker requestTracker) {
+		this.requestTracker = requestTracker;
+	}
+
+	/**
+	 * POST /cancel  { "requestId": "..." }
+	 * The ID is the value the client sent in the X-Request-Id header of the request to cancel.
+	 */
+	public void handle(HttpExchange exchange) throws IOException {
+		String body = BridgeServer.readBody(exchange);
+		JsonObject req = JsonUtil.parseObject(body);
+		String requestId = JsonUtil.getString(req, "requestId", null);
+
+		if (requestId == null || requestId.isBlank()) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.missingParam("requestId"));
+			return;
+		}
+
+		boolean cancelled = requestTracker.cancel(requestId);
+		logger.debug("[MCP] Cancel request {}: {}", requestId, cancelled ? "cancelled" : "not running");
+
+		JsonObject data = new JsonObject();
+		data.addProperty("requestId", requestId);
+		data.addProperty("cancelled", cancelled);
+		BridgeServer.sendSuccess(exchange, data);
+	}
+}
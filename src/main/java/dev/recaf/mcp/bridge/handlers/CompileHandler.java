@@ -4,6 +4,7 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -16,7 +17,6 @@
 import software.coley.recaf.services.compile.JavacArguments;
 import software.coley.recaf.services.compile.JavacArgumentsBuilder;
 import software.coley.recaf.services.compile.JavacCompiler;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 
@@ -29,11 +29,9 @@
 public class CompileHandler {
 	private static final Logger logger = Logging.get(CompileHandler.class);
 
-	private final WorkspaceManager workspaceManager;
 	private final JavacCompiler javacCompiler;
 
-	public CompileHandler(WorkspaceManager workspaceManager, JavacCompiler javacCompiler) {
-		this.workspaceManager = workspaceManager;
+	public CompileHandler(JavacCompiler javacCompiler) {
 		this.javacCompiler = javacCompiler;
 	}
 
@@ -42,7 +40,7 @@ public CompileHandler(WorkspaceManager workspaceManager, JavacCompiler javacComp
 	 * Compile Java source and apply to workspace.
 	 */
 	public void handle(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -102,7 +100,7 @@ public void handle(HttpExchange exchange) throws IOException {
 					}
 				}
 				data.add("diagnostics", diagArray);
-				BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+				BridgeServer.sendSuccess(exchange, data);
 				logger.info("[MCP] Compilation failed for {}: {} diagnostics", dotName,
 						diagnostics != null ? diagnostics.size() : 0);
 				return;
@@ -128,7 +126,7 @@ public void handle(HttpExchange exchange) throws IOException {
 			data.addProperty("applied", true);
 			data.addProperty("className", slashName);
 			data.addProperty("bytecodeSize", compiledBytecode.length);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Compiled and applied: {} ({} bytes)", slashName, compiledBytecode.length);
 		} catch (Exception e) {
 			logger.error("Compilation failed for {}", className, e);
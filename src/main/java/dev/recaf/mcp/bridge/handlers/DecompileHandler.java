@@ -3,6 +3,9 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.ClassETag;
+import dev.recaf.mcp.bridge.DecompileTask;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -11,7 +14,7 @@
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.services.decompile.DecompilerManager;
 import software.coley.recaf.services.decompile.DecompileResult;
-import software.coley.recaf.services.workspace.WorkspaceManager;
+import software.coley.recaf.services.decompile.JvmDecompiler;
 import software.coley.recaf.workspace.model.Workspace;
 
 import java.io.IOException;
@@ -24,19 +27,18 @@
 public class DecompileHandler {
 	private static final Logger logger = Logging.get(DecompileHandler.class);
 
-	private final WorkspaceManager workspaceManager;
 	private final DecompilerManager decompilerManager;
 
-	public DecompileHandler(WorkspaceManager workspaceManager, DecompilerManager decompilerManager) {
-		this.workspaceManager = workspaceManager;
+	public DecompileHandler(DecompilerManager decompilerManager) {
 		this.decompilerManager = decompilerManager;
 	}
 
 	/**
 	 * POST /decompile  { "className": "com/example/Foo" }
+	 * Tagged by the class and its nested classes plus the decompiler and its settings, honours If-None-Match.
 	 */
 	public void handle(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -59,33 +61,40 @@ public void handle(HttpExchange exchange) throws IOException {
 		}
 
 		JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-		logger.info("[MCP] Decompiling class: {}", normalizedName);
+		JvmDecompiler targetDecompiler = decompilerManager.getTargetJvmDecompiler();
+		String decompiler = targetDecompiler.getName();
+		String etag = ClassETag.withNested(workspace, classInfo, decompiler + '#' + targetDecompiler.getConfig().getHash());
+		if (ClassETag.notModified(exchange, etag)) return;
+		logger.debug("[MCP] Decompiling class: {}", normalizedName);
 
 		try {
-			DecompileResult result = decompilerManager.decompile(workspace, classInfo)
-					.get(30, TimeUnit.SECONDS);
+			DecompileResult result = RequestContext.of(exchange)
+					.await(DecompileTask.start(decompilerManager, workspace, classInfo), 30, TimeUnit.SECONDS);
 
-			JsonObject data = new JsonObject();
-			data.addProperty("className", classInfo.getName());
-
-			if (result.getText() != null) {
-				data.addProperty("source", result.getText());
-				data.addProperty("decompiler", decompilerManager.getTargetJvmDecompiler().getName());
-			} else {
-				data.addProperty("source", "// Decompilation failed - no output");
-				if (result.getException() != null) {
-					data.addProperty("error", result.getException().getMessage());
-				}
+			if (result.getText() == null) {
+				// Only output is tagged, a cached failure would be revalidated as unchanged until the class changes
+				exchange.getResponseHeaders().remove("ETag");
+				String reason = result.getException() != null ? ": " + result.getException().getMessage() : "";
+				BridgeServer.sendJson(exchange, 500, ErrorMapper.errorResponse(
+						ErrorMapper.DECOMPILE_FAILED,
+						"Decompilation of " + className + " produced no output" + reason,
+						"Try a different decompiler, or disassemble the class instead."));
+				return;
 			}
-
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.streamSuccess(exchange, out -> {
+				out.name("className").value(classInfo.getName());
+				out.name("source").value(result.getText());
+				out.name("decompiler").value(decompiler);
+			});
 		} catch (TimeoutException e) {
+			exchange.getResponseHeaders().remove("ETag");
 			logger.error("Decompilation timed out for '{}'", className);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.errorResponse(
 					ErrorMapper.DECOMPILE_TIMEOUT,
-					"Decompilation of " + className + " timed out after 30 seconds",
+					"Decompilation of " + className + " timed out",
 					"The class may be too complex. Try a different decompiler or a simpler class."));
 		} catch (Exception e) {
+			exchange.getResponseHeaders().remove("ETag");
 			logger.error("Decompilation failed for '{}'", className, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Decompile " + className, e));
 		}
@@ -3,6 +3,8 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.DecompileTask;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.DiffUtil;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
@@ -12,7 +14,6 @@
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.services.decompile.DecompileResult;
 import software.coley.recaf.services.decompile.DecompilerManager;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 
 import java.io.IOException;
@@ -24,11 +25,9 @@
 public class DiffHandler {
 	private static final Logger logger = Logging.get(DiffHandler.class);
 
-	private final WorkspaceManager workspaceManager;
 	private final DecompilerManager decompilerManager;
 
-	public DiffHandler(WorkspaceManager workspaceManager, DecompilerManager decompilerManager) {
-		this.workspaceManager = workspaceManager;
+	public DiffHandler(DecompilerManager decompilerManager) {
 		this.decompilerManager = decompilerManager;
 	}
 
@@ -38,7 +37,7 @@ public DiffHandler(WorkspaceManager workspaceManager, DecompilerManager decompil
 	 * Mode 2: { "className1": "com/example/A", "source": "provided source code" }
 	 */
 	public void handle(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -65,7 +64,8 @@ public void handle(HttpExchange exchange) throws IOException {
 
 		try {
 			// Decompile first class
-			String source1 = decompileClass(workspace, className1);
+			RequestContext context = RequestContext.of(exchange);
+			String source1 = decompileClass(context, workspace, className1);
 			if (source1 == null) {
 				BridgeServer.sendJson(exchange, 404, ErrorMapper.classNotFound(className1));
 				return;
@@ -74,7 +74,7 @@ public void handle(HttpExchange exchange) throws IOException {
 			String source2;
 			String label2;
 			if (className2 != null) {
-				source2 = decompileClass(workspace, className2);
+				source2 = decompileClass(context, workspace, className2);
 				if (source2 == null) {
 					BridgeServer.sendJson(exchange, 404, ErrorMapper.classNotFound(className2));
 					return;
@@ -94,22 +94,22 @@ public void handle(HttpExchange exchange) throws IOException {
 			data.addProperty("linesAdded", DiffUtil.countAdded(diff));
 			data.addProperty("linesRemoved", DiffUtil.countRemoved(diff));
 			data.addProperty("identical", identical);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Diff: {} vs {} (identical={})", label1, label2, identical);
+			BridgeServer.sendSuccess(exchange, data);
+			logger.debug("[MCP] Diff: {} vs {} (identical={})", label1, label2, identical);
 		} catch (Exception e) {
 			logger.error("Diff failed for '{}'", className1, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Diff classes", e));
 		}
 	}
 
-	private String decompileClass(Workspace workspace, String className) throws Exception {
+	private String decompileClass(RequestContext context, Workspace workspace, String className) throws Exception {
 		String normalizedName = className.replace('.', '/');
 		ClassPathNode classPath = workspace.findJvmClass(normalizedName);
 		if (classPath == null) return null;
 
 		JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-		DecompileResult result = decompilerManager.decompile(workspace, classInfo)
-				.get(30, TimeUnit.SECONDS);
+		DecompileResult result = context.await(DecompileTask.start(decompilerManager, workspace, classInfo),
+				30, TimeUnit.SECONDS);
 		return result.getText();
 	}
 }
@@ -4,6 +4,8 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.DecompileTask;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -12,7 +14,6 @@
 import software.coley.recaf.info.FileInfo;
 import software.coley.recaf.services.decompile.DecompileResult;
 import software.coley.recaf.services.decompile.DecompilerManager;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
 import software.coley.recaf.workspace.model.bundle.FileBundle;
@@ -25,6 +26,7 @@
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -35,11 +37,9 @@
 public class ExportHandler {
 	private static final Logger logger = Logging.get(ExportHandler.class);
 
-	private final WorkspaceManager workspaceManager;
 	private final DecompilerManager decompilerManager;
 
-	public ExportHandler(WorkspaceManager workspaceManager, DecompilerManager decompilerManager) {
-		this.workspaceManager = workspaceManager;
+	public ExportHandler(DecompilerManager decompilerManager) {
 		this.decompilerManager = decompilerManager;
 	}
 
@@ -47,7 +47,7 @@ public ExportHandler(WorkspaceManager workspaceManager, DecompilerManager decomp
 	 * POST /export/jar  { "outputPath": "/path/to/output.jar" }
 	 */
 	public void handleExportJar(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -75,10 +75,12 @@ public void handleExportJar(HttpExchange exchange) throws IOException {
 
 			int classCount = 0;
 			int fileCount = 0;
+			RequestContext context = RequestContext.of(exchange);
 
 			try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(outPath))) {
 				// Write class entries
 				for (JvmClassInfo classInfo : classBundle) {
+					context.progress("writing classes", classCount, classBundle.size());
 					String entryName = classInfo.getName() + ".class";
 					jos.putNextEntry(new JarEntry(entryName));
 					jos.write(classInfo.getBytecode());
@@ -88,6 +90,7 @@ public void handleExportJar(HttpExchange exchange) throws IOException {
 
 				// Write file entries (resources)
 				for (FileInfo fileInfo : fileBundle) {
+					context.progress("writing files", fileCount, fileBundle.size());
 					String entryName = fileInfo.getName();
 					jos.putNextEntry(new JarEntry(entryName));
 					jos.write(fileInfo.getRawContent());
@@ -103,7 +106,7 @@ public void handleExportJar(HttpExchange exchange) throws IOException {
 			data.addProperty("classCount", classCount);
 			data.addProperty("fileCount", fileCount);
 			data.addProperty("sizeBytes", sizeBytes);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Exported JAR: {} ({} classes, {} files, {} bytes)",
 					outputPath, classCount, fileCount, sizeBytes);
 		} catch (Exception e) {
@@ -117,7 +120,7 @@ public void handleExportJar(HttpExchange exchange) throws IOException {
 	 * className is optional: if provided, exports only that class; otherwise exports all.
 	 */
 	public void handleExportSource(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -157,12 +160,16 @@ public void handleExportSource(HttpExchange exchange) throws IOException {
 			}
 
 			int exported = 0;
+			int processed = 0;
 			JsonArray errors = new JsonArray();
+			RequestContext context = RequestContext.of(exchange);
 
 			for (JvmClassInfo classInfo : targets) {
+				context.checkCancelled();
+				context.progress("decompiling", processed++, targets.size());
 				try {
-					DecompileResult result = decompilerManager.decompile(workspace, classInfo)
-							.get(30, TimeUnit.SECONDS);
+					DecompileResult result = context.await(DecompileTask.start(decompilerManager, workspace, classInfo),
+							30, TimeUnit.SECONDS);
 
 					String source = result.getText();
 					if (source == null) {
@@ -178,6 +185,9 @@ public void handleExportSource(HttpExchange exchange) throws IOException {
 					}
 					Files.writeString(filePath, source);
 					exported++;
+				} catch (InterruptedException | CancellationException e) {
+					// Abandon the whole export, not just this class
+					throw e;
 				} catch (Exception e) {
 					errors.add("Error decompiling " + classInfo.getName() + ": " + e.getMessage());
 				}
@@ -189,7 +199,7 @@ public void handleExportSource(HttpExchange exchange) throws IOException {
 			if (errors.size() > 0) {
 				data.add("errors", errors);
 			}
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Exported source: {} classes to {}", exported, outputDir);
 		} catch (Exception e) {
 			logger.error("Export source failed: {}", outputDir, e);
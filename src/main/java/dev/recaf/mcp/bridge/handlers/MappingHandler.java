@@ -3,6 +3,7 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -48,7 +49,7 @@ public MappingHandler(WorkspaceManager workspaceManager,
 	 * POST /mapping/rename  { "type": "class|field|method", "oldName": "a", "newName": "Example", "className": "com/example/Foo" }
 	 */
 	public void handleRename(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -101,7 +102,7 @@ public void handleRename(HttpExchange exchange) throws IOException {
 				}
 			}
 
-			var applier = mappingApplierService.inCurrentWorkspace();
+			var applier = mappingApplierService.inWorkspace(workspace);
 			if (applier == null) {
 				BridgeServer.sendJson(exchange, 500, ErrorMapper.errorResponse(
 						ErrorMapper.INTERNAL_ERROR,
@@ -118,7 +119,7 @@ public void handleRename(HttpExchange exchange) throws IOException {
 			data.addProperty("oldName", oldName);
 			data.addProperty("newName", newName);
 			data.addProperty("affectedClasses", results.getMappedClasses().size());
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Renamed {} '{}' -> '{}' ({} classes affected)", type, oldName, newName, results.getMappedClasses().size());
 		} catch (Exception e) {
 			logger.error("Rename failed: {} '{}' -> '{}'", type, oldName, newName, e);
@@ -130,7 +131,7 @@ public void handleRename(HttpExchange exchange) throws IOException {
 	 * POST /mapping/export  { "format": "TinyV1", "outputPath": "/path/to/output.tiny" }
 	 */
 	public void handleExport(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -146,13 +147,22 @@ public void handleExport(HttpExchange exchange) throws IOException {
 				Set<String> formats = mappingFormatManager.getMappingFileFormats();
 				JsonObject data = new JsonObject();
 				data.add("availableFormats", JsonUtil.gson().toJsonTree(formats));
-				BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+				BridgeServer.sendSuccess(exchange, data);
 				return;
 			}
 			BridgeServer.sendJson(exchange, 400, ErrorMapper.missingParam("format", "outputPath"));
 			return;
 		}
 
+		if (workspace != workspaceManager.getCurrent()) {
+			// Recaf only aggregates the mappings applied to the current workspace
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.errorResponse(
+					ErrorMapper.INVALID_PARAMS,
+					"Mappings can only be exported from the current workspace",
+					"Use 'switch_workspace' to make the workspace current, then export."));
+			return;
+		}
+
 		try {
 			AggregatedMappings aggMappings = aggregateMappingManager.getAggregatedMappings();
 			if (aggMappings == null) {
@@ -181,7 +191,7 @@ public void handleExport(HttpExchange exchange) throws IOException {
 			data.addProperty("format", format);
 			data.addProperty("outputPath", outputPath);
 			data.addProperty("size", exportText.length());
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Exported mappings: format='{}', path='{}'", format, outputPath);
 		} catch (Exception e) {
 			logger.error("Mapping export failed", e);
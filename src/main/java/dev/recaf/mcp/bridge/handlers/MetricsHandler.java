@@ -0,0 +1,41 @@
+package dev.recaf.mcp.bridge.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import dev.recaf.mcp.bridge.BridgeMetrics;
+import dev.recaf.mcp.bridge.BridgeServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exposes the bridge's request metrics.
+ */
+public class MetricsHandler {
+	private final BridgeMetrics metrics;
+
+	public MetricsHandler(BridgeMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * GET /metrics              Prometheus text format
+	 * GET /metrics?format=json  JSON, with latency quantiles
+	 */
+	public void handle(HttpExchange exchange) throws IOException {
+		String query = exchange.getRequestURI().getQuery();
+		if (query != null && query.contains("format=json")) {
+			BridgeServer.streamSuccess(exchange, metrics::writeJson);
+			return;
+		}
+
+		StringBuilder text = new StringBuilder(16 * 1024);
+		metrics.writePrometheus(text);
+		byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+}
@@ -4,11 +4,11 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.RequestContext;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
 import software.coley.recaf.analytics.logging.Logging;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.services.workspace.patch.PatchApplier;
 import software.coley.recaf.services.workspace.patch.PatchFeedback;
 import software.coley.recaf.services.workspace.patch.PatchProvider;
@@ -25,14 +25,11 @@
 public class PatchHandler {
 	private static final Logger logger = Logging.get(PatchHandler.class);
 
-	private final WorkspaceManager workspaceManager;
 	private final PatchProvider patchProvider;
 	private final PatchApplier patchApplier;
 
-	public PatchHandler(WorkspaceManager workspaceManager,
-						PatchProvider patchProvider,
+	public PatchHandler(PatchProvider patchProvider,
 						PatchApplier patchApplier) {
-		this.workspaceManager = workspaceManager;
 		this.patchProvider = patchProvider;
 		this.patchApplier = patchApplier;
 	}
@@ -41,7 +38,7 @@ public PatchHandler(WorkspaceManager workspaceManager,
 	 * POST /patch  { "action": "create" } or { "action": "apply", "patchJson": "..." }
 	 */
 	public void handle(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -81,7 +78,7 @@ private void handleCreate(HttpExchange exchange, Workspace workspace) throws IOE
 			data.addProperty("textFilePatches", textFilePatches);
 			data.addProperty("removals", removals);
 			data.addProperty("patchJson", patchJson);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Created patch: {} assembler, {} text, {} removals",
 					assemblerPatches, textFilePatches, removals);
 		} catch (Exception e) {
@@ -127,7 +124,7 @@ public void onIncompletePathObserved(software.coley.recaf.path.PathNode<?> path)
 				}
 				data.add("errors", errArray);
 			}
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 			logger.info("[MCP] Applied patch: success={}, errors={}", success, errors.size());
 		} catch (Exception e) {
 			logger.error("Patch apply failed", e);
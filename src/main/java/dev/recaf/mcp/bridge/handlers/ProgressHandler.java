@@ -0,0 +1,53 @@
+package dev.recaf.mcp.bridge.handlers;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.RequestContext;
+import dev.recaf.mcp.bridge.RequestTracker;
+import dev.recaf.mcp.util.ErrorMapper;
+import dev.recaf.mcp.util.JsonUtil;
+
+import java.io.IOException;
+
+/**
+ * Handles progress queries for running bridge requests.
+ */
+public class ProgressHandler {
+	private final RequestTracker requestTracker;
+
+	public ProgressHandler(RequestTracker requestTracker) {
+		this.requestTracker = requestTracker;
+	}
+
+	/**
+	 * POST /progress  { "requestId": "..." }
+	 * The ID is the value the client sent in the X-Request-Id header of the request to follow.
+	 * Progress fields are absent while the request has reported none.
+	 */
+	public void handle(HttpExchange exchange) throws IOException {
+		String body = BridgeServer.readBody(exchange);
+		JsonObject req = JsonUtil.parseObject(body);
+		String requestId = JsonUtil.getString(req, "requestId", null);
+
+		if (requestId == null || requestId.isBlank()) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.missingParam("requestId"));
+			return;
+		}
+
+		RequestContext context = requestTracker.find(requestId);
+		RequestContext.Progress progress = context == null ? null : context.getProgress();
+
+		JsonObject data = new JsonObject();
+		data.addProperty("requestId", requestId);
+		data.addProperty("running", context != null);
+		if (progress != null) {
+			data.addProperty("phase", progress.phase());
+			data.addProperty("done", progress.done());
+			if (progress.total() >= 0) data.addProperty("total", progress.total());
+			data.addProperty("progress", progress.overall());
+			if (progress.overallTotal() >= 0) data.addProperty("progressTotal", progress.overallTotal());
+		}
+		BridgeServer.sendSuccess(exchange, data);
+	}
+}
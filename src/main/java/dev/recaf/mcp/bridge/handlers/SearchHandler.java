@@ -3,6 +3,11 @@
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.ClassIndex;
+import dev.recaf.mcp.bridge.ClassIndexStore;
+import dev.recaf.mcp.bridge.PageCursor;
+import dev.recaf.mcp.bridge.RequestContext;
+import dev.recaf.mcp.bridge.Snapshots;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
 import org.slf4j.Logger;
@@ -16,7 +21,6 @@
 import software.coley.recaf.services.search.query.StringQuery;
 import software.coley.recaf.services.search.result.Result;
 import software.coley.recaf.services.search.result.Results;
-import software.coley.recaf.services.workspace.WorkspaceManager;
 import software.coley.recaf.workspace.model.Workspace;
 
 import java.io.IOException;
@@ -24,27 +28,38 @@
 
 /**
  * Handles search requests: string search, class/method/field reference search.
+ * <p>
+ * While a workspace opened with async is importing, string and declaration searches run against an earlier class
+ * index of its archive when there is one. The index knows which class holds a string but not which member.
  */
 public class SearchHandler {
 	private static final Logger logger = Logging.get(SearchHandler.class);
+	/** Hits kept of a single search, pages are cut from these. */
+	private static final int MAX_SNAPSHOT_HITS = Math.max(1, Integer.getInteger("recaf.mcp.search.maxHits", 100_000));
+	/** Search types a class index can answer. */
+	private static final Set<String> INDEXED_TYPES = Set.of("string", "declaration");
 
-	private final WorkspaceManager workspaceManager;
 	private final SearchService searchService;
 	private final StringPredicateProvider stringPredicateProvider;
+	private final Snapshots snapshots;
+	private final ClassIndexStore classIndexStore;
 
-	public SearchHandler(WorkspaceManager workspaceManager,
-						 SearchService searchService,
-						 StringPredicateProvider stringPredicateProvider) {
-		this.workspaceManager = workspaceManager;
+	public SearchHandler(SearchService searchService,
+						 StringPredicateProvider stringPredicateProvider,
+						 Snapshots snapshots,
+						 ClassIndexStore classIndexStore) {
 		this.searchService = searchService;
 		this.stringPredicateProvider = stringPredicateProvider;
+		this.snapshots = snapshots;
+		this.classIndexStore = classIndexStore;
 	}
 
 	/**
-	 * POST /search  { "query": "hello", "type": "string|class|method|field|declaration" }
+	 * POST /search  { "query": "hello", "type": "string|class|method|field|declaration", "maxResults": 100, "cursor": "..." }
+	 * Pages through a sorted snapshot of the hits, continue with the returned nextCursor.
 	 */
 	public void handle(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -60,73 +75,149 @@ public void handle(HttpExchange exchange) throws IOException {
 			return;
 		}
 
+		int maxResults = JsonUtil.getInt(req, "maxResults", 100);
+		String listingKey = "search\n" + type.toLowerCase() + "\n" + query;
+		PageCursor cursor;
 		try {
-			Results results;
-			String normalizedQuery = query.replace('.', '/');
-			logger.info("[MCP] Searching: query='{}', type='{}'", query, type);
-
-			switch (type.toLowerCase()) {
-				case "class" -> {
-					results = searchService.search(workspace, new ReferenceQuery(
-							stringPredicateProvider.newContainsPredicate(normalizedQuery),
-							null, null));
-				}
-				case "method" -> {
-					results = searchService.search(workspace, new ReferenceQuery(
-							null,
-							stringPredicateProvider.newContainsPredicate(query),
-							null));
-				}
-				case "field" -> {
-					results = searchService.search(workspace, new ReferenceQuery(
-							null,
-							stringPredicateProvider.newContainsPredicate(query),
-							null));
-				}
-				case "declaration" -> {
-					results = searchService.search(workspace, new DeclarationQuery(
-							stringPredicateProvider.newContainsPredicate(normalizedQuery),
-							stringPredicateProvider.newContainsPredicate(query),
-							null));
-				}
-				default -> {
-					results = searchService.search(workspace, new StringQuery(
-							stringPredicateProvider.newContainsPredicate(query)));
-				}
-			}
-
-			List<JsonObject> resultList = new ArrayList<>();
-			int count = 0;
-			int maxResults = JsonUtil.getInt(req, "maxResults", 100);
+			cursor = PageCursor.parse(JsonUtil.getString(req, "cursor", null), listingKey);
+		} catch (IllegalArgumentException e) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.invalidCursor(e.getMessage()));
+			return;
+		}
 
-			for (Result<?> result : results) {
-				if (count >= maxResults) break;
+		try {
+			ClassIndex importing = classIndexStore.getImporting(workspace);
+			boolean fromIndex = importing != null && INDEXED_TYPES.contains(type.toLowerCase());
+			Snapshots.Page<Hit> page = snapshots.page(workspace, listingKey, cursor, 0, maxResults, Hit::sortKey,
+					() -> fromIndex ? collectHits(importing, query, type) : collectHits(workspace, query, type));
 
+			List<JsonObject> resultList = new ArrayList<>(page.items().size());
+			for (Hit hit : page.items()) {
 				JsonObject item = new JsonObject();
-				var path = result.getPath();
-				ClassInfo classValue = path.getValueOfType(ClassInfo.class);
-				if (classValue != null) {
-					item.addProperty("class", classValue.getName());
+				if (hit.className() != null) {
+					item.addProperty("class", hit.className());
 				}
-				ClassMember memberValue = path.getValueOfType(ClassMember.class);
-				if (memberValue != null) {
-					item.addProperty("member", memberValue.getName());
-					item.addProperty("descriptor", memberValue.getDescriptor());
+				if (hit.member() != null) {
+					item.addProperty("member", hit.member());
+					item.addProperty("descriptor", hit.descriptor());
 				}
-				item.addProperty("pathType", path.getClass().getSimpleName());
+				item.addProperty("pathType", hit.pathType());
 				resultList.add(item);
-				count++;
 			}
 
 			JsonObject data = new JsonObject();
 			data.addProperty("query", query);
 			data.addProperty("type", type);
 			data.addProperty("count", resultList.size());
+			data.addProperty("totalMatched", page.total());
+			if (page.total() >= MAX_SNAPSHOT_HITS) data.addProperty("truncated", true);
+			if (fromIndex) data.addProperty("fromIndex", true);
+			data.addProperty("hasMore", page.hasMore());
+			if (page.nextCursor() != null) data.addProperty("nextCursor", page.nextCursor());
 			data.add("results", JsonUtil.gson().toJsonTree(resultList));
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+			BridgeServer.sendSuccess(exchange, data);
 		} catch (Exception e) {
 			logger.error("Search failed for query '{}' type '{}'", query, type, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Search", e));
 		}
 	}
+
+	/**
+	 * Run the search and collect its hits, sorted so that pages can be cut from them.
+	 */
+	private List<Hit> collectHits(Workspace workspace, String query, String type) {
+		Results results;
+		String normalizedQuery = query.replace('.', '/');
+		logger.debug("[MCP] Searching: query='{}', type='{}'", query, type);
+
+		switch (type.toLowerCase()) {
+			case "class" -> {
+				results = searchService.search(workspace, new ReferenceQuery(
+						stringPredicateProvider.newContainsPredicate(normalizedQuery),
+						null, null));
+			}
+			case "method" -> {
+				results = searchService.search(workspace, new ReferenceQuery(
+						null,
+						stringPredicateProvider.newContainsPredicate(query),
+						null));
+			}
+			case "field" -> {
+				results = searchService.search(workspace, new ReferenceQuery(
+						null,
+						stringPredicateProvider.newContainsPredicate(query),
+						null));
+			}
+			case "declaration" -> {
+				results = searchService.search(workspace, new DeclarationQuery(
+						stringPredicateProvider.newContainsPredicate(normalizedQuery),
+						stringPredicateProvider.newContainsPredicate(query),
+						null));
+			}
+			default -> {
+				results = searchService.search(workspace, new StringQuery(
+						stringPredicateProvider.newContainsPredicate(query)));
+			}
+		}
+
+		List<Hit> hits = new ArrayList<>();
+		for (Result<?> result : results) {
+			if (hits.size() >= MAX_SNAPSHOT_HITS) break;
+			var path = result.getPath();
+			ClassInfo classValue = path.getValueOfType(ClassInfo.class);
+			ClassMember memberValue = path.getValueOfType(ClassMember.class);
+			hits.add(new Hit(classValue == null ? null : classValue.getName(),
+					memberValue == null ? null : memberValue.getName(),
+					memberValue == null ? null : memberValue.getDescriptor(),
+					path.getClass().getSimpleName()));
+		}
+		hits.sort(Comparator.comparing(Hit::sortKey));
+		return hits;
+	}
+
+	/**
+	 * Run a string or declaration search against a class index, matching as {@link #collectHits(Workspace, String, String)}
+	 * does, and collect its hits sorted.
+	 */
+	private static List<Hit> collectHits(ClassIndex index, String query, String type) {
+		String normalizedQuery = query.replace('.', '/');
+		boolean declarations = type.equalsIgnoreCase("declaration");
+		List<Hit> hits = new ArrayList<>();
+		for (int i = 0; i < index.size() && hits.size() < MAX_SNAPSHOT_HITS; i++) {
+			ClassIndex.Entry entry = index.get(i);
+			if (!declarations) {
+				for (String string : entry.strings()) {
+					if (string.contains(query)) {
+						hits.add(new Hit(entry.name(), null, null, "ClassPathNode"));
+						break;
+					}
+				}
+			} else if (entry.name().contains(normalizedQuery)) {
+				addDeclarations(hits, entry, entry.fields(), query);
+				addDeclarations(hits, entry, entry.methods(), query);
+			}
+		}
+		if (hits.size() > MAX_SNAPSHOT_HITS) hits = new ArrayList<>(hits.subList(0, MAX_SNAPSHOT_HITS));
+		hits.sort(Comparator.comparing(Hit::sortKey));
+		return hits;
+	}
+
+	private static void addDeclarations(List<Hit> hits, ClassIndex.Entry entry, List<ClassIndex.Member> members,
+										String query) {
+		for (ClassIndex.Member member : members) {
+			if (member.name().contains(query)) {
+				hits.add(new Hit(entry.name(), member.name(), member.descriptor(), "ClassMemberPathNode"));
+			}
+		}
+	}
+
+	/**
+	 * A search result, reduced to what the response reports.
+	 */
+	private record Hit(String className, String member, String descriptor, String pathType) {
+		String sortKey() {
+			return Objects.toString(className, "") + '\0' + Objects.toString(member, "") + '\0'
+					+ Objects.toString(descriptor, "") + '\0' + pathType;
+		}
+	}
 }
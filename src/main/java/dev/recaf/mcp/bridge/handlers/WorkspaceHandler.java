@@ -1,12 +1,23 @@
 package dev.recaf.mcp.bridge.handlers;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.ChangeJournal;
+import dev.recaf.mcp.bridge.ClassETag;
+import dev.recaf.mcp.bridge.ClassIndex;
+import dev.recaf.mcp.bridge.ClassIndexStore;
+import dev.recaf.mcp.bridge.ClassNameIndex;
+import dev.recaf.mcp.bridge.ClassNodeCache;
+import dev.recaf.mcp.bridge.PageCursor;
+import dev.recaf.mcp.bridge.RequestContext;
+import dev.recaf.mcp.bridge.Snapshots;
+import dev.recaf.mcp.bridge.WorkspaceLoader;
 import dev.recaf.mcp.bridge.WorkspaceRegistry;
 import dev.recaf.mcp.util.ErrorMapper;
 import dev.recaf.mcp.util.JsonUtil;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -19,8 +30,6 @@
 import software.coley.recaf.info.member.MethodMember;
 import software.coley.recaf.path.ClassPathNode;
 import software.coley.recaf.services.workspace.WorkspaceManager;
-import software.coley.recaf.services.workspace.io.ResourceImporter;
-import software.coley.recaf.workspace.model.BasicWorkspace;
 import software.coley.recaf.workspace.model.Workspace;
 import software.coley.recaf.workspace.model.bundle.FileBundle;
 import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
@@ -40,19 +49,32 @@ public class WorkspaceHandler {
 	private static final Logger logger = Logging.get(WorkspaceHandler.class);
 
 	private final WorkspaceManager workspaceManager;
-	private final ResourceImporter resourceImporter;
 	private final WorkspaceRegistry registry;
-
-	public WorkspaceHandler(WorkspaceManager workspaceManager, ResourceImporter resourceImporter,
-							WorkspaceRegistry registry) {
+	private final Snapshots snapshots;
+	private final ClassIndexStore classIndexStore;
+	private final ClassNodeCache classNodeCache;
+	private final ChangeJournal changeJournal;
+	private final WorkspaceLoader workspaceLoader;
+	/** Class name indexes of the primary bundles, created on first listing, weak so closed workspaces go away. */
+	private final Map<Workspace, ClassNameIndex> nameIndexes = Collections.synchronizedMap(new WeakHashMap<>());
+
+	public WorkspaceHandler(WorkspaceManager workspaceManager, WorkspaceRegistry registry, Snapshots snapshots,
+							ClassIndexStore classIndexStore, ClassNodeCache classNodeCache, ChangeJournal changeJournal,
+							WorkspaceLoader workspaceLoader) {
 		this.workspaceManager = workspaceManager;
-		this.resourceImporter = resourceImporter;
 		this.registry = registry;
+		this.snapshots = snapshots;
+		this.classIndexStore = classIndexStore;
+		this.classNodeCache = classNodeCache;
+		this.changeJournal = changeJournal;
+		this.workspaceLoader = workspaceLoader;
+		registry.addEvictionListener(this::forget);
 	}
 
 	/**
-	 * POST /workspace/open  { "path": "/path/to/file.jar" }
-	 * Returns workspaceId for multi-workspace support.
+	 * POST /workspace/open  { "path": "/path/to/file.jar", "libraries": ["/path/to/dep.jar"], "async": false }
+	 * Returns workspaceId for multi-workspace support. Libraries are imported in parallel and attached as supporting
+	 * resources. With async, returns at once and imports in the background, see /workspace/open-status.
 	 */
 	public void handleOpen(HttpExchange exchange) throws IOException {
 		String body = BridgeServer.readBody(exchange);
@@ -64,22 +86,54 @@ public void handleOpen(HttpExchange exchange) throws IOException {
 			return;
 		}
 
+		List<Path> libraries = new ArrayList<>();
+		if (req.has("libraries") && !req.get("libraries").isJsonNull()) {
+			if (!req.get("libraries").isJsonArray()) {
+				BridgeServer.sendJson(exchange, 400, ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+						"'libraries' must be an array of paths", "Pass absolute paths of the dependency archives."));
+				return;
+			}
+			for (JsonElement library : req.getAsJsonArray("libraries")) {
+				String libraryPath = library.isJsonPrimitive() ? library.getAsString() : "";
+				if (!libraryPath.isBlank()) libraries.add(Paths.get(libraryPath));
+			}
+		}
+
+		if (req.has("async") && req.get("async").getAsBoolean()) {
+			WorkspaceLoader.Job job = workspaceLoader.open(filePath, libraries);
+			JsonObject data = new JsonObject();
+			data.addProperty("workspaceId", job.workspaceId());
+			data.addProperty("path", filePath);
+			data.addProperty("status", job.status().toString());
+			data.addProperty("libraries", libraries.size());
+			BridgeServer.sendSuccess(exchange, data);
+			logger.info("[MCP] Opening workspace in the background: {} (id={})", filePath, job.workspaceId());
+			return;
+		}
+
 		try {
+			RequestContext context = RequestContext.of(exchange);
 			Path path = Paths.get(filePath);
-			WorkspaceResource resource = resourceImporter.importResource(path);
-			Workspace workspace = new BasicWorkspace(resource);
+			// The importer reports no progress of its own, only the phases are known
+			context.progress("importing", 0, -1);
+			WorkspaceLoader.Opened opened = workspaceLoader.open(path, libraries, context);
+			Workspace workspace = opened.workspace();
 			workspaceManager.setCurrent(workspace);
 
 			// Register in multi-workspace registry
 			String workspaceId = registry.register(filePath, workspace);
+			classIndexStore.attach(workspace, path);
 
+			context.progress("counting classes", 0, -1);
 			int classCount = countClasses(workspace);
 			JsonObject data = new JsonObject();
 			data.addProperty("workspaceId", workspaceId);
 			data.addProperty("path", filePath);
 			data.addProperty("classCount", classCount);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Opened workspace: {} ({} classes, id={})", filePath, classCount, workspaceId);
+			if (!libraries.isEmpty()) data.add("libraries", libraries(opened.libraries()));
+			BridgeServer.sendSuccess(exchange, data);
+			logger.info("[MCP] Opened workspace: {} ({} classes, {} libraries, id={})", filePath, classCount,
+					workspace.getSupportingResources().size(), workspaceId);
 		} catch (Exception e) {
 			logger.error("Failed to open workspace from '{}'", filePath, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Open workspace", e));
@@ -96,12 +150,17 @@ public void handleClose(HttpExchange exchange) throws IOException {
 		String workspaceId = JsonUtil.getString(req, "workspaceId", null);
 
 		if (workspaceId != null) {
+			// Evicted workspaces only have a spill file left to delete
+			if (registry.getEvicted().containsKey(workspaceId)) {
+				registry.remove(workspaceId);
+				BridgeServer.sendSuccess(exchange, "Workspace closed: " + workspaceId);
+				logger.info("[MCP] Evicted workspace closed: {}", workspaceId);
+				return;
+			}
 			// Close specific workspace by ID
 			Workspace ws = registry.get(workspaceId);
 			if (ws == null) {
-				BridgeServer.sendJson(exchange, 404, ErrorMapper.errorResponse(
-						ErrorMapper.INVALID_PARAMS, "Workspace not found: " + workspaceId,
-						"Use 'list_workspaces' to see available workspace IDs."));
+				BridgeServer.sendJson(exchange, 404, ErrorMapper.workspaceNotFound(workspaceId));
 				return;
 			}
 			// If it's the current workspace, close via manager
@@ -110,20 +169,26 @@ public void handleClose(HttpExchange exchange) throws IOException {
 				workspaceManager.closeCurrent();
 			}
 			registry.remove(workspaceId);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse("Workspace closed: " + workspaceId));
+			workspaceLoader.cancel(workspaceId);
+			forget(ws);
+			BridgeServer.sendSuccess(exchange, "Workspace closed: " + workspaceId);
 			logger.info("[MCP] Workspace closed: {}", workspaceId);
 		} else {
 			// Close current workspace
 			Workspace current = workspaceManager.getCurrent();
 			if (current == null) {
-				BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse("No workspace was open"));
+				BridgeServer.sendSuccess(exchange, "No workspace was open");
 				return;
 			}
 			// Remove from registry if present
 			String id = registry.findId(current);
-			if (id != null) registry.remove(id);
+			if (id != null) {
+				registry.remove(id);
+				workspaceLoader.cancel(id);
+			}
+			forget(current);
 			workspaceManager.closeCurrent();
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse("Workspace closed"));
+			BridgeServer.sendSuccess(exchange, "Workspace closed");
 			logger.info("[MCP] Workspace closed");
 		}
 	}
@@ -132,13 +197,15 @@ public void handleClose(HttpExchange exchange) throws IOException {
 	 * GET /workspace/info
 	 */
 	public void handleInfo(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
 		}
 
 		JsonObject data = new JsonObject();
+		String workspaceId = registry.findId(workspace);
+		if (workspaceId != null) data.addProperty("workspaceId", workspaceId);
 		data.addProperty("classCount", countClasses(workspace));
 		data.addProperty("fileCount", countFiles(workspace));
 
@@ -147,15 +214,16 @@ public void handleInfo(HttpExchange exchange) throws IOException {
 		data.addProperty("primaryResource", resourceId);
 		data.addProperty("supportingResources", workspace.getSupportingResources().size());
 
-		BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+		BridgeServer.sendSuccess(exchange, data);
 	}
 
 	/**
-	 * GET/POST /workspace/classes  { "filter": "com/example", "offset": 0, "limit": 200 }
-	 * Supports offset-based pagination.
+	 * GET/POST /workspace/classes  { "prefix": "com/example/", "filter": "Util", "cursor": "...", "offset": 0, "limit": 200 }
+	 * Pages through a sorted snapshot of the class names, continue with the returned nextCursor. While a workspace
+	 * opened with async is importing, the names come from an earlier class index of its archive when there is one.
 	 */
 	public void handleListClasses(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -163,45 +231,53 @@ public void handleListClasses(HttpExchange exchange) throws IOException {
 
 		String body = BridgeServer.readBody(exchange);
 		JsonObject req = body.isBlank() ? new JsonObject() : JsonUtil.parseObject(body);
+		String prefix = JsonUtil.getString(req, "prefix", null);
 		String filter = JsonUtil.getString(req, "filter", null);
 		int offset = JsonUtil.getInt(req, "offset", 0);
 		int limit = JsonUtil.getInt(req, "limit", 500);
+		String normalizedPrefix = prefix == null || prefix.isBlank() ? "" : prefix.replace('.', '/');
+		String normalizedFilter = filter == null || filter.isBlank() ? "" : filter.replace('.', '/');
+		String listingKey = "classes\n" + normalizedPrefix + "\n" + normalizedFilter;
+		PageCursor cursor;
+		try {
+			cursor = PageCursor.parse(JsonUtil.getString(req, "cursor", null), listingKey);
+		} catch (IllegalArgumentException e) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.invalidCursor(e.getMessage()));
+			return;
+		}
 
-		// Collect all matching class names first
-		List<String> allMatched = new ArrayList<>();
 		var primaryBundle = workspace.getPrimaryResource().getJvmClassBundle();
-		for (var classInfo : primaryBundle) {
-			String name = classInfo.getName();
-			if (filter != null && !filter.isBlank()) {
-				String normalizedFilter = filter.replace('.', '/');
-				if (!name.contains(normalizedFilter)) continue;
-			}
-			allMatched.add(name);
+		ClassIndex importing = classIndexStore.getImporting(workspace);
+		Snapshots.Page<String> page;
+		if (importing != null) {
+			page = snapshots.page(workspace, listingKey, cursor, offset, limit,
+					name -> name, () -> importing.find(normalizedPrefix, normalizedFilter));
+		} else {
+			ClassNameIndex nameIndex = nameIndexes.computeIfAbsent(workspace, ws -> ClassNameIndex.of(primaryBundle));
+			page = snapshots.page(workspace, listingKey, cursor, offset, limit,
+					name -> name, () -> nameIndex.find(normalizedPrefix, normalizedFilter));
 		}
 
-		int totalMatched = allMatched.size();
-		// Apply pagination
-		int fromIndex = Math.min(offset, totalMatched);
-		int toIndex = Math.min(fromIndex + limit, totalMatched);
-		List<String> page = allMatched.subList(fromIndex, toIndex);
-
 		JsonObject data = new JsonObject();
-		data.addProperty("totalClasses", primaryBundle.size());
-		data.addProperty("totalMatched", totalMatched);
-		data.addProperty("offset", fromIndex);
-		data.addProperty("returnedCount", page.size());
-		data.addProperty("hasMore", toIndex < totalMatched);
-		data.add("classes", JsonUtil.gson().toJsonTree(page));
-		logger.info("[MCP] Listed classes: {}/{} (filter='{}', offset={}, limit={})",
-				page.size(), totalMatched, filter, offset, limit);
-		BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+		data.addProperty("totalClasses", importing != null ? importing.size() : primaryBundle.size());
+		if (importing != null) data.addProperty("fromIndex", true);
+		data.addProperty("totalMatched", page.total());
+		data.addProperty("offset", page.offset());
+		data.addProperty("returnedCount", page.items().size());
+		data.addProperty("hasMore", page.hasMore());
+		if (page.nextCursor() != null) data.addProperty("nextCursor", page.nextCursor());
+		data.add("classes", JsonUtil.gson().toJsonTree(page.items()));
+		logger.debug("[MCP] Listed classes: {}/{} (prefix='{}', filter='{}', offset={}, limit={})",
+				page.items().size(), page.total(), prefix, filter, page.offset(), limit);
+		BridgeServer.sendSuccess(exchange, data);
 	}
 
 	/**
 	 * POST /workspace/class-info  { "className": "com/example/Foo" }
+	 * JVM classes are tagged by their bytecode, honours If-None-Match.
 	 */
 	public void handleClassInfo(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -224,6 +300,9 @@ public void handleClassInfo(HttpExchange exchange) throws IOException {
 		}
 
 		ClassInfo classInfo = classPath.getValue();
+		if (classInfo.isJvmClass() && ClassETag.notModified(exchange, ClassETag.of(classInfo.asJvmClass(), null))) {
+			return;
+		}
 		JsonObject data = new JsonObject();
 		data.addProperty("name", classInfo.getName());
 		data.addProperty("superName", classInfo.getSuperName());
@@ -257,11 +336,12 @@ public void handleClassInfo(HttpExchange exchange) throws IOException {
 			data.addProperty("version", jvmInfo.getVersion());
 		}
 
-		BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+		BridgeServer.sendSuccess(exchange, data);
 	}
 
 	/**
 	 * POST /workspace/switch  { "workspaceId": "xxx" }
+	 * An evicted workspace is restored from disk first.
 	 */
 	public void handleSwitch(HttpExchange exchange) throws IOException {
 		String body = BridgeServer.readBody(exchange);
@@ -275,9 +355,7 @@ public void handleSwitch(HttpExchange exchange) throws IOException {
 
 		Workspace ws = registry.get(workspaceId);
 		if (ws == null) {
-			BridgeServer.sendJson(exchange, 404, ErrorMapper.errorResponse(
-					ErrorMapper.INVALID_PARAMS, "Workspace not found: " + workspaceId,
-					"Use 'list_workspaces' to see available workspace IDs."));
+			BridgeServer.sendJson(exchange, 404, ErrorMapper.workspaceNotFound(workspaceId));
 			return;
 		}
 
@@ -286,12 +364,153 @@ public void handleSwitch(HttpExchange exchange) throws IOException {
 		data.addProperty("workspaceId", workspaceId);
 		data.addProperty("path", registry.getPath(workspaceId));
 		data.addProperty("classCount", countClasses(ws));
-		BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+		BridgeServer.sendSuccess(exchange, data);
 		logger.info("[MCP] Switched to workspace: {}", workspaceId);
 	}
 
+	/**
+	 * POST /workspace/pin  { "workspaceId": "optional-id", "pinned": true }
+	 * Pinned workspaces are kept in memory whatever the memory budget, pinning an evicted one restores it.
+	 */
+	public void handlePin(HttpExchange exchange) throws IOException {
+		String body = BridgeServer.readBody(exchange);
+		JsonObject req = body.isBlank() ? new JsonObject() : JsonUtil.parseObject(body);
+		boolean pin = !req.has("pinned") || req.get("pinned").getAsBoolean();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
+		if (workspace == null) {
+			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
+			return;
+		}
+		String workspaceId = registry.findId(workspace);
+		if (workspaceId == null || !registry.setPinned(workspaceId, pin)) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+					"The current workspace was not opened through the bridge",
+					"Open the file with /workspace/open to manage it in the registry."));
+			return;
+		}
+		JsonObject data = new JsonObject();
+		data.addProperty("workspaceId", workspaceId);
+		data.addProperty("pinned", pin);
+		BridgeServer.sendSuccess(exchange, data);
+		logger.info("[MCP] Workspace {} {}", workspaceId, pin ? "pinned" : "unpinned");
+	}
+
+	/**
+	 * GET /workspace/generation
+	 * Current workspace generation, also reported on every response in the X-Workspace-Generation header.
+	 */
+	public void handleGeneration(HttpExchange exchange) throws IOException {
+		JsonObject data = new JsonObject();
+		data.addProperty("generation", registry.getGeneration(workspaceManager.getCurrent()));
+		BridgeServer.sendSuccess(exchange, data);
+	}
+
+	/**
+	 * GET /workspace/open-status?workspaceId=xxx
+	 * Progress of a workspace opened with async: status (importing, ready, failed or cancelled), whether an earlier
+	 * class index answers for it meanwhile, its classes and files imported so far and, for a jar, war or zip imported
+	 * progressively, the archive entries read out of the total.
+	 */
+	public void handleOpenStatus(HttpExchange exchange) throws IOException {
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
+		if (workspace == null) {
+			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
+			return;
+		}
+
+		String workspaceId = registry.findId(workspace);
+		WorkspaceLoader.Job job = workspaceId == null ? null : workspaceLoader.get(workspaceId);
+		JsonObject data = new JsonObject();
+		if (workspaceId != null) data.addProperty("workspaceId", workspaceId);
+		if (job == null) {
+			// Opened synchronously or from Recaf's UI
+			data.addProperty("status", WorkspaceLoader.Status.READY.toString());
+			data.addProperty("classesImported", countClasses(workspace));
+			data.addProperty("filesImported", countFiles(workspace));
+		} else {
+			data.addProperty("path", job.path());
+			data.addProperty("status", job.status().toString());
+			data.addProperty("classesImported", job.classes());
+			data.addProperty("filesImported", job.files());
+			data.addProperty("progressive", job.progressive());
+			if (job.progressive()) {
+				data.addProperty("entriesRead", job.entriesRead());
+				if (job.entriesTotal() >= 0) data.addProperty("entriesTotal", job.entriesTotal());
+			}
+			data.addProperty("indexed", job.indexed());
+			data.addProperty("elapsedMs", job.elapsedMs());
+			if (job.error() != null) data.addProperty("error", job.error());
+			if (job.libraries() > 0) {
+				data.addProperty("libraries", job.libraries());
+				if (job.status() != WorkspaceLoader.Status.IMPORTING) {
+					data.addProperty("librariesAttached", workspace.getSupportingResources().size());
+				}
+				if (!job.libraryFailures().isEmpty()) data.add("failedLibraries", libraries(job.libraryFailures()));
+			}
+		}
+		BridgeServer.sendSuccess(exchange, data);
+	}
+
+	/**
+	 * GET /workspace/changes?since=1234  or POST { "since": 1234 }
+	 * Classes and files of the primary resource added, removed or replaced after the given generation, all that are
+	 * journaled when it is omitted. Reports reset when the changes since are no longer known, or the current
+	 * workspace was switched since: the caller must then drop everything it holds of the older generation.
+	 */
+	public void handleChanges(HttpExchange exchange) throws IOException {
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
+		if (workspace == null) {
+			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
+			return;
+		}
+
+		String body = BridgeServer.readBody(exchange);
+		JsonObject req = body.isBlank() ? new JsonObject() : JsonUtil.parseObject(body);
+		String sinceParam = BridgeServer.queryParam(exchange, "since");
+		if (sinceParam == null) sinceParam = JsonUtil.getString(req, "since", null);
+		long since;
+		try {
+			since = sinceParam == null || sinceParam.isBlank() ? changeJournal.coveredSince(workspace)
+					: Long.parseLong(sinceParam.trim());
+		} catch (NumberFormatException e) {
+			BridgeServer.sendJson(exchange, 400, ErrorMapper.errorResponse(ErrorMapper.INVALID_PARAMS,
+					"Invalid generation: " + sinceParam,
+					"Pass a generation from the X-Workspace-Generation header or a previous 'generation' field."));
+			return;
+		}
+
+		// Read first, changes journaled meanwhile belong to a later generation and are reported next time.
+		// While a modification is in progress its changes are incomplete, report up to the generation before it
+		long generation = registry.getGeneration();
+		if (generation % 2 != 0) generation--;
+		List<ChangeJournal.Change> changes = changeJournal.since(workspace, since);
+		boolean switched = workspace == workspaceManager.getCurrent() && since < registry.getCurrentSince();
+		boolean reset = changes == null || switched;
+
+		JsonObject data = new JsonObject();
+		data.addProperty("since", since);
+		data.addProperty("generation", generation);
+		data.addProperty("reset", reset);
+		JsonArray array = new JsonArray();
+		if (!reset) {
+			for (ChangeJournal.Change change : changes) {
+				if (change.generation() > generation) break;
+				JsonObject item = new JsonObject();
+				item.addProperty("generation", change.generation());
+				item.addProperty("kind", change.kind());
+				item.addProperty("action", change.action());
+				item.addProperty("name", change.name());
+				array.add(item);
+			}
+		}
+		data.addProperty("count", array.size());
+		data.add("changes", array);
+		BridgeServer.sendSuccess(exchange, data);
+	}
+
 	/**
 	 * GET /workspace/list-workspaces
+	 * Includes evicted workspaces, which are restored when next used by ID.
 	 */
 	public void handleListWorkspaces(HttpExchange exchange) throws IOException {
 		Workspace current = workspaceManager.getCurrent();
@@ -305,21 +524,38 @@ public void handleListWorkspaces(HttpExchange exchange) throws IOException {
 			item.addProperty("path", registry.getPath(id));
 			item.addProperty("classCount", countClasses(ws));
 			item.addProperty("isCurrent", current != null && current == ws);
+			item.addProperty("evicted", false);
+			item.addProperty("pinned", registry.isPinned(id));
+			item.addProperty("sizeMb", toMb(registry.estimateSize(id, ws)));
+			workspaces.add(item);
+		}
+		for (Map.Entry<String, WorkspaceRegistry.Spilled> entry : registry.getEvicted().entrySet()) {
+			String id = entry.getKey();
+			JsonObject item = new JsonObject();
+			item.addProperty("workspaceId", id);
+			item.addProperty("path", registry.getPath(id));
+			item.addProperty("classCount", entry.getValue().classCount());
+			item.addProperty("isCurrent", false);
+			item.addProperty("evicted", true);
+			item.addProperty("pinned", registry.isPinned(id));
+			item.addProperty("sizeMb", toMb(entry.getValue().size()));
 			workspaces.add(item);
 		}
 
 		JsonObject data = new JsonObject();
 		data.addProperty("count", workspaces.size());
 		data.add("workspaces", JsonUtil.gson().toJsonTree(workspaces));
-		BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+		BridgeServer.sendSuccess(exchange, data);
 	}
 
 	/**
 	 * POST /workspace/outline  { "className": "com/example/Foo" }
-	 * Lightweight class structure using ASM with SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES.
+	 * Lightweight class structure, from the class index when there is one, else from the class tree parsed with
+	 * SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES. Tagged by the class bytecode, honours If-None-Match. Classes a workspace
+	 * opened with async has not imported yet are outlined from an earlier index of its archive, untagged.
 	 */
 	public void handleOutline(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -337,17 +573,26 @@ public void handleOutline(HttpExchange exchange) throws IOException {
 		String normalizedName = className.replace('.', '/');
 		ClassPathNode classPath = workspace.findJvmClass(normalizedName);
 		if (classPath == null) {
+			ClassIndex importing = classIndexStore.getImporting(workspace);
+			ClassIndex.Entry entry = importing == null ? null : importing.get(normalizedName);
+			if (entry != null) {
+				sendOutline(exchange, entry);
+				return;
+			}
 			BridgeServer.sendJson(exchange, 404, ErrorMapper.classNotFound(className));
 			return;
 		}
 
 		try {
 			JvmClassInfo classInfo = classPath.getValue().asJvmClass();
-			byte[] bytecode = classInfo.getBytecode();
-
-			ClassReader reader = new ClassReader(bytecode);
-			ClassNode classNode = new ClassNode();
-			reader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			if (ClassETag.notModified(exchange, ClassETag.of(classInfo, null))) return;
+			ClassIndex index = classIndexStore.get(workspace);
+			ClassIndex.Entry entry = index == null ? null : index.get(normalizedName);
+			if (entry != null) {
+				sendOutline(exchange, entry);
+				return;
+			}
+			ClassNode classNode = classNodeCache.get(workspace, classInfo, ClassNodeCache.Level.OUTLINE);
 
 			JsonObject data = new JsonObject();
 			data.addProperty("name", classNode.name);
@@ -379,8 +624,8 @@ public void handleOutline(HttpExchange exchange) throws IOException {
 			}
 			data.add("methods", JsonUtil.gson().toJsonTree(methods));
 
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Outline for {}: {} fields, {} methods", normalizedName, fields.size(), methods.size());
+			BridgeServer.sendSuccess(exchange, data);
+			logger.debug("[MCP] Outline for {}: {} fields, {} methods", normalizedName, fields.size(), methods.size());
 		} catch (Exception e) {
 			logger.error("Outline failed for {}", className, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Class outline", e));
@@ -392,7 +637,7 @@ public void handleOutline(HttpExchange exchange) throws IOException {
 	 * Read a non-class file from the workspace.
 	 */
 	public void handleReadFile(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -419,20 +664,17 @@ public void handleReadFile(HttpExchange exchange) throws IOException {
 			}
 
 			byte[] rawBytes = fileInfo.getRawContent();
-			String content = new String(rawBytes, StandardCharsets.UTF_8);
-			boolean truncated = false;
-			if (content.length() > maxChars) {
-				content = content.substring(0, maxChars);
-				truncated = true;
-			}
-
-			JsonObject data = new JsonObject();
-			data.addProperty("path", path);
-			data.addProperty("size", rawBytes.length);
-			data.addProperty("content", content);
-			data.addProperty("truncated", truncated);
-			BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
-			logger.info("[MCP] Read file: {} ({} bytes, truncated={})", path, rawBytes.length, truncated);
+			String fullContent = new String(rawBytes, StandardCharsets.UTF_8);
+			boolean truncated = fullContent.length() > maxChars;
+			String content = truncated ? fullContent.substring(0, maxChars) : fullContent;
+
+			BridgeServer.streamSuccess(exchange, out -> {
+				out.name("path").value(path);
+				out.name("size").value(rawBytes.length);
+				out.name("content").value(content);
+				out.name("truncated").value(truncated);
+			});
+			logger.debug("[MCP] Read file: {} ({} bytes, truncated={})", path, rawBytes.length, truncated);
 		} catch (Exception e) {
 			logger.error("Read file failed for {}", path, e);
 			BridgeServer.sendJson(exchange, 500, ErrorMapper.mapException("Read file", e));
@@ -444,7 +686,7 @@ public void handleReadFile(HttpExchange exchange) throws IOException {
 	 * Delete a class from the workspace.
 	 */
 	public void handleDeleteClass(HttpExchange exchange) throws IOException {
-		Workspace workspace = workspaceManager.getCurrent();
+		Workspace workspace = RequestContext.of(exchange).getWorkspace();
 		if (workspace == null) {
 			BridgeServer.sendJson(exchange, 200, ErrorMapper.noWorkspace());
 			return;
@@ -472,10 +714,66 @@ public void handleDeleteClass(HttpExchange exchange) throws IOException {
 		JsonObject data = new JsonObject();
 		data.addProperty("deleted", true);
 		data.addProperty("className", normalizedName);
-		BridgeServer.sendJson(exchange, 200, JsonUtil.successResponse(data));
+		BridgeServer.sendSuccess(exchange, data);
 		logger.info("[MCP] Deleted class: {}", normalizedName);
 	}
 
+	private static void sendOutline(HttpExchange exchange, ClassIndex.Entry entry) throws IOException {
+		JsonObject data = new JsonObject();
+		data.addProperty("name", entry.name());
+		data.addProperty("superName", entry.superName());
+		data.addProperty("access", entry.access());
+		data.add("interfaces", JsonUtil.gson().toJsonTree(entry.interfaces()));
+		data.add("fields", outlineMembers(entry.fields()));
+		data.add("methods", outlineMembers(entry.methods()));
+		BridgeServer.sendSuccess(exchange, data);
+		logger.debug("[MCP] Outline for {} from the class index: {} fields, {} methods",
+				entry.name(), entry.fields().size(), entry.methods().size());
+	}
+
+	private static JsonArray outlineMembers(List<ClassIndex.Member> members) {
+		JsonArray array = new JsonArray(members.size());
+		for (ClassIndex.Member member : members) {
+			JsonObject m = new JsonObject();
+			m.addProperty("name", member.name());
+			m.addProperty("desc", member.descriptor());
+			m.addProperty("access", member.access());
+			array.add(m);
+		}
+		return array;
+	}
+
+	private static JsonArray libraries(List<WorkspaceLoader.Library> libraries) {
+		JsonArray array = new JsonArray();
+		for (WorkspaceLoader.Library library : libraries) {
+			JsonObject item = new JsonObject();
+			item.addProperty("path", library.path().toString());
+			if (library.resource() != null) {
+				item.addProperty("classCount", library.resource().getJvmClassBundle().size());
+				item.addProperty("fileCount", library.resource().getFileBundle().size());
+			} else {
+				item.addProperty("error", library.error());
+			}
+			array.add(item);
+		}
+		return array;
+	}
+
+	/**
+	 * Drop what is kept about a workspace that was closed or evicted.
+	 */
+	private void forget(Workspace workspace) {
+		classIndexStore.detach(workspace);
+		classNodeCache.evict(workspace);
+		ClassNameIndex nameIndex = nameIndexes.remove(workspace);
+		if (nameIndex != null) nameIndex.close();
+		changeJournal.untrack(workspace);
+	}
+
+	private static double toMb(long bytes) {
+		return Math.round(bytes / (1024.0 * 1024.0) * 10) / 10.0;
+	}
+
 	private int countClasses(Workspace workspace) {
 		return workspace.getPrimaryResource().getJvmClassBundle().size();
 	}
@@ -1,61 +1,225 @@
 package dev.recaf.mcp.server;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
- * HTTP client that communicates with the Recaf Bridge Server.
+ * Client that communicates with the Recaf Bridge Server.
  * Used by the MCP Server process to relay tool calls to Recaf.
+ * <p>
+ * Uses TCP by default. When a socket path is configured through the {@code recaf.mcp.socket} system property
+ * or the {@code RECAF_MCP_SOCKET} environment variable, requests go over that Unix domain socket instead.
+ * <p>
+ * Requests the bridge rejects as {@code OVERLOADED} are retried after the delay it suggests,
+ * as long as the tool call has time left for it.
+ * <p>
+ * Responses the bridge tags with an {@code ETag} are kept in an {@link ETagCache}. Repeating such a request
+ * sends the tag as {@code If-None-Match}, and a {@code 304 Not Modified} answer is served from the cache,
+ * so re-reading an unchanged class costs one header exchange.
  */
 public class BridgeClient {
-	private final String baseUrl;
-	private final HttpClient httpClient;
+	private static final Map<String, String> NO_HEADERS = Map.of();
+	private static final long READY_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+	private static final int MAX_ATTEMPTS = ServerConfig.getInt("recaf.mcp.overloadRetries", "RECAF_MCP_OVERLOAD_RETRIES", 4) + 1;
+
+	private final BridgeTransport transport;
+	private final ETagCache etagCache = new ETagCache(
+			ServerConfig.getInt("recaf.mcp.etagCache.entries", "RECAF_MCP_ETAG_CACHE_ENTRIES", 512),
+			ServerConfig.getInt("recaf.mcp.etagCache.maxMb", "RECAF_MCP_ETAG_CACHE_MAX_MB", 32) * 1024L * 1024L);
+
+	public BridgeClient(BridgeTransport transport) {
+		this.transport = transport;
+	}
 
 	public BridgeClient(String host, int port) {
-		this.baseUrl = "http://" + host + ":" + port;
-		this.httpClient = HttpClient.newBuilder()
-				.connectTimeout(Duration.ofSeconds(5))
-				.build();
+		this(new HttpTransport(host, port));
 	}
 
 	public BridgeClient() {
-		this("127.0.0.1", 9847);
+		this(defaultTransport());
+	}
+
+	private static BridgeTransport defaultTransport() {
+		String socketPath = ServerConfig.getString("recaf.mcp.socket", "RECAF_MCP_SOCKET", null);
+		if (socketPath != null) {
+			return new UnixSocketTransport(Path.of(socketPath));
+		}
+		return new HttpTransport("127.0.0.1", 9847);
+	}
+
+	/**
+	 * @return Description of the bridge endpoint in use.
+	 */
+	public String describe() {
+		return transport.describe();
 	}
 
 	/**
 	 * Send a POST request with JSON body to the bridge.
 	 */
 	public String post(String path, String jsonBody) throws IOException, InterruptedException {
-		HttpRequest request = HttpRequest.newBuilder()
-				.uri(URI.create(baseUrl + path))
-				.header("Content-Type", "application/json")
-				.POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-				.timeout(Duration.ofSeconds(60))
-				.build();
+		return post(path, jsonBody, Duration.ofSeconds(60));
+	}
+
+	/**
+	 * Send a POST request with JSON body to the bridge, waiting at most the given time for the response.
+	 */
+	public String post(String path, String jsonBody, Duration timeout) throws IOException, InterruptedException {
+		return post(path, jsonBody, timeout, null);
+	}
 
-		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-		return response.body();
+	/**
+	 * Send a POST request with JSON body to the bridge on behalf of a tool call.
+	 *
+	 * @param context Call the request belongs to, or {@code null} for none.
+	 */
+	public String post(String path, String jsonBody, Duration timeout, CallContext context)
+			throws IOException, InterruptedException {
+		byte[] body = jsonBody.getBytes(StandardCharsets.UTF_8);
+		return send("POST", path, body, timeout, context).body();
 	}
 
 	/**
 	 * Send a GET request to the bridge.
 	 */
 	public String get(String path) throws IOException, InterruptedException {
-		HttpRequest request = HttpRequest.newBuilder()
-				.uri(URI.create(baseUrl + path))
-				.GET()
-				.timeout(Duration.ofSeconds(30))
-				.build();
+		return get(path, Duration.ofSeconds(30), null);
+	}
+
+	/**
+	 * Send a GET request to the bridge on behalf of a tool call.
+	 *
+	 * @param context Call the request belongs to, or {@code null} for none.
+	 */
+	public String get(String path, Duration timeout, CallContext context) throws IOException, InterruptedException {
+		return send("GET", path, null, timeout, context).body();
+	}
+
+	/**
+	 * Send a request, revalidating a cached response for it when there is one.
+	 */
+	private BridgeResponse send(String method, String path, byte[] body, Duration timeout, CallContext context)
+			throws IOException, InterruptedException {
+		String key = etagCache.isEnabled() ? ETagCache.key(method, path, body) : null;
+		ETagCache.Entry cached = key == null ? null : etagCache.get(key);
+		Map<String, String> conditional = cached == null ? NO_HEADERS : Map.of("If-None-Match", cached.etag());
+		BridgeResponse response = sendWithRetries(method, path, conditional, body, timeout, context);
+		if (context != null) context.setWorkspaceGeneration(generationOf(response));
+		if (key == null) return response;
+		if (response.status() == 304 && cached != null) return cached.response();
+
+		String etag = response.header("etag");
+		if (response.status() == 200 && etag != null) {
+			etagCache.put(key, etag, response);
+		} else if (cached != null) {
+			etagCache.remove(key);
+		}
+		return response;
+	}
+
+	/**
+	 * Send a request, retrying it while the bridge sheds load and the call's deadline allows.
+	 */
+	private BridgeResponse sendWithRetries(String method, String path, Map<String, String> extraHeaders, byte[] body,
+										   Duration timeout, CallContext context) throws IOException, InterruptedException {
+		for (int attempt = 1; ; attempt++) {
+			// Headers carry the remaining deadline, so they are rebuilt for every attempt
+			BridgeResponse response = transport.send(method, path, headers(context, extraHeaders), body,
+					context == null || attempt == 1 ? timeout : context.transportTimeout());
+			if (response.status() != 503 || attempt >= MAX_ATTEMPTS) return response;
+			long retryAfterMs = retryAfterMillis(response);
+			if (retryAfterMs < 0) return response;
+			// Back off a little more on every attempt, with jitter so rejected callers don't return in lockstep
+			long delayMs = retryAfterMs * attempt + ThreadLocalRandom.current().nextLong(retryAfterMs / 4 + 1);
+			if (context != null && context.remaining().toMillis() <= delayMs) return response;
+			Thread.sleep(delayMs);
+		}
+	}
+
+	/**
+	 * @return Workspace generation the bridge handled the request at, or {@code -1} when it did not say.
+	 */
+	private static long generationOf(BridgeResponse response) {
+		String header = response.header("x-workspace-generation");
+		try {
+			return header == null ? -1 : Long.parseLong(header.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return Delay suggested by an {@code OVERLOADED} rejection, or {@code -1} when the response is not one.
+	 */
+	private static long retryAfterMillis(BridgeResponse response) {
+		try {
+			JsonObject obj = JsonParser.parseString(response.body()).getAsJsonObject();
+			if (!obj.has("code") || !"OVERLOADED".equals(obj.get("code").getAsString())) return -1;
+			if (obj.has("retryAfterMs")) return Math.max(0, obj.get("retryAfterMs").getAsLong());
+		} catch (RuntimeException e) {
+			return -1;
+		}
+		String header = response.header("retry-after");
+		try {
+			return header == null ? 1000 : Long.parseLong(header.trim()) * 1000;
+		} catch (NumberFormatException e) {
+			return 1000;
+		}
+	}
 
-		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-		return response.body();
+	/**
+	 * Ask the bridge to cancel the requests it is running for a tool call.
+	 *
+	 * @return {@code true} when the bridge found and cancelled a running request.
+	 */
+	public boolean cancel(CallContext context) {
+		JsonObject body = new JsonObject();
+		body.addProperty("requestId", context.getBridgeRequestId());
+		try {
+			String response = post("/cancel", body.toString(), Duration.ofSeconds(5));
+			JsonObject data = JsonParser.parseString(extractData(response)).getAsJsonObject();
+			return data.has("cancelled") && data.get("cancelled").getAsBoolean();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Ask the bridge how far the request it is running for a tool call has got.
+	 *
+	 * @return Progress reported by {@code /progress}, or {@code null} when it could not be obtained.
+	 */
+	public JsonObject progress(CallContext context) throws InterruptedException {
+		JsonObject body = new JsonObject();
+		body.addProperty("requestId", context.getBridgeRequestId());
+		try {
+			String response = post("/progress", body.toString(), Duration.ofSeconds(5));
+			JsonElement data = JsonParser.parseString(extractData(response));
+			return data.isJsonObject() ? data.getAsJsonObject() : null;
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Map<String, String> headers(CallContext context, Map<String, String> extraHeaders) {
+		Map<String, String> headers = context == null ? NO_HEADERS : context.headers();
+		if (extraHeaders.isEmpty()) return headers;
+		Map<String, String> merged = new HashMap<>(headers);
+		merged.putAll(extraHeaders);
+		return merged;
 	}
 
 	/**
@@ -71,13 +235,48 @@ public boolean isAvailable() {
 		}
 	}
 
+	/**
+	 * Wait for the bridge to finish warming up, as reported by {@code /ready}.
+	 *
+	 * @param maxWait Longest time to wait.
+	 * @return {@code true} when the bridge is ready, or predates {@code /ready}. {@code false} when it is
+	 * still warming up after the wait, or is not reachable.
+	 */
+	public boolean awaitReady(Duration maxWait) throws InterruptedException {
+		long deadline = System.nanoTime() + maxWait.toNanos();
+		while (true) {
+			try {
+				BridgeResponse response = transport.send("GET", "/ready", NO_HEADERS, null, Duration.ofSeconds(5));
+				if (response.status() == 404) return true;
+				JsonObject data = JsonParser.parseString(extractData(response.body())).getAsJsonObject();
+				if (data.has("ready") && data.get("ready").getAsBoolean()) return true;
+			} catch (IOException | RuntimeException e) {
+				return false;
+			}
+			if (System.nanoTime() + READY_POLL_NANOS > deadline) return false;
+			Thread.sleep(TimeUnit.NANOSECONDS.toMillis(READY_POLL_NANOS));
+		}
+	}
+
+	/**
+	 * @return {@code true} when a parsed bridge response reports a failure.
+	 */
+	public static boolean isError(JsonObject response) {
+		return response.has("status") && "error".equals(response.get("status").getAsString());
+	}
+
 	/**
 	 * Extract the "data" field from a bridge response, or return error with code/suggestion.
 	 */
 	public String extractData(String response) {
-		JsonObject obj = JsonParser.parseString(response).getAsJsonObject();
-		String status = obj.has("status") ? obj.get("status").getAsString() : "unknown";
-		if ("error".equals(status)) {
+		return extractData(JsonParser.parseString(response).getAsJsonObject());
+	}
+
+	/**
+	 * Extract the "data" field from an already parsed bridge response.
+	 */
+	public String extractData(JsonObject obj) {
+		if (isError(obj)) {
 			// Build structured error with code and suggestion if available
 			JsonObject error = new JsonObject();
 			error.addProperty("error", obj.has("message") ? obj.get("message").getAsString() : "Unknown bridge error");
@@ -92,6 +291,6 @@ public String extractData(String response) {
 		if (obj.has("data")) {
 			return obj.get("data").toString();
 		}
-		return response;
+		return obj.toString();
 	}
 }
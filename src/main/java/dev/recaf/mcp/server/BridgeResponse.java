@@ -0,0 +1,21 @@
+package dev.recaf.mcp.server;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A response received from the bridge.
+ *
+ * @param status  HTTP status code.
+ * @param headers Response headers, keyed by lower-case name.
+ * @param body    Response body text.
+ */
+public record BridgeResponse(int status, Map<String, String> headers, String body) {
+	/**
+	 * @param name Header name, in any case.
+	 * @return Header value, or {@code null} when absent.
+	 */
+	public String header(String name) {
+		return headers.get(name.toLowerCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,34 @@
+package dev.recaf.mcp.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Carries bridge requests to the Recaf process.
+ *
+ * @see HttpTransport
+ * @see UnixSocketTransport
+ */
+public interface BridgeTransport extends Closeable {
+	/**
+	 * @param method  HTTP method.
+	 * @param path    Request path, optionally with a query string.
+	 * @param headers Extra request headers.
+	 * @param body    Request body, or {@code null} for none.
+	 * @param timeout Maximum time to wait for the response.
+	 * @return The bridge's response.
+	 */
+	BridgeResponse send(String method, String path, Map<String, String> headers, byte[] body, Duration timeout)
+			throws IOException, InterruptedException;
+
+	/**
+	 * @return Human readable description of the endpoint, for logs.
+	 */
+	String describe();
+
+	@Override
+	default void close() throws IOException {
+	}
+}
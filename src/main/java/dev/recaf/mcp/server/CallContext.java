@@ -0,0 +1,104 @@
+package dev.recaf.mcp.server;
+
+import com.google.gson.JsonElement;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one in-flight tool call: its JSON-RPC ID, the ID it is known by on the bridge, its deadline,
+ * and the thread running it, so a {@code notifications/cancelled} from the client can stop it.
+ */
+public class CallContext {
+	private static final String ID_PREFIX = "mcp-" + ProcessHandle.current().pid() + "-";
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+	/** Extra time given to the transport beyond the deadline, so the bridge's own timeout error can arrive. */
+	private static final Duration TRANSPORT_GRACE = Duration.ofSeconds(2);
+
+	private final JsonElement rpcId;
+	private final String bridgeRequestId;
+	private final Thread thread;
+	private final long deadlineNanos;
+	private volatile boolean cancelled;
+	private volatile long workspaceGeneration = -1;
+	private boolean finished;
+
+	/**
+	 * @param budget Time the call may take, counted from now.
+	 */
+	public CallContext(JsonElement rpcId, Duration budget) {
+		this.rpcId = rpcId;
+		this.bridgeRequestId = ID_PREFIX + SEQUENCE.incrementAndGet();
+		this.thread = Thread.currentThread();
+		this.deadlineNanos = System.nanoTime() + budget.toNanos();
+	}
+
+	/**
+	 * @return Headers that tie bridge requests made for this call to it and pass on the time it has left.
+	 */
+	public Map<String, String> headers() {
+		return Map.of("X-Request-Id", bridgeRequestId,
+				"X-Deadline-Ms", String.valueOf(remaining().toMillis()));
+	}
+
+	/**
+	 * @return Time left until the deadline, never negative.
+	 */
+	public Duration remaining() {
+		return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+	}
+
+	/**
+	 * @return How long the transport should wait for a response to a request sent now.
+	 */
+	public Duration transportTimeout() {
+		return remaining().plus(TRANSPORT_GRACE);
+	}
+
+	/**
+	 * Mark the call as cancelled. The client no longer expects a response to it.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Interrupt the thread running the call, aborting any bridge request it is waiting on.
+	 * Has no effect once the call has finished.
+	 */
+	public synchronized void interrupt() {
+		if (!finished) thread.interrupt();
+	}
+
+	/**
+	 * Mark the call as finished. Must be called on the thread running it.
+	 */
+	public synchronized void finish() {
+		finished = true;
+		Thread.interrupted();
+	}
+
+	public JsonElement getRpcId() {
+		return rpcId;
+	}
+
+	public String getBridgeRequestId() {
+		return bridgeRequestId;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return Workspace generation reported by the bridge for the call's latest request, {@code -1} when unknown.
+	 */
+	public long getWorkspaceGeneration() {
+		return workspaceGeneration;
+	}
+
+	public void setWorkspaceGeneration(long workspaceGeneration) {
+		this.workspaceGeneration = workspaceGeneration;
+	}
+}
@@ -0,0 +1,82 @@
+package dev.recaf.mcp.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Least-recently-used cache of bridge responses that carried an {@code ETag}.
+ * <p>
+ * A cached response is never served blindly: its tag is sent back as {@code If-None-Match} and the response
+ * is only reused when the bridge confirms it with {@code 304 Not Modified}. Bounded both by entry count
+ * and by the total length of the cached bodies.
+ */
+public class ETagCache {
+	private final int maxEntries;
+	private final long maxChars;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long chars;
+
+	/**
+	 * @param maxEntries Maximum cached responses, {@code 0} disables the cache.
+	 * @param maxChars   Maximum total length of the cached bodies.
+	 */
+	public ETagCache(int maxEntries, long maxChars) {
+		this.maxEntries = maxEntries;
+		this.maxChars = maxChars;
+	}
+
+	/**
+	 * @return {@code true} when responses are cached at all.
+	 */
+	public boolean isEnabled() {
+		return maxEntries > 0 && maxChars > 0;
+	}
+
+	/**
+	 * @param key Request identity, from method, path and body.
+	 * @return Cached response for the request, or {@code null}.
+	 */
+	public synchronized Entry get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Cache a response, replacing any previous one for the request.
+	 */
+	public synchronized void put(String key, String etag, BridgeResponse response) {
+		remove(key);
+		int length = response.body().length();
+		if (!isEnabled() || length > maxChars) return;
+		entries.put(key, new Entry(etag, response));
+		chars += length;
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (entries.size() > maxEntries || chars > maxChars) {
+			chars -= eldest.next().response().body().length();
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Forget the cached response of a request.
+	 */
+	public synchronized void remove(String key) {
+		Entry removed = entries.remove(key);
+		if (removed != null) chars -= removed.response().body().length();
+	}
+
+	/**
+	 * @return Cache key of a request.
+	 */
+	public static String key(String method, String path, byte[] body) {
+		StringBuilder key = new StringBuilder(method).append(' ').append(path).append('\n');
+		if (body != null) key.append(new String(body, StandardCharsets.UTF_8));
+		return key.toString();
+	}
+
+	/**
+	 * A cached response with the tag that validates it.
+	 */
+	public record Entry(String etag, BridgeResponse response) {
+	}
+}
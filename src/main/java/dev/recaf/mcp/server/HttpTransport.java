@@ -0,0 +1,56 @@
+package dev.recaf.mcp.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Talks to the bridge over TCP with the JDK HTTP client.
+ */
+public class HttpTransport implements BridgeTransport {
+	private final String baseUrl;
+	private final HttpClient httpClient;
+
+	public HttpTransport(String host, int port) {
+		this.baseUrl = "http://" + host + ":" + port;
+		this.httpClient = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+	}
+
+	@Override
+	public BridgeResponse send(String method, String path, Map<String, String> headers, byte[] body, Duration timeout)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder()
+				.uri(URI.create(baseUrl + path))
+				.timeout(timeout);
+		headers.forEach(builder::header);
+		if (body != null) {
+			builder.header("Content-Type", "application/json");
+			builder.method(method, HttpRequest.BodyPublishers.ofByteArray(body));
+		} else {
+			builder.method(method, HttpRequest.BodyPublishers.noBody());
+		}
+
+		HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+		Map<String, String> responseHeaders = new HashMap<>();
+		for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+			if (!header.getValue().isEmpty()) {
+				responseHeaders.put(header.getKey().toLowerCase(Locale.ROOT), header.getValue().get(0));
+			}
+		}
+		return new BridgeResponse(response.statusCode(), responseHeaders, response.body());
+	}
+
+	@Override
+	public String describe() {
+		return baseUrl;
+	}
+}
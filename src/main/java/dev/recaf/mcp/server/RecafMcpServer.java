@@ -1,70 +1,168 @@
 package dev.recaf.mcp.server;
 
 import com.google.gson.*;
+import dev.recaf.mcp.util.AccessLog;
 
 import java.io.*;
+import java.net.URLEncoder;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Lightweight MCP Server for Recaf - runs as a standalone process.
  * Implements the MCP JSON-RPC protocol over STDIO directly (no SDK dependency).
  * Relays tool calls to the Recaf Bridge Server via HTTP.
+ * Each JSON-RPC request is handled on its own virtual thread, and responses are written as they complete.
+ * Results of read-only tools are kept in a {@link ResponseCache} for as long as the workspace generation is unchanged.
+ * When a tool call carries a {@code progressToken}, the bridge's progress on it is forwarded as {@code notifications/progress}.
  *
- * Supports 25 tools: workspace management, decompilation, search, analysis,
- * mapping, bytecode editing, class diff, export, compilation, assembly, and patches.
+ * Supports 29 tools: workspace management, decompilation, search, analysis,
+ * mapping, bytecode editing, class diff, export, compilation, assembly, patches, and batched calls.
  */
 public class RecafMcpServer {
 
 	private static final Gson GSON = new GsonBuilder().create();
+	private static final int MAX_IN_FLIGHT = Math.max(1, ServerConfig.getInt("recaf.mcp.maxInFlight", "RECAF_MCP_MAX_IN_FLIGHT", 16));
+	private static final long PROGRESS_INTERVAL_MS = Math.max(100, ServerConfig.getInt("recaf.mcp.progressIntervalMs", "RECAF_MCP_PROGRESS_INTERVAL_MS", 1000));
+	private static final long READY_TIMEOUT_MS = Math.max(0, ServerConfig.getInt("recaf.mcp.readyTimeoutMs", "RECAF_MCP_READY_TIMEOUT_MS", 30000));
+	/** Tools that open workspaces or work across all of them, rather than in one. */
+	private static final Set<String> WORKSPACE_AGNOSTIC_TOOLS = Set.of("open_jar", "list_workspaces", "batch");
 	private final BridgeClient bridge;
+	private final Map<String, CallContext> toolCalls = new ConcurrentHashMap<>();
+	private final ToolTimeouts toolTimeouts = new ToolTimeouts();
+	private final ResponseCache responseCache;
+	private final AccessLog accessLog = new AccessLog("mcp", (level, line) -> System.err.println(line),
+			AccessLog.Level.parse(ServerConfig.getString("recaf.mcp.log.level", "RECAF_MCP_LOG_LEVEL", null), AccessLog.Level.INFO),
+			ServerConfig.getInt("recaf.mcp.log.sample", "RECAF_MCP_LOG_SAMPLE", 1),
+			ServerConfig.getInt("recaf.mcp.log.slowMs", "RECAF_MCP_LOG_SLOW_MS", 1000),
+			ServerConfig.getInt("recaf.mcp.log.bufferSize", "RECAF_MCP_LOG_BUFFER_SIZE", 8192));
 	private final OutputStream rawOut;
+	/** Set once the bridge reported that it finished warming up. */
+	private volatile boolean bridgeReady = READY_TIMEOUT_MS == 0;
 	private final BufferedReader in;
+	/** Slots for tool calls running at once, beyond which calls wait for one. */
+	private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
 
 	public RecafMcpServer() {
-		this.bridge = new BridgeClient();
-		this.rawOut = System.out;
-		this.in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		this(new BridgeClient(), new ResponseCache(
+				ServerConfig.getInt("recaf.mcp.responseCache.entries", "RECAF_MCP_RESPONSE_CACHE_ENTRIES", 256),
+				ServerConfig.getInt("recaf.mcp.responseCache.maxMb", "RECAF_MCP_RESPONSE_CACHE_MAX_MB", 16) * 1024L * 1024L,
+				ServerConfig.getInt("recaf.mcp.responseCache.freshMs", "RECAF_MCP_RESPONSE_CACHE_FRESH_MS", 1000)),
+				System.in, System.out);
+	}
+
+	RecafMcpServer(BridgeClient bridge, ResponseCache responseCache, InputStream in, OutputStream out) {
+		this.bridge = bridge;
+		this.responseCache = responseCache;
+		this.rawOut = out;
+		this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
 	}
 
 	public void start() {
-		System.err.println("[MCP Server] Started, waiting for input...");
-		try {
+		System.err.println("[MCP Server] Started (bridge: " + bridge.describe() + ", max in-flight: "
+				+ MAX_IN_FLIGHT + "), waiting for input...");
+		// Closing the executor waits for in-flight requests, so their responses are written before exiting
+		try (ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor()) {
 			String line;
 			while ((line = in.readLine()) != null) {
 				line = line.trim();
 				if (line.isEmpty()) continue;
-				System.err.println("[MCP Server] Received: " + line.substring(0, Math.min(line.length(), 200)));
+				if (accessLog.isEnabled(AccessLog.Level.DEBUG)) {
+					accessLog.message(AccessLog.Level.DEBUG, "received " + line.substring(0, Math.min(line.length(), 200)));
+				}
+				JsonObject request;
 				try {
-					JsonObject request = JsonParser.parseString(line).getAsJsonObject();
-					handleRequest(request);
+					request = JsonParser.parseString(line).getAsJsonObject();
 				} catch (Exception e) {
 					System.err.println("[MCP Server] Error: " + e.getMessage());
-					e.printStackTrace(System.err);
+					continue;
+				}
+
+				// Notifications are handled inline so a cancellation is never stuck behind the calls it cancels
+				if (isNotification(request)) {
+					try {
+						handleNotification(request);
+					} catch (Exception e) {
+						// A malformed notification must not take the reader thread, and the server, down
+						System.err.println("[MCP Server] Error: " + e.getMessage());
+						e.printStackTrace(System.err);
+					}
+					continue;
 				}
+
+				// Tool calls wait for a slot on their own thread, the reader never blocks so cancellations get through
+				dispatcher.execute(() -> {
+					try {
+						handleRequest(request);
+					} catch (Exception e) {
+						System.err.println("[MCP Server] Error: " + e.getMessage());
+						e.printStackTrace(System.err);
+					}
+				});
 			}
 		} catch (IOException e) {
 			System.err.println("[MCP Server] STDIO error: " + e.getMessage());
 		}
 		System.err.println("[MCP Server] Input stream closed, exiting.");
+		accessLog.close();
+	}
+
+	private static boolean isNotification(JsonObject request) {
+		JsonElement idEl = request.get("id");
+		return idEl == null || idEl.isJsonNull();
+	}
+
+	private void handleNotification(JsonObject request) {
+		String method = request.has("method") ? request.get("method").getAsString() : null;
+		if ("notifications/cancelled".equals(method) && request.has("params")) {
+			JsonElement requestId = request.getAsJsonObject("params").get("requestId");
+			if (requestId != null) cancelToolCall(requestId);
+		}
 	}
 
-	private void handleRequest(JsonObject request) {
+	/**
+	 * Cancel an in-flight tool call: stop the bridge work first, then abort the call's own bridge request.
+	 */
+	private void cancelToolCall(JsonElement rpcId) {
+		CallContext context = toolCalls.get(rpcId.toString());
+		if (context == null) return;
+		context.cancel();
+		Thread.ofVirtual().start(() -> {
+			bridge.cancel(context);
+			context.interrupt();
+		});
+	}
+
+	void handleRequest(JsonObject request) {
 		String method = request.has("method") ? request.get("method").getAsString() : null;
 		JsonElement idEl = request.get("id");
 
 		// Notifications (no id) - just acknowledge
 		if (idEl == null || idEl.isJsonNull()) return;
 
+		// Tool calls write their own access log entry, naming the tool
+		if ("tools/call".equals(method)) {
+			handleToolCall(idEl, request.getAsJsonObject("params"));
+			return;
+		}
+
+		long start = System.nanoTime();
 		switch (method) {
 			case "initialize" -> sendResult(idEl, buildInitializeResult());
 			case "tools/list" -> sendResult(idEl, buildToolsList());
-			case "tools/call" -> handleToolCall(idEl, request.getAsJsonObject("params"));
 			case "resources/list" -> sendResult(idEl, buildResourcesList());
 			case "resources/read" -> handleResourceRead(idEl, request.getAsJsonObject("params"));
 			case "ping" -> sendResult(idEl, new JsonObject());
 			default -> sendError(idEl, -32601, "Method not found: " + method);
 		}
+		accessLog.request(AccessLog.Level.INFO, "rpc", method, 0, System.nanoTime() - start, -1, null, null);
 	}
 
 	// ==================== Initialize ====================
@@ -91,24 +189,26 @@ private JsonObject buildInitializeResult() {
 		return result;
 	}
 
-	// ==================== Tools (25 total) ====================
+	// ==================== Tools (29 total) ====================
 
 	private JsonObject buildToolsList() {
 		JsonArray tools = new JsonArray();
 
 		// 1. open_jar
-		tools.add(toolDef("open_jar", "Open a JAR, APK, or class file in Recaf for analysis. Returns a workspaceId for multi-workspace support.",
-				requiredProps(prop("path", "string", "Absolute path to the JAR/APK/class file to open"))));
+		tools.add(toolDef("open_jar", "Open a JAR, APK, or class file in Recaf for analysis, optionally with its dependency JARs as libraries. Returns a workspaceId for multi-workspace support.",
+				openJarSchema()));
 
 		// 2. close_workspace
 		tools.add(toolDef("close_workspace", "Close the currently open workspace in Recaf, or close a specific workspace by ID",
 				optionalProps(prop("workspaceId", "string", "Optional workspace ID to close. If omitted, closes the current workspace."))));
 
 		// 3. list_classes (with pagination)
-		tools.add(toolDef("list_classes", "List all classes in the current workspace, optionally filtered by name. Supports offset/limit pagination.",
+		tools.add(toolDef("list_classes", "List all classes in the current workspace, sorted and optionally filtered by package prefix and name. Pass the returned nextCursor to get the next page.",
 				optionalProps(
+						prop("prefix", "string", "Optional name prefix, typically a package (e.g. 'com/example/')"),
 						prop("filter", "string", "Optional filter string to match class names (e.g. 'com/example' or 'Main')"),
-						prop("offset", "integer", "Starting offset for pagination (default: 0)"),
+						prop("cursor", "string", "Opaque cursor from a previous page's nextCursor, continues where it left off"),
+						prop("offset", "integer", "Starting offset for pagination when no cursor is given (default: 0)"),
 						prop("limit", "integer", "Maximum number of classes to return (default: 500)"))));
 
 		// 4. get_class_info
@@ -142,11 +242,11 @@ private JsonObject buildToolsList() {
 						prop("outputPath", "string", "Absolute path to write the mapping file to"))));
 
 		// 11. switch_workspace
-		tools.add(toolDef("switch_workspace", "Switch to a previously opened workspace by its ID",
+		tools.add(toolDef("switch_workspace", "Switch to a previously opened workspace by its ID, restoring it from disk if it was evicted",
 				requiredProps(prop("workspaceId", "string", "The workspace ID returned by open_jar"))));
 
 		// 12. list_workspaces
-		tools.add(toolDef("list_workspaces", "List all currently registered workspaces with their IDs, paths, and class counts",
+		tools.add(toolDef("list_workspaces", "List all currently registered workspaces with their IDs, paths, class counts, estimated sizes, and whether they are pinned or evicted to disk",
 				new JsonObject()));
 
 		// 13. edit_bytecode
@@ -201,6 +301,34 @@ private JsonObject buildToolsList() {
 		tools.add(toolDef("patch", "Create or apply a workspace patch. Use 'create' to capture current modifications as a patch, or 'apply' to restore a previously created patch.",
 				patchSchema()));
 
+		// 26. batch
+		tools.add(toolDef("batch", "Run many tool calls in one round trip. Read-only calls run in parallel; calls that modify the workspace run in order between them. Returns one result per call, in the same order.",
+				batchSchema()));
+
+		// 27. open_status
+		tools.add(toolDef("open_status", "Check the progress of a workspace opened with open_jar and async: status (importing, ready, failed), whether a class index answers meanwhile, the classes and files imported so far, and for jar, war and zip files the archive entries read of the total",
+				new JsonObject()));
+
+		// 28. workspace_changes
+		tools.add(toolDef("workspace_changes", "List the classes and files added, removed or replaced since a workspace generation, such as by rename_symbol, compile_java, assemble_class, patch or edits in Recaf's UI. Pass the returned generation as 'since' next time. When reset is true the changes are no longer known and everything must be fetched again.",
+				optionalProps(prop("since", "integer", "Generation from a previous workspace_changes result. Omit to list all journaled changes and get the current generation."))));
+
+		// 29. pin_workspace
+		tools.add(toolDef("pin_workspace", "Pin a workspace so it is never evicted from memory when open workspaces exceed the memory budget, or unpin it. Unpinned idle workspaces may be evicted to disk and are restored automatically when used by ID",
+				optionalProps(prop("pinned", "boolean", "true to pin (default), false to unpin"))));
+
+		// Every tool that works on a workspace can target one other than the current
+		for (JsonElement tool : tools) {
+			JsonObject def = tool.getAsJsonObject();
+			if (WORKSPACE_AGNOSTIC_TOOLS.contains(def.get("name").getAsString())) continue;
+			JsonObject properties = def.getAsJsonObject("inputSchema").getAsJsonObject("properties");
+			if (properties.has("workspaceId")) continue;
+			JsonObject workspaceId = new JsonObject();
+			workspaceId.addProperty("type", "string");
+			workspaceId.addProperty("description", "Optional workspace ID from open_jar or list_workspaces. If omitted, uses the current workspace.");
+			properties.add("workspaceId", workspaceId);
+		}
+
 		JsonObject result = new JsonObject();
 		result.add("tools", tools);
 		return result;
@@ -210,219 +338,541 @@ private void handleToolCall(JsonElement id, JsonObject params) {
 		String name = params.get("name").getAsString();
 		JsonObject args = params.has("arguments") ? params.getAsJsonObject("arguments") : new JsonObject();
 
+		Duration budget = "batch".equals(name) ? batchBudget(args) : toolTimeouts.timeoutFor(name);
+		CallContext context = new CallContext(id, budget);
+		String key = id.toString();
+		// Registered before waiting for a slot and for the bridge, so the call can be cancelled while it waits
+		toolCalls.put(key, context);
+		boolean admitted = acquireSlot();
+		// A cancelled call has nothing to wait for, and would hold its slot meanwhile
+		if (admitted && !context.isCancelled()) awaitReadyBridge(context);
+		if (!admitted || context.isCancelled()) {
+			if (admitted) inFlight.release();
+			toolCalls.remove(key, context);
+			context.finish();
+			accessLog.request(AccessLog.Level.INFO, "tool", name, 0, 0, -1, context.getBridgeRequestId(), "cancelled");
+			return;
+		}
+		try {
+			callTool(id, name, args, progressToken(params), budget, context);
+		} finally {
+			inFlight.release();
+		}
+	}
+
+	/**
+	 * Wait for a tool call slot.
+	 *
+	 * @return {@code false} when interrupted while waiting, by a cancellation of the call.
+	 */
+	private boolean acquireSlot() {
+		try {
+			inFlight.acquire();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Run an admitted tool call and answer it, unless it was cancelled meanwhile.
+	 */
+	private void callTool(JsonElement id, String name, JsonObject args, JsonElement progressToken, Duration budget,
+						  CallContext context) {
+		String key = id.toString();
+		Thread progressReporter = progressToken == null ? null : startProgressReports(progressToken, context);
+		long start = System.nanoTime();
 		String text;
-		boolean isError = false;
+		boolean isError;
+		String errorCode = null;
+		boolean timedOut = false;
+		boolean cached = false;
+		String cacheKey = responseCache.isCacheable(name) ? ResponseCache.key(name, args) : null;
 		try {
-			text = switch (name) {
-				case "open_jar" -> bridge.extractData(bridge.post("/workspace/open",
-						jsonBody("path", getString(args, "path"))));
-
-				case "close_workspace" -> {
-					JsonObject body = new JsonObject();
-					if (args.has("workspaceId")) body.addProperty("workspaceId", getString(args, "workspaceId"));
-					yield bridge.extractData(bridge.post("/workspace/close", GSON.toJson(body)));
+			if ("batch".equals(name)) {
+				// Per-call failures are reported inside the combined result
+				text = callBatch(args, context);
+				isError = false;
+			} else {
+				text = cacheKey == null ? null : cachedResult(cacheKey, context);
+				cached = text != null;
+				isError = false;
+				if (!cached) {
+					// Decided by the bridge's status, results such as outlines may well mention "error" themselves
+					JsonObject response = JsonParser.parseString(send(toBridgeCall(name, args), context)).getAsJsonObject();
+					isError = BridgeClient.isError(response);
+					if (isError) errorCode = getStringOr(response, "code", null);
+					text = bridge.extractData(response);
 				}
-
-				case "list_classes" -> {
-					JsonObject body = new JsonObject();
-					if (args.has("filter")) body.addProperty("filter", getString(args, "filter"));
-					body.addProperty("offset", getIntOr(args, "offset", 0));
-					body.addProperty("limit", getIntOr(args, "limit", 500));
-					yield bridge.extractData(bridge.post("/workspace/classes", GSON.toJson(body)));
+				if (cacheKey != null && !cached && !isError) {
+					responseCache.put(cacheKey, ResponseCache.dependency(name, args),
+							context.getWorkspaceGeneration(), text);
 				}
+			}
+		} catch (HttpTimeoutException e) {
+			text = "{\"error\":\"" + escapeJson(name + " timed out after " + budget.toMillis() + "ms") + "\"}";
+			isError = true;
+			timedOut = true;
+		} catch (Exception e) {
+			text = "{\"error\":\"" + escapeJson(e.getMessage()) + "\"}";
+			isError = true;
+		} finally {
+			toolCalls.remove(key, context);
+			context.finish();
+			if (progressReporter != null) stopProgressReports(progressReporter);
+			responseCache.observe(context.getWorkspaceGeneration());
+			// The call may have modified the workspace, so confirm the generation before reusing results
+			if (cacheKey == null) responseCache.expire();
+		}
 
-				case "get_class_info" -> bridge.extractData(bridge.post("/workspace/class-info",
-						jsonBody("className", getString(args, "className"))));
+		// Learn from the call's latency, batches are too varied to learn from, and cached results took none
+		if (!"batch".equals(name) && !cached && !context.isCancelled()) {
+			if (timedOut || "DEADLINE_EXCEEDED".equals(errorCode) || "DECOMPILE_TIMEOUT".equals(errorCode)) {
+				toolTimeouts.recordTimeout(name);
+			} else if (!isError) {
+				toolTimeouts.recordSuccess(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			}
+		}
 
-				case "decompile_class" -> bridge.extractData(bridge.post("/decompile",
-						jsonBody("className", getString(args, "className"))));
+		long elapsed = System.nanoTime() - start;
+		if (context.isCancelled()) {
+			accessLog.request(AccessLog.Level.INFO, "tool", name, 0, elapsed, -1, context.getBridgeRequestId(), "cancelled");
+		} else {
+			accessLog.request(isError ? AccessLog.Level.WARN : AccessLog.Level.INFO, "tool", name, 0, elapsed,
+					-1, context.getBridgeRequestId(), isError ? "error" : cached ? "cached" : null);
+		}
 
-				case "search_code" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("query", getString(args, "query"));
-					body.addProperty("type", getStringOr(args, "type", "string"));
-					body.addProperty("maxResults", getIntOr(args, "maxResults", 100));
-					yield bridge.extractData(bridge.post("/search", GSON.toJson(body)));
-				}
+		// The client has abandoned a cancelled call and expects no response to it
+		if (context.isCancelled()) return;
 
-				case "get_call_graph" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					if (args.has("methodName")) body.addProperty("methodName", getString(args, "methodName"));
-					body.addProperty("depth", getIntOr(args, "depth", 3));
-					yield bridge.extractData(bridge.post("/analysis/call-graph", GSON.toJson(body)));
-				}
+		// Build CallToolResult
+		JsonObject result = new JsonObject();
+		JsonArray content = new JsonArray();
+		JsonObject textContent = new JsonObject();
+		textContent.addProperty("type", "text");
+		textContent.addProperty("text", text);
+		content.add(textContent);
+		result.add("content", content);
+		result.addProperty("isError", isError);
 
-				case "get_inheritance" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					body.addProperty("direction", getStringOr(args, "direction", "both"));
-					yield bridge.extractData(bridge.post("/analysis/inheritance", GSON.toJson(body)));
-				}
+		sendResult(id, result);
+	}
 
-				case "rename_symbol" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("type", getString(args, "type"));
-					body.addProperty("oldName", getString(args, "oldName"));
-					body.addProperty("newName", getString(args, "newName"));
-					if (args.has("className")) body.addProperty("className", getString(args, "className"));
-					if (args.has("descriptor")) body.addProperty("descriptor", getString(args, "descriptor"));
-					yield bridge.extractData(bridge.post("/mapping/rename", GSON.toJson(body)));
-				}
+	/**
+	 * @return The client's token for progress notifications on a call, or {@code null} when it wants none.
+	 */
+	private static JsonElement progressToken(JsonObject params) {
+		if (!params.has("_meta") || !params.get("_meta").isJsonObject()) return null;
+		JsonElement token = params.getAsJsonObject("_meta").get("progressToken");
+		return token == null || token.isJsonNull() ? null : token;
+	}
 
-				case "export_mappings" -> {
-					JsonObject body = new JsonObject();
-					if (args.has("format")) body.addProperty("format", getString(args, "format"));
-					if (args.has("outputPath")) body.addProperty("outputPath", getString(args, "outputPath"));
-					yield bridge.extractData(bridge.post("/mapping/export", GSON.toJson(body)));
+	/**
+	 * Poll the bridge for the progress of a tool call and forward it as {@code notifications/progress},
+	 * until {@link #stopProgressReports(Thread) stopped}. Only reports that advance are forwarded,
+	 * as progress must increase with every notification.
+	 */
+	private Thread startProgressReports(JsonElement progressToken, CallContext context) {
+		return Thread.ofVirtual().name("mcp-progress-" + context.getBridgeRequestId()).start(() -> {
+			long reported = -1;
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					Thread.sleep(PROGRESS_INTERVAL_MS);
+					JsonObject progress = bridge.progress(context);
+					if (progress == null || !progress.has("progress")) continue;
+					long value = progress.get("progress").getAsLong();
+					if (value <= reported) continue;
+					reported = value;
+
+					JsonObject params = new JsonObject();
+					params.add("progressToken", progressToken);
+					params.addProperty("progress", value);
+					if (progress.has("progressTotal")) params.add("total", progress.get("progressTotal"));
+					String message = getStringOr(progress, "phase", "working");
+					if (progress.has("total")) message += " " + progress.get("done") + "/" + progress.get("total");
+					params.addProperty("message", message);
+					sendNotification("notifications/progress", params);
 				}
+			} catch (InterruptedException e) {
+				// The call finished
+			}
+		});
+	}
 
-				case "switch_workspace" -> bridge.extractData(bridge.post("/workspace/switch",
-						jsonBody("workspaceId", getString(args, "workspaceId"))));
-
-				case "list_workspaces" -> bridge.extractData(bridge.get("/workspace/list-workspaces"));
-
-				case "edit_bytecode" -> {
-					String operation = getStringOr(args, "operation", "");
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					String endpoint = switch (operation) {
-						case "edit_method" -> {
-							body.addProperty("methodName", getString(args, "methodName"));
-							body.addProperty("methodDesc", getString(args, "methodDesc"));
-							if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
-							yield "/bytecode/edit-method";
-						}
-						case "edit_field" -> {
-							body.addProperty("fieldName", getString(args, "fieldName"));
-							if (args.has("descriptor")) body.addProperty("descriptor", getString(args, "descriptor"));
-							if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
-							yield "/bytecode/edit-field";
-						}
-						case "remove_member" -> {
-							body.addProperty("memberName", getString(args, "memberName"));
-							body.addProperty("memberType", getString(args, "memberType"));
-							if (args.has("descriptor")) body.addProperty("descriptor", getString(args, "descriptor"));
-							yield "/bytecode/remove-member";
-						}
-						case "add_field" -> {
-							body.addProperty("fieldName", getString(args, "fieldName"));
-							body.addProperty("descriptor", getString(args, "descriptor"));
-							if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
-							yield "/bytecode/add-field";
-						}
-						case "add_method" -> {
-							body.addProperty("methodName", getString(args, "methodName"));
-							body.addProperty("methodDesc", getString(args, "methodDesc"));
-							if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
-							yield "/bytecode/add-method";
-						}
-						default -> throw new IllegalArgumentException(
-								"Unknown operation: " + operation + ". Use: edit_method, edit_field, remove_member, add_field, add_method");
-					};
-					yield bridge.extractData(bridge.post(endpoint, GSON.toJson(body)));
-				}
+	/**
+	 * Stop forwarding progress, waiting for the reporter so no notification follows the call's response.
+	 */
+	private static void stopProgressReports(Thread progressReporter) {
+		progressReporter.interrupt();
+		try {
+			progressReporter.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
-				case "diff_classes" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className1", getString(args, "className1"));
-					if (args.has("className2")) body.addProperty("className2", getString(args, "className2"));
-					if (args.has("source")) body.addProperty("source", getString(args, "source"));
-					yield bridge.extractData(bridge.post("/diff", GSON.toJson(body)));
-				}
+	/**
+	 * Until the bridge has reported that it finished warming up, give it a chance to do so before a tool call,
+	 * using up to half of the call's budget, so the call is not the slow first one.
+	 */
+	private void awaitReadyBridge(CallContext context) {
+		if (bridgeReady) return;
+		long waitMs = Math.min(READY_TIMEOUT_MS, context.remaining().toMillis() / 2);
+		try {
+			if (bridge.awaitReady(Duration.ofMillis(waitMs))) bridgeReady = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
-				case "export_jar" -> bridge.extractData(bridge.post("/export/jar",
-						jsonBody("outputPath", getString(args, "outputPath"))));
+	/**
+	 * A bridge request for a tool call. A {@code null} body means the endpoint is read with GET.
+	 *
+	 * @param workspaceId Workspace the call targets, {@code null} for the current one. Sent as a query parameter,
+	 *                    so the bridge never has to look for it in the body.
+	 */
+	private record BridgeCall(String path, JsonObject body, String workspaceId) {
+		private BridgeCall(String path, JsonObject body) {
+			this(path, body, null);
+		}
 
-				case "export_source" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("outputDir", getString(args, "outputDir"));
-					if (args.has("className")) body.addProperty("className", getString(args, "className"));
-					yield bridge.extractData(bridge.post("/export/source", GSON.toJson(body)));
-				}
+		/**
+		 * @return Path including the workspace ID, if any.
+		 */
+		private String target() {
+			if (workspaceId == null) return path;
+			return path + (path.indexOf('?') < 0 ? '?' : '&') + "workspaceId="
+					+ URLEncoder.encode(workspaceId, StandardCharsets.UTF_8);
+		}
+	}
 
-				case "compile_java" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					body.addProperty("source", getString(args, "source"));
-					if (args.has("targetVersion")) body.addProperty("targetVersion", args.get("targetVersion").getAsInt());
-					if (args.has("debug")) body.addProperty("debug", args.get("debug").getAsBoolean());
-					yield bridge.extractData(bridge.post("/compile", GSON.toJson(body)));
-				}
+	/**
+	 * @return Cached result of a read-only tool call, or {@code null}. Asks the bridge for the current workspace
+	 * generation first when the last one seen is no longer trusted.
+	 */
+	private String cachedResult(String cacheKey, CallContext context) throws IOException, InterruptedException {
+		if (responseCache.needsRevalidation()) {
+			long known = responseCache.generation();
+			if (known >= 0 && responseCache.hasResultsOf(known)) {
+				// Ask what changed instead, keeping the results the changes do not touch
+				carryOver(known, bridge.get("/workspace/changes?since=" + known, context.transportTimeout(), context));
+			} else {
+				bridge.get("/workspace/generation", context.transportTimeout(), context);
+			}
+			responseCache.observe(context.getWorkspaceGeneration());
+		}
+		return responseCache.get(cacheKey);
+	}
 
-				case "disassemble_class" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					if (args.has("maxChars")) body.addProperty("maxChars", args.get("maxChars").getAsInt());
-					yield bridge.extractData(bridge.post("/disassemble", GSON.toJson(body)));
-				}
+	/**
+	 * Carry cached results over to the generation a {@code /workspace/changes} response leads up to,
+	 * unless it reports a reset or an error.
+	 */
+	private void carryOver(long since, String response) {
+		JsonObject obj = JsonParser.parseString(response).getAsJsonObject();
+		if (!"ok".equals(getStringOr(obj, "status", null)) || !obj.has("data")) return;
+		JsonObject data = obj.getAsJsonObject("data");
+		if (!data.has("reset") || data.get("reset").getAsBoolean() || !data.has("changes")) return;
+		Set<String> classes = new HashSet<>();
+		Set<String> files = new HashSet<>();
+		for (JsonElement element : data.getAsJsonArray("changes")) {
+			JsonObject change = element.getAsJsonObject();
+			("file".equals(getStringOr(change, "kind", null)) ? files : classes).add(getStringOr(change, "name", ""));
+		}
+		responseCache.carryOver(since, data.get("generation").getAsLong(), classes, files);
+	}
 
-				case "assemble_class" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					body.addProperty("source", getString(args, "source"));
-					yield bridge.extractData(bridge.post("/assemble", GSON.toJson(body)));
-				}
+	private String send(BridgeCall call, CallContext context) throws IOException, InterruptedException {
+		if (call.body() == null) return bridge.get(call.target(), context.transportTimeout(), context);
+		return bridge.post(call.target(), GSON.toJson(call.body()), context.transportTimeout(), context);
+	}
 
-				case "method_disassemble" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					body.addProperty("methodName", getString(args, "methodName"));
-					body.addProperty("methodDesc", getString(args, "methodDesc"));
-					if (args.has("maxChars")) body.addProperty("maxChars", args.get("maxChars").getAsInt());
-					yield bridge.extractData(bridge.post("/disassemble/method", GSON.toJson(body)));
-				}
+	/**
+	 * @return Budget for a batch tool call, from the budgets of the calls it contains.
+	 */
+	private Duration batchBudget(JsonObject args) {
+		List<String> tools = new ArrayList<>();
+		if (args.has("calls") && args.get("calls").isJsonArray()) {
+			for (JsonElement call : args.getAsJsonArray("calls")) {
+				if (call.isJsonObject()) tools.add(getStringOr(call.getAsJsonObject(), "tool", ""));
+			}
+		}
+		return toolTimeouts.batchTimeoutFor(tools);
+	}
 
-				case "method_bytecode" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("className", getString(args, "className"));
-					body.addProperty("methodName", getString(args, "methodName"));
-					body.addProperty("methodDesc", getString(args, "methodDesc"));
-					yield bridge.extractData(bridge.post("/bytecode/instructions", GSON.toJson(body)));
-				}
+	/**
+	 * Map a tool call onto the bridge endpoint and request body that implement it, passing on the workspace
+	 * the call targets.
+	 */
+	private static BridgeCall toBridgeCall(String name, JsonObject args) {
+		BridgeCall call = toEndpoint(name, args);
+		String workspaceId = getStringOr(args, "workspaceId", null);
+		if (workspaceId != null && !workspaceId.isBlank() && !WORKSPACE_AGNOSTIC_TOOLS.contains(name)) {
+			return new BridgeCall(call.path(), call.body(), workspaceId);
+		}
+		return call;
+	}
 
-				case "class_outline" -> bridge.extractData(bridge.post("/workspace/outline",
-						jsonBody("className", getString(args, "className"))));
+	private static BridgeCall toEndpoint(String name, JsonObject args) {
+		return switch (name) {
+			case "open_jar" -> {
+				JsonObject body = jsonBody("path", getString(args, "path"));
+				if (args.has("libraries") && args.get("libraries").isJsonArray()) body.add("libraries", args.get("libraries"));
+				if (args.has("async")) body.addProperty("async", args.get("async").getAsBoolean());
+				yield new BridgeCall("/workspace/open", body);
+			}
 
-				case "read_file" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("path", getString(args, "path"));
-					if (args.has("maxChars")) body.addProperty("maxChars", args.get("maxChars").getAsInt());
-					yield bridge.extractData(bridge.post("/workspace/read-file", GSON.toJson(body)));
-				}
+			case "open_status" -> new BridgeCall("/workspace/open-status", new JsonObject());
 
-				case "class_delete" -> bridge.extractData(bridge.post("/workspace/delete-class",
-						jsonBody("className", getString(args, "className"))));
+			case "close_workspace" -> {
+				JsonObject body = new JsonObject();
+				if (args.has("workspaceId")) body.addProperty("workspaceId", getString(args, "workspaceId"));
+				yield new BridgeCall("/workspace/close", body);
+			}
 
-				case "patch" -> {
-					JsonObject body = new JsonObject();
-					body.addProperty("action", getString(args, "action"));
-					if (args.has("patchJson")) body.addProperty("patchJson", getString(args, "patchJson"));
-					yield bridge.extractData(bridge.post("/patch", GSON.toJson(body)));
-				}
+			case "list_classes" -> {
+				JsonObject body = new JsonObject();
+				if (args.has("prefix")) body.addProperty("prefix", getString(args, "prefix"));
+				if (args.has("filter")) body.addProperty("filter", getString(args, "filter"));
+				if (args.has("cursor")) body.addProperty("cursor", getString(args, "cursor"));
+				body.addProperty("offset", getIntOr(args, "offset", 0));
+				body.addProperty("limit", getIntOr(args, "limit", 500));
+				yield new BridgeCall("/workspace/classes", body);
+			}
 
-				default -> "{\"error\":\"Unknown tool: " + name + "\"}";
-			};
-		} catch (Exception e) {
-			text = "{\"error\":\"" + escapeJson(e.getMessage()) + "\"}";
-		}
+			case "get_class_info" -> new BridgeCall("/workspace/class-info", jsonBody("className", getString(args, "className")));
 
-		// Detect error responses and set isError flag
-		if (text != null && text.contains("\"error\"")) {
-			isError = true;
-		}
+			case "decompile_class" -> new BridgeCall("/decompile", jsonBody("className", getString(args, "className")));
 
-		// Build CallToolResult
-		JsonObject result = new JsonObject();
-		JsonArray content = new JsonArray();
-		JsonObject textContent = new JsonObject();
-		textContent.addProperty("type", "text");
-		textContent.addProperty("text", text);
-		content.add(textContent);
-		result.add("content", content);
-		result.addProperty("isError", isError);
+			case "search_code" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("query", getString(args, "query"));
+				body.addProperty("type", getStringOr(args, "type", "string"));
+				body.addProperty("maxResults", getIntOr(args, "maxResults", 100));
+				if (args.has("cursor")) body.addProperty("cursor", getString(args, "cursor"));
+				yield new BridgeCall("/search", body);
+			}
 
-		sendResult(id, result);
+			case "get_call_graph" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				if (args.has("methodName")) body.addProperty("methodName", getString(args, "methodName"));
+				body.addProperty("depth", getIntOr(args, "depth", 3));
+				yield new BridgeCall("/analysis/call-graph", body);
+			}
+
+			case "get_inheritance" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				body.addProperty("direction", getStringOr(args, "direction", "both"));
+				yield new BridgeCall("/analysis/inheritance", body);
+			}
+
+			case "rename_symbol" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("type", getString(args, "type"));
+				body.addProperty("oldName", getString(args, "oldName"));
+				body.addProperty("newName", getString(args, "newName"));
+				if (args.has("className")) body.addProperty("className", getString(args, "className"));
+				if (args.has("descriptor")) body.addProperty("descriptor", getString(args, "descriptor"));
+				yield new BridgeCall("/mapping/rename", body);
+			}
+
+			case "export_mappings" -> {
+				JsonObject body = new JsonObject();
+				if (args.has("format")) body.addProperty("format", getString(args, "format"));
+				if (args.has("outputPath")) body.addProperty("outputPath", getString(args, "outputPath"));
+				yield new BridgeCall("/mapping/export", body);
+			}
+
+			case "switch_workspace" -> new BridgeCall("/workspace/switch", jsonBody("workspaceId", getString(args, "workspaceId")));
+
+			case "list_workspaces" -> new BridgeCall("/workspace/list-workspaces", null);
+
+			case "edit_bytecode" -> {
+				String operation = getStringOr(args, "operation", "");
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				String endpoint = switch (operation) {
+					case "edit_method" -> {
+						body.addProperty("methodName", getString(args, "methodName"));
+						body.addProperty("methodDesc", getString(args, "methodDesc"));
+						if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
+						yield "/bytecode/edit-method";
+					}
+					case "edit_field" -> {
+						body.addProperty("fieldName", getString(args, "fieldName"));
+						if (args.has("descriptor")) body.addProperty("descriptor", getString(args, "descriptor"));
+						if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
+						yield "/bytecode/edit-field";
+					}
+					case "remove_member" -> {
+						body.addProperty("memberName", getString(args, "memberName"));
+						body.addProperty("memberType", getString(args, "memberType"));
+						if (args.has("descriptor")) body.addProperty("descriptor", getString(args, "descriptor"));
+						yield "/bytecode/remove-member";
+					}
+					case "add_field" -> {
+						body.addProperty("fieldName", getString(args, "fieldName"));
+						body.addProperty("descriptor", getString(args, "descriptor"));
+						if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
+						yield "/bytecode/add-field";
+					}
+					case "add_method" -> {
+						body.addProperty("methodName", getString(args, "methodName"));
+						body.addProperty("methodDesc", getString(args, "methodDesc"));
+						if (args.has("accessFlags")) body.addProperty("accessFlags", args.get("accessFlags").getAsInt());
+						yield "/bytecode/add-method";
+					}
+					default -> throw new IllegalArgumentException(
+							"Unknown operation: " + operation + ". Use: edit_method, edit_field, remove_member, add_field, add_method");
+				};
+				yield new BridgeCall(endpoint, body);
+			}
+
+			case "diff_classes" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className1", getString(args, "className1"));
+				if (args.has("className2")) body.addProperty("className2", getString(args, "className2"));
+				if (args.has("source")) body.addProperty("source", getString(args, "source"));
+				yield new BridgeCall("/diff", body);
+			}
+
+			case "export_jar" -> new BridgeCall("/export/jar", jsonBody("outputPath", getString(args, "outputPath")));
+
+			case "export_source" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("outputDir", getString(args, "outputDir"));
+				if (args.has("className")) body.addProperty("className", getString(args, "className"));
+				yield new BridgeCall("/export/source", body);
+			}
+
+			case "compile_java" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				body.addProperty("source", getString(args, "source"));
+				if (args.has("targetVersion")) body.addProperty("targetVersion", args.get("targetVersion").getAsInt());
+				if (args.has("debug")) body.addProperty("debug", args.get("debug").getAsBoolean());
+				yield new BridgeCall("/compile", body);
+			}
+
+			case "disassemble_class" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				if (args.has("maxChars")) body.addProperty("maxChars", args.get("maxChars").getAsInt());
+				yield new BridgeCall("/disassemble", body);
+			}
+
+			case "assemble_class" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				body.addProperty("source", getString(args, "source"));
+				yield new BridgeCall("/assemble", body);
+			}
+
+			case "method_disassemble" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				body.addProperty("methodName", getString(args, "methodName"));
+				body.addProperty("methodDesc", getString(args, "methodDesc"));
+				if (args.has("maxChars")) body.addProperty("maxChars", args.get("maxChars").getAsInt());
+				yield new BridgeCall("/disassemble/method", body);
+			}
+
+			case "method_bytecode" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("className", getString(args, "className"));
+				body.addProperty("methodName", getString(args, "methodName"));
+				body.addProperty("methodDesc", getString(args, "methodDesc"));
+				yield new BridgeCall("/bytecode/instructions", body);
+			}
+
+			case "class_outline" -> new BridgeCall("/workspace/outline", jsonBody("className", getString(args, "className")));
+
+			case "read_file" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("path", getString(args, "path"));
+				if (args.has("maxChars")) body.addProperty("maxChars", args.get("maxChars").getAsInt());
+				yield new BridgeCall("/workspace/read-file", body);
+			}
+
+			case "pin_workspace" -> {
+				JsonObject body = new JsonObject();
+				if (args.has("pinned")) body.addProperty("pinned", args.get("pinned").getAsBoolean());
+				yield new BridgeCall("/workspace/pin", body);
+			}
+
+			case "workspace_changes" -> {
+				JsonObject body = new JsonObject();
+				if (args.has("since")) body.addProperty("since", args.get("since").getAsLong());
+				yield new BridgeCall("/workspace/changes", body);
+			}
+
+			case "class_delete" -> new BridgeCall("/workspace/delete-class", jsonBody("className", getString(args, "className")));
+
+			case "patch" -> {
+				JsonObject body = new JsonObject();
+				body.addProperty("action", getString(args, "action"));
+				if (args.has("patchJson")) body.addProperty("patchJson", getString(args, "patchJson"));
+				yield new BridgeCall("/patch", body);
+			}
+
+			default -> throw new IllegalArgumentException("Unknown tool: " + name);
+		};
+	}
+
+	/**
+	 * Run several tool calls through the bridge's {@code /batch} endpoint in a single round trip.
+	 */
+	private String callBatch(JsonObject args, CallContext context) throws IOException, InterruptedException {
+		if (!args.has("calls") || !args.get("calls").isJsonArray()) {
+			throw new IllegalArgumentException("Missing required parameter: calls");
+		}
+		JsonArray calls = args.getAsJsonArray("calls");
+		JsonArray results = new JsonArray();
+		JsonArray requests = new JsonArray();
+		for (int i = 0; i < calls.size(); i++) {
+			JsonObject call = calls.get(i).isJsonObject() ? calls.get(i).getAsJsonObject() : new JsonObject();
+			String tool = getString(call, "tool");
+			JsonObject callArgs = call.has("arguments") && call.get("arguments").isJsonObject()
+					? call.getAsJsonObject("arguments") : new JsonObject();
+
+			JsonObject entry = new JsonObject();
+			entry.addProperty("tool", tool);
+			results.add(entry);
+			try {
+				BridgeCall bridgeCall = toBridgeCall(String.valueOf(tool), callArgs);
+				JsonObject request = new JsonObject();
+				request.addProperty("id", String.valueOf(i));
+				request.addProperty("path", bridgeCall.path());
+				if (bridgeCall.workspaceId() != null) request.addProperty("workspaceId", bridgeCall.workspaceId());
+				request.add("body", bridgeCall.body() == null ? new JsonObject() : bridgeCall.body());
+				requests.add(request);
+			} catch (IllegalArgumentException e) {
+				JsonObject error = new JsonObject();
+				error.addProperty("error", e.getMessage());
+				entry.add("result", error);
+			}
+		}
+
+		if (!requests.isEmpty()) {
+			JsonObject body = new JsonObject();
+			body.add("requests", requests);
+			if (args.has("parallel")) body.addProperty("parallel", args.get("parallel").getAsBoolean());
+			String data = bridge.extractData(bridge.post("/batch", GSON.toJson(body), context.transportTimeout(), context));
+			JsonObject batch = JsonParser.parseString(data).getAsJsonObject();
+			if (!batch.has("results")) return data;
+			for (JsonElement element : batch.getAsJsonArray("results")) {
+				JsonObject item = element.getAsJsonObject();
+				JsonObject entry = results.get(Integer.parseInt(item.get("id").getAsString())).getAsJsonObject();
+				JsonElement response = item.get("response");
+				entry.add("result", response != null && response.isJsonObject()
+						? JsonParser.parseString(bridge.extractData(response.getAsJsonObject()))
+						: JsonNull.INSTANCE);
+			}
+		}
+		return GSON.toJson(results);
 	}
 
 	// ==================== Resources ====================
@@ -484,6 +934,14 @@ private void sendResult(JsonElement id, JsonObject result) {
 		writeLine(GSON.toJson(response));
 	}
 
+	private void sendNotification(String method, JsonObject params) {
+		JsonObject notification = new JsonObject();
+		notification.addProperty("jsonrpc", "2.0");
+		notification.addProperty("method", method);
+		notification.add("params", params);
+		writeLine(GSON.toJson(notification));
+	}
+
 	private void sendError(JsonElement id, int code, String message) {
 		JsonObject response = new JsonObject();
 		response.addProperty("jsonrpc", "2.0");
@@ -500,7 +958,9 @@ private synchronized void writeLine(String json) {
 			byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
 			rawOut.write(bytes);
 			rawOut.flush();
-			System.err.println("[MCP Server] Sent: " + json.substring(0, Math.min(json.length(), 200)));
+			if (accessLog.isEnabled(AccessLog.Level.DEBUG)) {
+				accessLog.message(AccessLog.Level.DEBUG, "sent " + json.substring(0, Math.min(json.length(), 200)));
+			}
 		} catch (IOException e) {
 			System.err.println("[MCP Server] Write error: " + e.getMessage());
 		}
@@ -572,8 +1032,12 @@ private static JsonObject searchSchema() {
 		properties.add("type", type);
 		JsonObject maxResults = new JsonObject();
 		maxResults.addProperty("type", "integer");
-		maxResults.addProperty("description", "Maximum number of results to return (default: 100)");
+		maxResults.addProperty("description", "Maximum number of results to return per page (default: 100)");
 		properties.add("maxResults", maxResults);
+		JsonObject cursor = new JsonObject();
+		cursor.addProperty("type", "string");
+		cursor.addProperty("description", "Opaque cursor from a previous page's nextCursor, continues where it left off");
+		properties.add("cursor", cursor);
 		schema.add("properties", properties);
 		JsonArray required = new JsonArray();
 		required.add("query");
@@ -753,6 +1217,23 @@ private static JsonObject methodBytecodeSchema() {
 		return schema;
 	}
 
+	private static JsonObject openJarSchema() {
+		JsonObject schema = new JsonObject();
+		JsonObject properties = new JsonObject();
+		properties.add("path", typedProp("string", "Absolute path to the JAR/APK/class file to open"));
+		JsonObject libraries = typedProp("array", "Absolute paths of dependency JARs, imported in parallel and attached as libraries "
+				+ "so that inheritance, call graph and compile_java resolve types from them");
+		libraries.add("items", typedProp("string", "Absolute path to a library JAR"));
+		properties.add("libraries", libraries);
+		properties.add("async", typedProp("boolean", "Return the workspaceId at once and import in the background (default: false). "
+				+ "Jar, war and zip classes become available in batches as they are imported; when the same archive was indexed before, listing, outline and string or declaration search cover all of it at once. Check progress with open_status."));
+		schema.add("properties", properties);
+		JsonArray required = new JsonArray();
+		required.add("path");
+		schema.add("required", required);
+		return schema;
+	}
+
 	private static JsonObject readFileSchema() {
 		JsonObject schema = new JsonObject();
 		JsonObject properties = new JsonObject();
@@ -782,6 +1263,33 @@ private static JsonObject patchSchema() {
 		return schema;
 	}
 
+	private static JsonObject batchSchema() {
+		JsonObject schema = new JsonObject();
+		schema.addProperty("type", "object");
+		JsonObject properties = new JsonObject();
+
+		JsonObject callProps = new JsonObject();
+		callProps.add("tool", typedProp("string", "Name of the tool to call, e.g. 'class_outline' or 'decompile_class'"));
+		callProps.add("arguments", typedProp("object", "Arguments for the tool, as they would be passed to it directly"));
+		JsonObject callSchema = new JsonObject();
+		callSchema.addProperty("type", "object");
+		callSchema.add("properties", callProps);
+		JsonArray callRequired = new JsonArray();
+		callRequired.add("tool");
+		callSchema.add("required", callRequired);
+
+		JsonObject callsProp = typedProp("array", "Tool calls to run. The 'batch' tool itself cannot be nested.");
+		callsProp.add("items", callSchema);
+		properties.add("calls", callsProp);
+		properties.add("parallel", typedProp("boolean", "Run read-only calls in parallel (default: true). Set to false to run every call in order."));
+
+		schema.add("properties", properties);
+		JsonArray required = new JsonArray();
+		required.add("calls");
+		schema.add("required", required);
+		return schema;
+	}
+
 	private static JsonObject typedProp(String type, String description) {
 		JsonObject p = new JsonObject();
 		p.addProperty("type", type);
@@ -809,8 +1317,10 @@ private static String escapeJson(String s) {
 		return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
 	}
 
-	private static String jsonBody(String key, String value) {
-		return "{\"" + key + "\":\"" + escapeJson(value) + "\"}";
+	private static JsonObject jsonBody(String key, String value) {
+		JsonObject body = new JsonObject();
+		body.addProperty(key, value);
+		return body;
 	}
 
 	// ==================== Main ====================
@@ -0,0 +1,209 @@
+package dev.recaf.mcp.server;
+
+import com.google.gson.JsonObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Least-recently-used cache of read-only tool results, valid for one workspace generation.
+ * <p>
+ * The bridge reports the workspace generation on every response and advances it on every modification, so a
+ * result is reused only while the latest generation seen is still the one it was computed at. A generation is
+ * trusted for a short while after it was seen. After that, or after a tool call that may have modified
+ * the workspace, it must be {@linkplain #observe(long) confirmed} again before a result is reused.
+ * When the generation moved on, the results the changes made meanwhile do not touch can be
+ * {@linkplain #carryOver(long, long, Set, Set) carried over} to the new one.
+ * Bounded both by entry count and by the total length of the cached results.
+ */
+public class ResponseCache {
+	/**
+	 * Tools whose result depends on nothing but their arguments and the workspace state. Not list_workspaces:
+	 * pinning, eviction and restores change its answer without advancing the generation.
+	 */
+	private static final Set<String> CACHEABLE_TOOLS = Set.of(
+			"list_classes", "get_class_info", "decompile_class", "search_code", "get_call_graph",
+			"get_inheritance", "diff_classes", "disassemble_class", "method_disassemble",
+			"method_bytecode", "class_outline", "read_file");
+	/** Tools whose result depends on nothing but the class named by their className argument. */
+	private static final Set<String> CLASS_TOOLS = Set.of(
+			"get_class_info", "decompile_class", "disassemble_class", "method_disassemble", "method_bytecode",
+			"class_outline");
+	/** Dependency of results that may depend on any class or file. */
+	private static final String ANY = "";
+
+	private final int maxEntries;
+	private final long maxChars;
+	private final long freshNanos;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long chars;
+	/** Latest generation seen, {@code -1} before the first. */
+	private long generation = -1;
+	private long observedNanos;
+	private boolean expired = true;
+
+	/**
+	 * @param maxEntries Maximum cached results, {@code 0} disables the cache.
+	 * @param maxChars   Maximum total length of the cached results.
+	 * @param freshMs    How long a seen generation is trusted without asking the bridge.
+	 */
+	public ResponseCache(int maxEntries, long maxChars, long freshMs) {
+		this.maxEntries = maxEntries;
+		this.maxChars = maxChars;
+		this.freshNanos = freshMs * 1_000_000L;
+	}
+
+	/**
+	 * @return {@code true} when results of the tool may be cached.
+	 */
+	public boolean isCacheable(String tool) {
+		return maxEntries > 0 && maxChars > 0 && CACHEABLE_TOOLS.contains(tool);
+	}
+
+	/**
+	 * @return {@code true} when the current generation must be confirmed by the bridge before a result is reused.
+	 */
+	public synchronized boolean needsRevalidation() {
+		return expired || System.nanoTime() - observedNanos > freshNanos;
+	}
+
+	/**
+	 * Note a generation reported by the bridge. Generations only move forward, so an older one arriving late
+	 * does not revive the results of its time.
+	 *
+	 * @param generation Reported generation, ignored when negative.
+	 */
+	public synchronized void observe(long generation) {
+		if (generation < 0) return;
+		this.generation = Math.max(this.generation, generation);
+		observedNanos = System.nanoTime();
+		expired = false;
+	}
+
+	/**
+	 * @return Latest generation seen, {@code -1} before the first.
+	 */
+	public synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * @return {@code true} when there are results of the given generation.
+	 */
+	public synchronized boolean hasResultsOf(long generation) {
+		for (Entry entry : entries.values()) {
+			if (entry.generation() == generation) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Keep the results of one generation that the changes made since do not touch, as results of a later one.
+	 * Results depending on a single class or file are kept unless it changed, those of tools reading
+	 * much of the workspace only when nothing changed.
+	 *
+	 * @param from    Generation the results were computed at.
+	 * @param to      Generation the changes lead up to.
+	 * @param classes Internal names of the classes added, removed or replaced since.
+	 * @param files   Paths of the files added, removed or replaced since.
+	 */
+	public synchronized void carryOver(long from, long to, Set<String> classes, Set<String> files) {
+		if (to <= from || to % 2 != 0) return;
+		for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+			Entry entry = mapEntry.getValue();
+			if (entry.generation() != from || !unaffected(entry.dependency(), classes, files)) continue;
+			// Replacing the value does not count as a use
+			mapEntry.setValue(new Entry(to, entry.text(), entry.dependency()));
+		}
+	}
+
+	private static boolean unaffected(String dependency, Set<String> classes, Set<String> files) {
+		if (dependency == null) return false;
+		if (classes.isEmpty() && files.isEmpty()) return true;
+		if (dependency.startsWith("file:")) return !files.contains(dependency.substring(5));
+		if (!dependency.startsWith("class:")) return false;
+		String name = dependency.substring(6);
+		for (String changed : classes) {
+			// Inner classes are decompiled with their outer class
+			if (changed.equals(name) || changed.startsWith(name + '$') || name.startsWith(changed + '$')) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Stop trusting the current generation until it is observed again, after a call that may have modified
+	 * the workspace.
+	 */
+	public synchronized void expire() {
+		expired = true;
+	}
+
+	/**
+	 * @param key Key from {@link #key(String, JsonObject)}.
+	 * @return Cached result, or {@code null} when there is none for the current generation.
+	 */
+	public synchronized String get(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) return null;
+		if (entry.generation() != generation) {
+			remove(key);
+			return null;
+		}
+		return entry.text();
+	}
+
+	/**
+	 * Cache a result computed at the given generation. Results of an odd generation, computed while
+	 * a modification was in progress, and of a generation already outdated are not cached.
+	 */
+	public synchronized void put(String key, String dependency, long generation, String text) {
+		observe(generation);
+		remove(key);
+		if (generation < 0 || generation % 2 != 0 || generation != this.generation || text.length() > maxChars) {
+			return;
+		}
+		entries.put(key, new Entry(generation, text, dependency));
+		chars += text.length();
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (entries.size() > maxEntries || chars > maxChars) {
+			chars -= eldest.next().text().length();
+			eldest.remove();
+		}
+	}
+
+	private void remove(String key) {
+		Entry removed = entries.remove(key);
+		if (removed != null) chars -= removed.text().length();
+	}
+
+	/**
+	 * @return What the result of a tool call depends on: {@code class:<name>} or {@code file:<path>} for a single
+	 * class or file, empty for any, or {@code null} when it may change without any class or file changing, such as
+	 * for calls naming a workspace, whose changes are not followed.
+	 */
+	public static String dependency(String tool, JsonObject args) {
+		if (args.has("workspaceId")) return null;
+		if (CLASS_TOOLS.contains(tool) && args.has("className") && args.get("className").isJsonPrimitive()) {
+			return "class:" + args.get("className").getAsString().replace('.', '/');
+		}
+		if ("read_file".equals(tool) && args.has("path") && args.get("path").isJsonPrimitive()) {
+			return "file:" + args.get("path").getAsString();
+		}
+		return ANY;
+	}
+
+	/**
+	 * @return Cache key of a tool call.
+	 */
+	public static String key(String tool, JsonObject args) {
+		return tool + '\n' + args;
+	}
+
+	/**
+	 * @param dependency From {@link #dependency(String, JsonObject)}.
+	 */
+	private record Entry(long generation, String text, String dependency) {
+	}
+}
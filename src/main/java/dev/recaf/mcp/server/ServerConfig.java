@@ -0,0 +1,32 @@
+package dev.recaf.mcp.server;
+
+/**
+ * MCP Server settings. Each one is read from a system property, falling back to an environment variable,
+ * so it can be set either in the client's {@code args} or its {@code env} block.
+ */
+public final class ServerConfig {
+	private ServerConfig() {}
+
+	/**
+	 * @return Value of the system property, else the environment variable, else the default.
+	 */
+	public static String getString(String property, String env, String def) {
+		String value = System.getProperty(property);
+		if (value == null || value.isBlank()) value = System.getenv(env);
+		return value == null || value.isBlank() ? def : value.trim();
+	}
+
+	/**
+	 * @return Integer value of the system property, else the environment variable, else the default.
+	 */
+	public static int getInt(String property, String env, int def) {
+		String value = getString(property, env, null);
+		if (value == null) return def;
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			System.err.println("[MCP Server] Ignoring invalid " + property + " value: " + value);
+			return def;
+		}
+	}
+}
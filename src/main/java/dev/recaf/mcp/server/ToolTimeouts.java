@@ -0,0 +1,134 @@
+package dev.recaf.mcp.server;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time budgets for tool calls, sent to the bridge as the call's deadline.
+ * <p>
+ * Each tool starts from a default suited to its cost. After a few successful calls, the budget follows the
+ * observed latency the way TCP sizes its retransmission timeout: smoothed latency plus four times its mean
+ * deviation, kept between the default and the tool's ceiling. Learning only ever raises the budget: the latency
+ * of tools such as decompile_class or search_code depends on their input, a run of quick calls says nothing about
+ * the next one. A timed out call doubles the budget, up to the ceiling, until the next success, so a slow phase
+ * is not cut off again and again.
+ * <p>
+ * A fixed budget can be set for a tool with the {@code recaf.mcp.timeout.<tool>} system property, in milliseconds.
+ */
+public class ToolTimeouts {
+	/** Lower bound for a batch, whose budget is the sum of its calls' budgets. */
+	private static final long BATCH_FLOOR_MS = 5_000;
+	private static final int WARMUP_SAMPLES = 3;
+	private static final Budget DEFAULT_BUDGET = new Budget(60_000, 300_000);
+	private static final Map<String, Budget> BUDGETS = Map.ofEntries(
+			// Metadata lookups
+			Map.entry("list_classes", new Budget(15_000, 60_000)),
+			Map.entry("get_class_info", new Budget(15_000, 60_000)),
+			Map.entry("class_outline", new Budget(15_000, 60_000)),
+			Map.entry("read_file", new Budget(15_000, 60_000)),
+			Map.entry("list_workspaces", new Budget(15_000, 60_000)),
+			Map.entry("switch_workspace", new Budget(15_000, 60_000)),
+			Map.entry("close_workspace", new Budget(15_000, 60_000)),
+			Map.entry("class_delete", new Budget(15_000, 60_000)),
+			Map.entry("open_status", new Budget(15_000, 60_000)),
+			Map.entry("workspace_changes", new Budget(15_000, 60_000)),
+			Map.entry("pin_workspace", new Budget(15_000, 60_000)),
+			// Whole-workspace operations
+			Map.entry("open_jar", new Budget(120_000, 600_000)),
+			Map.entry("export_jar", new Budget(300_000, 1_800_000)),
+			Map.entry("export_source", new Budget(600_000, 3_600_000))
+	);
+	/** Upper bound for a batch, whose budget is the sum of its calls' budgets. */
+	private static final long BATCH_CEILING_MS = 1_800_000;
+
+	private final Map<String, Estimator> estimators = new ConcurrentHashMap<>();
+
+	/**
+	 * @return Budget for the next call of the tool.
+	 */
+	public Duration timeoutFor(String tool) {
+		return Duration.ofMillis(estimator(tool).timeoutMs());
+	}
+
+	/**
+	 * @return Budget for a batch of calls to the given tools.
+	 */
+	public Duration batchTimeoutFor(Iterable<String> tools) {
+		long total = 0;
+		for (String tool : tools) {
+			total += estimator(tool).timeoutMs();
+		}
+		return Duration.ofMillis(Math.min(Math.max(total, BATCH_FLOOR_MS), BATCH_CEILING_MS));
+	}
+
+	/**
+	 * Feed the latency of a call that completed successfully.
+	 */
+	public void recordSuccess(String tool, long elapsedMs) {
+		estimator(tool).sample(elapsedMs);
+	}
+
+	/**
+	 * Note that a call ran out of its budget.
+	 */
+	public void recordTimeout(String tool) {
+		estimator(tool).backOff();
+	}
+
+	private Estimator estimator(String tool) {
+		return estimators.computeIfAbsent(tool, name -> {
+			Long fixed = Long.getLong("recaf.mcp.timeout." + name);
+			return new Estimator(BUDGETS.getOrDefault(name, DEFAULT_BUDGET), fixed);
+		});
+	}
+
+	private record Budget(long initialMs, long ceilingMs) {
+	}
+
+	/**
+	 * Latency estimate of a single tool (RFC 6298 smoothing).
+	 */
+	private static final class Estimator {
+		private final Budget budget;
+		private final Long fixedMs;
+		private double smoothedMs;
+		private double deviationMs;
+		private int samples;
+		private long backoffMs;
+
+		private Estimator(Budget budget, Long fixedMs) {
+			this.budget = budget;
+			this.fixedMs = fixedMs;
+		}
+
+		private synchronized long timeoutMs() {
+			if (fixedMs != null) return fixedMs;
+			long timeout;
+			if (samples < WARMUP_SAMPLES) {
+				timeout = budget.initialMs();
+			} else {
+				long estimate = (long) Math.ceil(smoothedMs + 4 * deviationMs);
+				timeout = Math.clamp(estimate, budget.initialMs(), budget.ceilingMs());
+			}
+			return Math.max(timeout, backoffMs);
+		}
+
+		private synchronized void sample(long elapsedMs) {
+			if (samples == 0) {
+				smoothedMs = elapsedMs;
+				deviationMs = elapsedMs / 2.0;
+			} else {
+				deviationMs = 0.75 * deviationMs + 0.25 * Math.abs(smoothedMs - elapsedMs);
+				smoothedMs = 0.875 * smoothedMs + 0.125 * elapsedMs;
+			}
+			samples++;
+			backoffMs = 0;
+		}
+
+		private synchronized void backOff() {
+			if (fixedMs != null) return;
+			backoffMs = Math.min(budget.ceilingMs(), 2 * timeoutMs());
+		}
+	}
+}
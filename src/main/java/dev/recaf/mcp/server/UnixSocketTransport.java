@@ -0,0 +1,208 @@
+package dev.recaf.mcp.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Talks to the bridge over a Unix domain socket with a minimal HTTP/1.1 client.
+ * Idle connections are kept for reuse, so a chatty session pays the connect cost only once per concurrent caller.
+ */
+public class UnixSocketTransport implements BridgeTransport {
+	private static final int MAX_IDLE_CONNECTIONS = 8;
+
+	private final Path socketPath;
+	private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+	private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "bridge-uds-timeouts");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public UnixSocketTransport(Path socketPath) {
+		this.socketPath = socketPath;
+	}
+
+	@Override
+	public BridgeResponse send(String method, String path, Map<String, String> headers, byte[] body, Duration timeout)
+			throws IOException, InterruptedException {
+		Connection connection = idle.pollFirst();
+		if (connection != null) {
+			try {
+				return send(connection, method, path, headers, body, timeout);
+			} catch (StaleConnectionException e) {
+				// The pooled connection was closed (e.g. Recaf restarted), the request never reached the bridge
+			}
+		}
+		try {
+			return send(open(), method, path, headers, body, timeout);
+		} catch (StaleConnectionException e) {
+			throw new IOException("Could not send the request to the bridge", e.getCause());
+		}
+	}
+
+	@Override
+	public String describe() {
+		return "unix:" + socketPath;
+	}
+
+	@Override
+	public void close() {
+		timeouts.shutdownNow();
+		Connection connection;
+		while ((connection = idle.pollFirst()) != null) {
+			connection.close();
+		}
+	}
+
+	private Connection open() throws IOException {
+		SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			channel.connect(UnixDomainSocketAddress.of(socketPath));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return new Connection(channel);
+	}
+
+	private BridgeResponse send(Connection connection, String method, String path, Map<String, String> headers,
+								byte[] body, Duration timeout) throws IOException, InterruptedException {
+		// Blocking channel reads have no timeout of their own, so the connection is closed from outside instead
+		ScheduledFuture<?> timer = timeouts.schedule(connection::timeout, timeout.toMillis(), TimeUnit.MILLISECONDS);
+		boolean reusable = false;
+		try {
+			try {
+				writeRequest(connection.out, method, path, headers, body);
+			} catch (IOException e) {
+				// Nothing was delivered, so the request is safe to retry on a fresh connection
+				if (!connection.timedOut && !Thread.currentThread().isInterrupted()) throw new StaleConnectionException(e);
+				throw e;
+			}
+			BridgeResponse response = readResponse(connection.in);
+			reusable = !"close".equalsIgnoreCase(response.header("Connection"));
+			return response;
+		} catch (IOException e) {
+			if (connection.timedOut) throw new HttpTimeoutException("Bridge request timed out: " + path);
+			if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Bridge request interrupted: " + path);
+			throw e;
+		} finally {
+			timer.cancel(false);
+			if (reusable && !connection.timedOut && idle.size() < MAX_IDLE_CONNECTIONS) {
+				idle.offerFirst(connection);
+			} else {
+				connection.close();
+			}
+		}
+	}
+
+	private static void writeRequest(OutputStream out, String method, String path, Map<String, String> headers,
+									 byte[] body) throws IOException {
+		StringBuilder head = new StringBuilder(128);
+		head.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+		head.append("Host: localhost\r\n");
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+		}
+		if (body != null) head.append("Content-Type: application/json\r\n");
+		head.append("Content-Length: ").append(body == null ? 0 : body.length).append("\r\n\r\n");
+		out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+		if (body != null) out.write(body);
+		out.flush();
+	}
+
+	private static BridgeResponse readResponse(InputStream in) throws IOException {
+		String statusLine = readLine(in);
+		// The request may have run, so this is never retried
+		if (statusLine == null) throw new EOFException("Bridge closed the connection without responding");
+		String[] parts = statusLine.split(" ", 3);
+		if (parts.length < 2) throw new IOException("Malformed bridge status line: " + statusLine);
+		int status = Integer.parseInt(parts[1]);
+
+		Map<String, String> headers = new HashMap<>();
+		String line;
+		while ((line = readLine(in)) != null && !line.isEmpty()) {
+			int colon = line.indexOf(':');
+			if (colon > 0) {
+				headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+			}
+		}
+		if (line == null) throw new EOFException("Bridge closed the connection mid-response");
+
+		String length = headers.get("content-length");
+		if (length == null) throw new IOException("Bridge response has no Content-Length");
+		int contentLength = Integer.parseInt(length);
+		byte[] body = in.readNBytes(contentLength);
+		if (body.length < contentLength) throw new EOFException("Bridge closed the connection mid-response");
+		return new BridgeResponse(status, headers, new String(body, StandardCharsets.UTF_8));
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int b;
+		while ((b = in.read()) != -1) {
+			if (b == '\n') break;
+			if (b != '\r') line.write(b);
+		}
+		if (b == -1 && line.size() == 0) return null;
+		return line.toString(StandardCharsets.ISO_8859_1);
+	}
+
+	private static final class Connection {
+		private final SocketChannel channel;
+		private final InputStream in;
+		private final OutputStream out;
+		private volatile boolean timedOut;
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+			this.in = new BufferedInputStream(Channels.newInputStream(channel));
+			this.out = new BufferedOutputStream(Channels.newOutputStream(channel));
+		}
+
+		private void timeout() {
+			timedOut = true;
+			close();
+		}
+
+		private void close() {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+				// Already unusable
+			}
+		}
+	}
+
+	/**
+	 * Signals that a request could not be written to a connection, so it never reached the bridge.
+	 */
+	private static final class StaleConnectionException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private StaleConnectionException(Throwable cause) {
+			super(cause);
+		}
+	}
+}
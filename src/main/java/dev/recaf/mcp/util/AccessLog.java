@@ -0,0 +1,296 @@
+package dev.recaf.mcp.util;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured access log that keeps formatting and I/O off the request path.
+ * <p>
+ * Entries are copied into a preallocated ring of slots and written out by a background flusher thread.
+ * Recording an entry only claims a slot and stores primitives and existing string references, so it does
+ * not allocate. When the ring is full the entry is dropped and counted rather than blocking the request.
+ * <p>
+ * Entries below the minimum level are discarded up front. Successful, fast entries can additionally be sampled,
+ * keeping one in every {@code sampleEvery}; warnings, errors and slow requests are always kept.
+ */
+public class AccessLog {
+	private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final String source;
+	private final Sink sink;
+	private final Level minLevel;
+	private final long sampleEvery;
+	private final long slowNanos;
+	private final Slot[] slots;
+	private final int mask;
+	/** Next sequence to claim. */
+	private final AtomicLong head = new AtomicLong();
+	/** Next sequence to flush. Only advanced by the flusher thread. */
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong sampleCounter = new AtomicLong();
+	private final LongAdder dropped = new LongAdder();
+	private final Thread flusher;
+	/** Drops already reported to the sink. Only used by the flusher thread. */
+	private long reportedDrops;
+	/** Formatting cache of the flusher thread. */
+	private long cachedSecond = Long.MIN_VALUE;
+	private String cachedSecondText;
+	private volatile boolean running = true;
+
+	/**
+	 * @param source      Name written in front of every entry, e.g. {@code bridge}.
+	 * @param sink        Destination of formatted entries, called on the flusher thread only.
+	 * @param minLevel    Entries below this level are discarded.
+	 * @param sampleEvery Keep one in this many successful, fast entries. {@code 1} keeps all of them.
+	 * @param slowMillis  Entries at least this slow are never sampled away.
+	 * @param capacity    Number of slots, rounded up to a power of two.
+	 */
+	public AccessLog(String source, Sink sink, Level minLevel, int sampleEvery, long slowMillis, int capacity) {
+		this.source = source;
+		this.sink = sink;
+		this.minLevel = minLevel;
+		this.sampleEvery = Math.max(1, sampleEvery);
+		this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.slots = new Slot[size];
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			slots[i] = new Slot();
+			slots[i].published = i - size;
+		}
+		this.flusher = new Thread(this::flushLoop, "recaf-mcp-access-log");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	/**
+	 * @return {@code true} when entries of the level are recorded. Check this before building
+	 * an expensive message for {@link #message(Level, String)}.
+	 */
+	public boolean isEnabled(Level level) {
+		return level.ordinal() >= minLevel.ordinal();
+	}
+
+	/**
+	 * Record a completed request. The level is derived from the status: errors for {@code 5xx},
+	 * warnings for {@code 4xx}, and info otherwise.
+	 *
+	 * @param method       Request method, e.g. {@code POST} or {@code tools/call}.
+	 * @param target       Request target, e.g. {@code /decompile} or a tool name.
+	 * @param status       HTTP status, or {@code 0} when not applicable.
+	 * @param elapsedNanos Time taken by the request.
+	 * @param bytes        Response size, or {@code -1} when unknown.
+	 * @param requestId    Request ID, or {@code null}.
+	 * @param note         Short constant note such as {@code cancelled}, or {@code null}.
+	 */
+	public void request(String method, String target, int status, long elapsedNanos, long bytes,
+						String requestId, String note) {
+		Level level = status >= 500 ? Level.ERROR : status >= 400 ? Level.WARN : Level.INFO;
+		request(level, method, target, status, elapsedNanos, bytes, requestId, note);
+	}
+
+	/**
+	 * Record a completed request at an explicit level.
+	 *
+	 * @see #request(String, String, int, long, long, String, String)
+	 */
+	public void request(Level level, String method, String target, int status, long elapsedNanos, long bytes,
+						String requestId, String note) {
+		if (!isEnabled(level)) return;
+		if (level == Level.INFO && elapsedNanos < slowNanos && sampleEvery > 1
+				&& sampleCounter.getAndIncrement() % sampleEvery != 0) {
+			return;
+		}
+		Slot slot = claim();
+		if (slot == null) return;
+		slot.timeMillis = System.currentTimeMillis();
+		slot.level = level;
+		slot.method = method;
+		slot.target = target;
+		slot.status = status;
+		slot.elapsedNanos = elapsedNanos;
+		slot.bytes = bytes;
+		slot.requestId = requestId;
+		slot.note = note;
+		publish(slot);
+	}
+
+	/**
+	 * Record a free-form message.
+	 */
+	public void message(Level level, String message) {
+		if (!isEnabled(level)) return;
+		Slot slot = claim();
+		if (slot == null) return;
+		slot.timeMillis = System.currentTimeMillis();
+		slot.level = level;
+		slot.method = null;
+		slot.target = null;
+		slot.requestId = null;
+		slot.note = message;
+		publish(slot);
+	}
+
+	/**
+	 * @return Number of entries dropped because the ring was full.
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Flush the remaining entries and stop the flusher thread.
+	 */
+	public void close() {
+		running = false;
+		LockSupport.unpark(flusher);
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(2));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Slot claim() {
+		while (true) {
+			long sequence = head.get();
+			if (sequence - tail.get() >= slots.length) {
+				// The flusher is behind, shed the entry rather than wait for it
+				dropped.increment();
+				return null;
+			}
+			if (head.compareAndSet(sequence, sequence + 1)) {
+				// Wake the flusher early when half the ring is waiting to be written
+				if (sequence - tail.get() == slots.length / 2) LockSupport.unpark(flusher);
+				Slot slot = slots[(int) sequence & mask];
+				slot.sequence = sequence;
+				return slot;
+			}
+		}
+	}
+
+	private static void publish(Slot slot) {
+		// Volatile write, makes the fields written before it visible to the flusher
+		slot.published = slot.sequence;
+	}
+
+	private void flushLoop() {
+		StringBuilder line = new StringBuilder(256);
+		while (running || tail.get() < head.get()) {
+			long sequence = tail.get();
+			Slot slot = slots[(int) sequence & mask];
+			if (slot.published != sequence) {
+				// Nothing to flush, or a producer is still filling the slot
+				if (!running && sequence >= head.get()) break;
+				reportDrops();
+				if (running) LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+				else Thread.onSpinWait();
+				continue;
+			}
+			line.setLength(0);
+			format(slot, line);
+			Level level = slot.level;
+			// Release the slot before the (possibly slow) sink call
+			tail.lazySet(sequence + 1);
+			try {
+				sink.write(level, line.toString());
+			} catch (RuntimeException ignored) {
+				// A failing sink must not kill the flusher
+			}
+		}
+		reportDrops();
+	}
+
+	private void reportDrops() {
+		long drops = dropped.sum();
+		if (drops == reportedDrops) return;
+		try {
+			sink.write(Level.WARN, source + " dropped " + (drops - reportedDrops)
+					+ " access log entries, the flusher could not keep up");
+		} catch (RuntimeException ignored) {
+			// Reported again with the next drop
+			return;
+		}
+		reportedDrops = drops;
+	}
+
+	private void format(Slot slot, StringBuilder line) {
+		appendTimestamp(slot.timeMillis, line);
+		line.append(' ').append(slot.level).append(' ').append(source);
+		if (slot.method != null) {
+			line.append(' ').append(slot.method).append(' ').append(slot.target);
+			if (slot.status != 0) line.append(' ').append(slot.status);
+			long tenthsOfMillis = slot.elapsedNanos / 100_000;
+			line.append(' ').append(tenthsOfMillis / 10).append('.').append(tenthsOfMillis % 10).append("ms");
+			if (slot.bytes >= 0) line.append(' ').append(slot.bytes).append('B');
+			if (slot.requestId != null) line.append(" id=").append(slot.requestId);
+		}
+		if (slot.note != null) line.append(' ').append(slot.note);
+	}
+
+	/**
+	 * Append an ISO-8601 UTC timestamp with milliseconds, reusing the formatted date and time of the last second.
+	 */
+	private void appendTimestamp(long timeMillis, StringBuilder line) {
+		long second = Math.floorDiv(timeMillis, 1000);
+		if (second != cachedSecond) {
+			// e.g. 2026-01-01T12:00:00Z, always second precision
+			String formatted = Instant.ofEpochSecond(second).toString();
+			cachedSecondText = formatted.substring(0, formatted.length() - 1);
+			cachedSecond = second;
+		}
+		int millis = Math.floorMod(timeMillis, 1000);
+		line.append(cachedSecondText).append('.');
+		if (millis < 100) line.append('0');
+		if (millis < 10) line.append('0');
+		line.append(millis).append('Z');
+	}
+
+	/**
+	 * Severity of an entry.
+	 */
+	public enum Level {
+		DEBUG, INFO, WARN, ERROR;
+
+		/**
+		 * @return Level with the given name, ignoring case, or the fallback when there is none.
+		 */
+		public static Level parse(String name, Level fallback) {
+			if (name == null) return fallback;
+			try {
+				return valueOf(name.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				return fallback;
+			}
+		}
+	}
+
+	/**
+	 * Destination of formatted entries.
+	 */
+	@FunctionalInterface
+	public interface Sink {
+		void write(Level level, String line);
+	}
+
+	/**
+	 * One preallocated ring entry, reused for every lap around the ring.
+	 */
+	private static final class Slot {
+		private volatile long published;
+		private long sequence;
+		private long timeMillis;
+		private Level level;
+		private String method;
+		private String target;
+		private int status;
+		private long elapsedNanos;
+		private long bytes;
+		private String requestId;
+		private String note;
+	}
+}
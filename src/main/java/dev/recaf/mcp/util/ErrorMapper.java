@@ -3,8 +3,15 @@
 import com.google.gson.JsonObject;
 
 import java.io.FileNotFoundException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Structured error mapping: error codes + friendly messages + suggestions.
@@ -23,14 +30,24 @@ public final class ErrorMapper {
 	public static final String COMPILE_FAILED = "COMPILE_FAILED";
 	public static final String COMPILER_UNAVAILABLE = "COMPILER_UNAVAILABLE";
 	public static final String PATCH_FAILED = "PATCH_FAILED";
+	public static final String CANCELLED = "CANCELLED";
+	public static final String DEADLINE_EXCEEDED = "DEADLINE_EXCEEDED";
+	public static final String OVERLOADED = "OVERLOADED";
 	public static final String INTERNAL_ERROR = "INTERNAL_ERROR";
 
+	private static final Map<String, LongAdder> ERROR_COUNTS = new ConcurrentHashMap<>();
+
 	private ErrorMapper() {}
 
 	/**
 	 * Build a structured error response JSON string.
 	 */
 	public static String errorResponse(String code, String message, String suggestion) {
+		return JsonUtil.gson().toJson(error(code, message, suggestion));
+	}
+
+	private static JsonObject error(String code, String message, String suggestion) {
+		ERROR_COUNTS.computeIfAbsent(code, c -> new LongAdder()).increment();
 		JsonObject resp = new JsonObject();
 		resp.addProperty("status", "error");
 		resp.addProperty("code", code);
@@ -38,13 +55,19 @@ public static String errorResponse(String code, String message, String suggestio
 		if (suggestion != null) {
 			resp.addProperty("suggestion", suggestion);
 		}
-		return JsonUtil.gson().toJson(resp);
+		return resp;
 	}
 
 	/**
 	 * Map an exception to a structured error response based on the operation context.
 	 */
 	public static String mapException(String operation, Exception e) {
+		if (e instanceof CancellationException || e instanceof InterruptedException
+				|| e instanceof ClosedByInterruptException || e instanceof InterruptedIOException) {
+			return errorResponse(CANCELLED,
+					operation + " was cancelled",
+					"The request was cancelled by the client. Retry it if the result is still needed.");
+		}
 		if (e instanceof TimeoutException) {
 			return errorResponse(DECOMPILE_TIMEOUT,
 					operation + " timed out",
@@ -65,6 +88,15 @@ public static String mapException(String operation, Exception e) {
 				"This is an unexpected error. Check Recaf logs for details.");
 	}
 
+	/**
+	 * @return Number of error responses built so far, by error code.
+	 */
+	public static Map<String, Long> errorCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		ERROR_COUNTS.forEach((code, count) -> counts.put(code, count.sum()));
+		return counts;
+	}
+
 	// ==================== Convenience methods ====================
 
 	public static String noWorkspace() {
@@ -73,6 +105,12 @@ public static String noWorkspace() {
 				"Use the 'open_jar' tool to open a JAR/APK/class file first.");
 	}
 
+	public static String workspaceNotFound(String workspaceId) {
+		return errorResponse(INVALID_PARAMS,
+				"Workspace not found: " + workspaceId,
+				"Use 'list_workspaces' to see available workspace IDs.");
+	}
+
 	public static String classNotFound(String className) {
 		return errorResponse(CLASS_NOT_FOUND,
 				"Class not found: " + className,
@@ -85,6 +123,31 @@ public static String memberNotFound(String className, String memberName) {
 				"Use 'get_class_info' to see available fields and methods.");
 	}
 
+	public static String deadlineExceeded(String operation) {
+		return errorResponse(DEADLINE_EXCEEDED,
+				operation + " did not start before the client's deadline",
+				"The bridge is busy with other requests. Retry later or with a longer timeout.");
+	}
+
+	/**
+	 * Error for a request turned away because too many requests of its kind are already waiting.
+	 *
+	 * @param retryAfterMs Suggested delay before retrying.
+	 */
+	public static String overloaded(String operation, long retryAfterMs) {
+		JsonObject resp = error(OVERLOADED,
+				operation + " was rejected, too many similar requests are queued",
+				"Retry after " + retryAfterMs + "ms, or send fewer requests at once.");
+		resp.addProperty("retryAfterMs", retryAfterMs);
+		return JsonUtil.gson().toJson(resp);
+	}
+
+	public static String invalidCursor(String message) {
+		return errorResponse(INVALID_PARAMS,
+				message,
+				"Pass the 'nextCursor' of the previous page unchanged, with the same other parameters, or omit it to start over.");
+	}
+
 	public static String missingParam(String... names) {
 		String joined = String.join(", ", names);
 		return errorResponse(INVALID_PARAMS,
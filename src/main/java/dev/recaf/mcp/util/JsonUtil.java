@@ -8,9 +8,10 @@
 
 /**
  * Shared Gson utility for JSON serialization/deserialization across the plugin.
+ * Output is compact since it only travels between processes.
  */
 public final class JsonUtil {
-	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final Gson GSON = new GsonBuilder().create();
 
 	private JsonUtil() {}
 
@@ -0,0 +1,50 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BridgeServerTest {
+	@Test
+	void workspaceIdIsTakenFromTheQueryThenTheHeader() throws IOException {
+		LocalExchange exchange = exchange("/decompile?workspaceId=app-1", "{\"workspaceId\":\"body-1\"}");
+		exchange.getRequestHeaders().set(RequestContext.WORKSPACE_ID_HEADER, "header-1");
+		assertEquals("app-1", BridgeServer.workspaceIdOf(exchange, true));
+
+		LocalExchange header = exchange("/decompile", "{\"workspaceId\":\"body-1\"}");
+		header.getRequestHeaders().set(RequestContext.WORKSPACE_ID_HEADER, "header-1");
+		assertEquals("header-1", BridgeServer.workspaceIdOf(header, true));
+
+		// An empty value names the current workspace, without looking further
+		LocalExchange blank = exchange("/decompile?workspaceId=", "{\"workspaceId\":\"body-1\"}");
+		assertNull(BridgeServer.workspaceIdOf(blank, true));
+	}
+
+	@Test
+	void bodyIsOnlySearchedWhenTheRouteTakesTheIdThere() throws IOException {
+		String body = "{\"className\":\"a/B\",\"workspaceId\":\"body-1\"}";
+		LocalExchange searched = exchange("/decompile", body);
+		assertEquals("body-1", BridgeServer.workspaceIdOf(searched, true));
+		// The handler still gets the whole body
+		assertEquals(body, BridgeServer.readBody(searched));
+
+		LocalExchange skipped = exchange("/compile", body);
+		assertNull(BridgeServer.workspaceIdOf(skipped, false));
+		assertEquals(body, BridgeServer.readBody(skipped));
+	}
+
+	@Test
+	void malformedBodiesNameNoWorkspace() throws IOException {
+		assertNull(BridgeServer.workspaceIdOf(exchange("/decompile", "{\"workspaceId\": {}}"), true));
+		assertNull(BridgeServer.workspaceIdOf(exchange("/decompile", "not json \"workspaceId\""), true));
+		assertNull(BridgeServer.workspaceIdOf(exchange("/decompile", ""), true));
+	}
+
+	private static LocalExchange exchange(String uri, String body) {
+		return new LocalExchange("POST", URI.create(uri), body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,106 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeJournalTest {
+	private final WorkspaceRegistry registry = new WorkspaceRegistry(() -> null);
+	private final ChangeJournal journal = new ChangeJournal(registry);
+
+	@Test
+	void outsideChangesAdvanceTheGeneration() {
+		Workspace workspace = workspace();
+		journal.track(workspace);
+		long tracked = registry.getGeneration();
+		assertEquals(tracked, journal.coveredSince(workspace));
+		assertEquals(List.of(), journal.since(workspace, tracked));
+
+		classes(workspace).put(classInfo("com/Foo"));
+		// An odd generation of its own, after which the generation is settled again
+		assertEquals(tracked + 2, registry.getGeneration());
+		assertEquals(List.of(new ChangeJournal.Change(tracked + 1, "class", "added", "com/Foo")),
+				journal.since(workspace, tracked));
+		assertEquals(List.of(), journal.since(workspace, tracked + 2));
+
+		classes(workspace).put(classInfo("com/Foo"));
+		classes(workspace).remove("com/Foo");
+		List<ChangeJournal.Change> changes = journal.since(workspace, tracked + 2);
+		assertEquals(List.of("replaced", "removed"), changes.stream().map(ChangeJournal.Change::action).toList());
+		assertEquals(List.of(tracked + 3, tracked + 5), changes.stream().map(ChangeJournal.Change::generation).toList());
+	}
+
+	@Test
+	void changesOfABridgeRequestBelongToItsGeneration() {
+		Workspace workspace = workspace();
+		journal.track(workspace);
+		long before = registry.getGeneration();
+		long request = registry.nextGeneration();
+		classes(workspace).put(classInfo("com/Foo"));
+		workspace.getPrimaryResource().getFileBundle().put(new FileInfoBuilder<>().withName("a.txt")
+				.withRawContent("a".getBytes(StandardCharsets.UTF_8)).build());
+		assertEquals(request, registry.getGeneration());
+
+		assertEquals(List.of(new ChangeJournal.Change(request, "class", "added", "com/Foo"),
+				new ChangeJournal.Change(request, "file", "added", "a.txt")), journal.since(workspace, before));
+		assertEquals(List.of(), journal.since(workspace, request));
+	}
+
+	@Test
+	void generationsBeforeTrackingAreNotCovered() {
+		Workspace workspace = workspace();
+		assertNull(journal.since(workspace, registry.getGeneration()));
+		assertEquals(-1, journal.coveredSince(workspace));
+
+		// Tracked during a modification, whose earlier changes were missed
+		long request = registry.nextGeneration();
+		journal.track(workspace);
+		assertEquals(request + 1, journal.coveredSince(workspace));
+		assertNull(journal.since(workspace, request - 1));
+		assertNull(journal.since(workspace, request));
+		assertEquals(List.of(), journal.since(workspace, request + 1));
+	}
+
+	@Test
+	void untrackedWorkspacesAreNoLongerFollowed() {
+		Workspace workspace = workspace();
+		journal.track(workspace);
+		long tracked = registry.getGeneration();
+		journal.untrack(workspace);
+		classes(workspace).put(classInfo("com/Foo"));
+		assertEquals(tracked, registry.getGeneration());
+		assertNull(journal.since(workspace, tracked));
+	}
+
+	private static Workspace workspace() {
+		return new BasicWorkspace(new WorkspaceResourceBuilder()
+				.withJvmClassBundle(new BasicJvmClassBundle())
+				.withFileBundle(new BasicFileBundle())
+				.build());
+	}
+
+	private static JvmClassBundle classes(Workspace workspace) {
+		return workspace.getPrimaryResource().getJvmClassBundle();
+	}
+
+	private static JvmClassInfo classInfo(String name) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		writer.visitEnd();
+		return new JvmClassInfoBuilder(writer.toByteArray()).build();
+	}
+}
@@ -0,0 +1,147 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassIndexTest {
+	private final Path file;
+
+	ClassIndexTest() throws IOException {
+		file = Files.createTempFile("classes", ".idx");
+	}
+
+	@AfterEach
+	void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void classesSurviveARoundTrip() throws IOException {
+		ClassIndex.write(file, List.of(
+				classInfo("org/Other", null, "other"),
+				classInfo("com/example/Foo", "java/lang/Runnable", "hello"),
+				classInfo("com/example/Bar", null, "hello")));
+		ClassIndex index = ClassIndex.open(file);
+
+		assertEquals(3, index.size());
+		assertEquals(List.of("com/example/Bar", "com/example/Foo", "org/Other"), index.classNames());
+		assertEquals(1, index.indexOf("com/example/Foo"));
+		assertEquals(-1, index.indexOf("com/example/Baz"));
+		assertNull(index.get("com/example/Baz"));
+
+		ClassIndex.Entry foo = index.get("com/example/Foo");
+		assertEquals("com/example/Foo", foo.name());
+		assertEquals("java/lang/Object", foo.superName());
+		assertEquals(Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, foo.access());
+		assertEquals(List.of("java/lang/Runnable"), foo.interfaces());
+		assertEquals(List.of(new ClassIndex.Member("count", "I", Opcodes.ACC_PRIVATE)), foo.fields());
+		assertEquals(List.of(new ClassIndex.Member("run", "()V", Opcodes.ACC_PUBLIC)), foo.methods());
+		assertEquals(List.of("hello"), foo.strings());
+		assertEquals(foo, index.get(1));
+		assertEquals(List.of(), index.get("com/example/Bar").interfaces());
+	}
+
+	@Test
+	void findListsAPrefixRangeFilteredBySubstring() throws IOException {
+		ClassIndex.write(file, List.of(classInfo("com/b/Foo", null, "x"), classInfo("com/a/Foo", null, "x"),
+				classInfo("com/a/Bar", null, "x"), classInfo("com/ab/Foo", null, "x"), classInfo("org/Foo", null, "x")));
+		ClassIndex index = ClassIndex.open(file);
+
+		assertEquals(List.of("com/a/Bar", "com/a/Foo"), index.find("com/a/", ""));
+		assertEquals(List.of("com/a/Foo", "com/ab/Foo", "com/b/Foo"), index.find("com/", "Foo"));
+		assertEquals(List.of("com/a/Bar", "com/a/Foo", "com/ab/Foo", "com/b/Foo", "org/Foo"), index.find("", ""));
+		assertEquals(List.of(), index.find("net/", ""));
+		assertEquals(List.of(), index.find("zzz", ""));
+	}
+
+	@Test
+	void emptyIndexesOpen() throws IOException {
+		ClassIndex.write(file, List.of());
+		ClassIndex index = ClassIndex.open(file);
+		assertEquals(0, index.size());
+		assertEquals(List.of(), index.find("", ""));
+		assertEquals(-1, index.indexOf("a/B"));
+	}
+
+	@Test
+	void truncatedAndOldFilesAreRejected() throws IOException {
+		ClassIndex.write(file, List.of(classInfo("com/example/Foo", null, "hello")));
+		byte[] bytes = Files.readAllBytes(file);
+
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+		Files.write(file, Arrays.copyOf(bytes, 10));
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+
+		byte[] old = bytes.clone();
+		ByteBuffer.wrap(old).putInt(4, 2);
+		Files.write(file, old);
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+	}
+
+	@Test
+	void outOfBoundsReferencesAreRejectedOnOpen() throws IOException {
+		ClassIndex.write(file, List.of(classInfo("com/example/Foo", null, "hello")));
+		byte[] bytes = Files.readAllBytes(file);
+		int stringTable = ByteBuffer.wrap(bytes).getInt(16);
+		int classTable = ByteBuffer.wrap(bytes).getInt(20);
+
+		// A string placed past the end of the file
+		byte[] string = bytes.clone();
+		ByteBuffer.wrap(string).putInt(stringTable, bytes.length - 2);
+		Files.write(file, string);
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+
+		// A string longer than the file
+		byte[] length = bytes.clone();
+		ByteBuffer.wrap(length).putInt(ByteBuffer.wrap(bytes).getInt(stringTable), Integer.MAX_VALUE);
+		Files.write(file, length);
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+
+		// A class naming a string that does not exist
+		byte[] name = bytes.clone();
+		ByteBuffer.wrap(name).putInt(ByteBuffer.wrap(bytes).getInt(classTable), 1000);
+		Files.write(file, name);
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+
+		// A member count running past the end of the file
+		byte[] members = bytes.clone();
+		int classPosition = ByteBuffer.wrap(bytes).getInt(classTable);
+		ByteBuffer.wrap(members).putInt(classPosition + 20, 1 << 20);
+		Files.write(file, members);
+		assertThrows(IOException.class, () -> ClassIndex.open(file));
+	}
+
+	/**
+	 * @return Class with a private int field {@code count}, a public method {@code run} and a string constant.
+	 */
+	private static JvmClassInfo classInfo(String name, String itf, String constant) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object",
+				itf == null ? null : new String[]{itf});
+		writer.visitField(Opcodes.ACC_PRIVATE, "count", "I", null, null).visitEnd();
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "()V", null, null);
+		method.visitCode();
+		method.visitLdcInsn(constant);
+		method.visitInsn(Opcodes.POP);
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		writer.visitEnd();
+		return new JvmClassInfoBuilder(writer.toByteArray()).build();
+	}
+}
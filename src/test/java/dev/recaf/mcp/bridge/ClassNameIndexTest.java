@@ -0,0 +1,119 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassNameIndexTest {
+	@Test
+	void findsByPrefixAndSubstring() {
+		ClassNameIndex index = ClassNameIndex.of(bundle("org/Baz", "com/example/FooBar", "com/other/Foo",
+				"com/example/Foo"));
+		assertEquals(List.of("com/example/Foo", "com/example/FooBar"), index.find("com/example/", ""));
+		assertEquals(List.of("com/example/Foo", "com/example/FooBar", "com/other/Foo"), index.find("", "Foo"));
+		assertEquals(List.of("com/example/FooBar"), index.find("com/", "Bar"));
+		// Too short for a trigram, answered from the sorted names
+		assertEquals(List.of("com/example/FooBar", "org/Baz"), index.find("", "Ba"));
+		assertEquals(List.of(), index.find("", "Qux"));
+		assertEquals(List.of(), index.find("net/", "Foo"));
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	void nameRepeatingATrigramIsFoundOnce() {
+		ClassNameIndex index = ClassNameIndex.of(bundle("a/aaaaaa", "b/aab"));
+		assertEquals(List.of("a/aaaaaa"), index.find("", "aaaa"));
+		assertEquals(List.of("a/aaaaaa", "b/aab"), index.find("", "aa"));
+	}
+
+	@Test
+	void followsTheBundleOnceBuilt() {
+		JvmClassBundle bundle = bundle("com/example/Foo");
+		ClassNameIndex index = ClassNameIndex.of(bundle);
+		assertEquals(List.of("com/example/Foo"), index.find("", "Foo"));
+
+		bundle.put(classInfo("com/example/FooBar"));
+		assertEquals(List.of("com/example/Foo", "com/example/FooBar"), index.find("", "Foo"));
+		bundle.remove("com/example/Foo");
+		assertEquals(List.of("com/example/FooBar"), index.find("", "Foo"));
+		assertEquals(List.of("com/example/FooBar"), index.find("com/", ""));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void changesBeforeTheFirstQueryAreSeen() {
+		JvmClassBundle bundle = bundle("com/example/Foo");
+		ClassNameIndex index = ClassNameIndex.of(bundle);
+		bundle.put(classInfo("com/example/Bar"));
+		bundle.remove("com/example/Foo");
+		assertEquals(List.of("com/example/Bar"), index.find("", ""));
+	}
+
+	@Test
+	void removedNamesStayGoneThroughCompaction() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 10; i++) names.add("pkg/Name" + i);
+		JvmClassBundle bundle = bundle(names.toArray(String[]::new));
+		ClassNameIndex index = ClassNameIndex.of(bundle);
+		assertEquals(names, index.find("", "Name"));
+
+		// Tombstones until they outnumber the live names, compacted on the sixth removal
+		for (int i = 0; i < 6; i++) {
+			bundle.remove(names.get(i));
+			assertEquals(names.subList(i + 1, 10), index.find("", "Name"));
+			assertEquals(10 - i - 1, index.size());
+		}
+
+		// A name added back gets a fresh ID and appears exactly once
+		bundle.put(classInfo("pkg/Name0"));
+		List<String> expected = new ArrayList<>(names.subList(6, 10));
+		expected.add(0, "pkg/Name0");
+		assertEquals(expected, index.find("", "Name"));
+		assertEquals(List.of("pkg/Name0"), index.find("", "Name0"));
+		assertEquals(List.of("pkg/Name7"), index.find("pkg/", "me7"));
+	}
+
+	@Test
+	void removingEverythingLeavesAnEmptyIndex() {
+		JvmClassBundle bundle = bundle("a/One", "b/Two");
+		ClassNameIndex index = ClassNameIndex.of(bundle);
+		assertEquals(2, index.size());
+		bundle.remove("a/One");
+		bundle.remove("b/Two");
+		assertEquals(0, index.size());
+		assertEquals(List.of(), index.find("", "One"));
+		assertEquals(List.of(), index.find("", ""));
+	}
+
+	@Test
+	void stopsFollowingOnceClosed() {
+		JvmClassBundle bundle = bundle("com/example/Foo");
+		ClassNameIndex index = ClassNameIndex.of(bundle);
+		assertEquals(1, index.size());
+		index.close();
+		bundle.put(classInfo("com/example/Bar"));
+		assertEquals(List.of("com/example/Foo"), index.find("", ""));
+	}
+
+	private static JvmClassBundle bundle(String... names) {
+		JvmClassBundle bundle = new BasicJvmClassBundle();
+		for (String name : names) bundle.put(classInfo(name));
+		return bundle;
+	}
+
+	private static JvmClassInfo classInfo(String name) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		writer.visitEnd();
+		return new JvmClassInfoBuilder(writer.toByteArray()).build();
+	}
+}
@@ -0,0 +1,154 @@
+package dev.recaf.mcp.bridge;
+
+import com.google.gson.JsonObject;
+import dev.recaf.mcp.bridge.ConcurrencyLimiter.Admission;
+import dev.recaf.mcp.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+	@Test
+	void queuesUpToTheQueueLimitThenRejects() throws Exception {
+		ConcurrencyLimiter limiter = limiter(1, 1);
+		assertEquals(Admission.ADMITTED, limiter.acquire(Long.MAX_VALUE, false));
+		assertEquals(1, limiter.getActive());
+
+		CompletableFuture<Admission> queued = CompletableFuture.supplyAsync(() -> acquire(limiter, Long.MAX_VALUE, false));
+		awaitTrue(() -> limiter.getWaiting() == 1);
+
+		// The queue is full, so the next request is turned away without waiting
+		assertEquals(Admission.REJECTED, limiter.acquire(Long.MAX_VALUE, false));
+		assertEquals(1, limiter.getRejected());
+		assertEquals(1, limiter.getWaiting());
+
+		// Batch entries may wait beyond the queue limit, until their timeout
+		assertEquals(Admission.EXPIRED, limiter.acquire(TimeUnit.MILLISECONDS.toNanos(20), true));
+		assertEquals(1, limiter.getRejected());
+		assertEquals(1, limiter.getWaiting());
+
+		limiter.release(0);
+		assertEquals(Admission.ADMITTED, queued.get(5, TimeUnit.SECONDS));
+		assertEquals(1, limiter.getActive());
+		assertEquals(0, limiter.getWaiting());
+		limiter.release(0);
+		assertEquals(0, limiter.getActive());
+	}
+
+	@Test
+	void waitExpiresAtTheTimeout() throws Exception {
+		ConcurrencyLimiter limiter = limiter(1, 4);
+		assertEquals(Admission.ADMITTED, limiter.acquire(Long.MAX_VALUE, false));
+		assertEquals(Admission.EXPIRED, limiter.acquire(TimeUnit.MILLISECONDS.toNanos(20), false));
+		assertEquals(Admission.EXPIRED, limiter.acquire(0, false));
+		assertEquals(0, limiter.getWaiting());
+		assertEquals(0, limiter.getRejected());
+	}
+
+	@Test
+	void unlimitedGroupsAdmitEverything() throws Exception {
+		ConcurrencyLimiter limiter = limiter(0, 0);
+		for (int i = 0; i < 100; i++) assertEquals(Admission.ADMITTED, limiter.acquire(0, false));
+		assertEquals(100, limiter.getActive());
+		assertEquals(0, limiter.getRejected());
+	}
+
+	@Test
+	void retryHintFollowsTheRecentHoldTime() throws Exception {
+		ConcurrencyLimiter limiter = limiter(1, 1);
+		// No history yet, one assumed 100ms hold for the request that would run next
+		assertEquals(100, limiter.retryAfterMillis());
+
+		assertEquals(Admission.ADMITTED, limiter.acquire(Long.MAX_VALUE, false));
+		limiter.release(TimeUnit.SECONDS.toNanos(1));
+		// Moves an eighth of the way to the sample: 100 + (1000 - 100) / 8
+		assertEquals(212, limiter.retryAfterMillis());
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(Admission.ADMITTED, limiter.acquire(Long.MAX_VALUE, false));
+			limiter.release(TimeUnit.MINUTES.toNanos(5));
+		}
+		assertEquals(30_000, limiter.retryAfterMillis());
+		for (int i = 0; i < 200; i++) {
+			assertEquals(Admission.ADMITTED, limiter.acquire(Long.MAX_VALUE, false));
+			limiter.release(0);
+		}
+		assertEquals(50, limiter.retryAfterMillis());
+	}
+
+	@Test
+	void rejectedRequestsAreAnsweredWithOverloaded() throws Exception {
+		ConcurrencyLimiter limiter = limiter(1, 0);
+		assertEquals(Admission.ADMITTED, limiter.acquire(Long.MAX_VALUE, false));
+
+		AtomicBoolean ran = new AtomicBoolean();
+		LocalExchange exchange = new LocalExchange("POST", URI.create("/export/jar"), new byte[0]);
+		BridgeServer.admit(exchange, limiter, e -> ran.set(true));
+
+		assertFalse(ran.get());
+		assertEquals(503, exchange.getResponseCode());
+		assertEquals("1", exchange.getResponseHeaders().getFirst("Retry-After"));
+		JsonObject error = JsonUtil.parseObject(new String(exchange.getResponseBytes(), StandardCharsets.UTF_8));
+		assertEquals("OVERLOADED", error.get("code").getAsString());
+		assertEquals(100, error.get("retryAfterMs").getAsLong());
+		assertEquals(1, limiter.getActive());
+
+		// Once the slot is free, the handler runs and the slot is released again
+		limiter.release(0);
+		LocalExchange admitted = new LocalExchange("POST", URI.create("/export/jar"), new byte[0]);
+		BridgeServer.admit(admitted, limiter, e -> ran.set(true));
+		assertTrue(ran.get());
+		assertEquals(0, limiter.getActive());
+	}
+
+	@Test
+	void requestsPastTheirDeadlineAreNotStarted() throws Exception {
+		ConcurrencyLimiter limiter = limiter(1, 1);
+		AtomicBoolean ran = new AtomicBoolean();
+		LocalExchange exchange = new LocalExchange("POST", URI.create("/export/jar"), new byte[0]);
+		exchange.setAttribute(RequestContext.ATTRIBUTE,
+				new RequestContext(null, Thread.currentThread(), System.nanoTime() - 1));
+		BridgeServer.admit(exchange, limiter, e -> ran.set(true));
+
+		assertFalse(ran.get());
+		assertEquals(504, exchange.getResponseCode());
+		assertEquals(0, limiter.getActive());
+	}
+
+	/**
+	 * @return Limiter of the export group with the given limits, configured through its system properties.
+	 */
+	private static ConcurrencyLimiter limiter(int limit, int queueLimit) {
+		System.setProperty("recaf.mcp.limit.export", String.valueOf(limit));
+		System.setProperty("recaf.mcp.queue.export", String.valueOf(queueLimit));
+		try {
+			return new ConcurrencyLimiter(EndpointGroup.EXPORT);
+		} finally {
+			System.clearProperty("recaf.mcp.limit.export");
+			System.clearProperty("recaf.mcp.queue.export");
+		}
+	}
+
+	private static Admission acquire(ConcurrencyLimiter limiter, long timeoutNanos, boolean exempt) {
+		try {
+			return limiter.acquire(timeoutNanos, exempt);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(1);
+		}
+	}
+}
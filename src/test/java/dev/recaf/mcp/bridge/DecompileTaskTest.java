@@ -0,0 +1,65 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecompileTaskTest {
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	@Test
+	void cancellingTheRequestStopsARunningDecompilation() throws Exception {
+		Future<String> task = DecompileTask.start("com/Foo", this::decompile);
+		AtomicReference<RequestContext> context = new AtomicReference<>();
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		Thread handler = Thread.ofVirtual().unstarted(() -> {
+			try {
+				context.get().await(task, 30, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				failure.set(e);
+			}
+		});
+		context.set(new RequestContext("r-1", handler));
+		handler.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		context.get().cancel();
+		assertTrue(stopped.await(5, TimeUnit.SECONDS), "the decompiling thread was not interrupted");
+		handler.join(5000);
+		assertInstanceOf(CancellationException.class, failure.get());
+		assertTrue(task.isCancelled());
+	}
+
+	@Test
+	void timedOutDecompilationsStop() throws Exception {
+		Future<String> task = DecompileTask.start("com/Foo", this::decompile);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		RequestContext context = new RequestContext("r-2", Thread.currentThread());
+		assertThrows(TimeoutException.class, () -> context.await(task, 50, TimeUnit.MILLISECONDS));
+		assertTrue(stopped.await(5, TimeUnit.SECONDS), "the decompiling thread was not interrupted");
+	}
+
+	/**
+	 * Stands in for a decompiler that honors interrupts, running until it is interrupted.
+	 */
+	private String decompile() {
+		started.countDown();
+		try {
+			while (true) {
+				Thread.sleep(10);
+			}
+		} catch (InterruptedException e) {
+			return "aborted";
+		} finally {
+			stopped.countDown();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+	@Test
+	void emptyHistogramReportsZero() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.valueAtQuantile(0.5));
+		assertEquals(0, histogram.valueAtQuantile(1));
+		assertEquals(0, histogram.countAtOrBelow(Long.MAX_VALUE));
+	}
+
+	@Test
+	void smallValuesAreExact() {
+		Histogram histogram = new Histogram();
+		for (int value = 1; value <= 10; value++) histogram.record(value);
+		assertEquals(10, histogram.getCount());
+		assertEquals(55, histogram.getSum());
+		assertEquals(10, histogram.getMax());
+		assertEquals(1, histogram.valueAtQuantile(0));
+		assertEquals(5, histogram.valueAtQuantile(0.5));
+		assertEquals(9, histogram.valueAtQuantile(0.9));
+		assertEquals(10, histogram.valueAtQuantile(1));
+	}
+
+	@Test
+	void negativeValuesAreRecordedAsZero() {
+		Histogram histogram = new Histogram();
+		histogram.record(-5);
+		assertEquals(1, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.valueAtQuantile(1));
+		assertEquals(1, histogram.countAtOrBelow(0));
+	}
+
+	@Test
+	void largeValuesAreWithinBucketPrecision() {
+		for (long value = 16; value < 1L << 39; value = value * 3 + 1) {
+			Histogram histogram = new Histogram();
+			histogram.record(value);
+			// Keeps the max from capping the reported bucket bound
+			histogram.record(Long.MAX_VALUE / 2);
+			long reported = histogram.valueAtQuantile(0.5);
+			assertTrue(reported >= value, "reported " + reported + " below " + value);
+			assertTrue(reported <= value + value / 16, "reported " + reported + " too far above " + value);
+		}
+	}
+
+	@Test
+	void everyValueFallsInABucketEndingJustAfterIt() {
+		for (long value = 0; value < 5000; value++) {
+			Histogram histogram = new Histogram();
+			histogram.record(value);
+			assertEquals(0, histogram.countAtOrBelow(value - 1), "bucket of " + value + " ends before it");
+			assertEquals(1, histogram.countAtOrBelow(value + value / 16), "bucket of " + value + " ends too late");
+		}
+	}
+
+	@Test
+	void valuesPastTheLastExponentShareTheLastBucket() {
+		Histogram histogram = new Histogram();
+		histogram.record(1L << 41);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getMax());
+		// The last bucket is unbounded, the max caps what is reported
+		assertEquals(Long.MAX_VALUE, histogram.valueAtQuantile(0.5));
+		assertEquals(0, histogram.countAtOrBelow(Long.MAX_VALUE - 1));
+		assertEquals(2, histogram.countAtOrBelow(Long.MAX_VALUE));
+	}
+
+	@Test
+	void quantileIsCappedByMax() {
+		Histogram histogram = new Histogram();
+		histogram.record(100);
+		// 100 falls in the bucket [100, 103]
+		assertEquals(100, histogram.valueAtQuantile(1));
+		histogram.record(101);
+		assertEquals(101, histogram.valueAtQuantile(1));
+	}
+
+	@Test
+	void countAtOrBelowExcludesTheStraddlingBucket() {
+		Histogram histogram = new Histogram();
+		histogram.record(5);
+		histogram.record(100);
+		histogram.record(1000);
+		assertEquals(1, histogram.countAtOrBelow(15));
+		// 100 falls in the bucket [100, 103]
+		assertEquals(1, histogram.countAtOrBelow(102));
+		assertEquals(2, histogram.countAtOrBelow(103));
+		assertEquals(3, histogram.countAtOrBelow(Long.MAX_VALUE - 1));
+	}
+
+	@Test
+	void concurrentRecordingLosesNothing() throws InterruptedException {
+		Histogram histogram = new Histogram();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int value = 0; value < 10_000; value++) histogram.record(value);
+			}));
+		}
+		for (Thread thread : threads) thread.join();
+		assertEquals(80_000, histogram.getCount());
+		assertEquals(8L * (9_999L * 10_000 / 2), histogram.getSum());
+		assertEquals(9_999, histogram.getMax());
+		assertEquals(80_000, histogram.countAtOrBelow(Long.MAX_VALUE - 1));
+	}
+}
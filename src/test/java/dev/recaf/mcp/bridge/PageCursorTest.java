@@ -0,0 +1,51 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+	@Test
+	void roundTripsThroughItsText() {
+		// Sort keys may contain the separator
+		PageCursor cursor = new PageCursor(1234, "classes\ncom/".hashCode(), 50, "com/example/Foo:bar");
+		assertEquals(cursor, PageCursor.decode(cursor.encode()));
+		assertEquals(cursor, PageCursor.parse(cursor.encode(), "classes\ncom/"));
+		assertFalse(cursor.encode().contains("="));
+	}
+
+	@Test
+	void rejectsCursorsOfOtherQueriesAndGarbage() {
+		String cursor = new PageCursor(1234, "classes\ncom/".hashCode(), 50, "com/Foo").encode();
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.parse(cursor, "classes\norg/"));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.parse("not a cursor!", "classes\ncom/"));
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(
+				PageCursor.decode(cursor).encode().substring(0, 8)));
+		String forged = new PageCursor(1234, "classes\ncom/".hashCode(), -5, "com/Foo").encode();
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.parse(forged, "classes\ncom/"));
+		assertNull(PageCursor.parse(null, "classes\ncom/"));
+		assertNull(PageCursor.parse(" ", "classes\ncom/"));
+	}
+
+	@Test
+	void continuesAtTheIndexInItsOwnSnapshot() {
+		PageCursor cursor = new PageCursor(2, 0, 2, "b");
+		List<String> snapshot = List.of("a", "b", "c", "d");
+		assertEquals(2, cursor.startIndex(snapshot, Function.identity(), true));
+		assertEquals(1, cursor.startIndex(List.of("a"), Function.identity(), true));
+	}
+
+	@Test
+	void continuesAfterTheLastSortKeyInAnotherSnapshot() {
+		PageCursor cursor = new PageCursor(2, 0, 2, "b");
+		// Items were added before and after the last one returned, which itself was removed
+		assertEquals(3, cursor.startIndex(List.of("0", "a", "ab", "c", "d"), Function.identity(), false));
+		assertEquals(2, cursor.startIndex(List.of("a", "b", "c"), Function.identity(), false));
+		assertEquals(0, cursor.startIndex(List.of("c", "d"), Function.identity(), false));
+		assertEquals(2, cursor.startIndex(List.of("a", "b"), Function.identity(), false));
+		assertEquals(0, cursor.startIndex(List.<String>of(), Function.identity(), false));
+	}
+}
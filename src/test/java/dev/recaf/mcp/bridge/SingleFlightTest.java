@@ -0,0 +1,184 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+	private final BridgeMetrics metrics = new BridgeMetrics(List.of());
+	private final AtomicReference<String> scope = new AtomicReference<>("1");
+	private final SingleFlight singleFlight = new SingleFlight(metrics, scope::get);
+	private final AtomicInteger runs = new AtomicInteger();
+	private final CountDownLatch leading = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Test
+	void identicalRequestsReplayTheLeadersResponse() throws Exception {
+		HttpHandler handler = singleFlight.wrap("/decompile", blocking(200));
+		LocalExchange leader = exchange("{\"className\":\"a/B\",\"workspaceId\":\"ws\"}");
+		Thread leaderThread = run(handler, leader);
+		assertTrue(leading.await(5, TimeUnit.SECONDS));
+
+		// Same body with its keys reordered and spaced differently
+		LocalExchange follower = exchange("{ \"workspaceId\": \"ws\", \"className\": \"a/B\" }");
+		Thread followerThread = run(handler, follower);
+		awaitTrue(() -> followerThread.getState() == Thread.State.WAITING);
+
+		release.countDown();
+		leaderThread.join(5000);
+		followerThread.join(5000);
+
+		assertEquals(1, runs.get());
+		assertEquals(200, follower.getResponseCode());
+		assertEquals(body(leader), body(follower));
+		assertEquals("\"tag-1\"", follower.getResponseHeaders().getFirst("ETag"));
+		assertNull(follower.getResponseHeaders().getFirst("Content-Length"));
+		assertEquals("coalesced", follower.getAttribute(BridgeServer.NOTE_ATTRIBUTE));
+		assertTrue(prometheus().contains("recaf_mcp_coalesced_requests_total 1\n"));
+	}
+
+	@Test
+	void differentRequestsRunOnTheirOwn() throws Exception {
+		HttpHandler handler = singleFlight.wrap("/decompile", blocking(200));
+		Thread leaderThread = run(handler, exchange("{\"className\":\"a/B\"}"));
+		assertTrue(leading.await(5, TimeUnit.SECONDS));
+
+		// A different body, and the same body in a different scope, do not wait for the blocked leader
+		Thread other = run(handler, exchange("{\"className\":\"a/C\"}"));
+		awaitTrue(() -> runs.get() == 2);
+		scope.set("2");
+		Thread rescoped = run(handler, exchange("{\"className\":\"a/B\"}"));
+		awaitTrue(() -> runs.get() == 3);
+
+		release.countDown();
+		for (Thread thread : List.of(leaderThread, other, rescoped)) thread.join(5000);
+		assertEquals(3, runs.get());
+		assertTrue(prometheus().contains("recaf_mcp_coalesced_requests_total 0\n"));
+	}
+
+	@Test
+	void requestsForDifferentWorkspacesRunOnTheirOwn() throws Exception {
+		HttpHandler handler = singleFlight.wrap("/decompile", blocking(200));
+		LocalExchange first = named("{\"className\":\"a/B\"}", "app-1");
+		Thread firstThread = run(handler, first);
+		assertTrue(leading.await(5, TimeUnit.SECONDS));
+
+		// Same body, such as two batch entries differing only in their workspaceId
+		LocalExchange second = named("{\"className\":\"a/B\"}", "app-2");
+		Thread secondThread = run(handler, second);
+		awaitTrue(() -> runs.get() == 2);
+
+		release.countDown();
+		firstThread.join(5000);
+		secondThread.join(5000);
+		assertEquals(2, runs.get());
+		assertNotEquals(body(first), body(second));
+		assertNull(second.getAttribute(BridgeServer.NOTE_ATTRIBUTE));
+	}
+
+	@Test
+	void followersOfARejectedLeaderRunOnTheirOwn() throws Exception {
+		HttpHandler handler = singleFlight.wrap("/decompile", blocking(503));
+		LocalExchange leader = exchange("{\"className\":\"a/B\"}");
+		Thread leaderThread = run(handler, leader);
+		assertTrue(leading.await(5, TimeUnit.SECONDS));
+
+		LocalExchange follower = exchange("{\"className\":\"a/B\"}");
+		Thread followerThread = run(handler, follower);
+		awaitTrue(() -> followerThread.getState() == Thread.State.WAITING);
+
+		release.countDown();
+		leaderThread.join(5000);
+		followerThread.join(5000);
+
+		// The follower did the work itself rather than share the leader's admission failure
+		assertEquals(2, runs.get());
+		assertEquals(503, follower.getResponseCode());
+		assertNull(follower.getAttribute(BridgeServer.NOTE_ATTRIBUTE));
+	}
+
+	@Test
+	void laterRequestsStartANewFlight() throws Exception {
+		release.countDown();
+		HttpHandler handler = singleFlight.wrap("/decompile", blocking(200));
+		LocalExchange first = exchange("{\"className\":\"a/B\"}");
+		handler.handle(first);
+		LocalExchange second = exchange("{\"className\":\"a/B\"}");
+		handler.handle(second);
+
+		assertEquals(2, runs.get());
+		assertEquals("{\"run\":1}", body(first));
+		assertEquals("{\"run\":2}", body(second));
+	}
+
+	/**
+	 * @return Handler answering with the given status once {@link #release} is counted down.
+	 */
+	private HttpHandler blocking(int status) {
+		return exchange -> {
+			int run = runs.incrementAndGet();
+			leading.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			exchange.getResponseHeaders().set("ETag", "\"tag-" + run + "\"");
+			BridgeServer.sendJson(exchange, status, "{\"run\":" + run + "}");
+		};
+	}
+
+	private static LocalExchange exchange(String body) {
+		return new LocalExchange("POST", URI.create("/decompile"), body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return Exchange naming a workspace by header, resolved the way the bridge resolves it ahead of coalescing.
+	 */
+	private static LocalExchange named(String body, String workspaceId) {
+		LocalExchange exchange = exchange(body);
+		exchange.getRequestHeaders().set(RequestContext.WORKSPACE_ID_HEADER, workspaceId);
+		RequestContext.of(exchange).setWorkspace(null, workspaceId);
+		return exchange;
+	}
+
+	private static Thread run(HttpHandler handler, LocalExchange exchange) {
+		Thread thread = new Thread(() -> {
+			try {
+				handler.handle(exchange);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	private static String body(LocalExchange exchange) {
+		return new String(exchange.getResponseBytes(), StandardCharsets.UTF_8);
+	}
+
+	private String prometheus() {
+		StringBuilder out = new StringBuilder();
+		metrics.writePrometheus(out);
+		return out.toString();
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.Test;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotsTest {
+	private final WorkspaceRegistry registry = new WorkspaceRegistry(() -> null);
+	private final Snapshots snapshots = new Snapshots(registry);
+	private final List<String> names = new ArrayList<>(List.of("a", "b", "c", "d", "e"));
+	private final AtomicInteger builds = new AtomicInteger();
+	private final Supplier<List<String>> builder = () -> {
+		builds.incrementAndGet();
+		return List.copyOf(names);
+	};
+
+	@Test
+	void pagesComeFromOneSnapshotWhileTheWorkspaceChanges() {
+		Workspace workspace = workspace();
+		registry.register("app.jar", workspace);
+
+		Snapshots.Page<String> first = page(workspace, null, 0, 2);
+		assertEquals(List.of("a", "b"), first.items());
+		assertEquals(5, first.total());
+		assertTrue(first.hasMore());
+
+		// A modification in between, the remaining pages still come from the first snapshot
+		registry.nextGeneration();
+		names.add(2, "bb");
+		names.remove("d");
+		registry.nextGeneration();
+
+		Snapshots.Page<String> second = page(workspace, first.nextCursor(), 0, 2);
+		assertEquals(List.of("c", "d"), second.items());
+		assertEquals(2, second.offset());
+		Snapshots.Page<String> last = page(workspace, second.nextCursor(), 0, 2);
+		assertEquals(List.of("e"), last.items());
+		assertFalse(last.hasMore());
+		assertNull(last.nextCursor());
+		assertEquals(1, builds.get());
+
+		// A new listing sees the change
+		assertEquals(List.of("a", "b", "bb", "c", "e"), page(workspace, null, 0, 10).items());
+		assertEquals(2, builds.get());
+	}
+
+	@Test
+	void snapshotsAreSharedWithinAGeneration() {
+		Workspace workspace = workspace();
+		registry.register("app.jar", workspace);
+		assertEquals(List.of("c", "d"), page(workspace, null, 2, 2).items());
+		assertEquals(List.of("e"), page(workspace, null, 4, 2).items());
+		assertEquals(1, builds.get());
+
+		// Same generation, but another workspace or another listing
+		Workspace other = workspace();
+		registry.register("lib.jar", other);
+		page(other, null, 0, 2);
+		snapshots.page(workspace, "other", null, 0, 2, Function.identity(), builder);
+		assertEquals(3, builds.get());
+	}
+
+	@Test
+	void pagingContinuesAfterTheLastItemOnceTheSnapshotIsGone() {
+		// Not registered, so its snapshots are never kept
+		Workspace workspace = workspace();
+		Snapshots.Page<String> first = page(workspace, null, 0, 2);
+		assertEquals(List.of("a", "b"), first.items());
+
+		registry.nextGeneration();
+		names.remove("b");
+		names.add(1, "ab");
+		names.add(2, "bb");
+		registry.nextGeneration();
+
+		Snapshots.Page<String> second = page(workspace, first.nextCursor(), 0, 2);
+		assertEquals(List.of("bb", "c"), second.items());
+		assertEquals(2, builds.get());
+	}
+
+	@Test
+	void snapshotsBuiltDuringAModificationAreNotKept() {
+		Workspace workspace = workspace();
+		registry.register("app.jar", workspace);
+		registry.nextGeneration();
+		page(workspace, null, 0, 2);
+		page(workspace, null, 0, 2);
+		assertEquals(2, builds.get());
+	}
+
+	private Snapshots.Page<String> page(Workspace workspace, String cursor, int offset, int limit) {
+		return snapshots.page(workspace, "classes", PageCursor.parse(cursor, "classes"), offset, limit,
+				Function.identity(), builder);
+	}
+
+	private static Workspace workspace() {
+		return new BasicWorkspace(new WorkspaceResourceBuilder().build());
+	}
+}
@@ -0,0 +1,157 @@
+package dev.recaf.mcp.bridge;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import dev.recaf.mcp.server.BridgeResponse;
+import dev.recaf.mcp.server.UnixSocketTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnixSocketServerTest {
+	private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+	private final AtomicInteger tasks = new AtomicInteger();
+	private final Path socketPath;
+	private final UnixSocketServer server;
+
+	UnixSocketServerTest() throws IOException {
+		socketPath = Files.createTempFile("bridge", ".sock");
+		server = new UnixSocketServer(socketPath, Map.of("/echo", UnixSocketServerTest::echo),
+				new CountingExecutor());
+		server.start();
+	}
+
+	@AfterEach
+	void stop() {
+		server.stop();
+		threads.shutdownNow();
+	}
+
+	@Test
+	void requestsShareOneKeptAliveConnection() throws Exception {
+		UnixSocketTransport transport = new UnixSocketTransport(socketPath);
+		try {
+			BridgeResponse first = transport.send("POST", "/echo?n=1", Map.of("X-Test", "a"),
+					"{\"a\":1}".getBytes(StandardCharsets.UTF_8), Duration.ofSeconds(5));
+			assertEquals(200, first.status());
+			assertEquals("POST n=1 a {\"a\":1}", first.body());
+			assertEquals("yes", first.header("X-Echo"));
+
+			BridgeResponse second = transport.send("GET", "/echo", Map.of(), null, Duration.ofSeconds(5));
+			assertEquals(200, second.status());
+			assertEquals("GET null null ", second.body());
+			// The accept loop and a single connection
+			assertEquals(2, tasks.get());
+
+			BridgeResponse unknown = transport.send("GET", "/missing", Map.of(), null, Duration.ofSeconds(5));
+			assertEquals(404, unknown.status());
+			assertEquals(2, tasks.get());
+		} finally {
+			transport.close();
+		}
+	}
+
+	@Test
+	void malformedTargetsAreAnsweredWithoutDroppingTheConnection() throws IOException {
+		try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			channel.connect(UnixDomainSocketAddress.of(socketPath));
+			OutputStream out = Channels.newOutputStream(channel);
+			BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+					StandardCharsets.ISO_8859_1));
+
+			out.write("GET /echo?%zz HTTP/1.1\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			assertEquals("HTTP/1.1 400 Error", in.readLine());
+			String body = readBody(in);
+			assertTrue(body.contains("INVALID_PARAMS"), body);
+
+			out.write("GET /echo?n=2 HTTP/1.1\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			assertEquals("HTTP/1.1 200 OK", in.readLine());
+			assertEquals("GET n=2 null ", readBody(in));
+
+			// A request line without a version ends the connection after the answer
+			out.write("GET /echo\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			assertEquals("HTTP/1.1 400 Error", in.readLine());
+			readBody(in);
+			assertEquals(-1, in.read());
+		}
+	}
+
+	private static String readBody(BufferedReader in) throws IOException {
+		int length = -1;
+		String line;
+		while (!(line = in.readLine()).isEmpty()) {
+			if (line.startsWith("Content-Length: ")) length = Integer.parseInt(line.substring(16));
+		}
+		char[] body = new char[length];
+		int read = 0;
+		while (read < length) read += in.read(body, read, length - read);
+		return new String(body);
+	}
+
+	private static void echo(HttpExchange exchange) throws IOException {
+		String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+		byte[] response = (exchange.getRequestMethod() + " " + exchange.getRequestURI().getQuery() + " "
+				+ exchange.getRequestHeaders().getFirst("X-Test") + " " + body).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("X-Echo", "yes");
+		exchange.sendResponseHeaders(200, response.length);
+		exchange.getResponseBody().write(response);
+		exchange.close();
+	}
+
+	/**
+	 * Counts the tasks the server runs: its accept loop and one per accepted connection.
+	 */
+	private final class CountingExecutor extends AbstractExecutorService {
+		@Override
+		public void execute(Runnable command) {
+			tasks.incrementAndGet();
+			threads.execute(command);
+		}
+
+		@Override
+		public void shutdown() {
+			threads.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return threads.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return threads.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return threads.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return threads.awaitTermination(timeout, unit);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceRegistryTest {
+	private final Path spillDirectory;
+	private final AtomicReference<Workspace> current = new AtomicReference<>();
+	private final WorkspaceRegistry registry;
+
+	WorkspaceRegistryTest() throws IOException {
+		spillDirectory = Files.createTempDirectory("spill");
+		registry = new WorkspaceRegistry(current::get, spillDirectory);
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		registry.close();
+		try (Stream<Path> files = Files.list(spillDirectory)) {
+			for (Path file : files.toList()) Files.delete(file);
+		}
+		Files.delete(spillDirectory);
+	}
+
+	@Test
+	void switchingTheCurrentWorkspaceAdvancesTheGeneration() {
+		Workspace first = workspace();
+		Workspace second = workspace();
+		registry.register("/tmp/first.jar", first);
+		registry.register("/tmp/second.jar", second);
+
+		long start = registry.getGeneration(null);
+		long generation = registry.getGeneration(first);
+		assertEquals(start + 2, generation);
+		assertEquals(generation, registry.getCurrentSince());
+		assertEquals(generation, registry.getGeneration(first));
+
+		long switched = registry.getGeneration(second);
+		assertEquals(generation + 2, switched);
+		assertEquals(switched, registry.getCurrentSince());
+		assertEquals(switched + 2, registry.getGeneration(null));
+	}
+
+	@Test
+	void workspaceReplacedUnderItsIdIsStillCurrent() {
+		Workspace placeholder = workspace();
+		String id = registry.register("/tmp/app.jar", placeholder);
+		long before = registry.getGeneration(placeholder);
+		long currentSince = registry.getCurrentSince();
+
+		Workspace imported = workspace();
+		assertTrue(registry.replace(id, placeholder, imported));
+		// The replacement advanced the generation, becoming current under the same ID does not again
+		assertEquals(before + 2, registry.getGeneration(imported));
+		assertEquals(currentSince, registry.getCurrentSince());
+	}
+
+	@Test
+	void workspacesOutsideTheRegistryAreToldApart() {
+		Workspace first = workspace();
+		Workspace second = workspace();
+		long generation = registry.getGeneration(first);
+		assertEquals(generation, registry.getGeneration(first));
+		assertEquals(generation + 2, registry.getGeneration(second));
+
+		// Registered later, such as after a synchronous open made it current first
+		registry.register("/tmp/second.jar", second);
+		assertEquals(generation + 4, registry.getGeneration(second));
+		assertEquals(generation + 4, registry.getGeneration(second));
+	}
+
+	@Test
+	void spilledWorkspacesAreRestoredOnGet() throws IOException {
+		Workspace workspace = workspace();
+		String id = registry.register("/tmp/app.jar", workspace);
+
+		assertTrue(registry.spill(id, 0));
+		assertFalse(registry.getAll().containsKey(id));
+		Path file = registry.getEvicted().get(id).file();
+		assertTrue(Files.exists(file));
+		assertEquals(1, registry.size());
+
+		Workspace restored = registry.get(id);
+		assertNotNull(restored);
+		assertNotSame(workspace, restored);
+		assertSame(restored, registry.getAll().get(id));
+		assertTrue(registry.getEvicted().isEmpty());
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void heldPinnedAndCurrentWorkspacesAreNotSpilled() throws IOException {
+		Workspace workspace = workspace();
+		String id = registry.register("/tmp/app.jar", workspace);
+
+		registry.hold(id);
+		assertFalse(registry.spill(id, 0));
+		registry.release(id);
+		registry.setPinned(id, true);
+		assertFalse(registry.spill(id, 0));
+		registry.setPinned(id, false);
+		current.set(workspace);
+		assertFalse(registry.spill(id, 0));
+		current.set(null);
+
+		assertSame(workspace, registry.getAll().get(id));
+		try (Stream<Path> files = Files.list(spillDirectory)) {
+			assertEquals(0, files.count());
+		}
+		assertTrue(registry.spill(id, 0));
+	}
+
+	@Test
+	void removingAnEvictedWorkspaceDeletesItsSpillFile() {
+		String id = registry.register("/tmp/app.jar", workspace());
+		assertTrue(registry.spill(id, 0));
+		Path file = registry.getEvicted().get(id).file();
+
+		assertNull(registry.remove(id));
+		assertFalse(Files.exists(file));
+		assertNull(registry.get(id));
+		assertEquals(0, registry.size());
+		assertFalse(registry.spill(id, 0));
+	}
+
+	private static Workspace workspace() {
+		return new BasicWorkspace(new WorkspaceResourceBuilder()
+				.withJvmClassBundle(new BasicJvmClassBundle())
+				.withFileBundle(new BasicFileBundle())
+				.build());
+	}
+}
@@ -0,0 +1,109 @@
+package dev.recaf.mcp.bridge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import software.coley.recaf.info.FileInfo;
+import software.coley.recaf.info.JvmClassInfo;
+import software.coley.recaf.info.builder.FileInfoBuilder;
+import software.coley.recaf.info.builder.JvmClassInfoBuilder;
+import software.coley.recaf.workspace.model.BasicWorkspace;
+import software.coley.recaf.workspace.model.Workspace;
+import software.coley.recaf.workspace.model.bundle.BasicFileBundle;
+import software.coley.recaf.workspace.model.bundle.BasicJvmClassBundle;
+import software.coley.recaf.workspace.model.bundle.FileBundle;
+import software.coley.recaf.workspace.model.bundle.JvmClassBundle;
+import software.coley.recaf.workspace.model.resource.WorkspaceResource;
+import software.coley.recaf.workspace.model.resource.WorkspaceResourceBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceSpillTest {
+	private final Path file;
+
+	WorkspaceSpillTest() throws IOException {
+		file = Files.createTempFile("workspace", ".spill");
+	}
+
+	@AfterEach
+	void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	void contentsSurviveARoundTrip() throws IOException {
+		WorkspaceResource primary = resource(List.of(classInfo("com/example/Foo"), classInfo("com/example/Foo$Inner")),
+				List.of(fileInfo("META-INF/MANIFEST.MF", "Manifest-Version: 1.0"), fileInfo("a/b/c.txt", "")));
+		WorkspaceResource empty = resource(List.of(), List.of());
+		WorkspaceResource library = resource(List.of(classInfo("org/lib/Bar")), List.of(fileInfo("lib.properties", "x=1")));
+		Workspace workspace = new BasicWorkspace(primary, List.of(empty, library));
+		assertNull(WorkspaceSpill.unsupportedContent(workspace));
+
+		WorkspaceSpill.write(workspace, file);
+		Workspace restored = WorkspaceSpill.read(file);
+
+		assertResource(primary, restored.getPrimaryResource());
+		// Empty resources keep their place, so libraries come back in order
+		assertEquals(2, restored.getSupportingResources().size());
+		assertResource(empty, restored.getSupportingResources().get(0));
+		assertResource(library, restored.getSupportingResources().get(1));
+	}
+
+	@Test
+	void malformedFilesAreRejected() throws IOException {
+		Files.write(file, "not a zip".getBytes(StandardCharsets.UTF_8));
+		assertThrows(IOException.class, () -> WorkspaceSpill.read(file));
+	}
+
+	private static void assertResource(WorkspaceResource expected, WorkspaceResource actual) {
+		assertEquals(classes(expected.getJvmClassBundle()), classes(actual.getJvmClassBundle()));
+		assertEquals(files(expected.getFileBundle()), files(actual.getFileBundle()));
+	}
+
+	private static Map<String, String> classes(JvmClassBundle bundle) {
+		Map<String, String> classes = new TreeMap<>();
+		for (JvmClassInfo classInfo : bundle.values()) {
+			classes.put(classInfo.getName(), new String(classInfo.getBytecode(), StandardCharsets.ISO_8859_1));
+		}
+		return classes;
+	}
+
+	private static Map<String, String> files(FileBundle bundle) {
+		Map<String, String> files = new TreeMap<>();
+		for (FileInfo fileInfo : bundle.values()) {
+			files.put(fileInfo.getName(), new String(fileInfo.getRawContent(), StandardCharsets.UTF_8));
+		}
+		return files;
+	}
+
+	private static WorkspaceResource resource(List<JvmClassInfo> classes, List<FileInfo> files) {
+		JvmClassBundle classBundle = new BasicJvmClassBundle();
+		for (JvmClassInfo classInfo : classes) classBundle.put(classInfo);
+		FileBundle fileBundle = new BasicFileBundle();
+		for (FileInfo fileInfo : files) fileBundle.put(fileInfo);
+		return new WorkspaceResourceBuilder()
+				.withJvmClassBundle(classBundle)
+				.withFileBundle(fileBundle)
+				.build();
+	}
+
+	private static FileInfo fileInfo(String name, String content) {
+		return new FileInfoBuilder<>().withName(name).withRawContent(content.getBytes(StandardCharsets.UTF_8)).build();
+	}
+
+	private static JvmClassInfo classInfo(String name) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		writer.visitEnd();
+		return new JvmClassInfoBuilder(writer.toByteArray()).build();
+	}
+}
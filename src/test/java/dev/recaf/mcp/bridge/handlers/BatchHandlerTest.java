@@ -0,0 +1,157 @@
+package dev.recaf.mcp.bridge.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpHandler;
+import dev.recaf.mcp.bridge.BridgeServer;
+import dev.recaf.mcp.bridge.EndpointGroup;
+import dev.recaf.mcp.bridge.LocalExchange;
+import dev.recaf.mcp.bridge.RequestContext;
+import dev.recaf.mcp.bridge.Route;
+import dev.recaf.mcp.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchHandlerTest {
+	private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+	private final Map<String, Route> routes = new LinkedHashMap<>();
+
+	@Test
+	void mutatingEntriesRunAloneBetweenTheReadsAroundThem() throws Exception {
+		// Both reads must be running at once to pass the barrier, so they only finish when run in parallel
+		CyclicBarrier bothReading = new CyclicBarrier(2);
+		route("/read1", false, () -> bothReading.await(5, TimeUnit.SECONDS));
+		route("/read2", false, () -> bothReading.await(5, TimeUnit.SECONDS));
+		route("/write", true, () -> {});
+		route("/read3", false, () -> {});
+
+		JsonArray results = batch("/read1", "/read2", "/write", "/read3", "/read1", "/read2");
+
+		assertEquals(List.of("start /read1", "start /read2"), sorted(events.subList(0, 2)));
+		assertEquals(List.of("end /read1", "end /read2"), sorted(events.subList(2, 4)));
+		assertEquals(List.of("start /write", "end /write"), events.subList(4, 6));
+		assertEquals(List.of("end /read1", "end /read2", "end /read3"), sorted(ends(events.subList(6, 12))));
+		assertEquals(12, events.size());
+
+		// Results come back in request order, whatever order the entries finished in
+		assertEquals(6, results.size());
+		String[] paths = {"/read1", "/read2", "/write", "/read3", "/read1", "/read2"};
+		for (int i = 0; i < paths.length; i++) {
+			JsonObject result = results.get(i).getAsJsonObject();
+			assertEquals(String.valueOf(i), result.get("id").getAsString());
+			assertEquals(paths[i], result.get("path").getAsString());
+			assertEquals(200, result.get("httpStatus").getAsInt());
+			assertEquals(paths[i], result.getAsJsonObject("response").get("path").getAsString());
+		}
+	}
+
+	@Test
+	void sequentialBatchesRunOneEntryAtATime() throws Exception {
+		route("/read1", false, () -> {});
+		route("/read2", false, () -> {});
+
+		batch(false, "/read1", "/read2", "/read1");
+
+		assertEquals(List.of("start /read1", "end /read1", "start /read2", "end /read2", "start /read1", "end /read1"),
+				events);
+	}
+
+	@Test
+	void invalidEntriesAreAnsweredInPlace() throws Exception {
+		route("/read1", false, () -> {});
+
+		JsonArray results = batch("/read1", "/missing", "/read1");
+
+		assertEquals(200, results.get(0).getAsJsonObject().get("httpStatus").getAsInt());
+		JsonObject missing = results.get(1).getAsJsonObject();
+		assertEquals(400, missing.get("httpStatus").getAsInt());
+		assertEquals("INVALID_PARAMS", missing.getAsJsonObject("response").get("code").getAsString());
+		assertEquals(200, results.get(2).getAsJsonObject().get("httpStatus").getAsInt());
+		assertEquals(4, events.size());
+	}
+
+	@Test
+	void entriesNameTheirWorkspaceInAHeader() throws Exception {
+		routes.put("/read1", new Route("/read1", EndpointGroup.DEFAULT, false, exchange -> {
+			events.add(String.valueOf(exchange.getRequestHeaders().getFirst(RequestContext.WORKSPACE_ID_HEADER)));
+			BridgeServer.sendJson(exchange, 200, "{}");
+		}));
+		JsonObject named = new JsonObject();
+		named.addProperty("path", "/read1");
+		named.addProperty("workspaceId", "app-1");
+		JsonObject unnamed = new JsonObject();
+		unnamed.addProperty("path", "/read1");
+		JsonArray requests = new JsonArray();
+		requests.add(named);
+		requests.add(unnamed);
+		JsonObject body = new JsonObject();
+		body.add("requests", requests);
+		body.addProperty("parallel", false);
+
+		new BatchHandler(routes).handle(new LocalExchange("POST", URI.create("/batch"),
+				body.toString().getBytes(StandardCharsets.UTF_8)));
+		assertEquals(List.of("app-1", "null"), events);
+	}
+
+	private void route(String path, boolean mutating, Step step) {
+		HttpHandler handler = exchange -> {
+			events.add("start " + path);
+			try {
+				step.run();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			events.add("end " + path);
+			BridgeServer.sendJson(exchange, 200, "{\"path\":\"" + path + "\"}");
+		};
+		routes.put(path, new Route(path, EndpointGroup.DEFAULT, mutating, handler));
+	}
+
+	private JsonArray batch(String... paths) throws Exception {
+		return batch(true, paths);
+	}
+
+	private JsonArray batch(boolean parallel, String... paths) throws Exception {
+		JsonArray requests = new JsonArray();
+		for (String path : paths) {
+			JsonObject request = new JsonObject();
+			request.addProperty("path", path);
+			requests.add(request);
+		}
+		JsonObject body = new JsonObject();
+		body.add("requests", requests);
+		body.addProperty("parallel", parallel);
+
+		LocalExchange exchange = new LocalExchange("POST", URI.create("/batch"),
+				body.toString().getBytes(StandardCharsets.UTF_8));
+		new BatchHandler(routes).handle(exchange);
+		assertEquals(200, exchange.getResponseCode());
+		JsonObject response = JsonUtil.parseObject(new String(exchange.getResponseBytes(), StandardCharsets.UTF_8));
+		return response.getAsJsonObject("data").getAsJsonArray("results");
+	}
+
+	private static List<String> sorted(List<String> list) {
+		List<String> copy = new ArrayList<>(list);
+		Collections.sort(copy);
+		return copy;
+	}
+
+	private static List<String> ends(List<String> list) {
+		return list.stream().filter(event -> event.startsWith("end ")).toList();
+	}
+
+	private interface Step {
+		void run() throws Exception;
+	}
+}
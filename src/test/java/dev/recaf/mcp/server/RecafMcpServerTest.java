@@ -0,0 +1,126 @@
+package dev.recaf.mcp.server;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecafMcpServerTest {
+	@Test
+	void cachedResultsOfUnchangedClassesSurviveAnOutsideChange() {
+		FakeBridge bridge = new FakeBridge();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// Nothing is trusted without asking, so every call revalidates
+		RecafMcpServer server = new RecafMcpServer(new BridgeClient(bridge), new ResponseCache(16, 1 << 20, 0),
+				new ByteArrayInputStream(new byte[0]), out);
+
+		server.handleRequest(decompile(1, "com/A"));
+		server.handleRequest(decompile(2, "com/B"));
+		assertEquals(1, bridge.decompiles("com/A"));
+		assertEquals(1, bridge.decompiles("com/B"));
+
+		// Edited in Recaf's UI, unseen by the server
+		bridge.generation = 4;
+		server.handleRequest(decompile(3, "com/A"));
+		server.handleRequest(decompile(4, "com/B"));
+
+		assertTrue(bridge.requests.contains("GET /workspace/changes?since=2"), bridge.requests.toString());
+		assertEquals(1, bridge.decompiles("com/A"), "com/A did not change, its result is carried over");
+		assertEquals(2, bridge.decompiles("com/B"));
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals(4, lines.size());
+		assertTrue(lines.get(2).contains("com/A at 2"), lines.get(2));
+		assertTrue(lines.get(3).contains("com/B at 4"), lines.get(3));
+	}
+
+	@Test
+	void resultsMentioningErrorAreNoErrors() {
+		FakeBridge bridge = new FakeBridge();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RecafMcpServer server = new RecafMcpServer(new BridgeClient(bridge), new ResponseCache(16, 1 << 20, 60_000),
+				new ByteArrayInputStream(new byte[0]), out);
+
+		// com/A has a method named error
+		server.handleRequest(call(1, "class_outline", "com/A"));
+		server.handleRequest(call(2, "class_outline", "com/A"));
+		server.handleRequest(call(3, "class_outline", "com/Missing"));
+
+		assertEquals(1, bridge.requests.stream().filter(r -> r.startsWith("POST /workspace/outline")
+				&& r.contains("com/A")).count(), "the outline is cached like any other");
+		List<JsonObject> responses = out.toString(StandardCharsets.UTF_8).lines()
+				.map(line -> JsonParser.parseString(line).getAsJsonObject().getAsJsonObject("result")).toList();
+		assertFalse(responses.get(0).get("isError").getAsBoolean());
+		assertFalse(responses.get(1).get("isError").getAsBoolean());
+		assertTrue(responses.get(2).get("isError").getAsBoolean());
+	}
+
+	private static JsonObject decompile(int id, String className) {
+		return call(id, "decompile_class", className);
+	}
+
+	private static JsonObject call(int id, String tool, String className) {
+		return JsonParser.parseString("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"" + tool + "\",\"arguments\":{\"className\":\"" + className + "\"}}}")
+				.getAsJsonObject();
+	}
+
+	/**
+	 * Bridge holding classes {@code com/A} and {@code com/B}, of which only {@code com/B} changes after generation 2.
+	 * The outline of {@code com/A} has a method named {@code error}.
+	 */
+	private static final class FakeBridge implements BridgeTransport {
+		private final List<String> requests = new ArrayList<>();
+		private volatile long generation = 2;
+
+		@Override
+		public synchronized BridgeResponse send(String method, String path, Map<String, String> headers, byte[] body,
+												Duration timeout) {
+			requests.add(method + " " + (body == null ? path : path + " " + new String(body, StandardCharsets.UTF_8)));
+			String data;
+			if (path.equals("/ready")) {
+				data = "{\"ready\":true}";
+			} else if (path.startsWith("/workspace/changes?since=")) {
+				long since = Long.parseLong(path.substring(path.indexOf('=') + 1));
+				String changes = since < 4 && generation >= 4
+						? "{\"generation\":3,\"kind\":\"class\",\"action\":\"replaced\",\"name\":\"com/B\"}" : "";
+				data = "{\"since\":" + since + ",\"generation\":" + generation + ",\"reset\":false,\"changes\":["
+						+ changes + "]}";
+			} else if (path.equals("/workspace/generation")) {
+				data = "{\"generation\":" + generation + "}";
+			} else if (path.equals("/workspace/outline") && body != null
+					&& new String(body, StandardCharsets.UTF_8).contains("com/A")) {
+				data = "{\"className\":\"com/A\",\"methods\":[{\"name\":\"error\",\"descriptor\":\"()V\"}]}";
+			} else if (path.equals("/workspace/outline")) {
+				return new BridgeResponse(404, Map.of("x-workspace-generation", Long.toString(generation)),
+						"{\"status\":\"error\",\"code\":\"CLASS_NOT_FOUND\",\"message\":\"Class not found\"}");
+			} else if (path.startsWith("/decompile")) {
+				String className = JsonParser.parseString(new String(body, StandardCharsets.UTF_8))
+						.getAsJsonObject().get("className").getAsString();
+				data = "{\"className\":\"" + className + "\",\"source\":\"" + className + " at " + generation + "\"}";
+			} else {
+				return new BridgeResponse(404, Map.of(), "{\"status\":\"error\",\"message\":\"Not found\"}");
+			}
+			return new BridgeResponse(200, Map.of("x-workspace-generation", Long.toString(generation)),
+					"{\"status\":\"ok\",\"data\":" + data + "}");
+		}
+
+		synchronized long decompiles(String className) {
+			return requests.stream().filter(r -> r.startsWith("POST /decompile") && r.contains('"' + className + '"'))
+					.count();
+		}
+
+		@Override
+		public String describe() {
+			return "fake bridge";
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package dev.recaf.mcp.server;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+	@Test
+	void resultsAreReusedOnlyAtTheirGeneration() {
+		ResponseCache cache = new ResponseCache(16, 1024, 60_000);
+		assertTrue(cache.needsRevalidation());
+		cache.put("a", "class:a/A", 2, "result-a");
+		assertFalse(cache.needsRevalidation());
+		assertEquals(2, cache.generation());
+		assertEquals("result-a", cache.get("a"));
+
+		// A late report of an older generation does not move it back
+		cache.observe(0);
+		assertEquals(2, cache.generation());
+		assertEquals("result-a", cache.get("a"));
+
+		cache.observe(4);
+		assertNull(cache.get("a"));
+		assertFalse(cache.hasResultsOf(2));
+	}
+
+	@Test
+	void resultsOfUnsettledOrOutdatedGenerationsAreNotCached() {
+		ResponseCache cache = new ResponseCache(16, 1024, 60_000);
+		// Computed while a modification was in progress
+		cache.put("a", "", 3, "result-a");
+		assertNull(cache.get("a"));
+
+		cache.observe(6);
+		cache.put("b", "", 4, "result-b");
+		assertNull(cache.get("b"));
+		assertFalse(cache.hasResultsOf(4));
+	}
+
+	@Test
+	void expiringRequiresTheGenerationToBeConfirmed() {
+		ResponseCache cache = new ResponseCache(16, 1024, 60_000);
+		cache.observe(2);
+		assertFalse(cache.needsRevalidation());
+		cache.expire();
+		assertTrue(cache.needsRevalidation());
+		cache.observe(2);
+		assertFalse(cache.needsRevalidation());
+	}
+
+	@Test
+	void leastRecentlyUsedResultsAreEvicted() {
+		ResponseCache cache = new ResponseCache(2, 1024, 60_000);
+		cache.put("a", "", 2, "result-a");
+		cache.put("b", "", 2, "result-b");
+		assertEquals("result-a", cache.get("a"));
+		cache.put("c", "", 2, "result-c");
+		assertEquals("result-a", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals("result-c", cache.get("c"));
+
+		ResponseCache small = new ResponseCache(16, 10, 60_000);
+		small.put("a", "", 2, "12345");
+		small.put("b", "", 2, "123456");
+		assertNull(small.get("a"));
+		assertEquals("123456", small.get("b"));
+		// Larger than the whole cache, never kept
+		small.put("c", "", 2, "12345678901");
+		assertNull(small.get("c"));
+		assertEquals("123456", small.get("b"));
+	}
+
+	@Test
+	void unaffectedResultsAreCarriedOver() {
+		ResponseCache cache = new ResponseCache(16, 1024, 60_000);
+		cache.put("foo", "class:com/Foo", 2, "foo");
+		cache.put("bar", "class:com/Bar", 2, "bar");
+		cache.put("outer", "class:com/Baz", 2, "outer");
+		cache.put("file", "file:META-INF/MANIFEST.MF", 2, "file");
+		cache.put("list", "", 2, "list");
+		cache.put("named", null, 2, "named");
+
+		cache.carryOver(2, 4, Set.of("com/Bar", "com/Baz$Inner"), Set.of());
+		cache.observe(4);
+		assertEquals("foo", cache.get("foo"));
+		assertEquals("file", cache.get("file"));
+		assertNull(cache.get("bar"));
+		// Inner classes are part of their outer class's decompilation
+		assertNull(cache.get("outer"));
+		assertNull(cache.get("list"));
+		assertNull(cache.get("named"));
+	}
+
+	@Test
+	void everythingButNamedWorkspacesIsCarriedOverWhenNothingChanged() {
+		ResponseCache cache = new ResponseCache(16, 1024, 60_000);
+		cache.put("foo", "class:com/Foo", 2, "foo");
+		cache.put("list", "", 2, "list");
+		cache.put("named", null, 2, "named");
+		cache.carryOver(2, 6, Set.of(), Set.of());
+		cache.observe(6);
+		assertEquals("foo", cache.get("foo"));
+		assertEquals("list", cache.get("list"));
+		assertNull(cache.get("named"));
+	}
+
+	@Test
+	void carryOverToAnUnsettledGenerationIsIgnored() {
+		ResponseCache cache = new ResponseCache(16, 1024, 60_000);
+		cache.put("foo", "class:com/Foo", 2, "foo");
+		cache.carryOver(2, 5, Set.of(), Set.of());
+		assertTrue(cache.hasResultsOf(2));
+		assertFalse(cache.hasResultsOf(5));
+	}
+
+	@Test
+	void dependenciesFollowTheToolArguments() {
+		assertEquals("class:com/example/Foo", ResponseCache.dependency("decompile_class", args("className", "com.example.Foo")));
+		assertEquals("file:a/b.txt", ResponseCache.dependency("read_file", args("path", "a/b.txt")));
+		assertEquals("", ResponseCache.dependency("search_code", args("query", "Foo")));
+		assertNull(ResponseCache.dependency("decompile_class", args("workspaceId", "ws-1")));
+		assertNotEquals(ResponseCache.key("a", args("x", "1")), ResponseCache.key("a", args("x", "2")));
+	}
+
+	@Test
+	void workspaceListingsAreNeverCached() {
+		ResponseCache cache = new ResponseCache(16, 1 << 20, 60_000);
+		// Pinning and eviction change them without a new generation
+		assertFalse(cache.isCacheable("list_workspaces"));
+		assertTrue(cache.isCacheable("list_classes"));
+	}
+
+	private static JsonObject args(String name, String value) {
+		JsonObject args = new JsonObject();
+		args.addProperty(name, value);
+		return args;
+	}
+}
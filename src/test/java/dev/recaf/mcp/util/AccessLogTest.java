@@ -0,0 +1,153 @@
+package dev.recaf.mcp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogTest {
+	@Test
+	void entriesKeepTheirOrderAcrossManyLaps() throws InterruptedException {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		AccessLog log = new AccessLog("test", (level, line) -> lines.add(line), AccessLog.Level.DEBUG, 1, 1000, 4);
+		try {
+			for (int i = 0; i < 20; i++) {
+				log.message(AccessLog.Level.INFO, "entry-" + i);
+				int expected = i + 1;
+				// One at a time, so the 4-slot ring laps five times without dropping
+				awaitTrue(() -> lines.size() == expected);
+			}
+		} finally {
+			log.close();
+		}
+		assertEquals(0, log.getDropped());
+		assertEquals(20, lines.size());
+		for (int i = 0; i < 20; i++) {
+			assertTrue(lines.get(i).endsWith(" INFO test entry-" + i), lines.get(i));
+		}
+	}
+
+	@Test
+	void entriesBeyondAFullRingAreDroppedAndReported() throws InterruptedException {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		CountDownLatch flushing = new CountDownLatch(1);
+		CountDownLatch unblock = new CountDownLatch(1);
+		AccessLog log = new AccessLog("test", (level, line) -> {
+			if (line.endsWith("entry-0")) {
+				flushing.countDown();
+				await(unblock);
+			}
+			lines.add(level + "|" + line);
+		}, AccessLog.Level.DEBUG, 1, 1000, 4);
+		try {
+			log.message(AccessLog.Level.INFO, "entry-0");
+			// The flusher released the slot of entry 0 and is stuck writing it
+			assertTrue(flushing.await(5, TimeUnit.SECONDS));
+			for (int i = 1; i <= 10; i++) log.message(AccessLog.Level.INFO, "entry-" + i);
+			assertEquals(6, log.getDropped());
+			unblock.countDown();
+		} finally {
+			log.close();
+		}
+		assertEquals(6, lines.size(), String.valueOf(lines));
+		for (int i = 0; i <= 4; i++) assertTrue(lines.get(i).endsWith(" entry-" + i), lines.get(i));
+		assertEquals("WARN|test dropped 6 access log entries, the flusher could not keep up", lines.get(5));
+	}
+
+	@Test
+	void requestsAreFormattedOnOneLine() throws InterruptedException {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		AccessLog log = new AccessLog("bridge", (level, line) -> lines.add(line), AccessLog.Level.DEBUG, 1, 1000, 8);
+		try {
+			log.request("POST", "/decompile", 200, 1_560_000, 42, "req-1", "cached");
+			log.request("tools/call", "search_code", 0, 12_000_000_000L, -1, null, null);
+		} finally {
+			log.close();
+		}
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z "
+				+ "INFO bridge POST /decompile 200 1\\.5ms 42B id=req-1 cached"), lines.get(0));
+		assertTrue(lines.get(1).endsWith("Z INFO bridge tools/call search_code 12000.0ms"), lines.get(1));
+	}
+
+	@Test
+	void levelFollowsStatusAndMinimumLevelFilters() throws InterruptedException {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		AccessLog log = new AccessLog("test", (level, line) -> lines.add(level + "|" + line), AccessLog.Level.WARN, 1,
+				1000, 8);
+		try {
+			assertFalse(log.isEnabled(AccessLog.Level.INFO));
+			assertTrue(log.isEnabled(AccessLog.Level.ERROR));
+			log.request("GET", "/ok", 200, 0, 0, null, null);
+			log.request("GET", "/missing", 404, 0, 0, null, null);
+			log.request("GET", "/broken", 500, 0, 0, null, null);
+			log.message(AccessLog.Level.DEBUG, "hidden");
+		} finally {
+			log.close();
+		}
+		assertEquals(2, lines.size(), String.valueOf(lines));
+		assertTrue(lines.get(0).startsWith("WARN|") && lines.get(0).contains(" /missing 404 "), lines.get(0));
+		assertTrue(lines.get(1).startsWith("ERROR|") && lines.get(1).contains(" /broken 500 "), lines.get(1));
+	}
+
+	@Test
+	void samplingKeepsFailuresAndSlowRequests() throws InterruptedException {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		AccessLog log = new AccessLog("test", (level, line) -> lines.add(line), AccessLog.Level.DEBUG, 3, 1000, 64);
+		try {
+			for (int i = 0; i < 9; i++) log.request("GET", "/fast", 200, 0, 0, null, null);
+			log.request("GET", "/slow", 200, TimeUnit.SECONDS.toNanos(2), 0, null, null);
+			log.request("GET", "/missing", 404, 0, 0, null, null);
+		} finally {
+			log.close();
+		}
+		assertEquals(3, lines.stream().filter(line -> line.contains(" /fast ")).count());
+		assertEquals(1, lines.stream().filter(line -> line.contains(" /slow ")).count());
+		assertEquals(1, lines.stream().filter(line -> line.contains(" /missing ")).count());
+	}
+
+	@Test
+	void failingSinkDoesNotStopTheFlusher() throws InterruptedException {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		AccessLog log = new AccessLog("test", (level, line) -> {
+			if (line.endsWith("bad")) throw new IllegalStateException("sink failure");
+			lines.add(line);
+		}, AccessLog.Level.DEBUG, 1, 1000, 8);
+		try {
+			log.message(AccessLog.Level.INFO, "bad");
+			log.message(AccessLog.Level.INFO, "good");
+		} finally {
+			log.close();
+		}
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).endsWith(" good"));
+	}
+
+	@Test
+	void levelsParseIgnoringCase() {
+		assertEquals(AccessLog.Level.WARN, AccessLog.Level.parse(" warn ", AccessLog.Level.INFO));
+		assertEquals(AccessLog.Level.INFO, AccessLog.Level.parse("verbose", AccessLog.Level.INFO));
+		assertEquals(AccessLog.Level.DEBUG, AccessLog.Level.parse(null, AccessLog.Level.DEBUG));
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(1);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}